@@ -0,0 +1,147 @@
+package com.example.dispatch.benchmark;
+
+import com.example.dispatch.constant.LocationConstants;
+import com.example.dispatch.model.GeTruckDrivingRecord;
+import com.example.dispatch.model.SimulationScenario;
+import com.example.dispatch.model.Truck;
+import com.example.dispatch.service.DispatchClock;
+import com.example.dispatch.service.EnergyConsumptionService;
+import com.example.dispatch.service.SOCCalculationService;
+import com.example.dispatch.service.TestDataService;
+import com.example.dispatch.service.VehicleTrackingService;
+import com.example.dispatch.telemetry.InMemoryTelemetryStore;
+import com.example.dispatch.telemetry.TelemetryStore;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基准测试的服务和数据
+ * 按Spring注入关系手工组装调度服务，遥测数据使用{@link InMemoryTelemetryStore}，调度时钟固定在模拟当天8:00，
+ * 合成车队的当前状态和30分钟历史轨迹写入进程内存储，测得的是调度计算本身的耗时，不包含Redis访问
+ */
+public class BenchmarkContext {
+
+    public static final LocalDate SIMULATION_DATE = LocalDate.of(2025, 6, 10);
+    public static final LocalDateTime NOW = SIMULATION_DATE.atTime(8, 0);
+    private static final int HISTORY_POINTS = 60;          // 历史轨迹点数（30分钟，每30秒一个点）
+
+    private final TelemetryStore telemetryStore = new InMemoryTelemetryStore();
+    private final DispatchClock dispatchClock = new DispatchClock(NOW.toString());
+    private final EnergyConsumptionService energyConsumptionService = new EnergyConsumptionService();
+    private final VehicleTrackingService vehicleTrackingService = new VehicleTrackingService();
+    private final SOCCalculationService socCalculationService = new SOCCalculationService();
+    private final TestDataService testDataService = new TestDataService();
+
+    public BenchmarkContext() {
+        inject(energyConsumptionService, "telemetryStore", telemetryStore);
+        inject(energyConsumptionService, "dispatchClock", dispatchClock);
+        inject(vehicleTrackingService, "telemetryStore", telemetryStore);
+        inject(vehicleTrackingService, "energyConsumptionService", energyConsumptionService);
+        inject(vehicleTrackingService, "dispatchClock", dispatchClock);
+        inject(socCalculationService, "energyConsumptionService", energyConsumptionService);
+        inject(testDataService, "telemetryStore", telemetryStore);
+    }
+
+    /**
+     * 生成合成车队并写入遥测数据
+     * 车辆分布在装货点到卸货点的不同位置，SOC在30%~90%之间
+     * @param truckCount 车辆数
+     * @return 包含全部车辆的模拟场景
+     */
+    public SimulationScenario seedFleet(int truckCount) {
+        SimulationScenario scenario = new SimulationScenario();
+        scenario.setName("benchmark-" + truckCount);
+        scenario.setSimulationDate(SIMULATION_DATE);
+        for (int i = 0; i < truckCount; i++) {
+            String truckNo = truckNo(i);
+            double soc = 30 + (i * 37) % 61;
+            double progress = (i % 10) / 10.0;
+            seedTruck(truckNo, soc, progress);
+            scenario.getTrucks().add(new Truck(truckNo, BigDecimal.valueOf(soc), LocationConstants.DEFAULT_BATTERY_CAPACITY_DECIMAL_KWH));
+        }
+        return scenario;
+    }
+
+    /**
+     * 写入一辆车的当前状态和历史轨迹：最近30分钟从装货点驶向卸货点，当前到达指定进度
+     * @param progress 当前位置占装货点到卸货点路程的比例
+     */
+    public void seedTruck(String truckNo, double soc, double progress) {
+        List<GeTruckDrivingRecord> history = new ArrayList<>();
+        GeTruckDrivingRecord current = null;
+        for (int i = 0; i < HISTORY_POINTS; i++) {
+            double pointProgress = progress * i / (HISTORY_POINTS - 1);
+            current = drivingRecord(truckNo, pointProgress, soc + (HISTORY_POINTS - 1 - i) * 0.05,
+                    NOW.minusSeconds((HISTORY_POINTS - 1 - i) * 30L));
+            current.setTotalDrivingKm(BigDecimal.valueOf(12000 + pointProgress * LocationConstants.LOADING_TO_UNLOADING_DISTANCE_KM));
+            current.setTotalPowerConsumption(BigDecimal.valueOf(8000 + pointProgress * 35.0));
+            history.add(current);
+        }
+        telemetryStore.replaceHistory(truckNo, history);
+        telemetryStore.putCurrentStatus(current);
+    }
+
+    /**
+     * 创建一条遥测记录
+     * @param progress 位置占装货点到卸货点路程的比例
+     */
+    public static GeTruckDrivingRecord drivingRecord(String truckNo, double progress, double soc, LocalDateTime reportTime) {
+        double lat = LocationConstants.LOADING_POINT.getLatitude()
+                + (LocationConstants.UNLOADING_POINT.getLatitude() - LocationConstants.LOADING_POINT.getLatitude()) * progress;
+        double lon = LocationConstants.LOADING_POINT.getLongitude()
+                + (LocationConstants.UNLOADING_POINT.getLongitude() - LocationConstants.LOADING_POINT.getLongitude()) * progress;
+
+        GeTruckDrivingRecord record = new GeTruckDrivingRecord();
+        record.setTruckNo(truckNo);
+        record.setLat(BigDecimal.valueOf(lat));
+        record.setLon(BigDecimal.valueOf(lon));
+        record.setSoc(BigDecimal.valueOf(soc));
+        record.setSpeed(BigDecimal.valueOf(45.0));
+        record.setReportTime(reportTime);
+        record.setEngineStatus(1);
+        record.setTotalDrivingKm(new BigDecimal("12345.67"));
+        record.setTotalPowerConsumption(new BigDecimal("8765.43"));
+        record.setAveragePowerConsumption(new BigDecimal("140.0"));
+        record.setSource("BENCHMARK");
+        record.setCreateTime(reportTime);
+        return record;
+    }
+
+    public static String truckNo(int index) {
+        return String.format("BM%05d", index);
+    }
+
+    public TelemetryStore getTelemetryStore() {
+        return telemetryStore;
+    }
+
+    public VehicleTrackingService getVehicleTrackingService() {
+        return vehicleTrackingService;
+    }
+
+    public SOCCalculationService getSocCalculationService() {
+        return socCalculationService;
+    }
+
+    public TestDataService getTestDataService() {
+        return testDataService;
+    }
+
+    /**
+     * 按字段名注入依赖（服务使用@Autowired字段注入）
+     */
+    private static void inject(Object target, String fieldName, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("无法注入 " + target.getClass().getSimpleName() + "." + fieldName, e);
+        }
+    }
+}
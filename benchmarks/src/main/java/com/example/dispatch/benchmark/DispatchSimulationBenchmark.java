@@ -0,0 +1,54 @@
+package com.example.dispatch.benchmark;
+
+import com.example.dispatch.DispatchSimulation;
+import com.example.dispatch.model.SimulationScenario;
+import com.example.dispatch.simulation.DeterministicTravelModel;
+import com.example.dispatch.simulation.RoadNetwork;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 完整调度模拟基准
+ * 与定时任务完整重建计划的路径相同：从（进程内）遥测数据存储读取每辆车的状态和轨迹、分析路径、分配货物、优化换电时机并运行事件循环
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DispatchSimulationBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    private int trucks;
+
+    private BenchmarkContext context;
+    private SimulationScenario scenario;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext();
+        scenario = context.seedFleet(trucks);
+    }
+
+    @Benchmark
+    public LocalDateTime startSimulation() {
+        DispatchSimulation simulation = new DispatchSimulation(context.getVehicleTrackingService(), context.getSocCalculationService(),
+                context.getTestDataService(), scenario, DeterministicTravelModel.INSTANCE, RoadNetwork.DEFAULT);
+        simulation.startSimulation();
+        return simulation.getCompletionTime();
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.dispatch.benchmark;
+
+import cn.hutool.json.JSONUtil;
+import com.example.dispatch.model.GeTruckDrivingRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 遥测记录JSON解析基准
+ * 与读取Redis中车辆当前状态和历史轨迹时的解析方式相同（hutool JSONUtil.toBean）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DrivingRecordParseBenchmark {
+
+    private String json;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        GeTruckDrivingRecord record = BenchmarkContext.drivingRecord(BenchmarkContext.truckNo(0), 0.4, 72.5, BenchmarkContext.NOW);
+        record.setVin("LBENCHMARK0000001");
+        record.setCopId(1L);
+        record.setCopName("基准测试车队");
+        json = JSONUtil.toJsonStr(record);
+    }
+
+    @Benchmark
+    public GeTruckDrivingRecord parse() {
+        return JSONUtil.toBean(json, GeTruckDrivingRecord.class);
+    }
+}
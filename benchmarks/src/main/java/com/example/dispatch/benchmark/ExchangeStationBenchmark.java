@@ -0,0 +1,176 @@
+package com.example.dispatch.benchmark;
+
+import com.example.dispatch.constant.LocationConstants;
+import com.example.dispatch.model.SimulationScenario;
+import com.example.dispatch.model.Truck;
+import com.example.dispatch.service.ExchangeStationService;
+import com.example.dispatch.service.StripedExchangeStationService;
+import com.example.dispatch.simulation.SimClock;
+import com.example.dispatch.simulation.StationCheckpoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 换电站排队基准
+ * enterStation：一批车辆在同一时刻到达换电站，逐辆进站排程；
+ * enterStationBatch：同一批车辆一次进站，排序一次后一次处理整个队列；
+ * processExchange：换电站从检查点恢复出一条等待队列（与增量重新规划回滚后的状态相同），一次处理完整个队列；
+ * enterStationConcurrent：4个线程同时让车辆进入同一个换电站，衡量并发进站的吞吐，线程数可用-t覆盖（与-t 1对比排程锁的开销）；
+ * enterStationConcurrentStriped：同上，换电站有4条通道、分为4段，各段独立加锁（与enterStationConcurrent对比分段的效果）；
+ * predict：对已排程queueLength辆车的换电站逐一预测queueLength个候选到达时间，不修改换电站状态；
+ * batteryNum覆盖线上换电站和容量研究中50~100块电池的规模
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExchangeStationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int queueLength;
+
+    @Param({"5", "100"})
+    private int batteryNum;
+
+    private SimClock clock;
+    private LocalDateTime arrivalTime;
+    private StationCheckpoint queued;
+    private ExchangeStationService scheduled;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        clock = new SimClock(BenchmarkContext.NOW);
+        arrivalTime = BenchmarkContext.NOW.plusHours(3);
+
+        List<Truck> waitingQueue = new ArrayList<>();
+        for (int i = 0; i < queueLength; i++) {
+            Truck truck = truck(i);
+            truck.setStartAwaitTime(arrivalTime);
+            waitingQueue.add(truck);
+        }
+        queued = newStation().checkpoint();
+        queued.setWaitingQueue(waitingQueue);
+
+        scheduled = newStation();
+        for (int i = 0; i < queueLength; i++) {
+            scheduled.enterStation(truck(i), arrivalTime);
+        }
+    }
+
+    @Benchmark
+    public long enterStation() {
+        ExchangeStationService station = newStation();
+        for (int i = 0; i < queueLength; i++) {
+            station.enterStation(truck(i), arrivalTime);
+        }
+        return station.getLastExchangeEndSimTime();
+    }
+
+    @Benchmark
+    public long enterStationBatch() {
+        ExchangeStationService station = newStation();
+        List<Truck> arrivals = new ArrayList<>(queueLength);
+        for (int i = 0; i < queueLength; i++) {
+            Truck truck = truck(i);
+            truck.setStartAwaitTime(arrivalTime);
+            arrivals.add(truck);
+        }
+        station.enterStation(arrivals);
+        return station.getLastExchangeEndSimTime();
+    }
+
+    @Benchmark
+    public long processExchange() {
+        ExchangeStationService station = newStation();
+        station.restore(queued);
+        station.processExchange(arrivalTime);
+        return station.getLastExchangeEndSimTime();
+    }
+
+    @Benchmark
+    public long predict() {
+        long start = clock.toSimTime(arrivalTime);
+        long latest = 0;
+        for (int i = 0; i < queueLength; i++) {
+            latest = Math.max(latest, scheduled.predict(start + SimClock.minutes(i), 2000 + i % 3000).getEndTime());
+        }
+        return latest;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public LocalDateTime enterStationConcurrent(SharedStation shared) {
+        return shared.station.enterStation(truck(shared.next.getAndIncrement() % 1000), shared.arrivalTime);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public LocalDateTime enterStationConcurrentStriped(SharedStripedStation shared) {
+        return shared.station.enterStation(truck(shared.next.getAndIncrement() % 1000), shared.arrivalTime);
+    }
+
+    /**
+     * 多个线程共用的换电站，不保留全部换电记录，内存占用不随迭代增长
+     */
+    @State(Scope.Benchmark)
+    public static class SharedStation {
+        private ExchangeStationService station;
+        private LocalDateTime arrivalTime;
+        private final AtomicInteger next = new AtomicInteger();
+
+        @Setup(Level.Iteration)
+        public void setUp(ExchangeStationBenchmark benchmark) {
+            station = new ExchangeStationService(benchmark.batteryNum, SimulationScenario.DEFAULT_LANE_NUM, benchmark.clock);
+            station.setRetainRecords(false);
+            arrivalTime = benchmark.arrivalTime;
+        }
+    }
+
+    /**
+     * 多个线程共用的分段换电站，每段一条通道
+     */
+    @State(Scope.Benchmark)
+    public static class SharedStripedStation {
+        private static final int STRIPES = 4;
+
+        private StripedExchangeStationService station;
+        private LocalDateTime arrivalTime;
+        private final AtomicInteger next = new AtomicInteger();
+
+        @Setup(Level.Iteration)
+        public void setUp(ExchangeStationBenchmark benchmark) {
+            station = new StripedExchangeStationService(null, benchmark.batteryNum, STRIPES, STRIPES, benchmark.clock);
+            station.setRetainRecords(false);
+            arrivalTime = benchmark.arrivalTime;
+        }
+    }
+
+    private ExchangeStationService newStation() {
+        return new ExchangeStationService(batteryNum, SimulationScenario.DEFAULT_LANE_NUM, clock);
+    }
+
+    private static Truck truck(int index) {
+        Truck truck = new Truck(BenchmarkContext.truckNo(index), 15 + index % 20, LocationConstants.DEFAULT_BATTERY_CAPACITY_KWH);
+        truck.setTransportFrequency(1 + index % 8);
+        return truck;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.dispatch.benchmark;
+
+import com.example.dispatch.simulation.ExchangeTimingOptimizer;
+import com.example.dispatch.simulation.SimClock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 换电时机优化基准
+ * trucks辆车在hours小时内的换电方案求解，包括车辆之间按换电站拥堵曲线的迭代；
+ * 200辆车12小时要求在1秒内完成
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExchangeTimingOptimizerBenchmark {
+
+    private static final long LOADED_LEG = SimClock.minutes(60);
+    private static final long RETURN_LEG = SimClock.minutes(45);
+    private static final double[] PRICES = {0.6, 0.6, 0.8, 0.8, 0.6, 0.6, 1.0, 1.0, 1.0, 1.0, 1.0, 0.6, 0.6, 0.6, 0.6, 0.6};
+
+    @Param({"50", "200"})
+    private int trucks;
+
+    @Param({"12"})
+    private int hours;
+
+    @Benchmark
+    public boolean[][] optimize() {
+        ExchangeTimingOptimizer optimizer = new ExchangeTimingOptimizer(LOADED_LEG, RETURN_LEG, SimClock.minutes(20),
+                SimClock.minutes(30), SimClock.minutes(5), 2, PRICES, 0.3, 1.0, trucks);
+        int trips = (int) (SimClock.minutes(hours * 60) / (LOADED_LEG + RETURN_LEG));
+        for (int i = 0; i < trucks; i++) {
+            optimizer.setTruck(i, SimClock.minutes(i % 60), trips, 5000 + i * 37 % 5000, 1800, 1000, 400, 700, 4300, 282);
+        }
+        return optimizer.optimize();
+    }
+}
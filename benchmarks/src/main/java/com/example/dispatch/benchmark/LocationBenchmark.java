@@ -0,0 +1,44 @@
+package com.example.dispatch.benchmark;
+
+import com.example.dispatch.constant.LocationConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 位置识别基准
+ * 轨迹分析对每个遥测点调用identifyLocation，测试点覆盖各关键站点和途中位置
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocationBenchmark {
+
+    private final double[][] points = {
+            {LocationConstants.LOADING_POINT.getLatitude(), LocationConstants.LOADING_POINT.getLongitude()},
+            {LocationConstants.UNLOADING_POINT.getLatitude(), LocationConstants.UNLOADING_POINT.getLongitude()},
+            {LocationConstants.CHARGING_STATION.getLatitude(), LocationConstants.CHARGING_STATION.getLongitude()},
+            {(LocationConstants.LOADING_POINT.getLatitude() + LocationConstants.UNLOADING_POINT.getLatitude()) / 2,
+                    (LocationConstants.LOADING_POINT.getLongitude() + LocationConstants.UNLOADING_POINT.getLongitude()) / 2},
+            {21.5, 110.3}
+    };
+
+    @Benchmark
+    public void identifyLocation(Blackhole blackhole) {
+        for (double[] point : points) {
+            blackhole.consume(LocationConstants.identifyLocation(point[0], point[1]));
+        }
+    }
+}
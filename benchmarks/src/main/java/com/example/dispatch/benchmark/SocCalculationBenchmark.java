@@ -0,0 +1,55 @@
+package com.example.dispatch.benchmark;
+
+import com.example.dispatch.constant.LocationConstants;
+import com.example.dispatch.service.SOCCalculationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 路段SOC计算基准
+ * historical：车辆有历史能耗数据；fallback：没有历史能耗数据，按能耗模型计算
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SocCalculationBenchmark {
+
+    private static final String HISTORICAL_TRUCK = BenchmarkContext.truckNo(0);
+    private static final String FALLBACK_TRUCK = BenchmarkContext.truckNo(1);
+
+    private SOCCalculationService socCalculationService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkContext context = new BenchmarkContext();
+        context.getTelemetryStore().putEnergyConsumption(HISTORICAL_TRUCK, true, new BigDecimal("1.82"), BenchmarkContext.NOW);
+        socCalculationService = context.getSocCalculationService();
+    }
+
+    @Benchmark
+    public double historical() {
+        return socCalculationService.calculateRouteSOC(LocationConstants.LOADING_TO_UNLOADING_DISTANCE_KM, true,
+                LocationConstants.DEFAULT_BATTERY_CAPACITY_KWH, HISTORICAL_TRUCK);
+    }
+
+    @Benchmark
+    public double fallback() {
+        return socCalculationService.calculateRouteSOC(LocationConstants.LOADING_TO_UNLOADING_DISTANCE_KM, true,
+                LocationConstants.DEFAULT_BATTERY_CAPACITY_KWH, FALLBACK_TRUCK);
+    }
+}
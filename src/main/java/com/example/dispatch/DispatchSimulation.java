@@ -5,17 +5,42 @@ import cn.hutool.json.JSONUtil;
 import com.example.dispatch.constant.LocationConstants;
 import com.example.dispatch.model.ExchangeRecord;
 import com.example.dispatch.model.GeDispatchScheduleRecord;
+import com.example.dispatch.model.PricePeriod;
 import com.example.dispatch.model.RouteInfo;
+import com.example.dispatch.model.SimulationScenario;
+import com.example.dispatch.model.SiteType;
 import com.example.dispatch.model.Truck;
+import com.example.dispatch.service.ExchangeStationRegistry;
 import com.example.dispatch.service.ExchangeStationService;
 import com.example.dispatch.service.SOCCalculationService;
 import com.example.dispatch.service.TestDataService;
 import com.example.dispatch.service.TransportService;
 import com.example.dispatch.service.VehicleTrackingService;
+import com.example.dispatch.simulation.CargoAssignmentEngine;
+import com.example.dispatch.simulation.ColumnarFleetState;
+import com.example.dispatch.simulation.DecisionTrace;
+import com.example.dispatch.simulation.DeterministicTravelModel;
+import com.example.dispatch.simulation.EventCalendar;
+import com.example.dispatch.simulation.ExchangeTimingOptimizer;
+import com.example.dispatch.simulation.FleetState;
+import com.example.dispatch.simulation.InitialState;
+import com.example.dispatch.simulation.RecordSink;
+import com.example.dispatch.simulation.RoadNetwork;
+import com.example.dispatch.simulation.RouteSocTable;
+import com.example.dispatch.simulation.SimClock;
+import com.example.dispatch.simulation.SimulationCheckpoint;
+import com.example.dispatch.simulation.SimulationEvent;
+import com.example.dispatch.simulation.SimulationMetrics;
+import com.example.dispatch.simulation.SimulationSnapshot;
+import com.example.dispatch.simulation.TravelModel;
+import com.example.dispatch.util.ExchangeRule;
+import com.example.dispatch.util.SocFixedPoint;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -29,8 +54,9 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 @Component
 public class DispatchSimulation {
-    private final List<Truck> trucks;
-    private final ExchangeStationService exchangeStationService;
+    private final List<Truck> trucks;  // 与车队状态下标一一对应，供基于Truck的运输逻辑使用
+    private final FleetState fleet;    // 车队状态
+    private final ExchangeStationRegistry exchangeStations; // 换电站，下标0为主换电站
     private final TransportService transportService;
 
     private final VehicleTrackingService vehicleTrackingService;
@@ -39,8 +65,8 @@ public class DispatchSimulation {
 
     private final TestDataService testDataService;
     private LocalDateTime initialTime;  // 初始时间
+    private final SimClock clock;       // 模拟时钟，以初始时间为起点
     private int remainingCargo;  // 剩余货物(吨)
-    private Map<String, LocalDateTime> truckCompletionTimes; // 记录每辆车完成运输的时间
     private Map<String, Integer> truckDepartureOffsets; // 记录每辆车出发时间的偏移量
     private Map<String, List<Integer>> truckDepartureDelays; // 记录每辆车出发时间与参考时间的间隔
     private Map<String, RouteInfo> truckRouteMap;
@@ -49,54 +75,179 @@ public class DispatchSimulation {
     // 添加调度记录管理
     private final List<GeDispatchScheduleRecord> scheduleRecords; // 调度记录列表
     private final Map<String, GeDispatchScheduleRecord> currentTripRecords; // 当前运输记录映射
-
-    private static final int BATTERY_NUM = 5;  // 电池数量
+    private final List<RecordSink> recordSinks; // 记录输出
+    private boolean retainRecords = true; // 是否在内存中保留全部记录
+
+    private final SimulationScenario scenario; // 模拟场景参数
+    private final int minExchangeSoc; // 场景最低换电SOC(0.01%)，未设置时不限制
+    private final TravelModel travelModel; // 行程模型（行驶时间、装卸货时间、能耗系数）
+    private RouteSocTable routeSocTable; // 车辆固定路段SOC消耗缓存
+    private final RoadNetwork roadNetwork; // 路网（预计算的站点间距离和行驶时间）
+    private final int startSite;     // 出发点站点编号
+    private final int loadingSite;   // 装货点站点编号
+    private final int unloadingSite; // 卸货点站点编号
+    private final int chargingSite;  // 主换电站站点编号
+    private final long[] stationInbound;  // 卸货点到各换电站的标称行驶时间(秒)
+    private final long[] stationOutbound; // 各换电站到装货点的标称行驶时间(秒)
+    private static final int MAX_TRIPS_PER_SWAP = 1000; // 估算换电间隔时的最大趟数
+    private boolean[][] exchangePlan;    // 换电时机优化结果：每辆车第几趟卸货后换电，为空时只按SOC判断
+    private final int[] exchangePlanBaseTrips; // 换电方案第1趟之前车辆已完成的运输次数
+    private InitialState initialState;   // 本次模拟的初始状态，供评估模式的模拟复用
+    private InitialState evaluationBase; // 评估模式下复用的基准模拟初始状态，为空时为正常模式
+    private DecisionTrace decisionTrace = DecisionTrace.DISABLED; // 调度决策记录，默认不记录
+    private SimulationMetrics metrics = SimulationMetrics.NOOP;    // 运行指标，默认不统计
+
+    // 增量重新规划
+    private static final int CHECKPOINT_INTERVAL_MINUTES = 30; // 检查点间隔(模拟分钟)
+    private EventCalendar calendar; // 事件日历
+    private final NavigableMap<Long, SimulationCheckpoint> checkpoints; // 模拟检查点（按模拟时间排序）
+    private long nextCheckpointTime; // 下一个检查点的模拟时间
+    private final Map<String, Long> truckReplanTimes; // 车辆最近一次重新规划所基于的检查点时间
+    private boolean checkpointEnabled = true; // 是否保存检查点，不需要增量重新规划的模拟可以关闭
 
     /**
      * 构造函数
      */
+    @Autowired
     public DispatchSimulation(VehicleTrackingService vehicleTrackingService, SOCCalculationService sOCCalculationService, TestDataService testDataService) {
+        this(vehicleTrackingService, sOCCalculationService, testDataService, SimulationScenario.defaultScenario());
+    }
+
+    /**
+     * 构造函数（指定模拟场景）
+     * 每个实例拥有独立的换电站、运输服务和车辆状态，可在多个线程中并行运行
+     */
+    public DispatchSimulation(VehicleTrackingService vehicleTrackingService, SOCCalculationService sOCCalculationService,
+                              TestDataService testDataService, SimulationScenario scenario) {
+        this(vehicleTrackingService, sOCCalculationService, testDataService, scenario, DeterministicTravelModel.INSTANCE);
+    }
+
+    /**
+     * 构造函数（指定模拟场景和行程模型）
+     * 使用随机行程模型时每次运行的行驶时间、装卸货时间和能耗都不同，用于蒙特卡洛模拟
+     */
+    public DispatchSimulation(VehicleTrackingService vehicleTrackingService, SOCCalculationService sOCCalculationService,
+                              TestDataService testDataService, SimulationScenario scenario, TravelModel travelModel) {
+        this(vehicleTrackingService, sOCCalculationService, testDataService, scenario, travelModel, RoadNetwork.DEFAULT);
+    }
+
+    /**
+     * 构造函数（指定模拟场景、行程模型和路网）
+     * 场景中未指定站点时使用路网中对应类型的第一个站点
+     * @throws IllegalArgumentException 场景的电池数量或换电通道数量小于1
+     */
+    public DispatchSimulation(VehicleTrackingService vehicleTrackingService, SOCCalculationService sOCCalculationService,
+                              TestDataService testDataService, SimulationScenario scenario, TravelModel travelModel,
+                              RoadNetwork roadNetwork) {
+        scenario.validate();
         this.vehicleTrackingService = vehicleTrackingService;
         this.socCalculationService = sOCCalculationService;
         this.testDataService = testDataService;
+        this.scenario = scenario;
+        this.minExchangeSoc = scenario.getMinExchangeSoc() == null ? Integer.MIN_VALUE : SocFixedPoint.of(scenario.getMinExchangeSoc());
+        this.travelModel = travelModel;
+        this.roadNetwork = roadNetwork;
+        this.startSite = resolveSite(scenario.getStartSite(), SiteType.START);
+        this.loadingSite = resolveSite(scenario.getLoadingSite(), SiteType.LOADING);
+        this.unloadingSite = resolveSite(scenario.getUnloadingSite(), SiteType.UNLOADING);
+        this.chargingSite = resolveSite(scenario.getChargingSite(), SiteType.CHARGING);
 
         this.trucks = new ArrayList<>();
-        this.exchangeStationService = new ExchangeStationService(BATTERY_NUM);
-        this.transportService = new TransportService(exchangeStationService);
-        this.initialTime = LocalDateTime.of(LocalDateTime.now().getYear(), LocalDateTime.now().getMonth(), LocalDateTime.now().getDayOfMonth(), 8, 0);  // 初始时间设置为8:00
+        LocalDate simulationDate = scenario.getSimulationDate() != null ? scenario.getSimulationDate() : LocalDate.now();
+        this.initialTime = simulationDate.atTime(8, 0);  // 初始时间设置为8:00
+        this.clock = new SimClock(initialTime);
+        int[] stationSites = resolveStationSites(scenario.getChargingSites());
+        String[] stationCodes = new String[stationSites.length];
+        this.stationInbound = new long[stationSites.length];
+        this.stationOutbound = new long[stationSites.length];
+        for (int i = 0; i < stationSites.length; i++) {
+            stationCodes[i] = roadNetwork.code(stationSites[i]);
+            stationInbound[i] = SimClock.minutes(nominalDriveTime(unloadingSite, stationSites[i]));
+            stationOutbound[i] = SimClock.minutes(nominalDriveTime(stationSites[i], loadingSite));
+        }
+        this.exchangeStations = new ExchangeStationRegistry(stationCodes, stationSites, scenario.getBatteryNum(), scenario.getLaneNum(), clock);
+        this.transportService = new TransportService(exchangeStations.primary());
         this.remainingCargo = TransportService.getTotalCargo();
-        this.truckCompletionTimes = new ConcurrentHashMap<>();
         this.truckDepartureOffsets = new ConcurrentHashMap<>();
         this.truckDepartureDelays = new ConcurrentHashMap<>();
         this.truckRouteMap = new ConcurrentHashMap<>();
         this.truckCurRouteSet = new HashSet<>();
+        if (scenario.getDepartureOffsets() != null) {
+            truckDepartureOffsets.putAll(scenario.getDepartureOffsets());
+        }
 
         // 初始化车辆
         initializeTrucks();
+        this.fleet = new ColumnarFleetState(trucks);
+        this.routeSocTable = new RouteSocTable(fleet.size(), exchangeStations.size());
+        this.exchangePlanBaseTrips = new int[fleet.size()];
+        Arrays.fill(exchangePlanBaseTrips, Integer.MAX_VALUE);
 
         // 初始化调度记录管理
         this.scheduleRecords = new ArrayList<>();
         this.currentTripRecords = new ConcurrentHashMap<>();
+        this.recordSinks = new ArrayList<>();
+
+        this.checkpoints = new TreeMap<>();
+        this.truckReplanTimes = new HashMap<>();
+    }
+
+    /**
+     * 确定场景使用的站点
+     * @param code 场景指定的站点编码，为空时使用路网中该类型的第一个站点
+     * @return 站点编号
+     */
+    private int resolveSite(String code, SiteType type) {
+        if (code != null) {
+            int site = roadNetwork.ordinal(code);
+            if (roadNetwork.type(site) != type) {
+                throw new IllegalArgumentException("站点 " + code + " 不是" + type.getDescription());
+            }
+            return site;
+        }
+        int site = roadNetwork.firstSite(type);
+        if (site < 0) {
+            throw new IllegalArgumentException("路网中没有" + type.getDescription());
+        }
+        return site;
+    }
+
+    /**
+     * 解析参与选择的换电站：主换电站在前，其余按场景指定的顺序（未指定时按路网中的顺序）
+     * @param codes 场景指定的换电站编码
+     * @return 换电站站点编号
+     */
+    private int[] resolveStationSites(List<String> codes) {
+        Set<Integer> sites = new LinkedHashSet<>();
+        sites.add(chargingSite);
+        if (codes == null || codes.isEmpty()) {
+            for (int site : roadNetwork.sites(SiteType.CHARGING)) {
+                sites.add(site);
+            }
+        } else {
+            for (String code : codes) {
+                sites.add(resolveSite(code, SiteType.CHARGING));
+            }
+        }
+        int[] result = new int[sites.size()];
+        int i = 0;
+        for (int site : sites) {
+            result[i++] = site;
+        }
+        return result;
     }
 
     /**
      * 初始化车辆
+     * 复制场景中的车辆，避免多个模拟共享同一个可变的Truck对象
      */
     private void initializeTrucks() {
-        // 车辆清单
-        String[] truckNos = {"粤G03335D"
-                // "粤G05006D", "粤G08108D", "粤G08007D",
-                // "粤G05595D", "粤G07117D", "粤G08232D",
-                // "粤G02082D", "粤G02003D"
-        };
-
-        // TODO 这里车辆信息(车辆实时状态)
-        for (String truckNo : truckNos) {
-            Truck truck = new Truck(truckNo, BigDecimal.valueOf(82), LocationConstants.DEFAULT_BATTERY_CAPACITY_DECIMAL_KWH);
+        for (Truck scenarioTruck : scenario.getTrucks()) {
+            Truck truck = new Truck(scenarioTruck.getTruckNo(), scenarioTruck.getSoc(), scenarioTruck.getCapacity());
             trucks.add(truck);
 
             // 为每辆车初始化出发延迟列表
-            truckDepartureDelays.put(truckNo, new ArrayList<>());
+            truckDepartureDelays.put(truck.getTruckNo(), new ArrayList<>());
         }
     }
 
@@ -122,133 +273,821 @@ public class DispatchSimulation {
         }
     }
 
+    /**
+     * 复用另一次模拟（同一场景）已读取的路径状态和路段SOC消耗，
+     * 使本次模拟不再访问Redis中的车辆轨迹和历史能耗
+     * @param base 已完成的基准模拟
+     */
+    public void reuseRouteData(DispatchSimulation base) {
+        truckRouteMap.putAll(base.truckRouteMap);
+        routeSocTable = base.routeSocTable.copy();
+    }
+
+    /**
+     * 评估模式：从基准模拟的初始状态开始，复用其路径数据和路段SOC消耗，
+     * 运输途中车辆的第一趟按基准模拟的结果重放，不保留记录、不保存检查点。
+     * 整个模拟不访问Redis和SOC计算服务、不输出日志，用于出发时间优化等需要反复运行同一场景的计算
+     * @param base 已完成的基准模拟（同一场景、未设置出发偏移）
+     */
+    public void useEvaluationMode(DispatchSimulation base) {
+        if (base.initialState == null) {
+            throw new IllegalStateException("基准模拟尚未运行");
+        }
+        reuseRouteData(base);
+        setRetainRecords(false);
+        this.evaluationBase = base.initialState;
+    }
+
+    /**
+     * 设置每辆车第一趟从装货点出发的推迟时间，替换场景中的设置
+     * @param departureOffsets 车牌号到推迟分钟数的映射，模拟开始时处于运输途中的车辆不推迟
+     */
+    public void setDepartureOffsets(Map<String, Integer> departureOffsets) {
+        truckDepartureOffsets.clear();
+        truckDepartureOffsets.putAll(departureOffsets);
+    }
+
+    /**
+     * 设置调度决策记录，换电判断、换电排队和计算失败回退按基本类型字段写入环形缓冲区
+     */
+    public void setDecisionTrace(DecisionTrace decisionTrace) {
+        this.decisionTrace = decisionTrace;
+    }
+
+    /**
+     * 格式化输出决策记录缓冲区中的记录
+     * @return 每条记录一行，按时间顺序；未开启决策记录时为空
+     */
+    public List<String> dumpDecisionTrace() {
+        return decisionTrace.dump(fleet::getTruckNo, clock);
+    }
+
+    /**
+     * 设置运行指标，换电排程和运输完成时直接回调
+     */
+    public void setMetrics(SimulationMetrics metrics) {
+        this.metrics = metrics;
+        exchangeStations.setMetrics(metrics);
+    }
+
+    public void setCheckpointEnabled(boolean checkpointEnabled) {
+        this.checkpointEnabled = checkpointEnabled;
+    }
+
+    /**
+     * 添加记录输出，调度记录和换电记录在生成时按时间顺序输出
+     */
+    public void addRecordSink(RecordSink recordSink) {
+        recordSinks.add(recordSink);
+        exchangeStations.addRecordSink(recordSink);
+    }
+
+    /**
+     * 设置是否在内存中保留全部记录
+     * 不保留时记录只输出到RecordSink，内存占用不随车辆数和模拟时长增长；
+     * 检查点依赖已保留的记录，因此同时关闭检查点
+     */
+    public void setRetainRecords(boolean retainRecords) {
+        this.retainRecords = retainRecords;
+        exchangeStations.setRetainRecords(retainRecords);
+        if (!retainRecords) {
+            checkpointEnabled = false;
+        }
+    }
+
     /**
      * 开始模拟
+     * 基于事件日历推进：每辆车的每一段行程都是一个按时间排序的事件，
+     * 车辆进入换电站的顺序与实际到达时间一致
      */
     public void startSimulation() {
         // **关键修改**：在模拟开始前准备数据，确保车辆状态初始化正确
         // prepareSimulationData();
 
-        // 为每辆车分配运输任务
-        int cargoPerTruck = calculateCargoPerTruck();
+        if (evaluationBase != null) {
+            // 评估模式：直接从基准模拟的初始状态开始，沿用其货物分配和换电方案
+            restoreInitialState(evaluationBase);
+            applyDepartureOffsets();
+        } else {
+            // 首次出发处理：所有车辆从出发点出发到A点
+            processInitialDeparture();
+            initialState = captureInitialState();
 
-        // 创建线程安全的运输任务跟踪器
-        final Map<String, Integer> trucksRemainingCargo = new ConcurrentHashMap<>();
+            // 按出发偏移推迟车辆从装货点出发的时间，错开到达换电站的时间
+            applyDepartureOffsets();
 
-        // 为每辆车分配任务
-        for (Truck truck : trucks) {
-            trucksRemainingCargo.put(truck.getTruckNo(), cargoPerTruck);
+            // 按到达装货点的时间和换电需求为每辆车分配运输任务
+            assignCargo();
+
+            // 在车队范围内决定每辆车在哪一趟换电
+            planExchanges();
+            completeInitialState(initialState);
         }
 
-        // 首次出发处理：所有车辆从出发点出发到A点
-        processInitialDeparture();
+        // 每辆有运输任务的车辆从到达装货点的时间开始第一趟运输
+        calendar = new EventCalendar();
+        for (int i = 0; i < fleet.size(); i++) {
+            if (fleet.getRemainingCargo(i) > 0) {
+                calendar.schedule(SimulationEvent.Type.DEPART, getDepartureTime(i), i);
+            }
+        }
 
-        // 处理所有车辆的运输
-        while (!trucksRemainingCargo.isEmpty()) {
-            Map<String, Integer> nextTrucksRemainingCargo = new ConcurrentHashMap<>();
+        checkpoints.clear();
+        truckReplanTimes.clear();
+        nextCheckpointTime = SimClock.NO_TIME;
+        runEventLoop();
+    }
 
-            // 创建一个包含当前所有需要运输的车辆的列表
-            List<Map.Entry<String, Integer>> sortedTrucks = new ArrayList<>(trucksRemainingCargo.entrySet());
+    /**
+     * 增量重新规划
+     * 从不晚于受影响时间的最近检查点恢复，按最新遥测数据重新安排有变化的车辆，
+     * 其余车辆沿用检查点中的事件，只重新模拟检查点之后的部分
+     *
+     * @param changedTruckNos 有新遥测数据的车辆
+     * @param affectedTime    最早受影响的时间
+     * @return 是否完成增量规划；没有可用检查点时返回false，需要完整重建
+     */
+    public boolean replan(Set<String> changedTruckNos, LocalDateTime affectedTime) {
+        Map.Entry<Long, SimulationCheckpoint> entry = checkpoints.floorEntry(clock.toSimTime(affectedTime));
+        if (entry == null) {
+            return false;
+        }
 
-            // 按车辆的当前出发时间排序
-            sortedTrucks.sort((e1, e2) -> {
-                String truckNo1 = e1.getKey();
-                String truckNo2 = e2.getKey();
+        long checkpointTime = entry.getKey();
+        restoreCheckpoint(entry.getValue());
+        for (RecordSink recordSink : recordSinks) {
+            recordSink.onRewind(clock.toDateTime(checkpointTime));
+        }
+        metrics.onRewind(checkpointTime);
+        // 检查点之后的状态将重新模拟，包括当前检查点本身（恢复后会在首个事件处重新保存）
+        checkpoints.tailMap(checkpointTime, true).clear();
+        nextCheckpointTime = SimClock.NO_TIME;
+
+        // 有新数据的车辆，以及在该检查点之后被重新规划过的车辆，都按最新遥测数据重新安排
+        Set<String> replanTruckNos = new HashSet<>(changedTruckNos);
+        truckReplanTimes.forEach((truckNo, replanTime) -> {
+            if (replanTime > checkpointTime) {
+                replanTruckNos.add(truckNo);
+            }
+        });
 
-                // 获取两辆车的当前出发时间
-                LocalDateTime departureTime1 = getDepartureTime(truckNo1);
-                LocalDateTime departureTime2 = getDepartureTime(truckNo2);
+        for (String truckNo : replanTruckNos) {
+            int index = fleet.indexOf(truckNo);
+            if (index >= 0) {
+                replanTruck(index, checkpointTime);
+            }
+        }
 
-                // 按出发时间升序排序
-                return departureTime1.compareTo(departureTime2);
-            });
+        log.debug("从检查点{}增量重新规划，车辆：{}", clock.toDateTime(checkpointTime), replanTruckNos);
+        runEventLoop();
+        return true;
+    }
 
-            // 按出发时间顺序处理每辆车
-            for (Map.Entry<String, Integer> entry : sortedTrucks) {
-                String truckNo = entry.getKey();
-                int remainingCargoForTruck = entry.getValue();
+    /**
+     * 按最新遥测数据重新安排单辆车
+     * 取消该车在检查点中的待处理事件和进行中的运输，从当前位置重新出发
+     */
+    private void replanTruck(int index, long checkpointTime) {
+        String truckNo = fleet.getTruckNo(index);
+        for (SimulationEvent cancelled : calendar.cancel(index)) {
+            // 正在驶向换电站的车辆取消预约
+            if (cancelled.getType() == SimulationEvent.Type.ENTER_STATION) {
+                exchangeStations.get(fleet.getExchangeStation(index)).cancelReservation(cancelled.getTime());
+            }
+        }
+        truckRouteMap.remove(truckNo);
+        routeSocTable.clear(index);
+        truckCurRouteSet.remove(truckNo);
+        fleet.setNextFreeTime(index, FleetState.NO_TIME);
+        truckReplanTimes.put(truckNo, checkpointTime);
+        if (exchangePlan != null) {
+            // 换电方案基于旧的遥测数据，重新规划后只按SOC判断；方案可能与初始状态共享，先复制再修改
+            exchangePlan = exchangePlan.clone();
+            exchangePlan[index] = null;
+        }
 
-                // 查找车辆
-                Truck truck = findTruckByNo(truckNo);
-                if (truck == null) continue;
+        // 丢弃进行中的运输，运输次数回退到该趟出发之前
+        GeDispatchScheduleRecord currentRecord = currentTripRecords.remove(truckNo);
+        if (currentRecord != null) {
+            fleet.setTripCount(index, currentRecord.getTransportFrequency() - 1);
+        }
 
-                // 获取当前车辆的起始时间（首次出发已处理，直接使用上次完成时间）
-                LocalDateTime currentTimeForTruck = truckCompletionTimes.get(truckNo);
+        if (fleet.getRemainingCargo(index) <= 0) {
+            return;
+        }
 
-                // 创建运输记录
-                createTransportRecord(truckNo, currentTimeForTruck, truck.getTransportFrequency() + 1);
+        departFromCurrentPosition(index);
+        calendar.schedule(SimulationEvent.Type.DEPART, Math.max(getDepartureTime(index), checkpointTime), index);
+    }
 
-                LocalDateTime arrivalTime = null;
-                boolean needExchange = false; // 记录是否需要换电
+    /**
+     * 按时间顺序处理事件，直到所有车辆完成运输
+     * 每隔固定的模拟时间保存一次检查点，供增量重新规划使用
+     */
+    private void runEventLoop() {
+        while (!calendar.isEmpty()) {
+            long eventTime = calendar.peek().getTime();
+            if (checkpointEnabled && (nextCheckpointTime == SimClock.NO_TIME || eventTime >= nextCheckpointTime)) {
+                checkpoints.put(eventTime, createCheckpoint(eventTime));
+                nextCheckpointTime = eventTime + SimClock.minutes(CHECKPOINT_INTERVAL_MINUTES);
+            }
 
-                if (!truckCurRouteSet.contains(truckNo)) {
-                    // 使用comprehensive分析进行精确运输计算
-                    arrivalTime = transportWithComprehensiveAnalysis(truck, currentTimeForTruck, true);
+            SimulationEvent event = calendar.poll();
+            try {
+                handleEvent(event);
+            } catch (RuntimeException e) {
+                if (decisionTrace.isEnabled()) {
+                    log.error("处理事件失败：车辆{} {} {}，最近{}条决策记录：\n{}", fleet.getTruckNo(event.getTruckIndex()),
+                            event.getType().getDescription(), clock.toDateTime(event.getTime()), decisionTrace.size(),
+                            String.join("\n", dumpDecisionTrace()));
+                }
+                throw e;
+            }
+        }
+    }
 
-                    // 从B点返回A点 - 使用comprehensive分析
-                    arrivalTime = transportWithComprehensiveAnalysis(truck, arrivalTime, false);
-                    
-                    // 检查是否在transportWithComprehensiveAnalysis中已经标记了换电
-                    GeDispatchScheduleRecord currentRecord = currentTripRecords.get(truckNo);
-                    if (currentRecord != null && currentRecord.getNeedExchange() != null && currentRecord.getNeedExchange() == 1) {
-                        needExchange = true;
-                    }
-                } else {
-                    RouteInfo routeInfo = vehicleTrackingService.analyzeVehicleRoute(truck.getTruckNo(), this.truckRouteMap);
-
-                    // 计算是否满足下一次完整运输路径的SOC消耗（使用RouteInfo中的truck信息）
-                    double completeTransportSOC = socCalculationService.calculateCompleteTransportSOC(routeInfo);
-
-                    // 计算本趟剩余行驶公里数对应的SOC消耗
-                    double remainingTripSOC = socCalculationService.calculateRemainingTripSOC(routeInfo);
-
-                    boolean needCharging = socCalculationService.shouldGoToChargingStation(truck.getSoc(), completeTransportSOC, remainingTripSOC);
-                    if (needCharging) {
-                        needExchange = true; // 标记需要换电
-                        // 不满足下一次完整运输路径的SOC消耗，本次返程需要换电
-                        // 再次判断是否满足本次运输soc消耗
-                        RouteInfo routeInfo1 = BeanUtil.copyProperties(routeInfo, RouteInfo.class);
-                        routeInfo1.setCurrentRoute(RouteInfo.RouteType.LOADING_TO_UNLOADING_TO_CHARGING);
-                        remainingTripSOC = socCalculationService.calculateRemainingTripSOC(routeInfo1);
-
-                        boolean shouldGoToChargingStation = socCalculationService.shouldGoToChargingStation(truck.getSoc(), 0, remainingTripSOC);
-                        if (shouldGoToChargingStation) {
-                            // 不满足本次运输SOC消耗，需要立即换电再继续行驶
-                            arrivalTime = transportToChargingStationThenContinue(truck, currentTimeForTruck, routeInfo);
-                        } else {
-                            // 满足本次运输卸货并返程到换电站进行换电
-                            arrivalTime = transportCompleteCurrentRouteToCharging(truck, currentTimeForTruck, routeInfo);
-                        }
-                    } else {
-                        // SOC充足，继续行驶（完成当前运输任务并返回装货点）
-                        arrivalTime = transportCompleteCurrentRouteAndReturn(truck, currentTimeForTruck, routeInfo);
-                    }
-                    truckCurRouteSet.remove(truckNo);
+    private void handleEvent(SimulationEvent event) {
+        switch (event.getType()) {
+            case DEPART:
+                onDepart(event, calendar);
+                break;
+            case ARRIVE_UNLOADING:
+                onArriveUnloading(event, calendar);
+                break;
+            case ENTER_STATION:
+                onEnterStation(event, calendar);
+                break;
+            case SWAP_DONE:
+                onSwapDone(event, calendar);
+                break;
+            case ARRIVE_LOADING:
+                onArriveLoading(event, calendar);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 生成调度计划快照（模拟完成后调用）
+     * @return 当前状态、全部检查点和已生成记录
+     */
+    public SimulationSnapshot snapshot() {
+        long completionTime = 0;
+        for (int i = 0; i < fleet.size(); i++) {
+            completionTime = Math.max(completionTime, fleet.getNextFreeTime(i));
+        }
+
+        SimulationSnapshot snapshot = new SimulationSnapshot();
+        snapshot.setInitialTime(initialTime);
+        snapshot.setCurrent(createCheckpoint(completionTime));
+        snapshot.getCheckpoints().addAll(checkpoints.values());
+        snapshot.getScheduleRecords().addAll(scheduleRecords);
+        snapshot.getExchangeRecords().addAll(exchangeStations.getExchangeRecords());
+        snapshot.getTruckReplanTimes().putAll(truckReplanTimes);
+        return snapshot;
+    }
+
+    /**
+     * 从快照恢复调度计划，恢复后可直接继续增量重新规划
+     * @param snapshot 快照
+     * @return 是否恢复成功；快照的初始时间、车队或换电站数量与本次模拟不一致时返回false
+     */
+    public boolean restore(SimulationSnapshot snapshot) {
+        FleetState snapshotFleet = snapshot.getCurrent().getFleet();
+        if (!initialTime.equals(snapshot.getInitialTime()) || snapshotFleet.size() != fleet.size()
+                || snapshot.getCurrent().getStations().size() != exchangeStations.size()) {
+            return false;
+        }
+        for (int i = 0; i < fleet.size(); i++) {
+            if (!fleet.getTruckNo(i).equals(snapshotFleet.getTruckNo(i))) {
+                return false;
+            }
+        }
+
+        scheduleRecords.clear();
+        scheduleRecords.addAll(snapshot.getScheduleRecords());
+        exchangeStations.restore(snapshot.getCurrent().getStations(), snapshot.getExchangeRecords());
+        restoreCheckpoint(snapshot.getCurrent());
+
+        checkpoints.clear();
+        for (SimulationCheckpoint checkpoint : snapshot.getCheckpoints()) {
+            checkpoints.put(checkpoint.getTime(), checkpoint);
+        }
+        truckReplanTimes.clear();
+        truckReplanTimes.putAll(snapshot.getTruckReplanTimes());
+        nextCheckpointTime = SimClock.NO_TIME;
+        return true;
+    }
+
+    /**
+     * 保存当前模拟状态（所有早于检查点时间的事件均已处理）
+     */
+    private SimulationCheckpoint createCheckpoint(long time) {
+        Map<String, GeDispatchScheduleRecord> tripRecordCopies = new HashMap<>();
+        currentTripRecords.forEach((truckNo, record) ->
+                tripRecordCopies.put(truckNo, BeanUtil.copyProperties(record, GeDispatchScheduleRecord.class)));
+
+        SimulationCheckpoint checkpoint = new SimulationCheckpoint();
+        checkpoint.setTime(time);
+        checkpoint.setFleet(fleet.copy());
+        checkpoint.setRemainingCargo(remainingCargo);
+        checkpoint.setTruckCurRouteSet(new HashSet<>(truckCurRouteSet));
+        checkpoint.setCurrentTripRecords(tripRecordCopies);
+        checkpoint.setScheduleRecordCount(scheduleRecords.size());
+        checkpoint.setPendingEvents(calendar.snapshot());
+        checkpoint.setNextEventSequence(calendar.getNextSequence());
+        checkpoint.setStations(exchangeStations.checkpoint());
+        return checkpoint;
+    }
+
+    /**
+     * 恢复到检查点状态
+     */
+    private void restoreCheckpoint(SimulationCheckpoint checkpoint) {
+        fleet.restore(checkpoint.getFleet());
+        remainingCargo = checkpoint.getRemainingCargo();
+        truckCurRouteSet.clear();
+        truckCurRouteSet.addAll(checkpoint.getTruckCurRouteSet());
+
+        currentTripRecords.clear();
+        checkpoint.getCurrentTripRecords().forEach((truckNo, record) ->
+                currentTripRecords.put(truckNo, BeanUtil.copyProperties(record, GeDispatchScheduleRecord.class)));
+        scheduleRecords.subList(checkpoint.getScheduleRecordCount(), scheduleRecords.size()).clear();
+
+        calendar = EventCalendar.restore(checkpoint.getPendingEvents(), checkpoint.getNextEventSequence());
+        exchangeStations.restore(checkpoint.getStations());
+    }
+
+    /**
+     * 装货点出发事件：装货后满载前往卸货点
+     */
+    private void onDepart(SimulationEvent event, EventCalendar calendar) {
+        int index = event.getTruckIndex();
+        String truckNo = fleet.getTruckNo(index);
+        long departureTime = event.getTime();
+
+        // 创建运输记录
+        createTransportRecord(truckNo, clock.toDateTime(departureTime), fleet.getTripCount(index) + 1);
+
+        // 模拟开始时处于运输途中的车辆，按当前路径一次性完成本趟运输
+        if (truckCurRouteSet.remove(truckNo)) {
+            InitialState.FirstTrip firstTrip = evaluationBase != null ? evaluationBase.getFirstTrips()[index] : null;
+            long arrivalTime = firstTrip != null ? replayFirstTrip(index, firstTrip) : runFirstTrip(index, departureTime);
+            // 换电方案从下一趟开始
+            exchangePlanBaseTrips[index] = fleet.getTripCount(index);
+            calendar.schedule(SimulationEvent.Type.ARRIVE_LOADING, arrivalTime, index);
+            return;
+        }
+
+        long arrivalTime;
+        try {
+            RouteInfo routeInfo = analyzeRoute(truckNo);
+
+            // 装货点到卸货点（满载）
+            double socConsumption = routeSoc(index, RouteSocTable.LOADING_TO_UNLOADING, routeInfo) * travelModel.consumptionFactor();
+            long driveTimeMinutes = legDriveTime(loadingSite, unloadingSite);
+
+            // 增加运输次数
+            fleet.setTripCount(index, fleet.getTripCount(index) + 1);
+
+            // 确保SOC不为负数
+            fleet.setSoc(index, Math.max(fleet.getSoc(index) - SocFixedPoint.ofPercent(socConsumption), 0));
+
+            // 装货时间 + 行驶时间
+            arrivalTime = departureTime + SimClock.minutes(travelModel.dwellMinutes() + driveTimeMinutes);
+        } catch (Exception e) {
+            // 如果comprehensive分析失败，回退到原有逻辑
+            decisionTrace.record(departureTime, index, DecisionTrace.Type.FALLBACK, fleet.getSoc(index), 0, 0, false);
+            arrivalTime = clock.toSimTime(transportService.transportAToB(toTruck(index), clock.toDateTime(departureTime)));
+            fromTruck(index);
+        }
+        calendar.schedule(SimulationEvent.Type.ARRIVE_UNLOADING, arrivalTime, index);
+    }
+
+    /**
+     * 到达卸货点事件：判断返程是否需要换电
+     */
+    private void onArriveUnloading(SimulationEvent event, EventCalendar calendar) {
+        int index = event.getTruckIndex();
+        String truckNo = fleet.getTruckNo(index);
+        long currentTime = event.getTime();
+        try {
+            RouteInfo routeInfo = analyzeRoute(truckNo);
+
+            double completeTransportSOC = routeSoc(index, RouteSocTable.COMPLETE_TRANSPORT, routeInfo);
+            double remainingTripSOC = routeSoc(index, RouteSocTable.UNLOADING_TO_LOADING, routeInfo);
+
+            // 与SOCCalculationService.shouldGoToChargingStation使用同一规则，每趟都会执行，因此不输出日志
+            double requiredSOC = ExchangeRule.requiredSoc(completeTransportSOC, remainingTripSOC, scenario.getSafetyMarginPercent());
+            boolean plannedExchange = isPlannedExchange(index);
+            boolean needCharging = ExchangeRule.needsExchange(SocFixedPoint.toPercent(fleet.getSoc(index)), requiredSOC)
+                    || isBelowMinExchangeSoc(fleet.getSoc(index))
+                    || plannedExchange;
+            if (decisionTrace.isEnabled()) {
+                decisionTrace.record(currentTime, index, DecisionTrace.Type.EXCHANGE_CHECK, fleet.getSoc(index),
+                        SocFixedPoint.ofPercent(requiredSOC), plannedExchange ? 1 : 0, needCharging);
+            }
+            if (needCharging) {
+                // 标记当前运输记录需要换电
+                GeDispatchScheduleRecord currentRecord = currentTripRecords.get(truckNo);
+                if (currentRecord != null) {
+                    currentRecord.setNeedExchange(1);
+                    currentRecord.setStatusIcon("exchange");
+                    currentRecord.setStatusText("返程换电");
                 }
 
-                // 完成运输记录
-                completeTransportRecord(truckNo, arrivalTime, needExchange);
+                // 选择换电站：行驶时间加预计排队时间最短
+                int station = exchangeStations.select(currentTime, stationInbound, stationOutbound);
+                int stationSite = exchangeStations.site(station);
+                fleet.setExchangeStation(index, station);
+
+                // B点到换电站的行驶时间和SOC消耗，按到达时间预约换电站
+                long driveTimeToStationMinutes = legDriveTime(unloadingSite, stationSite);
+                long stationArrivalTime = currentTime + SimClock.minutes(driveTimeToStationMinutes);
+                exchangeStations.reserve(station, stationArrivalTime);
+                double socToStation = routeSoc(index, RouteSocTable.toStation(station), routeInfo);
+                fleet.setSoc(index, fleet.getSoc(index) - SocFixedPoint.ofPercent(socToStation * travelModel.consumptionFactor()));
+
+                calendar.schedule(SimulationEvent.Type.ENTER_STATION, stationArrivalTime, index);
+                return;
+            }
+
+            // 计算从卸货点返程到装货点的剩余SOC消耗
+            fleet.setSoc(index, Math.max(fleet.getSoc(index) - SocFixedPoint.ofPercent(remainingTripSOC * travelModel.consumptionFactor()), 0));
+
+            // 卸货时间 + 行驶时间
+            long driveTimeMinutes = legDriveTime(unloadingSite, loadingSite);
+            calendar.schedule(SimulationEvent.Type.ARRIVE_LOADING, currentTime + SimClock.minutes(travelModel.dwellMinutes() + driveTimeMinutes), index);
+        } catch (Exception e) {
+            // 如果comprehensive分析失败，回退到原有逻辑
+            decisionTrace.record(currentTime, index, DecisionTrace.Type.FALLBACK, fleet.getSoc(index), 0, 0, false);
+            LocalDateTime arrivalTime = transportService.transportBToA(toTruck(index), clock.toDateTime(currentTime));
+            fromTruck(index);
+            calendar.schedule(SimulationEvent.Type.ARRIVE_LOADING, clock.toSimTime(arrivalTime), index);
+        }
+    }
+
+    /**
+     * 进入换电站事件：排队换电
+     */
+    private void onEnterStation(SimulationEvent event, EventCalendar calendar) {
+        int index = event.getTruckIndex();
+        int socBeforeExchange = fleet.getSoc(index);
+        ExchangeStationService station = exchangeStations.get(fleet.getExchangeStation(index));
+        station.cancelReservation(event.getTime());
+
+        long exchangeEndTime = station.enterStation(fleet, index, event.getTime());
+        if (exchangeEndTime == SimClock.NO_TIME) {
+            throw new IllegalStateException("车辆 " + fleet.getTruckNo(index) + " 在换电站 " + station.getStationCode() + " 没有可用电池");
+        }
+        if (decisionTrace.isEnabled()) {
+            long waitTime = exchangeEndTime - SimClock.minutes(ExchangeStationService.getExchangeDuration()) - event.getTime();
+            decisionTrace.record(event.getTime(), index, DecisionTrace.Type.SWAP, socBeforeExchange, 0, (int) waitTime, true);
+        }
+        calendar.schedule(SimulationEvent.Type.SWAP_DONE, exchangeEndTime, index);
+    }
+
+    /**
+     * 换电完成事件：从换电站返回装货点
+     */
+    private void onSwapDone(SimulationEvent event, EventCalendar calendar) {
+        int index = event.getTruckIndex();
+        String truckNo = fleet.getTruckNo(index);
+        RouteInfo routeInfo = analyzeRoute(truckNo);
+
+        int station = fleet.getExchangeStation(index);
+        long driveTimeToAMinutes = legDriveTime(exchangeStations.site(station), loadingSite);
+        double socToA = routeSoc(index, RouteSocTable.fromStation(station), routeInfo);
+
+        // 换电后SOC为100%，减去到A点的消耗
+        fleet.setSoc(index, SocFixedPoint.FULL - SocFixedPoint.ofPercent(socToA * travelModel.consumptionFactor()));
+
+        calendar.schedule(SimulationEvent.Type.ARRIVE_LOADING, event.getTime() + SimClock.minutes(driveTimeToAMinutes), index);
+    }
+
+    /**
+     * 到达装货点事件：完成本趟运输，如还有剩余货物则继续出发
+     */
+    private void onArriveLoading(SimulationEvent event, EventCalendar calendar) {
+        int index = event.getTruckIndex();
+        String truckNo = fleet.getTruckNo(index);
+        long arrivalTime = event.getTime();
+
+        // 检查本趟运输是否标记了换电
+        GeDispatchScheduleRecord currentRecord = currentTripRecords.get(truckNo);
+        boolean needExchange = currentRecord != null && currentRecord.getNeedExchange() != null && currentRecord.getNeedExchange() == 1;
+
+        // 完成运输记录
+        completeTransportRecord(truckNo, clock.toDateTime(arrivalTime), needExchange);
+
+        // 更新车辆完成时间
+        fleet.setNextFreeTime(index, arrivalTime);
+
+        // 减少该车的剩余货物
+        int remainingCargoForTruck = fleet.getRemainingCargo(index) - TransportService.getCargoPerTrip();
+        fleet.setRemainingCargo(index, remainingCargoForTruck);
+        remainingCargo -= TransportService.getCargoPerTrip();
+
+        // 如果车辆还有货物需要运输，从当前时间继续出发
+        if (remainingCargoForTruck > 0) {
+            calendar.schedule(SimulationEvent.Type.DEPART, arrivalTime, index);
+        }
+    }
+
+    /**
+     * 扣减车辆SOC，按定点数计算且不低于0
+     * @param socConsumption SOC消耗百分比，四舍五入到0.01%
+     */
+    private void consumeSoc(Truck truck, double socConsumption) {
+        int soc = SocFixedPoint.of(truck.getSoc()) - SocFixedPoint.ofPercent(socConsumption);
+        truck.setSoc(SocFixedPoint.toDecimal(Math.max(soc, 0)));
+    }
+
+    /**
+     * 换电后满电出发，扣减到达目的地的SOC消耗
+     * @param socConsumption SOC消耗百分比，四舍五入到0.01%
+     */
+    private void setSocAfterExchange(Truck truck, double socConsumption) {
+        int soc = SocFixedPoint.FULL - SocFixedPoint.ofPercent(socConsumption);
+        truck.setSoc(SocFixedPoint.toDecimal(Math.max(soc, 0)));
+    }
+
+    /**
+     * 把车队状态同步到Truck对象，供基于Truck的运输逻辑使用
+     */
+    private Truck toTruck(int index) {
+        Truck truck = trucks.get(index);
+        fleet.copyTo(index, truck);
+        return truck;
+    }
+
+    /**
+     * 基于Truck的运输逻辑执行后，把车辆状态同步回车队状态
+     */
+    private void fromTruck(int index) {
+        fleet.copyFrom(index, trucks.get(index));
+    }
+
+    /**
+     * 运输途中车辆的第一趟运输，结果记录到初始状态中供评估模式重放
+     * @return 到达装货点时间(模拟时间)
+     */
+    private long runFirstTrip(int index, long departureTime) {
+        String truckNo = fleet.getTruckNo(index);
+        ExchangeRecord previousRecord = exchangeStations.getLatestExchangeRecord(truckNo);
+        long arrivalTime = clock.toSimTime(transportCurrentRoute(index, toTruck(index), clock.toDateTime(departureTime)));
+        fromTruck(index);
+        if (initialState == null) {
+            return arrivalTime;
+        }
+
+        InitialState.FirstTrip firstTrip = new InitialState.FirstTrip();
+        firstTrip.setSoc(fleet.getSoc(index));
+        firstTrip.setTripCount(fleet.getTripCount(index));
+        ExchangeRecord exchangeRecord = exchangeStations.getLatestExchangeRecord(truckNo);
+        if (exchangeRecord != null && exchangeRecord != previousRecord) {
+            long exchangeEndTime = clock.toSimTime(exchangeRecord.getStartExchangeTime())
+                    + SimClock.minutes(ExchangeStationService.getExchangeDuration());
+            firstTrip.setStationArrivalTime(clock.toSimTime(exchangeRecord.getStartAwaitTime()));
+            firstTrip.setStation(exchangeStations.indexOf(exchangeRecord.getStationCode()));
+            firstTrip.setSocBeforeExchange(SocFixedPoint.of(exchangeRecord.getSoc()));
+            firstTrip.setAfterExchangeTime(arrivalTime - exchangeEndTime);
+        } else {
+            firstTrip.setArrivalTime(arrivalTime);
+        }
+        initialState.getFirstTrips()[index] = firstTrip;
+        return arrivalTime;
+    }
+
+    /**
+     * 评估模式下重放运输途中车辆的第一趟运输
+     * 行程和SOC沿用基准模拟的结果，换电时按本次模拟的换电站状态重新排队
+     * @return 到达装货点时间(模拟时间)
+     */
+    private long replayFirstTrip(int index, InitialState.FirstTrip firstTrip) {
+        fleet.setTripCount(index, firstTrip.getTripCount());
+        if (firstTrip.getStationArrivalTime() == SimClock.NO_TIME) {
+            fleet.setSoc(index, firstTrip.getSoc());
+            return firstTrip.getArrivalTime();
+        }
+
+        fleet.setSoc(index, firstTrip.getSocBeforeExchange());
+        long exchangeEndTime = exchangeStations.get(firstTrip.getStation()).enterStation(fleet, index, firstTrip.getStationArrivalTime());
+        fleet.setSoc(index, firstTrip.getSoc());
+        return exchangeEndTime + firstTrip.getAfterExchangeTime();
+    }
+
+    /**
+     * 模拟开始时处于运输途中的车辆：根据当前路径和SOC完成本趟运输
+     * @return 到达装货点时间
+     */
+    private LocalDateTime transportCurrentRoute(int index, Truck truck, LocalDateTime currentTime) {
+        RouteInfo routeInfo = analyzeRoute(truck.getTruckNo());
+
+        // 计算是否满足下一次完整运输路径的SOC消耗（使用RouteInfo中的truck信息）
+        double completeTransportSOC = socCalculationService.calculateCompleteTransportSOC(routeInfo);
+
+        // 计算本趟剩余行驶公里数对应的SOC消耗
+        double remainingTripSOC = socCalculationService.calculateRemainingTripSOC(routeInfo);
+
+        boolean needCharging = shouldGoToChargingStation(index, DecisionTrace.Type.FIRST_TRIP, currentTime,
+                truck.getSoc(), completeTransportSOC, remainingTripSOC);
+        if (!needCharging) {
+            // SOC充足，继续行驶（完成当前运输任务并返回装货点）
+            return transportCompleteCurrentRouteAndReturn(truck, currentTime, routeInfo);
+        }
+
+        // 不满足下一次完整运输路径的SOC消耗，本次返程需要换电
+        GeDispatchScheduleRecord currentRecord = currentTripRecords.get(truck.getTruckNo());
+        if (currentRecord != null) {
+            currentRecord.setNeedExchange(1);
+        }
+
+        // 再次判断是否满足本次运输soc消耗
+        RouteInfo routeInfo1 = BeanUtil.copyProperties(routeInfo, RouteInfo.class);
+        routeInfo1.setCurrentRoute(RouteInfo.RouteType.LOADING_TO_UNLOADING_TO_CHARGING);
+        remainingTripSOC = socCalculationService.calculateRemainingTripSOC(routeInfo1);
+
+        boolean shouldGoToChargingStation = shouldGoToChargingStation(index, DecisionTrace.Type.FIRST_TRIP, currentTime,
+                truck.getSoc(), 0, remainingTripSOC);
+        if (shouldGoToChargingStation) {
+            // 不满足本次运输SOC消耗，需要立即换电再继续行驶
+            return transportToChargingStationThenContinue(truck, currentTime, routeInfo);
+        }
+        // 满足本次运输卸货并返程到换电站进行换电
+        return transportCompleteCurrentRouteToCharging(truck, currentTime, routeInfo);
+    }
+
+    /**
+     * 按场景安全裕度判断车辆是否需要换电，并写入决策记录
+     */
+    private boolean shouldGoToChargingStation(int index, DecisionTrace.Type type, LocalDateTime currentTime,
+                                              BigDecimal currentSOC, double completeTransportSOC, double remainingTripSOC) {
+        boolean needCharging = socCalculationService.shouldGoToChargingStation(currentSOC, completeTransportSOC,
+                remainingTripSOC, scenario.getSafetyMarginPercent());
+        if (decisionTrace.isEnabled()) {
+            decisionTrace.record(clock.toSimTime(currentTime), index, type, currentSOC == null ? 0 : SocFixedPoint.of(currentSOC),
+                    SocFixedPoint.ofPercent(completeTransportSOC + remainingTripSOC + scenario.getSafetyMarginPercent()), 0, needCharging);
+        }
+        return needCharging;
+    }
+
+    /**
+     * 判断车辆SOC是否低于场景设置的最低换电SOC
+     */
+    private boolean isBelowMinExchangeSoc(int soc) {
+        return soc < minExchangeSoc;
+    }
+
+    /**
+     * 为每辆车分配运输趟次，使全部货物运完的时间最早
+     * 分配按标称行驶时间和装卸货时间估算，计算失败时回退到平均分配
+     */
+    private void assignCargo() {
+        int cargoPerTrip = TransportService.getCargoPerTrip();
+        int totalTrips = (TransportService.getTotalCargo() + cargoPerTrip - 1) / cargoPerTrip;
+        try {
+            long[] readyTimes = new long[fleet.size()];
+            int[] firstSwapTrips = new int[fleet.size()];
+            int[] tripsPerSwap = new int[fleet.size()];
+            for (int i = 0; i < fleet.size(); i++) {
+                RouteInfo routeInfo = analyzeRoute(fleet.getTruckNo(i));
+                readyTimes[i] = getDepartureTime(i);
+                firstSwapTrips[i] = tripsUntilSwap(i, fleet.getSoc(i), routeInfo);
+                tripsPerSwap[i] = tripsUntilSwap(i, SocFixedPoint.FULL - SocFixedPoint.ofPercent(routeSoc(i, RouteSocTable.CHARGING_TO_LOADING, routeInfo)), routeInfo);
+            }
 
-                // 更新车辆完成时间
-                truckCompletionTimes.put(truckNo, arrivalTime);
+            long dwell = DeterministicTravelModel.INSTANCE.dwellMinutes();
+            CargoAssignmentEngine engine = new CargoAssignmentEngine(
+                    SimClock.minutes(dwell + nominalDriveTime(loadingSite, unloadingSite)),
+                    SimClock.minutes(dwell + nominalDriveTime(unloadingSite, loadingSite)),
+                    SimClock.minutes(nominalDriveTime(unloadingSite, chargingSite)),
+                    SimClock.minutes(nominalDriveTime(chargingSite, loadingSite)),
+                    SimClock.minutes(ExchangeStationService.getExchangeDuration()), scenario.getLaneNum(),
+                    readyTimes, firstSwapTrips, tripsPerSwap);
+            int[] trips = engine.assign(totalTrips);
+            for (int i = 0; i < fleet.size(); i++) {
+                fleet.setRemainingCargo(i, trips[i] * cargoPerTrip);
+            }
+            log.debug("货物分配：{}", Arrays.toString(trips));
+        } catch (Exception e) {
+            log.warn("货物分配计算失败，平均分配货物", e);
+            int cargoPerTruck = calculateCargoPerTruck();
+            for (int i = 0; i < fleet.size(); i++) {
+                fleet.setRemainingCargo(i, cargoPerTruck);
+            }
+        }
+    }
+
+    /**
+     * 按到达卸货点时的换电判断规则，估算从指定SOC开始第几趟卸货后需要换电
+     * @param soc 装货点出发时的SOC(0.01%)
+     * @return 趟数，至少为1
+     */
+    private int tripsUntilSwap(int index, int soc, RouteInfo routeInfo) {
+        int loadedSoc = SocFixedPoint.ofPercent(routeSoc(index, RouteSocTable.LOADING_TO_UNLOADING, routeInfo));
+        int returnSoc = SocFixedPoint.ofPercent(routeSoc(index, RouteSocTable.UNLOADING_TO_LOADING, routeInfo));
+        int requiredSoc = requiredExchangeSoc(index, routeInfo);
+        for (int trip = 1; trip < MAX_TRIPS_PER_SWAP; trip++) {
+            soc -= loadedSoc;
+            if (ExchangeRule.needsExchange(soc, requiredSoc) || isBelowMinExchangeSoc(soc)) {
+                return trip;
+            }
+            soc -= returnSoc;
+        }
+        return MAX_TRIPS_PER_SWAP;
+    }
 
-                // 减少该车的剩余货物
-                remainingCargoForTruck -= TransportService.getCargoPerTrip();
+    /**
+     * 换电时机优化：在车队范围内决定每辆车在第几趟卸货后换电
+     * 按标称行驶时间和能耗规划，模拟中SOC低于换电阈值时仍会换电
+     */
+    private void planExchanges() {
+        exchangePlan = null;
+        Arrays.fill(exchangePlanBaseTrips, Integer.MAX_VALUE);
+        if (!scenario.isOptimizeExchangeTiming()) {
+            return;
+        }
 
-                // 如果车辆还有货物需要运输，加入下一轮
-                if (remainingCargoForTruck > 0) {
-                    nextTrucksRemainingCargo.put(truckNo, remainingCargoForTruck);
+        try {
+            long dwell = DeterministicTravelModel.INSTANCE.dwellMinutes();
+            long loadedLeg = SimClock.minutes(dwell + nominalDriveTime(loadingSite, unloadingSite));
+            long returnLeg = SimClock.minutes(dwell + nominalDriveTime(unloadingSite, loadingSite));
+            double[] hourlyPrices = new double[48];
+            for (int hour = 0; hour < hourlyPrices.length; hour++) {
+                hourlyPrices[hour] = scenario.getPrice(PricePeriod.getPriceType(initialTime.plusHours(hour)));
+            }
+            ExchangeTimingOptimizer optimizer = new ExchangeTimingOptimizer(loadedLeg, returnLeg,
+                    SimClock.minutes(nominalDriveTime(unloadingSite, chargingSite)),
+                    SimClock.minutes(nominalDriveTime(chargingSite, loadingSite)),
+                    SimClock.minutes(ExchangeStationService.getExchangeDuration()), scenario.getLaneNum(),
+                    hourlyPrices, scenario.getPrice(PricePeriod.PriceType.VALLEY), scenario.getWaitCostPerMinute(), fleet.size());
+
+            int cargoPerTrip = TransportService.getCargoPerTrip();
+            for (int i = 0; i < fleet.size(); i++) {
+                int trips = (fleet.getRemainingCargo(i) + cargoPerTrip - 1) / cargoPerTrip;
+                if (trips <= 0) {
+                    continue;
+                }
+                RouteInfo routeInfo = analyzeRoute(fleet.getTruckNo(i));
+                int loadedSoc = SocFixedPoint.ofPercent(routeSoc(i, RouteSocTable.LOADING_TO_UNLOADING, routeInfo));
+                int returnSoc = SocFixedPoint.ofPercent(routeSoc(i, RouteSocTable.UNLOADING_TO_LOADING, routeInfo));
+                int toStationSoc = SocFixedPoint.ofPercent(routeSoc(i, RouteSocTable.UNLOADING_TO_CHARGING, routeInfo));
+                int fromStationSoc = SocFixedPoint.ofPercent(routeSoc(i, RouteSocTable.CHARGING_TO_LOADING, routeInfo));
+                int requiredSoc = requiredExchangeSoc(i, routeInfo);
+
+                long readyTime = getDepartureTime(i);
+                int initialSoc = fleet.getSoc(i);
+                if (truckCurRouteSet.contains(fleet.getTruckNo(i))) {
+                    // 运输途中的车辆第一趟按当前路径完成，换电方案从下一趟开始
+                    trips--;
+                    readyTime += loadedLeg + returnLeg;
+                    initialSoc -= SocFixedPoint.ofPercent(socCalculationService.calculateRemainingTripSOC(routeInfo));
+                    if (ExchangeRule.needsExchange(initialSoc, requiredSoc)) {
+                        initialSoc = SocFixedPoint.FULL - fromStationSoc;
+                    }
+                } else {
+                    exchangePlanBaseTrips[i] = fleet.getTripCount(i);
                 }
+                optimizer.setTruck(i, readyTime, trips, initialSoc, loadedSoc, returnSoc, toStationSoc, fromStationSoc,
+                        requiredSoc, fleet.getCapacity(i));
             }
+            exchangePlan = optimizer.optimize();
+        } catch (Exception e) {
+            log.warn("换电时机优化失败，按SOC判断换电", e);
+            exchangePlan = null;
+        }
+    }
 
-            // 更新剩余需要运输的车辆
-            trucksRemainingCargo.clear();
-            trucksRemainingCargo.putAll(nextTrucksRemainingCargo);
+    /**
+     * 到达卸货点时的换电阈值(0.01%)：SOC不高于该值时必须换电，见{@link ExchangeRule}
+     */
+    private int requiredExchangeSoc(int index, RouteInfo routeInfo) {
+        return SocFixedPoint.ofPercent(ExchangeRule.requiredSoc(routeSoc(index, RouteSocTable.COMPLETE_TRANSPORT, routeInfo),
+                routeSoc(index, RouteSocTable.UNLOADING_TO_LOADING, routeInfo), scenario.getSafetyMarginPercent()));
+    }
+
+    /**
+     * 换电方案是否要求车辆在本趟卸货后换电
+     */
+    private boolean isPlannedExchange(int index) {
+        if (exchangePlan == null || exchangePlan[index] == null) {
+            return false;
         }
+        int trip = fleet.getTripCount(index) - exchangePlanBaseTrips[index];
+        return trip >= 1 && trip <= exchangePlan[index].length && exchangePlan[index][trip - 1];
+    }
+
+    /**
+     * 路网路段的标称行驶时间（分钟），不受随机行程模型影响
+     */
+    private long nominalDriveTime(int from, int to) {
+        return DeterministicTravelModel.INSTANCE.legMinutes(roadNetwork.driveMinutes(from, to));
     }
 
     /**
-     * 计算每辆车需要运输的货物量
+     * 计算每辆车需要运输的货物量（平均分配）
      */
     private int calculateCargoPerTruck() {
         if (trucks.isEmpty()) return 0;
@@ -260,24 +1099,36 @@ public class DispatchSimulation {
     }
 
     /**
-     * 根据车牌号查找车辆
+     * 获取参与模拟的车牌号
      */
-    private Truck findTruckByNo(String truckNo) {
-        for (Truck truck : trucks) {
-            if (truck.getTruckNo().equals(truckNo)) {
-                return truck;
-            }
+    public List<String> getTruckNos() {
+        List<String> truckNos = new ArrayList<>();
+        for (int i = 0; i < fleet.size(); i++) {
+            truckNos.add(fleet.getTruckNo(i));
         }
-        return null;
+        return truckNos;
+    }
+
+    public LocalDateTime getInitialTime() {
+        return initialTime;
     }
 
     /**
      * 获取换电记录
      *
-     * @return 换电记录列表
+     * @return 换电记录列表（只读）
      */
     public List<ExchangeRecord> getExchangeRecords() {
-        return exchangeStationService.getExchangeRecords();
+        return exchangeStations.getExchangeRecords();
+    }
+
+    /**
+     * 获取开始换电时间在[from, to)之间的换电记录
+     *
+     * @return 换电记录列表，按开始换电时间排序
+     */
+    public List<ExchangeRecord> getExchangeRecords(LocalDateTime from, LocalDateTime to) {
+        return exchangeStations.getExchangeRecords(from, to);
     }
 
     /**
@@ -286,98 +1137,105 @@ public class DispatchSimulation {
      * @return JSON格式的换电记录字符串
      */
     public String getExchangeRecordsAsJson() {
-        List<ExchangeRecord> records = getExchangeRecords();
+        List<ExchangeRecord> records = new ArrayList<>(getExchangeRecords());
         records.sort(Comparator.comparing(ExchangeRecord::getStartAwaitTime));
         return JSONUtil.toJsonStr(records);
     }
 
     /**
-     * 获取车辆的当前出发时间
+     * 按出发偏移推迟车辆第一趟从装货点出发的时间
+     * 运输途中的车辆按当前路径完成第一趟，不推迟
      */
-    private LocalDateTime getDepartureTime(String truckNo) {
-        if (truckCompletionTimes.containsKey(truckNo)) {
-            // 已经完成过运输，使用上次完成时间作为下次出发时间
-            return truckCompletionTimes.get(truckNo);
-        } else {
-            // 第一次运输，使用初始时间+偏移
-            int departureOffset = truckDepartureOffsets.getOrDefault(truckNo, 0);
-            return initialTime.plusMinutes(departureOffset);
+    private void applyDepartureOffsets() {
+        for (int i = 0; i < fleet.size(); i++) {
+            String truckNo = fleet.getTruckNo(i);
+            Integer offset = truckDepartureOffsets.get(truckNo);
+            // 没有到达时间的车辆在getDepartureTime中直接按偏移出发
+            if (offset == null || offset <= 0 || truckCurRouteSet.contains(truckNo)
+                    || fleet.getNextFreeTime(i) == FleetState.NO_TIME) {
+                continue;
+            }
+            fleet.setNextFreeTime(i, fleet.getNextFreeTime(i) + SimClock.minutes(offset));
+            truckDepartureDelays.get(truckNo).add(offset);
         }
     }
 
     /**
-     * 使用comprehensive分析进行精确运输计算
-     *
-     * @param truck       车辆
-     * @param currentTime 当前时间
-     * @param isAToB      true表示A到B点，false表示B到A点
-     * @return 到达时间
+     * 保存首次出发处理后的状态，货物分配和换电方案在完成后补充
      */
-    private LocalDateTime transportWithComprehensiveAnalysis(Truck truck, LocalDateTime currentTime, boolean isAToB) {
-        // 记录详细分析日志
-
-        try {
-            // 1. 分析车辆当前路径状态
-            RouteInfo routeInfo = vehicleTrackingService.analyzeVehicleRoute(truck.getTruckNo(), this.truckRouteMap);
-
-            // 2. 计算SOC消耗
-            double socConsumption;
-            long driveTimeMinutes;
-
-            if (isAToB) {
-                // A到B点：满载运输 - 使用装货到卸货的SOC消耗
-                // 路径1：装货点到卸货点（满载）
-                socConsumption = socCalculationService.calculateRouteSOC(LocationConstants.LOADING_TO_UNLOADING_DISTANCE_KM, true, getTruckCapacity(routeInfo), routeInfo.getVehicleNo());
-
-                // 根据当前路径状态确定行驶距离
-                driveTimeMinutes = calculateDriveTime(LocationConstants.LOADING_TO_UNLOADING_DISTANCE_KM); // 使用动态距离获取
-                // 加上装货时间
-                currentTime = currentTime.plusMinutes(10); // 装货时间10分钟
+    private InitialState captureInitialState() {
+        InitialState state = new InitialState();
+        state.setFleet(fleet.copy());
+        state.setTruckCurRouteSet(new HashSet<>(truckCurRouteSet));
+        state.setStations(exchangeStations.checkpoint());
+        state.setExchangeRecords(new ArrayList<>(exchangeStations.getExchangeRecords()));
+        state.setFirstTrips(new InitialState.FirstTrip[fleet.size()]);
+        return state;
+    }
 
-                // 增加运输次数
-                truck.incrementTransportFrequency();
-            } else {
-                // B到A点：需要判断是否需要换电
-                double completeTransportSOC = socCalculationService.calculateCompleteTransportSOC(routeInfo);
-                double remainingTripSOC = socCalculationService.calculateUnloadingToLoadingRemainingSOC(routeInfo);
-
-                // 判断是否需要换电
-                boolean needCharging = socCalculationService.shouldGoToChargingStation(truck.getSoc(), completeTransportSOC, remainingTripSOC);
-                if (needCharging) {
-                    // 需要去换电站换电，然后返回A点
-                    // 标记当前运输记录需要换电
-                    GeDispatchScheduleRecord currentRecord = currentTripRecords.get(truck.getTruckNo());
-                    if (currentRecord != null) {
-                        currentRecord.setNeedExchange(1);
-                        currentRecord.setStatusIcon("exchange");
-                        currentRecord.setStatusText("返程换电");
-                    }
-                    return transportViaChargingStation(truck, currentTime, routeInfo);
-                } else {
-                    // 计算从卸货点返程到装货点的剩余SOC消耗
-                    socConsumption = socCalculationService.calculateUnloadingToLoadingRemainingSOC(routeInfo);
-                    driveTimeMinutes = calculateDriveTime(LocationConstants.LOADING_TO_UNLOADING_DISTANCE_KM); // 使用动态距离获取
+    /**
+     * 补充货物分配和换电方案，并预先计算全部固定路段的SOC消耗，使评估模式不再调用SOC计算服务
+     */
+    private void completeInitialState(InitialState state) {
+        int[] assignedCargo = new int[fleet.size()];
+        for (int i = 0; i < fleet.size(); i++) {
+            assignedCargo[i] = fleet.getRemainingCargo(i);
+            try {
+                RouteInfo routeInfo = analyzeRoute(fleet.getTruckNo(i));
+                for (int leg = 0; leg < routeSocTable.legCount(); leg++) {
+                    routeSoc(i, leg, routeInfo);
                 }
-                // 加上卸货时间
-                currentTime = currentTime.plusMinutes(10); // 卸货时间10分钟
+            } catch (Exception e) {
+                log.debug("车辆{}路段SOC预计算失败：{}", fleet.getTruckNo(i), e.getMessage());
             }
+        }
+        state.setAssignedCargo(assignedCargo);
+        state.setExchangePlan(copyExchangePlan(exchangePlan));
+        state.setExchangePlanBaseTrips(exchangePlanBaseTrips.clone());
+    }
 
-            // 3. 更新车辆SOC
-            BigDecimal newSoc = truck.getSoc().subtract(BigDecimal.valueOf(socConsumption));
-            truck.setSoc(newSoc.max(BigDecimal.ZERO)); // 确保SOC不为负数
-
-            // 4. 计算到达时间
-            LocalDateTime arrivalTime = currentTime.plusMinutes(driveTimeMinutes);
+    /**
+     * 评估模式：恢复到基准模拟的初始状态
+     */
+    private void restoreInitialState(InitialState state) {
+        fleet.restore(state.getFleet());
+        for (int i = 0; i < fleet.size(); i++) {
+            fleet.setRemainingCargo(i, state.getAssignedCargo()[i]);
+        }
+        truckCurRouteSet.clear();
+        truckCurRouteSet.addAll(state.getTruckCurRouteSet());
+        exchangeStations.restore(state.getStations(), state.getExchangeRecords());
+        // 换电方案与初始状态共享，只读；replanTruck修改前先复制
+        exchangePlan = state.getExchangePlan();
+        System.arraycopy(state.getExchangePlanBaseTrips(), 0, exchangePlanBaseTrips, 0, exchangePlanBaseTrips.length);
+    }
 
-            return arrivalTime;
+    /**
+     * 复制换电方案，初始状态保存的方案不随本模拟后续的修改变化
+     */
+    private static boolean[][] copyExchangePlan(boolean[][] plan) {
+        if (plan == null) {
+            return null;
+        }
+        boolean[][] copy = new boolean[plan.length][];
+        for (int i = 0; i < plan.length; i++) {
+            copy[i] = plan[i] == null ? null : plan[i].clone();
+        }
+        return copy;
+    }
 
-        } catch (Exception e) {
-            // 如果comprehensive分析失败，回退到原有逻辑
-            if (isAToB) {
-                return transportService.transportAToB(truck, currentTime);
-            } else {
-                return transportService.transportBToA(truck, currentTime);
-            }
+    /**
+     * 获取车辆的当前出发时间(模拟时间)
+     */
+    private long getDepartureTime(int index) {
+        long nextFreeTime = fleet.getNextFreeTime(index);
+        if (nextFreeTime != FleetState.NO_TIME) {
+            // 已经完成过运输，使用上次完成时间作为下次出发时间
+            return nextFreeTime;
+        } else {
+            // 第一次运输，使用初始时间+偏移
+            int departureOffset = truckDepartureOffsets.getOrDefault(fleet.getTruckNo(index), 0);
+            return SimClock.minutes(departureOffset);
         }
     }
 
@@ -386,36 +1244,42 @@ public class DispatchSimulation {
      */
     private LocalDateTime transportToChargingStationThenContinue(Truck truck, LocalDateTime currentTime, RouteInfo routeInfo) {
         try {
-            log.info("车辆 {} 立即前往换电站然后继续当前路径", truck.getTruckNo());
+            log.debug("车辆 {} 立即前往换电站然后继续当前路径", truck.getTruckNo());
 
-            // 1. 先到换电站
+            // 1. 选择换电站并前往
+            int fromSite = siteOf(getCurrentLocationFromRouteType(routeInfo.getCurrentRoute()));
             long driveTimeToStationMinutes = calculateDriveTime(routeInfo, getCurrentLocationFromRouteType(routeInfo.getCurrentRoute()), "CHARGING");
+            int station = selectStation(fromSite, currentTime, driveTimeToStationMinutes);
+            int stationSite = exchangeStations.site(station);
+            if (station != 0) {
+                driveTimeToStationMinutes = legDriveTime(fromSite, stationSite);
+            }
 
             LocalDateTime arrivalTimeAtStation = currentTime.plusMinutes(driveTimeToStationMinutes);
 
             // 计算到换电站的SOC消耗
-            double socToStation = socCalculationService.calculateRemainingTripSOC(routeInfo) * 0.3; // 估算30%用于到换电站
-            BigDecimal socBeforeExchange = truck.getSoc().subtract(BigDecimal.valueOf(socToStation));
-            truck.setSoc(socBeforeExchange.max(BigDecimal.ZERO));
+            double socToStation = station == 0
+                    ? socCalculationService.calculateRemainingTripSOC(routeInfo) * 0.3 // 估算30%用于到换电站
+                    : socCalculationService.calculateRouteSOC(legKm(fromSite, stationSite), false, getTruckCapacity(routeInfo), truck.getTruckNo());
+            consumeSoc(truck, socToStation);
 
             // 2. 进站换电
-            exchangeStationService.enterStation(truck, arrivalTimeAtStation);
-            LocalDateTime exchangeEndTime = findExchangeEndTime(truck.getTruckNo(), arrivalTimeAtStation,
-                    socBeforeExchange, truck.getTransportFrequency());
+            ExchangeStationService exchangeStation = exchangeStations.get(station);
+            LocalDateTime exchangeEndTime = exchange(exchangeStation, truck, arrivalTimeAtStation);
 
             // 3. 换电后根据原路径类型继续运输
             RouteInfo.RouteType originalRoute = routeInfo.getCurrentRoute();
             if (originalRoute == RouteInfo.RouteType.LOADING_TO_UNLOADING ||
                     originalRoute == RouteInfo.RouteType.LOADING_TO_UNLOADING_TO_CHARGING) {
                 // 从换电站到装货点，然后完成装货->卸货->返回装货点的完整运输
-                return transportCompleteRouteFromChargingStation(truck, exchangeEndTime, routeInfo);
+                return transportCompleteRouteFromChargingStation(truck, exchangeEndTime, routeInfo, station);
             } else {
                 // 从换电站直接到装货点
-                long driveTimeToLoadingMinutes = calculateDriveTime(routeInfo, "CHARGING", "LOADING");
+                long driveTimeToLoadingMinutes = driveTimeFromStation(station, routeInfo);
                 double socToLoading = socCalculationService.calculateCompleteTransportSOC(
-                        LocationConstants.CHARGING_TO_LOADING_DISTANCE_KM, truck.getTruckNo());
+                        legKm(stationSite, loadingSite), truck.getTruckNo());
 
-                truck.setSoc(BigDecimal.valueOf(LocationConstants.FULL_SOC - socToLoading));
+                setSocAfterExchange(truck, socToLoading);
                 return exchangeEndTime.plusMinutes(driveTimeToLoadingMinutes);
             }
 
@@ -430,7 +1294,7 @@ public class DispatchSimulation {
      */
     private LocalDateTime transportCompleteCurrentRouteToCharging(Truck truck, LocalDateTime currentTime, RouteInfo routeInfo) {
         try {
-            log.info("车辆 {} 完成当前运输任务并到达换电站", truck.getTruckNo());
+            log.debug("车辆 {} 完成当前运输任务并到达换电站", truck.getTruckNo());
 
             RouteInfo.RouteType currentRoute = routeInfo.getCurrentRoute();
             double remainingPercentage = routeInfo.getRemainingPercentage();
@@ -441,17 +1305,27 @@ public class DispatchSimulation {
 
 
             LocalDateTime arrivalTime = currentTime;
+            int station = 0;
             if (currentRoute == RouteInfo.RouteType.LOADING_TO_UNLOADING) {
-                long remainingSegmentTime = calculateDriveTime(remainingTotalDistanceKm + LocationConstants.UNLOADING_TO_CHARGING_DISTANCE_KM);
+                // 卸货后选择换电站
+                LocalDateTime unloadedTime = currentTime.plusMinutes(10 + calculateDriveTime(remainingTotalDistanceKm));
+                station = selectStation(unloadingSite, unloadedTime, legDriveTime(unloadingSite, chargingSite));
+                int stationSite = exchangeStations.site(station);
+                long remainingSegmentTime = calculateDriveTime(remainingTotalDistanceKm + legKm(unloadingSite, stationSite));
                 totalSOCConsumption = socCalculationService.calculateLoadingToUnloadingChargingRemainingSOC(routeInfo);
+                if (station != 0) {
+                    // 剩余消耗按主换电站计算，换成到所选换电站的路段
+                    totalSOCConsumption += socCalculationService.calculateRouteSOC(legKm(unloadingSite, stationSite), false, getTruckCapacity(routeInfo), truck.getTruckNo())
+                            - socCalculationService.calculateRouteSOC(legKm(unloadingSite, chargingSite), false, getTruckCapacity(routeInfo), truck.getTruckNo());
+                }
 
                 arrivalTime = arrivalTime.plusMinutes(10); // 卸货时间
                 arrivalTime = arrivalTime.plusMinutes(remainingSegmentTime);
                 truck.incrementTransportFrequency();
 
-                log.debug("车辆 {} 完成满载段{}km和返程{}km，总耗时{}分钟，SOC消耗{}%", truck.getTruckNo(), remainingTotalDistanceKm, LocationConstants.UNLOADING_TO_CHARGING_DISTANCE_KM, remainingSegmentTime, totalSOCConsumption);
+                log.debug("车辆 {} 完成满载段{}km和返程{}km，总耗时{}分钟，SOC消耗{}%", truck.getTruckNo(), remainingTotalDistanceKm, legKm(unloadingSite, stationSite), remainingSegmentTime, totalSOCConsumption);
             } else {
-                // 当前已在返程段（空载）
+                // 当前已在返程段（空载），正在驶向主换电站
                 long returnSegmentTime = calculateDriveTime(remainingTotalDistanceKm);
                 totalSOCConsumption = socCalculationService.calculateOtherRouteRemainingSOC(routeInfo);
 
@@ -461,20 +1335,20 @@ public class DispatchSimulation {
             }
 
             // 更新SOC
-            BigDecimal newSoc = truck.getSoc().subtract(BigDecimal.valueOf(totalSOCConsumption));
-            truck.setSoc(newSoc.max(BigDecimal.ZERO));
+            consumeSoc(truck, totalSOCConsumption);
 
             // 进入换电站
-            exchangeStationService.enterStation(truck, arrivalTime);
-            LocalDateTime exchangeEndTime = findExchangeEndTime(truck.getTruckNo(), arrivalTime, truck.getSoc(), truck.getTransportFrequency());
+            ExchangeStationService exchangeStation = exchangeStations.get(station);
+            int stationSite = exchangeStations.site(station);
+            LocalDateTime exchangeEndTime = exchange(exchangeStation, truck, arrivalTime);
 
             // 换电后从换电站到装货点
-            long timeToLoading = calculateDriveTime(LocationConstants.CHARGING_TO_LOADING_DISTANCE_KM);
-            double socToLoading = socCalculationService.calculateRouteSOC(LocationConstants.CHARGING_TO_LOADING_DISTANCE_KM, false, getTruckCapacity(routeInfo), truck.getTruckNo());
+            long timeToLoading = legDriveTime(stationSite, loadingSite);
+            double socToLoading = socCalculationService.calculateRouteSOC(legKm(stationSite, loadingSite), false, getTruckCapacity(routeInfo), truck.getTruckNo());
 
-            truck.setSoc(BigDecimal.valueOf(LocationConstants.FULL_SOC - socToLoading).max(BigDecimal.ZERO));
+            setSocAfterExchange(truck, socToLoading);
             LocalDateTime finalArrivalTime = exchangeEndTime.plusMinutes(timeToLoading);
-            log.info("车辆 {} 完成运输并换电，最终到达装货点时间：{}", truck.getTruckNo(), finalArrivalTime);
+            log.debug("车辆 {} 完成运输并换电，最终到达装货点时间：{}", truck.getTruckNo(), finalArrivalTime);
 
             return finalArrivalTime;
 
@@ -501,7 +1375,7 @@ public class DispatchSimulation {
      */
     private LocalDateTime transportCompleteCurrentRouteAndReturn(Truck truck, LocalDateTime currentTime, RouteInfo routeInfo) {
         try {
-            log.info("车辆 {} SOC充足，完成当前运输任务并返回装货点", truck.getTruckNo());
+            log.debug("车辆 {} SOC充足，完成当前运输任务并返回装货点", truck.getTruckNo());
 
             RouteInfo.RouteType currentRoute = routeInfo.getCurrentRoute();
             double remainingPercentage = routeInfo.getRemainingPercentage();
@@ -513,14 +1387,14 @@ public class DispatchSimulation {
             double totalSOCConsumption = 0.0;
 
             if (currentRoute == RouteInfo.RouteType.LOADING_TO_UNLOADING) {
-                long remainingSegmentTime = calculateDriveTime(remainingTotalDistanceKm + LocationConstants.LOADING_TO_UNLOADING_DISTANCE_KM);
+                long remainingSegmentTime = calculateDriveTime(remainingTotalDistanceKm + legKm(loadingSite, unloadingSite));
                 totalSOCConsumption = socCalculationService.calculateRemainingTripSOC(routeInfo);
 
                 arrivalTime = arrivalTime.plusMinutes(10); // xie货时间
                 arrivalTime = arrivalTime.plusMinutes(remainingSegmentTime);
                 truck.incrementTransportFrequency();
 
-                log.debug("车辆 {} 完成满载段{}km和返程{}km，总耗时{}分钟，SOC消耗{}%", truck.getTruckNo(), remainingTotalDistanceKm, LocationConstants.LOADING_TO_UNLOADING_DISTANCE_KM, remainingSegmentTime, totalSOCConsumption);
+                log.debug("车辆 {} 完成满载段{}km和返程{}km，总耗时{}分钟，SOC消耗{}%", truck.getTruckNo(), remainingTotalDistanceKm, legKm(loadingSite, unloadingSite), remainingSegmentTime, totalSOCConsumption);
             } else {
                 // 当前已在返程段（空载）
                 long returnSegmentTime = calculateDriveTime(remainingTotalDistanceKm);
@@ -532,10 +1406,9 @@ public class DispatchSimulation {
             }
 
             // 更新SOC
-            BigDecimal newSoc = truck.getSoc().subtract(BigDecimal.valueOf(totalSOCConsumption));
-            truck.setSoc(newSoc.max(BigDecimal.ZERO));
+            consumeSoc(truck, totalSOCConsumption);
 
-            log.info("车辆 {} 完成运输并返回装货点，到达时间：{}，剩余SOC：{}%", truck.getTruckNo(), arrivalTime, truck.getSoc());
+            log.debug("车辆 {} 完成运输并返回装货点，到达时间：{}，剩余SOC：{}%", truck.getTruckNo(), arrivalTime, truck.getSoc());
             return arrivalTime;
 
         } catch (Exception e) {
@@ -549,15 +1422,14 @@ public class DispatchSimulation {
      */
     private LocalDateTime transportContinueCurrentRoute(Truck truck, LocalDateTime currentTime, RouteInfo routeInfo) {
         try {
-            log.info("车辆 {} 继续当前路径运输", truck.getTruckNo());
+            log.debug("车辆 {} 继续当前路径运输", truck.getTruckNo());
 
             RouteInfo.RouteType currentRoute = routeInfo.getCurrentRoute();
             double remainingTripSOC = socCalculationService.calculateRemainingTripSOC(routeInfo);
             long driveTimeMinutes = calculateDriveTime(routeInfo.getRemainingDistanceKm());
 
             // 更新SOC
-            BigDecimal newSoc = truck.getSoc().subtract(BigDecimal.valueOf(remainingTripSOC));
-            truck.setSoc(newSoc.max(BigDecimal.ZERO));
+            consumeSoc(truck, remainingTripSOC);
 
             LocalDateTime arrivalTime = currentTime.plusMinutes(driveTimeMinutes);
 
@@ -587,12 +1459,12 @@ public class DispatchSimulation {
     /**
      * 从换电站完成完整运输路径
      */
-    private LocalDateTime transportCompleteRouteFromChargingStation(Truck truck, LocalDateTime startTime, RouteInfo routeInfo) {
+    private LocalDateTime transportCompleteRouteFromChargingStation(Truck truck, LocalDateTime startTime, RouteInfo routeInfo, int station) {
         try {
             // 换电站 -> 装货点
-            long timeToLoading = calculateDriveTime(routeInfo, "CHARGING", "LOADING");
+            long timeToLoading = driveTimeFromStation(station, routeInfo);
             double socToLoading = socCalculationService.calculateCompleteTransportSOC(
-                    LocationConstants.CHARGING_TO_LOADING_DISTANCE_KM, truck.getTruckNo());
+                    legKm(exchangeStations.site(station), loadingSite), truck.getTruckNo());
 
             LocalDateTime arrivalAtLoading = startTime.plusMinutes(timeToLoading);
 
@@ -600,7 +1472,7 @@ public class DispatchSimulation {
             arrivalAtLoading = arrivalAtLoading.plusMinutes(10); // 装货时间
             long timeToUnloading = calculateDriveTime(routeInfo, "LOADING", "UNLOADING");
             double socToUnloading = socCalculationService.calculateCompleteTransportSOC(
-                    LocationConstants.LOADING_TO_UNLOADING_DISTANCE_KM, truck.getTruckNo()) * 0.6;
+                    legKm(loadingSite, unloadingSite), truck.getTruckNo()) * 0.6;
 
             LocalDateTime arrivalAtUnloading = arrivalAtLoading.plusMinutes(timeToUnloading);
             truck.incrementTransportFrequency();
@@ -608,12 +1480,12 @@ public class DispatchSimulation {
             // 卸货点 -> 装货点
             long timeBackToLoading = calculateDriveTime(routeInfo, "UNLOADING", "LOADING");
             double socBackToLoading = socCalculationService.calculateCompleteTransportSOC(
-                    LocationConstants.UNLOADING_TO_CHARGING_DISTANCE_KM + LocationConstants.CHARGING_TO_LOADING_DISTANCE_KM,
+                    legKm(unloadingSite, chargingSite) + legKm(chargingSite, loadingSite),
                     truck.getTruckNo()) * 0.4;
 
             // 更新最终SOC
             double totalSocConsumption = socToLoading + socToUnloading + socBackToLoading;
-            truck.setSoc(BigDecimal.valueOf(LocationConstants.FULL_SOC - totalSocConsumption).max(BigDecimal.ZERO));
+            setSocAfterExchange(truck, totalSocConsumption);
 
             return arrivalAtUnloading.plusMinutes(timeBackToLoading);
 
@@ -648,29 +1520,30 @@ public class DispatchSimulation {
      * 经过换电站的运输
      */
     private LocalDateTime transportViaChargingStation(Truck truck, LocalDateTime currentTime, RouteInfo routeInfo) {
-        // B点到换电站的行驶时间和SOC消耗
+        // 选择换电站，B点到换电站的行驶时间和SOC消耗
         long driveTimeToStationMinutes = calculateDriveTime(routeInfo, "UNLOADING", "CHARGING");
-        double socToStation = socCalculationService.calculateRouteSOC(LocationConstants.UNLOADING_TO_CHARGING_DISTANCE_KM, false, getTruckCapacity(routeInfo), truck.getTruckNo());
+        int station = selectStation(unloadingSite, currentTime, driveTimeToStationMinutes);
+        int stationSite = exchangeStations.site(station);
+        if (station != 0) {
+            driveTimeToStationMinutes = legDriveTime(unloadingSite, stationSite);
+        }
+        double socToStation = socCalculationService.calculateRouteSOC(legKm(unloadingSite, stationSite), false, getTruckCapacity(routeInfo), truck.getTruckNo());
 
         LocalDateTime arrivalTimeAtStation = currentTime.plusMinutes(driveTimeToStationMinutes);
 
         // 更新SOC（到达换电站前）
-        BigDecimal socBeforeExchange = truck.getSoc().subtract(BigDecimal.valueOf(socToStation));
-        truck.setSoc(socBeforeExchange);
+        consumeSoc(truck, socToStation);
 
         // 进站换电
-        exchangeStationService.enterStation(truck, arrivalTimeAtStation);
-
-        // 查找换电完成时间
-        LocalDateTime exchangeEndTime = findExchangeEndTime(truck.getTruckNo(), arrivalTimeAtStation, socBeforeExchange, truck.getTransportFrequency());
+        ExchangeStationService exchangeStation = exchangeStations.get(station);
+        LocalDateTime exchangeEndTime = exchange(exchangeStation, truck, arrivalTimeAtStation);
 
         // 从换电站到A点
-        long driveTimeToAMinutes = calculateDriveTime(routeInfo, "CHARGING", "LOADING");
-        double socToA = socCalculationService.calculateRouteSOC(LocationConstants.CHARGING_TO_LOADING_DISTANCE_KM, false, getTruckCapacity(routeInfo), truck.getTruckNo());
+        long driveTimeToAMinutes = driveTimeFromStation(station, routeInfo);
+        double socToA = socCalculationService.calculateRouteSOC(legKm(stationSite, loadingSite), false, getTruckCapacity(routeInfo), truck.getTruckNo());
 
         // 换电后SOC为100%，减去到A点的消耗
-        BigDecimal finalSoc = BigDecimal.valueOf(100 - socToA);
-        truck.setSoc(finalSoc);
+        setSocAfterExchange(truck, socToA);
 
         LocalDateTime finalArrivalTime = exchangeEndTime.plusMinutes(driveTimeToAMinutes);
 
@@ -681,12 +1554,29 @@ public class DispatchSimulation {
      * 计算行驶时间
      */
     private long calculateDriveTime(double distanceKm) {
-        // 时间（分钟）= 距离（公里）/ 速度（公里/小时）× 60
-        return (long) (distanceKm / LocationConstants.AVERAGE_SPEED * 60.0); // 平均速度48km/h
+        return travelModel.driveMinutes(distanceKm);
+    }
+
+    /**
+     * 路网路段的行驶时间
+     * @param from 起点站点编号
+     * @param to   终点站点编号
+     * @return 行驶时间（分钟）
+     */
+    private long legDriveTime(int from, int to) {
+        return travelModel.legMinutes(roadNetwork.driveMinutes(from, to));
+    }
+
+    /**
+     * 路网路段的距离（公里）
+     */
+    private double legKm(int from, int to) {
+        return roadNetwork.distanceKm(from, to);
     }
 
     /**
      * 计算行驶时间（RouteInfo感知版本）
+     * 车辆正在驶向目标位置时使用RouteInfo中的剩余距离，否则使用路网路段
      *
      * @param routeInfo    路径信息（可能为null）
      * @param fromLocation 起始位置
@@ -694,39 +1584,69 @@ public class DispatchSimulation {
      * @return 行驶时间（分钟）
      */
     private long calculateDriveTime(RouteInfo routeInfo, String fromLocation, String toLocation) {
-        double distanceKm = getDistanceFromRouteInfoOrConstant(routeInfo, fromLocation, toLocation);
-        return calculateDriveTime(distanceKm);
+        if (routeInfo != null && routeInfo.getTargetLocation() != null &&
+                routeInfo.getTargetLocation().equals(toLocation) && routeInfo.getRemainingDistanceKm() >= 0) {
+            log.debug("使用RouteInfo剩余距离：{}km", routeInfo.getRemainingDistanceKm());
+            return calculateDriveTime(routeInfo.getRemainingDistanceKm());
+        }
+        return legDriveTime(siteOf(fromLocation), siteOf(toLocation));
     }
 
     /**
-     * 根据起始点和目标点计算行驶时间
+     * 位置类型对应的站点编号
      */
-    private long calculateDriveTimeBetweenLocations(String fromLocation, String toLocation) {
-        double distanceKm = getDistanceBetweenLocations(fromLocation, toLocation);
-        return calculateDriveTime(distanceKm);
+    private int siteOf(String location) {
+        switch (location) {
+            case "START":
+                return startSite;
+            case "LOADING":
+                return loadingSite;
+            case "UNLOADING":
+                return unloadingSite;
+            case "CHARGING":
+                return chargingSite;
+            default:
+                throw new IllegalArgumentException("未知位置：" + location);
+        }
     }
 
     /**
-     * 获取两个位置间的距离（使用LocationConstants常量）
+     * 为运输途中的车辆（Truck版本）选择换电站，与事件循环中的选择相同：到换电站的行驶时间 + 预计排队时间 + 换电后到装货点的行驶时间最短
+     * 主换电站使用按车辆当前路径计算的行驶时间，其余换电站使用路网路段
+     * @param fromSite 前往换电站的出发站点
+     * @param departureTime 出发时间
+     * @param toPrimaryMinutes 到主换电站的行驶时间(分钟)
+     * @return 换电站下标
      */
-    private double getDistanceBetweenLocations(String fromLocation, String toLocation) {
-        // 优先使用LocationConstants的方法
-        double constantDistance = LocationConstants.getDistanceBetweenPoints(fromLocation, toLocation);
-        if (constantDistance > 0) {
-            return constantDistance;
+    private int selectStation(int fromSite, LocalDateTime departureTime, long toPrimaryMinutes) {
+        if (exchangeStations.size() == 1) {
+            return 0;
+        }
+        long[] toStation = new long[exchangeStations.size()];
+        toStation[0] = SimClock.minutes(toPrimaryMinutes);
+        for (int i = 1; i < toStation.length; i++) {
+            toStation[i] = SimClock.minutes(legDriveTime(fromSite, exchangeStations.site(i)));
         }
+        return exchangeStations.select(clock.toSimTime(departureTime), toStation, stationOutbound);
+    }
 
-        // 后备硬编码值（保持原有业务逻辑）
-        return getFallbackDistance(fromLocation, toLocation);
+    /**
+     * 换电站到装货点的行驶时间(分钟)，主换电站按车辆当前路径计算
+     */
+    private long driveTimeFromStation(int station, RouteInfo routeInfo) {
+        return station == 0 ? calculateDriveTime(routeInfo, "CHARGING", "LOADING") : legDriveTime(exchangeStations.site(station), loadingSite);
     }
 
     /**
-     * 查找换电完成时间（简化版本）
+     * 车辆进站换电
+     * @return 该车的换电结束时间
      */
-    private LocalDateTime findExchangeEndTime(String truckNo, LocalDateTime enterTime, BigDecimal socBeforeExchange, int transportFrequency) {
-        // 简化实现：假设换电需要5分钟
-        return exchangeStationService.getLastExchangeEndTime();
-        // return enterTime.plusMinutes(5);
+    private LocalDateTime exchange(ExchangeStationService station, Truck truck, LocalDateTime arrivalTime) {
+        LocalDateTime exchangeEndTime = station.enterStation(truck, arrivalTime);
+        if (exchangeEndTime == null) {
+            throw new IllegalStateException("车辆 " + truck.getTruckNo() + " 在换电站 " + station.getStationCode() + " 没有可用电池");
+        }
+        return exchangeEndTime;
     }
 
     /**
@@ -741,8 +1661,7 @@ public class DispatchSimulation {
             long driveTimeMinutes = calculateDriveTime(routeInfo, "START", "LOADING"); // 使用动态距离获取
 
             // 更新车辆SOC
-            BigDecimal newSoc = truck.getSoc().subtract(BigDecimal.valueOf(baseSocConsumption));
-            truck.setSoc(newSoc.max(BigDecimal.ZERO));
+            consumeSoc(truck, baseSocConsumption);
 
             LocalDateTime arrivalTime = currentTime.plusMinutes(driveTimeMinutes);
 
@@ -758,27 +1677,34 @@ public class DispatchSimulation {
      */
     private LocalDateTime transportStartToStationToAWithAnalysis(Truck truck, LocalDateTime currentTime, RouteInfo routeInfo) {
         try {
-            // 1. 出发点到换电站
+            // 1. 选择换电站，出发点到换电站
             long driveTimeToStationMinutes = calculateDriveTime(routeInfo, "START", "CHARGING");
-            double baseSocConsumption = socCalculationService.calculateOtherRouteRemainingSOC(routeInfo);
+            int station = selectStation(startSite, currentTime, driveTimeToStationMinutes);
+            int stationSite = exchangeStations.site(station);
+            double baseSocConsumption;
+            if (station == 0) {
+                baseSocConsumption = socCalculationService.calculateOtherRouteRemainingSOC(routeInfo);
+            } else {
+                driveTimeToStationMinutes = legDriveTime(startSite, stationSite);
+                baseSocConsumption = socCalculationService.calculateRouteSOC(legKm(startSite, stationSite), false, getTruckCapacity(routeInfo), truck.getTruckNo());
+            }
 
             LocalDateTime arrivalTimeAtStation = currentTime.plusMinutes(driveTimeToStationMinutes);
 
             // 更新SOC（到达换电站前）
-            BigDecimal socBeforeExchange = truck.getSoc().subtract(BigDecimal.valueOf(baseSocConsumption));
-            truck.setSoc(socBeforeExchange);
+            consumeSoc(truck, baseSocConsumption);
 
             // 2. 进站换电
-            exchangeStationService.enterStation(truck, arrivalTimeAtStation);
-            LocalDateTime exchangeEndTime = findExchangeEndTime(truck.getTruckNo(), arrivalTimeAtStation, socBeforeExchange, truck.getTransportFrequency());
+            ExchangeStationService exchangeStation = exchangeStations.get(station);
+            LocalDateTime exchangeEndTime = exchange(exchangeStation, truck, arrivalTimeAtStation);
 
             // 3. 换电站到A点
-            long driveTimeToAMinutes = calculateDriveTime(routeInfo, "CHARGING", "LOADING");
-            baseSocConsumption = socCalculationService.calculateRouteSOC(LocationConstants.CHARGING_TO_LOADING_DISTANCE_KM, false, getTruckCapacity(routeInfo), truck.getTruckNo());
+            long driveTimeToAMinutes = driveTimeFromStation(station, routeInfo);
+            baseSocConsumption = socCalculationService.calculateRouteSOC(legKm(stationSite, loadingSite), false, getTruckCapacity(routeInfo), truck.getTruckNo());
 
 
             // 换电后SOC为100%，减去到A点的消耗
-            truck.setSoc(BigDecimal.valueOf(LocationConstants.FULL_SOC - baseSocConsumption));
+            setSocAfterExchange(truck, baseSocConsumption);
 
             LocalDateTime finalArrivalTime = exchangeEndTime.plusMinutes(driveTimeToAMinutes);
 
@@ -793,99 +1719,109 @@ public class DispatchSimulation {
      * 处理所有车辆的首次出发（从出发点到A点）
      */
     private void processInitialDeparture() {
-        for (Truck truck : trucks) {
-            // 使用comprehensive分析判断是否需要先换电
-            LocalDateTime arrivalTimeAtA;
-            try {
+        for (int i = 0; i < fleet.size(); i++) {
+            departFromCurrentPosition(i);
+        }
+    }
 
-                // 分析车辆当前路径状态
-                RouteInfo routeInfo = vehicleTrackingService.analyzeVehicleRoute(truck.getTruckNo(), this.truckRouteMap);
-                trucks.forEach(t -> {
-                    if (t.getTruckNo().equals(routeInfo.getVehicleNo())) {
-                        t.setSoc(routeInfo.getCurrentSoc());
-                    }
-                });
-                if (routeInfo.getCurrentRoute() != RouteInfo.RouteType.START_TO_LOADING) {
-                    truckCompletionTimes.put(truck.getTruckNo(), routeInfo.getCurrentLocation().getReportTime());
-                    truckCurRouteSet.add(truck.getTruckNo());
-                    continue;
-                }
+    /**
+     * 根据车辆当前路径状态安排其前往装货点
+     * 处于运输途中的车辆记录上报时间，由第一趟运输按当前路径完成
+     */
+    private void departFromCurrentPosition(int index) {
+        Truck truck = toTruck(index);
+        // 使用comprehensive分析判断是否需要先换电
+        LocalDateTime arrivalTimeAtA;
+        try {
 
-                // 计算是否满足下一次完整运输路径的SOC消耗（使用RouteInfo中的truck信息）
-                double completeTransportSOC = socCalculationService.calculateCompleteTransportSOC(routeInfo);
+            // 分析车辆当前路径状态
+            RouteInfo routeInfo = analyzeRoute(truck.getTruckNo());
+            if (truck.getTruckNo().equals(routeInfo.getVehicleNo())) {
+                truck.setSoc(routeInfo.getCurrentSoc());
+            }
+            if (routeInfo.getCurrentRoute() != RouteInfo.RouteType.START_TO_LOADING) {
+                fromTruck(index);
+                fleet.setNextFreeTime(index, clock.toSimTime(routeInfo.getCurrentLocation().getReportTime()));
+                truckCurRouteSet.add(truck.getTruckNo());
+                return;
+            }
 
-                // 计算本趟剩余行驶公里数对应的SOC消耗
-                double remainingTripSOC = socCalculationService.calculateRemainingTripSOC(routeInfo);
+            // 计算是否满足下一次完整运输路径的SOC消耗（使用RouteInfo中的truck信息）
+            double completeTransportSOC = socCalculationService.calculateCompleteTransportSOC(routeInfo);
 
-                boolean needCharging = socCalculationService.shouldGoToChargingStation(truck.getSoc(), completeTransportSOC, remainingTripSOC);
-                if (needCharging) {
-                    // 需要先去换电站换电，然后到A点
-                    arrivalTimeAtA = transportStartToStationToAWithAnalysis(truck, routeInfo.getCurrentLocation().getReportTime(), routeInfo);
-                } else {
-                    // 直接从出发点到A点
-                    arrivalTimeAtA = transportStartToAWithAnalysis(truck, routeInfo.getCurrentLocation().getReportTime(), routeInfo);
-                }
-            } catch (Exception e) {
-                // 回退到原有逻辑
-                if (transportService.needsExchangeFromStart(truck)) {
-                    arrivalTimeAtA = transportService.transportStartToStationToA(truck, initialTime);
-                } else {
-                    arrivalTimeAtA = transportService.transportStartToA(truck, initialTime);
-                }
-            }
+            // 计算本趟剩余行驶公里数对应的SOC消耗
+            double remainingTripSOC = socCalculationService.calculateRemainingTripSOC(routeInfo);
 
-            // 更新车辆完成时间（到达A点的时间）
-            truckCompletionTimes.put(truck.getTruckNo(), arrivalTimeAtA);
+            boolean needCharging = shouldGoToChargingStation(index, DecisionTrace.Type.INITIAL_ROUTE,
+                    routeInfo.getCurrentLocation().getReportTime(), truck.getSoc(), completeTransportSOC, remainingTripSOC);
+            if (needCharging) {
+                // 需要先去换电站换电，然后到A点
+                arrivalTimeAtA = transportStartToStationToAWithAnalysis(truck, routeInfo.getCurrentLocation().getReportTime(), routeInfo);
+            } else {
+                // 直接从出发点到A点
+                arrivalTimeAtA = transportStartToAWithAnalysis(truck, routeInfo.getCurrentLocation().getReportTime(), routeInfo);
+            }
+        } catch (Exception e) {
+            // 回退到原有逻辑
+            decisionTrace.record(0, index, DecisionTrace.Type.FALLBACK, truck.getSoc() == null ? 0 : SocFixedPoint.of(truck.getSoc()), 0, 0, false);
+            if (transportService.needsExchangeFromStart(truck)) {
+                arrivalTimeAtA = transportService.transportStartToStationToA(truck, initialTime);
+            } else {
+                arrivalTimeAtA = transportService.transportStartToA(truck, initialTime);
+            }
         }
+
+        // 更新车辆完成时间（到达A点的时间）
+        fromTruck(index);
+        fleet.setNextFreeTime(index, clock.toSimTime(arrivalTimeAtA));
     }
 
     /**
-     * 智能获取距离：优先从RouteInfo获取剩余距离，后备使用LocationConstants常量
-     *
-     * @param routeInfo    路径信息（可能为null）
-     * @param fromLocation 起始位置
-     * @param toLocation   目标位置
-     * @return 距离（公里）
+     * 分析车辆路径状态
+     * 同一次模拟中每辆车只从Redis读取一次，之后复用缓存结果
      */
-    private double getDistanceFromRouteInfoOrConstant(RouteInfo routeInfo, String fromLocation, String toLocation) {
-        // 优先级1：如果routeInfo可用且路径匹配，使用剩余距离
-        if (routeInfo != null && routeInfo.getTargetLocation() != null &&
-                routeInfo.getTargetLocation().equals(toLocation) && routeInfo.getRemainingDistanceKm() >= 0) {
-            log.debug("使用RouteInfo剩余距离：{}km", routeInfo.getRemainingDistanceKm());
-            return routeInfo.getRemainingDistanceKm();
-        }
-
-        // 优先级2：使用LocationConstants预定义常量
-        double constantDistance = LocationConstants.getDistanceBetweenPoints(fromLocation, toLocation);
-        if (constantDistance > 0) {
-            log.debug("使用LocationConstants常量距离：{}km ({} -> {})", constantDistance, fromLocation, toLocation);
-            return constantDistance;
-        }
-
-        // 优先级3：后备硬编码值（保持原业务逻辑）
-        double fallbackDistance = getFallbackDistance(fromLocation, toLocation);
-        log.warn("使用后备距离：{}km ({} -> {})", fallbackDistance, fromLocation, toLocation);
-        return fallbackDistance;
+    private RouteInfo analyzeRoute(String truckNo) {
+        RouteInfo routeInfo = vehicleTrackingService.analyzeVehicleRoute(truckNo, this.truckRouteMap);
+        truckRouteMap.putIfAbsent(truckNo, routeInfo);
+        return routeInfo;
     }
 
     /**
-     * 后备距离获取（保持原有业务逻辑）
+     * 获取车辆固定路段的SOC消耗（未乘能耗系数），同一次模拟中每辆车每个路段只计算一次
+     * @param leg 路段，见{@link RouteSocTable}
+     * @return SOC消耗(%)
      */
-    private double getFallbackDistance(String fromLocation, String toLocation) {
-        if ("UNLOADING".equals(fromLocation) && "CHARGING".equals(toLocation)) {
-            return 26; // B到换电站26km
-        } else if ("CHARGING".equals(fromLocation) && "LOADING".equals(toLocation)) {
-            return 10; // 换电站到A点10km  
-        } else if ("START".equals(fromLocation) && "CHARGING".equals(toLocation)) {
-            return 20; // 出发点到换电站20km
-        } else if ("START".equals(fromLocation) && "LOADING".equals(toLocation)) {
-            return 15; // 出发点到A点15km
-        } else if ("LOADING".equals(fromLocation) && "UNLOADING".equals(toLocation)) {
-            return 30; // A到B点30km
-        } else if ("UNLOADING".equals(fromLocation) && "LOADING".equals(toLocation)) {
-            return 30; // B到A点30km (返程)
-        } else {
-            return 20; // 默认20km
+    private double routeSoc(int index, int leg, RouteInfo routeInfo) {
+        double soc = routeSocTable.get(index, leg);
+        if (Double.isNaN(soc)) {
+            soc = calculateRouteSoc(leg, fleet.getTruckNo(index), routeInfo);
+            routeSocTable.put(index, leg, soc);
+        }
+        return soc;
+    }
+
+    private double calculateRouteSoc(int leg, String truckNo, RouteInfo routeInfo) {
+        switch (leg) {
+            case RouteSocTable.LOADING_TO_UNLOADING:
+                return socCalculationService.calculateRouteSOC(legKm(loadingSite, unloadingSite), true, getTruckCapacity(routeInfo), routeInfo.getVehicleNo());
+            case RouteSocTable.UNLOADING_TO_CHARGING:
+                return socCalculationService.calculateRouteSOC(legKm(unloadingSite, chargingSite), false, getTruckCapacity(routeInfo), truckNo);
+            case RouteSocTable.CHARGING_TO_LOADING:
+                return socCalculationService.calculateRouteSOC(legKm(chargingSite, loadingSite), false, getTruckCapacity(routeInfo), truckNo);
+            case RouteSocTable.COMPLETE_TRANSPORT:
+                return socCalculationService.calculateCompleteTransportSOC(routeInfo);
+            case RouteSocTable.UNLOADING_TO_LOADING:
+                return socCalculationService.calculateUnloadingToLoadingRemainingSOC(routeInfo);
+            default:
+                // 其余换电站的进站、出站路段
+                int station = RouteSocTable.stationOf(leg);
+                if (station < 1 || station >= exchangeStations.size()) {
+                    throw new IllegalArgumentException("未知路段：" + leg);
+                }
+                int stationSite = exchangeStations.site(station);
+                return leg == RouteSocTable.toStation(station)
+                        ? socCalculationService.calculateRouteSOC(legKm(unloadingSite, stationSite), false, getTruckCapacity(routeInfo), truckNo)
+                        : socCalculationService.calculateRouteSOC(legKm(stationSite, loadingSite), false, getTruckCapacity(routeInfo), truckNo);
         }
     }
 
@@ -944,7 +1880,13 @@ public class DispatchSimulation {
                 record.setStatusText("正常运输");
             }
             
-            scheduleRecords.add(record);
+            if (retainRecords) {
+                scheduleRecords.add(record);
+            }
+            for (RecordSink recordSink : recordSinks) {
+                recordSink.onScheduleRecord(record);
+            }
+            metrics.onTripCompleted(clock.toSimTime(endTime), truckNo, record.getTransportFrequency());
             currentTripRecords.remove(truckNo);
             log.debug("完成运输记录：车辆{}, 结束时间{}, 需要换电{}", truckNo, endTime, needExchange);
         }
@@ -958,16 +1900,41 @@ public class DispatchSimulation {
      * @return 匹配的换电记录
      */
     private ExchangeRecord findMatchingExchangeRecord(String truckNo, int transportFrequency) {
-        List<ExchangeRecord> exchangeRecords = getExchangeRecords();
-        
-        for (ExchangeRecord record : exchangeRecords) {
-            if (record.getTruckNo().equals(truckNo) && 
-                record.getTransporFrequency() == transportFrequency) {
-                return record;
-            }
+        return exchangeStations.getExchangeRecord(truckNo, transportFrequency);
+    }
+
+    /**
+     * 获取全部车辆完成运输的时间
+     *
+     * @return 最晚的车辆完成时间，没有车辆时返回初始时间
+     */
+    public LocalDateTime getCompletionTime() {
+        long completionTime = 0;
+        for (int i = 0; i < fleet.size(); i++) {
+            completionTime = Math.max(completionTime, fleet.getNextFreeTime(i));
         }
-        
-        return null;
+        return clock.toDateTime(completionTime);
+    }
+
+    /**
+     * 获取模拟开始时处于运输途中的车辆，这些车辆按当前路径完成第一趟，出发偏移对其无效
+     * @return 车牌号集合，模拟尚未运行时为空
+     */
+    public Set<String> getInitialTransitTruckNos() {
+        InitialState state = evaluationBase != null ? evaluationBase : initialState;
+        return state == null ? Collections.emptySet() : Collections.unmodifiableSet(state.getTruckCurRouteSet());
+    }
+
+    /**
+     * 获取全部车辆在换电站的累计排队等待时间
+     * @return 等待时间(秒)
+     */
+    public long getTotalStationWaitSeconds() {
+        return exchangeStations.getTotalWaitSeconds();
+    }
+
+    public SimulationScenario getScenario() {
+        return scenario;
     }
 
     /**
@@ -979,6 +1946,13 @@ public class DispatchSimulation {
         return new ArrayList<>(scheduleRecords);
     }
 
+    /**
+     * 获取调度记录数量
+     */
+    public int getScheduleRecordCount() {
+        return scheduleRecords.size();
+    }
+
     /**
      * 获取JSON格式的调度记录
      *
@@ -0,0 +1,41 @@
+package com.example.dispatch.config;
+
+import com.example.dispatch.simulation.FileChannelRecordSink;
+import com.example.dispatch.simulation.RedisStreamRecordSink;
+import com.example.dispatch.simulation.WindowRecordSink;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * 调度记录输出配置
+ * 内存窗口始终启用；配置dispatch.records.file时追加写入JSON Lines文件，
+ * 配置dispatch.records.redis-stream时写入Redis Stream
+ */
+@Configuration
+public class RecordSinkConfig {
+
+    @Bean
+    public WindowRecordSink windowRecordSink(@Value("${dispatch.records.window-size:1000}") int windowSize) {
+        return new WindowRecordSink(windowSize);
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "dispatch.records", name = "file")
+    public FileChannelRecordSink fileChannelRecordSink(@Value("${dispatch.records.file}") String file) throws IOException {
+        return new FileChannelRecordSink(Paths.get(file));
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "dispatch.records", name = "redis-stream")
+    public RedisStreamRecordSink redisStreamRecordSink(RedissonClient redissonClient,
+                                                       @Value("${dispatch.records.redis-stream}") String streamName,
+                                                       @Value("${dispatch.records.redis-stream-max-length:10000}") int maxLength) {
+        return new RedisStreamRecordSink(redissonClient, streamName, maxLength);
+    }
+}
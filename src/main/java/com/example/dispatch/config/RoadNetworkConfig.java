@@ -0,0 +1,28 @@
+package com.example.dispatch.config;
+
+import com.example.dispatch.simulation.RoadNetwork;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 路网配置
+ * 启动时根据dispatch.network构建路网并预计算站点间的距离和行驶时间，未配置站点时使用默认路网
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(RoadNetworkProperties.class)
+public class RoadNetworkConfig {
+
+    @Bean
+    public RoadNetwork roadNetwork(RoadNetworkProperties properties) {
+        if (properties.getSites().isEmpty()) {
+            log.info("未配置路网站点，使用默认路网");
+            return RoadNetwork.DEFAULT;
+        }
+        RoadNetwork roadNetwork = new RoadNetwork(properties);
+        log.info("路网加载完成：{} 个站点，{} 条道路", roadNetwork.size(), properties.getRoads().size());
+        return roadNetwork;
+    }
+}
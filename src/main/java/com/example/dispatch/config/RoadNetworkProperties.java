@@ -0,0 +1,137 @@
+package com.example.dispatch.config;
+
+import com.example.dispatch.constant.LocationConstants;
+import com.example.dispatch.model.SiteType;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 路网配置（dispatch.network）
+ * 站点数量不限，可配置多个装货点、卸货点和换电站；未配置站点时使用LocationConstants中的默认路网
+ */
+@Data
+@ConfigurationProperties(prefix = "dispatch.network")
+public class RoadNetworkProperties {
+
+    /**
+     * 站点列表
+     */
+    private List<Site> sites = new ArrayList<>();
+
+    /**
+     * 道路列表，站点之间没有道路连通时按直线距离乘以绕行系数估算
+     */
+    private List<Road> roads = new ArrayList<>();
+
+    /**
+     * 道路未配置限速时的平均车速（km/h）
+     */
+    private double averageSpeedKmh = LocationConstants.AVERAGE_SPEED;
+
+    /**
+     * 绕行系数：估算距离 = 直线距离 × 绕行系数
+     */
+    private double detourFactor = 1.0;
+
+    @Data
+    public static class Site {
+
+        /**
+         * 站点编码，道路和模拟场景通过编码引用站点
+         */
+        private String code;
+
+        /**
+         * 站点名称
+         */
+        private String name;
+
+        /**
+         * 站点类型
+         */
+        private SiteType type;
+
+        /**
+         * 纬度
+         */
+        private double latitude;
+
+        /**
+         * 经度
+         */
+        private double longitude;
+
+        public Site() {
+        }
+
+        public Site(String code, String name, SiteType type, double latitude, double longitude) {
+            this.code = code;
+            this.name = name;
+            this.type = type;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+    }
+
+    @Data
+    public static class Road {
+
+        /**
+         * 起点站点编码
+         */
+        private String from;
+
+        /**
+         * 终点站点编码
+         */
+        private String to;
+
+        /**
+         * 道路长度（公里）
+         */
+        private double distanceKm;
+
+        /**
+         * 平均车速（km/h），为空时使用averageSpeedKmh
+         */
+        private Double speedKmh;
+
+        /**
+         * 是否单行，默认双向通行
+         */
+        private boolean oneWay;
+
+        public Road() {
+        }
+
+        public Road(String from, String to, double distanceKm) {
+            this.from = from;
+            this.to = to;
+            this.distanceKm = distanceKm;
+        }
+    }
+
+    /**
+     * 默认路网：出发点、装货点、卸货点、换电站各一个，道路长度为预计算的关键路径距离
+     */
+    public static RoadNetworkProperties defaults() {
+        RoadNetworkProperties properties = new RoadNetworkProperties();
+        properties.getSites().add(site(SiteType.START, LocationConstants.START_POINT.getLatitude(), LocationConstants.START_POINT.getLongitude()));
+        properties.getSites().add(site(SiteType.LOADING, LocationConstants.LOADING_POINT.getLatitude(), LocationConstants.LOADING_POINT.getLongitude()));
+        properties.getSites().add(site(SiteType.UNLOADING, LocationConstants.UNLOADING_POINT.getLatitude(), LocationConstants.UNLOADING_POINT.getLongitude()));
+        properties.getSites().add(site(SiteType.CHARGING, LocationConstants.CHARGING_STATION.getLatitude(), LocationConstants.CHARGING_STATION.getLongitude()));
+
+        properties.getRoads().add(new Road("START", "LOADING", LocationConstants.START_TO_LOADING_DISTANCE_KM));
+        properties.getRoads().add(new Road("LOADING", "UNLOADING", LocationConstants.LOADING_TO_UNLOADING_DISTANCE_KM));
+        properties.getRoads().add(new Road("UNLOADING", "CHARGING", LocationConstants.UNLOADING_TO_CHARGING_DISTANCE_KM));
+        properties.getRoads().add(new Road("CHARGING", "LOADING", LocationConstants.CHARGING_TO_LOADING_DISTANCE_KM));
+        return properties;
+    }
+
+    private static Site site(SiteType type, double latitude, double longitude) {
+        return new Site(type.name(), type.getDescription(), type, latitude, longitude);
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.dispatch.config;
+
+import com.example.dispatch.telemetry.InMemoryTelemetryStore;
+import com.example.dispatch.telemetry.RedisTelemetryStore;
+import com.example.dispatch.telemetry.TelemetryStore;
+import org.redisson.api.RedissonClient;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 遥测数据存储配置
+ * dispatch.telemetry.store为redis（默认）时读写Redis，为memory时保存在进程内
+ */
+@Configuration
+public class TelemetryStoreConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "dispatch.telemetry", name = "store", havingValue = "redis", matchIfMissing = true)
+    public TelemetryStore redisTelemetryStore(RedissonClient redissonClient) {
+        return new RedisTelemetryStore(redissonClient);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "dispatch.telemetry", name = "store", havingValue = "memory")
+    public TelemetryStore inMemoryTelemetryStore() {
+        return new InMemoryTelemetryStore();
+    }
+}
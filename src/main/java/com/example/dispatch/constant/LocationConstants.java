@@ -184,33 +184,4 @@ public class LocationConstants {
         }
         return location1.distanceTo(location2);
     }
-
-    /**
-     * 获取两个关键点之间的距离（公里）
-     */
-    public static double getDistanceBetweenPoints(String fromPoint, String toPoint) {
-        GpsLocation fromLocation = getLocationByType(fromPoint);
-        GpsLocation toLocation = getLocationByType(toPoint);
-
-        if (fromLocation != null && toLocation != null) {
-            // 使用实际计算的距离
-            double distanceMeters = calculateDistance(fromLocation, toLocation);
-            return distanceMeters / 1000.0; // 转换为公里
-        }
-
-
-        // TODO: 这里应该是初始化时传入的，不是常量写死，如果无法获取位置，使用预设值
-        if ("LOADING".equals(fromPoint) && "UNLOADING".equals(toPoint)) {
-            return LOADING_TO_UNLOADING_DISTANCE_KM;
-        } else if ("UNLOADING".equals(fromPoint) && "CHARGING".equals(toPoint)) {
-            return UNLOADING_TO_CHARGING_DISTANCE_KM;
-        } else if ("CHARGING".equals(fromPoint) && "LOADING".equals(toPoint)) {
-            return CHARGING_TO_LOADING_DISTANCE_KM;
-        } else if ("START".equals(fromPoint) && "LOADING".equals(toPoint)) {
-            return START_TO_LOADING_DISTANCE_KM;
-        } else if ("UNLOADING".equals(fromPoint) && "LOADING".equals(toPoint)) {
-            return UNLOADING_TO_CHARGING_DISTANCE_KM + CHARGING_TO_LOADING_DISTANCE_KM;
-        }
-        return 0.0;
-    }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,46 @@
+package com.example.dispatch.controller;
+
+import com.example.dispatch.model.ReplayResult;
+import com.example.dispatch.model.ReplaySettings;
+import com.example.dispatch.service.TelemetryReplayService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 遥测回放控制器
+ * 用录制的真实遥测数据对调度流程做压测和回归测试
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/replay")
+public class ReplayController {
+
+    @Autowired
+    private TelemetryReplayService telemetryReplayService;
+
+    /**
+     * 回放录制的遥测数据
+     * POST /api/replay/run
+     */
+    @PostMapping("/run")
+    public Map<String, Object> replay(@RequestBody ReplaySettings settings) {
+        log.info("API请求：回放遥测数据 {}，倍速 {}", settings.getFile(), settings.getSpeedup());
+
+        Map<String, Object> response = new HashMap<>();
+        ReplayResult result = telemetryReplayService.replay(settings);
+        response.put("success", result.isSuccess());
+        response.put("result", result);
+        response.put("message", result.isSuccess() ? "回放完成" : result.getMessage());
+        if (!result.isSuccess()) {
+            response.put("timestamp", System.currentTimeMillis());
+        }
+        return response;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.dispatch.controller;
+
+import com.example.dispatch.model.MonteCarloResult;
+import com.example.dispatch.model.MonteCarloSettings;
+import com.example.dispatch.model.ScenarioResult;
+import com.example.dispatch.model.SimulationScenario;
+import com.example.dispatch.model.StaggerResult;
+import com.example.dispatch.model.StaggerSettings;
+import com.example.dispatch.service.DepartureStaggerOptimizer;
+import com.example.dispatch.service.MonteCarloSimulationService;
+import com.example.dispatch.service.ScenarioRunnerService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 调度模拟场景控制器
+ * 提供多场景并行模拟（what-if分析）的Web API
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/scenario")
+public class ScenarioController {
+
+    @Autowired
+    private ScenarioRunnerService scenarioRunnerService;
+
+    @Autowired
+    private MonteCarloSimulationService monteCarloSimulationService;
+
+    @Autowired
+    private DepartureStaggerOptimizer departureStaggerOptimizer;
+
+    /**
+     * 并行运行多个模拟场景
+     * POST /api/scenario/run
+     */
+    @PostMapping("/run")
+    public Map<String, Object> runScenarios(@RequestBody List<SimulationScenario> scenarios) {
+        log.info("API请求：运行 {} 个模拟场景", scenarios.size());
+
+        Map<String, Object> response = new HashMap<>();
+        try {
+            List<ScenarioResult> results = scenarioRunnerService.runScenarios(scenarios);
+            response.put("success", true);
+            response.put("results", results);
+            response.put("message", "模拟完成");
+        } catch (Exception e) {
+            log.error("多场景模拟失败", e);
+            response.put("success", false);
+            response.put("message", "模拟失败: " + e.getMessage());
+            response.put("timestamp", System.currentTimeMillis());
+        }
+        return response;
+    }
+
+    /**
+     * 蒙特卡洛模拟：按随机车速、装卸货时间和能耗重复运行，返回分位数统计
+     * POST /api/scenario/monte-carlo
+     */
+    @PostMapping("/monte-carlo")
+    public Map<String, Object> runMonteCarlo(@RequestBody MonteCarloSettings settings) {
+        log.info("API请求：蒙特卡洛模拟，{} 次运行，种子 {}", settings.getReplications(), settings.getSeed());
+
+        Map<String, Object> response = new HashMap<>();
+        MonteCarloResult result = monteCarloSimulationService.run(settings);
+        response.put("success", result.isSuccess());
+        response.put("result", result);
+        response.put("message", result.isSuccess() ? "模拟完成" : result.getMessage());
+        if (!result.isSuccess()) {
+            response.put("timestamp", System.currentTimeMillis());
+        }
+        return response;
+    }
+
+    /**
+     * 出发时间优化：搜索每辆车第一趟的出发推迟时间，减少换电站排队
+     * POST /api/scenario/stagger
+     */
+    @PostMapping("/stagger")
+    public Map<String, Object> optimizeStagger(@RequestBody StaggerSettings settings) {
+        log.info("API请求：出发时间优化，最大推迟 {} 分钟，时间预算 {}ms", settings.getMaxOffsetMinutes(), settings.getTimeBudgetMillis());
+
+        Map<String, Object> response = new HashMap<>();
+        StaggerResult result = departureStaggerOptimizer.optimize(settings);
+        response.put("success", result.isSuccess());
+        response.put("result", result);
+        response.put("message", result.isSuccess() ? "优化完成" : result.getMessage());
+        if (!result.isSuccess()) {
+            response.put("timestamp", System.currentTimeMillis());
+        }
+        return response;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.dispatch.controller;
+
+import com.example.dispatch.service.IncrementalDispatchPlanner;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 调度决策记录控制器
+ * 按需查看当前调度计划最近的换电判断、换电排队等决策
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/trace")
+public class TraceController {
+
+    @Autowired
+    private IncrementalDispatchPlanner incrementalDispatchPlanner;
+
+    /**
+     * 当前调度计划最近的决策记录
+     * GET /api/trace/decisions
+     */
+    @GetMapping("/decisions")
+    public Map<String, Object> decisions() {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            List<String> records = incrementalDispatchPlanner.dumpDecisionTrace();
+            response.put("success", true);
+            response.put("count", records.size());
+            response.put("records", records);
+            response.put("message", "查询成功");
+        } catch (Exception e) {
+            log.error("查询决策记录失败", e);
+            response.put("success", false);
+            response.put("message", "查询失败: " + e.getMessage());
+            response.put("timestamp", System.currentTimeMillis());
+        }
+        return response;
+    }
+}
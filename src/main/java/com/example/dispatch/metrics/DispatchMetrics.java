@@ -0,0 +1,265 @@
+package com.example.dispatch.metrics;
+
+import com.example.dispatch.DispatchSimulation;
+import com.example.dispatch.model.ExchangeRecord;
+import com.example.dispatch.model.GeDispatchScheduleRecord;
+import com.example.dispatch.service.TransportService;
+import com.example.dispatch.simulation.SimClock;
+import com.example.dispatch.simulation.SimulationMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 调度运行指标
+ * 线上调度计划在模拟过程中回调换电和运输完成，按模拟时间记录在基本类型数组中，
+ * 增量重新规划时丢弃重新模拟部分的记录；每次计划更新后按当前时间计算指标并通过Micrometer输出：
+ * 当前换电站排队车辆数、计划内最大排队车辆数、换电排队时间、每小时换电次数、可用电池数、
+ * 每辆车的运输趟数、当前剩余货物和计划完成时间
+ */
+@Component
+public class DispatchMetrics implements SimulationMetrics {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 换电记录：到达时间、开始换电时间、换电后可用电池数（模拟时间，按回调顺序）
+    private long[] arrivalTimes = new long[64];
+    private long[] startTimes = new long[64];
+    private int[] availableBatteries = new int[64];
+    private int exchangeCount;
+
+    // 运输记录：回到装货点时间、车牌号、运输次数
+    private long[] endTimes = new long[64];
+    private final List<String> truckNos = new ArrayList<>();
+    private int[] frequencies = new int[64];
+    private int tripCount;
+
+    private volatile Kpi kpi = new Kpi();     // 最近一次计划更新后的指标
+    private Timer planTimer;
+    private Counter planFailures;
+    private MultiGauge swapsPerHour;
+    private MultiGauge tripsPerTruck;
+
+    @PostConstruct
+    public void registerMeters() {
+        Gauge.builder("dispatch.station.queue.length", this, m -> m.kpi.queueLength)
+                .description("当前时间换电站排队车辆数").register(meterRegistry);
+        Gauge.builder("dispatch.station.queue.length.max", this, m -> m.kpi.maxQueueLength)
+                .description("调度计划内换电站最大排队车辆数").register(meterRegistry);
+        Gauge.builder("dispatch.exchange.wait.mean", this, m -> m.kpi.meanWaitMinutes)
+                .description("调度计划内每次换电的平均排队时间").baseUnit("minutes").register(meterRegistry);
+        Gauge.builder("dispatch.exchange.wait.p95", this, m -> m.kpi.p95WaitMinutes)
+                .description("调度计划内每次换电排队时间的95分位数").baseUnit("minutes").register(meterRegistry);
+        Gauge.builder("dispatch.exchange.wait.max", this, m -> m.kpi.maxWaitMinutes)
+                .description("调度计划内每次换电的最长排队时间").baseUnit("minutes").register(meterRegistry);
+        Gauge.builder("dispatch.exchange.count", this, m -> m.kpi.exchanges)
+                .description("调度计划内的换电次数").register(meterRegistry);
+        Gauge.builder("dispatch.battery.available", this, m -> m.kpi.availableBatteries)
+                .description("当前时间最近一次换电后的可用电池数").register(meterRegistry);
+        Gauge.builder("dispatch.cargo.remaining", this, m -> m.kpi.remainingCargo)
+                .description("当前时间剩余需要运输的货物").baseUnit("tons").register(meterRegistry);
+        Gauge.builder("dispatch.plan.completion", this, m -> m.kpi.completionMinutes)
+                .description("全部车辆完成运输所需时间（相对模拟初始时间）").baseUnit("minutes").register(meterRegistry);
+        swapsPerHour = MultiGauge.builder("dispatch.exchange.swaps.hourly")
+                .description("调度计划内每小时开始的换电次数").register(meterRegistry);
+        tripsPerTruck = MultiGauge.builder("dispatch.truck.trips")
+                .description("调度计划内每辆车的运输趟数").register(meterRegistry);
+        planTimer = Timer.builder("dispatch.plan.duration")
+                .description("调度计划更新耗时").register(meterRegistry);
+        planFailures = Counter.builder("dispatch.plan.failures")
+                .description("调度计划更新失败次数").register(meterRegistry);
+    }
+
+    @Override
+    public synchronized void onExchange(long arrivalTime, long startTime, int available) {
+        if (exchangeCount == arrivalTimes.length) {
+            arrivalTimes = Arrays.copyOf(arrivalTimes, exchangeCount * 2);
+            startTimes = Arrays.copyOf(startTimes, exchangeCount * 2);
+            availableBatteries = Arrays.copyOf(availableBatteries, exchangeCount * 2);
+        }
+        arrivalTimes[exchangeCount] = arrivalTime;
+        startTimes[exchangeCount] = startTime;
+        availableBatteries[exchangeCount] = available;
+        exchangeCount++;
+    }
+
+    @Override
+    public synchronized void onTripCompleted(long endTime, String truckNo, int transportFrequency) {
+        if (tripCount == endTimes.length) {
+            endTimes = Arrays.copyOf(endTimes, tripCount * 2);
+            frequencies = Arrays.copyOf(frequencies, tripCount * 2);
+        }
+        endTimes[tripCount] = endTime;
+        frequencies[tripCount] = transportFrequency;
+        truckNos.add(truckNo);
+        tripCount++;
+    }
+
+    /**
+     * 丢弃指定时间之后产生的记录：换电按到达时间、运输按完成时间判断
+     */
+    @Override
+    public synchronized void onRewind(long time) {
+        int kept = 0;
+        for (int i = 0; i < exchangeCount; i++) {
+            if (arrivalTimes[i] < time) {
+                arrivalTimes[kept] = arrivalTimes[i];
+                startTimes[kept] = startTimes[i];
+                availableBatteries[kept] = availableBatteries[i];
+                kept++;
+            }
+        }
+        exchangeCount = kept;
+
+        kept = 0;
+        for (int i = 0; i < tripCount; i++) {
+            if (endTimes[i] < time) {
+                endTimes[kept] = endTimes[i];
+                frequencies[kept] = frequencies[i];
+                truckNos.set(kept, truckNos.get(i));
+                kept++;
+            }
+        }
+        truckNos.subList(kept, tripCount).clear();
+        tripCount = kept;
+    }
+
+    /**
+     * 清空全部记录（完整重建调度计划前调用）
+     */
+    public synchronized void reset() {
+        exchangeCount = 0;
+        tripCount = 0;
+        truckNos.clear();
+    }
+
+    /**
+     * 从已有的调度计划（如从快照恢复的计划）重新载入记录
+     */
+    public synchronized void load(DispatchSimulation simulation) {
+        reset();
+        SimClock clock = new SimClock(simulation.getInitialTime());
+        for (ExchangeRecord record : simulation.getExchangeRecords()) {
+            // 快照中没有保存可用电池数
+            onExchange(clock.toSimTime(record.getStartAwaitTime()), clock.toSimTime(record.getStartExchangeTime()), -1);
+        }
+        for (GeDispatchScheduleRecord record : simulation.getScheduleRecords()) {
+            LocalDateTime endTime = LocalDate.parse(record.getScheduleDate()).atTime(record.getEndTime());
+            if (record.getEndTime().isBefore(record.getStartTime())) {
+                endTime = endTime.plusDays(1);  // 跨零点的运输
+            }
+            onTripCompleted(clock.toSimTime(endTime), record.getTruckNo(), record.getTransportFrequency());
+        }
+    }
+
+    /**
+     * 调度计划更新完成：按当前时间计算并发布指标
+     * @param simulation 最新调度计划
+     * @param now 当前时间
+     * @param durationMillis 本次更新耗时
+     */
+    public synchronized void onPlanCompleted(DispatchSimulation simulation, LocalDateTime now, long durationMillis) {
+        planTimer.record(durationMillis, TimeUnit.MILLISECONDS);
+        LocalDateTime initialTime = simulation.getInitialTime();
+        SimClock clock = new SimClock(initialTime);
+        long nowSim = clock.toSimTime(now);
+
+        Kpi next = new Kpi();
+        next.exchanges = exchangeCount;
+        next.completionMinutes = clock.toSimTime(simulation.getCompletionTime()) / 60.0;
+
+        // 排队：到达后、开始换电前的车辆数；按到达+1、开始-1扫描得到最大排队数
+        long[] changes = new long[exchangeCount * 2];
+        double[] waits = new double[exchangeCount];
+        long lastStart = Long.MIN_VALUE;
+        next.availableBatteries = -1;
+        for (int i = 0; i < exchangeCount; i++) {
+            if (arrivalTimes[i] <= nowSim && nowSim < startTimes[i]) {
+                next.queueLength++;
+            }
+            if (startTimes[i] <= nowSim && startTimes[i] >= lastStart) {
+                lastStart = startTimes[i];
+                next.availableBatteries = availableBatteries[i];
+            }
+            // 同一时间先开始换电再计入到达，低位1表示到达
+            changes[2 * i] = arrivalTimes[i] << 1 | 1;
+            changes[2 * i + 1] = startTimes[i] << 1;
+            waits[i] = (startTimes[i] - arrivalTimes[i]) / 60.0;
+        }
+        Arrays.sort(changes);
+        int queue = 0;
+        for (long change : changes) {
+            queue += (change & 1) == 1 ? 1 : -1;
+            next.maxQueueLength = Math.max(next.maxQueueLength, queue);
+        }
+        if (exchangeCount > 0) {
+            Arrays.sort(waits);
+            next.meanWaitMinutes = Arrays.stream(waits).average().orElse(0.0);
+            next.p95WaitMinutes = waits[(int) Math.ceil(waits.length * 0.95) - 1];
+            next.maxWaitMinutes = waits[waits.length - 1];
+        }
+
+        // 剩余货物：当前时间之前已完成的运输从总货物中扣除
+        int completedTrips = 0;
+        Map<String, Integer> trips = new TreeMap<>();
+        for (int i = 0; i < tripCount; i++) {
+            if (endTimes[i] <= nowSim) {
+                completedTrips++;
+            }
+            trips.merge(truckNos.get(i), frequencies[i], Math::max);
+        }
+        next.remainingCargo = Math.max(TransportService.getTotalCargo() - completedTrips * TransportService.getCargoPerTrip(), 0);
+        kpi = next;
+
+        Map<Integer, Integer> swaps = new HashMap<>();
+        for (int i = 0; i < exchangeCount; i++) {
+            swaps.merge(initialTime.plusSeconds(startTimes[i]).getHour(), 1, Integer::sum);
+        }
+        List<MultiGauge.Row<?>> swapRows = new ArrayList<>();
+        swaps.forEach((hour, count) -> swapRows.add(MultiGauge.Row.of(Tags.of("hour", String.format("%02d", hour)), count)));
+        swapsPerHour.register(swapRows, true);
+
+        List<MultiGauge.Row<?>> tripRows = new ArrayList<>();
+        trips.forEach((truckNo, count) -> tripRows.add(MultiGauge.Row.of(Tags.of("truck", truckNo), count)));
+        tripsPerTruck.register(tripRows, true);
+    }
+
+    /**
+     * 调度计划更新失败
+     */
+    public void onPlanFailed() {
+        planFailures.increment();
+    }
+
+    /**
+     * 最近一次计划更新后的指标值
+     */
+    private static class Kpi {
+        int queueLength;
+        int maxQueueLength;
+        double meanWaitMinutes;
+        double p95WaitMinutes;
+        double maxWaitMinutes;
+        int exchanges;
+        int availableBatteries;
+        int remainingCargo;
+        double completionMinutes;
+    }
+}
@@ -1,11 +1,11 @@
 package com.example.dispatch.model;
 
 import com.example.dispatch.constant.LocationConstants;
+import com.example.dispatch.simulation.SimClock;
+import com.example.dispatch.util.SocFixedPoint;
 import lombok.Data;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.time.LocalDateTime;
 
 /**
  * 电池类
@@ -13,43 +13,61 @@ import java.time.LocalDateTime;
 @Data
 public class Battery {
     private String positionNo;      // 电池位置编号
-    private BigDecimal soc;         // 剩余电量百分比
+    private int soc;                // 剩余电量(0.01%)
     private boolean charging;       // 是否在充电中
-    private LocalDateTime chargeCompleteTime; // 充满电的时间点
+    private long chargeCompleteTime; // 充满电的时间点(模拟时间，秒)
     
-    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100.0).setScale(2, RoundingMode.HALF_UP);
-    private static final BigDecimal CAPACITY = LocationConstants.DEFAULT_BATTERY_CAPACITY_DECIMAL_KWH;
-    private static final BigDecimal CHARGE_RATE = BigDecimal.valueOf(4.7).setScale(2, RoundingMode.HALF_UP);
+    private static final int CAPACITY = SocFixedPoint.of(LocationConstants.DEFAULT_BATTERY_CAPACITY_DECIMAL_KWH); // 额定容量(0.01kWh)
+    private static final int CHARGE_RATE = 470; // 每分钟充电量(0.01kWh)
 
-    public Battery(String positionNo) {
+    /**
+     * @param positionNo 电池位置编号
+     * @param chargeCompleteTime 初始充满电的时间点(模拟时间)
+     */
+    public Battery(String positionNo, long chargeCompleteTime) {
         this.positionNo = positionNo;
-        this.soc = BigDecimal.valueOf(100.0).setScale(2, RoundingMode.HALF_UP);  // 初始满电
+        this.soc = SocFixedPoint.FULL;  // 初始满电
         this.charging = false;
-        // TODO：这里调试使用，后续需要初始设置为当前时间前一小时
-        this.chargeCompleteTime = LocalDateTime.of(2025,6,10,10,30,0);
+        this.chargeCompleteTime = chargeCompleteTime;
     }
 
-    public boolean isFullyCharged(LocalDateTime currentTime) {
+    /**
+     * 复制电池状态
+     */
+    public Battery(Battery other) {
+        this.positionNo = other.positionNo;
+        this.soc = other.soc;
+        this.charging = other.charging;
+        this.chargeCompleteTime = other.chargeCompleteTime;
+    }
+
+    public boolean isFullyCharged(long currentTime) {
         // 满足以下任一条件，电池可用：
         // 1. 电池已满电且不在充电中
         // 2. 电池正在充电但充电完成时间小于等于当前时间
-        return (soc.compareTo(HUNDRED) >= 0 && !charging) || (charging && !chargeCompleteTime.isAfter(currentTime));
+        return (soc >= SocFixedPoint.FULL && !charging) || (charging && chargeCompleteTime <= currentTime);
     }
 
-    public void startCharging(BigDecimal socLevel, LocalDateTime startTime) {
-        this.soc = socLevel.setScale(2, RoundingMode.HALF_UP);
+    public void startCharging(BigDecimal socLevel, long startTime) {
+        startCharging(SocFixedPoint.of(socLevel), startTime);
+    }
+
+    /**
+     * 开始充电
+     * @param socLevel 换下时的剩余电量(0.01%)
+     * @param startTime 开始充电时间(模拟时间)
+     */
+    public void startCharging(int socLevel, long startTime) {
+        this.soc = socLevel;
         this.charging = true;
-        
+
         // 计算充电时长: (100 - 剩余soc) * (额定容量 / 100) / 4.7
-        BigDecimal socDiff = HUNDRED.subtract(socLevel);
-        BigDecimal capacityPer = CAPACITY.divide(HUNDRED, 2, RoundingMode.HALF_UP);
-        BigDecimal chargeDuration = socDiff.multiply(capacityPer).divide(CHARGE_RATE, 2, RoundingMode.HALF_UP);
-        int chargeDurationMinutes = chargeDuration.setScale(0, RoundingMode.CEILING).intValue();
-        this.chargeCompleteTime = startTime.plusMinutes(chargeDurationMinutes);
+        int chargeDurationMinutes = SocFixedPoint.chargeMinutes(socLevel, CAPACITY, CHARGE_RATE);
+        this.chargeCompleteTime = startTime + SimClock.minutes(chargeDurationMinutes);
     }
 
     public void completeCharging() {
-        this.soc = HUNDRED;
+        this.soc = SocFixedPoint.FULL;
         this.charging = false;
     }
 
@@ -57,7 +75,7 @@ public class Battery {
     public String toString() {
         return "Battery{" +
                 "positionNo='" + positionNo + '\'' +
-                ", soc=" + soc +
+                ", soc=" + SocFixedPoint.toDecimal(soc) +
                 ", charging=" + charging +
                 ", chargeCompleteTime=" + chargeCompleteTime +
                 '}';
@@ -22,6 +22,8 @@ public class ExchangeRecord {
     private LocalDateTime batteryChargeCompleteTime;   // 电池充满时间
     private String positionNo;               // 电池位置编号
     private int transporFrequency;           // 运输次数
+    private int laneNo;                      // 换电通道编号
+    private String stationCode;              // 换电站编码
     private String startAwaitTimeStr;              // 开始等待换电时间
     private String startExchangeTimeStr;           // 开始换电时间
     private String useBatteryTimeStr;              // 使用电池的充满时间
@@ -85,7 +87,9 @@ public class ExchangeRecord {
                 "\"duration\":" + duration + "," +
                 "\"batteryChargeCompleteTime\":\"" + batteryChargeCompleteTime + "\"," +
                 "\"positionNo\":\"" + positionNo + "\"," +
-                "\"transporFrequency\":" + transporFrequency +
+                "\"transporFrequency\":" + transporFrequency + "," +
+                "\"laneNo\":" + laneNo + "," +
+                "\"stationCode\":\"" + stationCode + "\"" +
                 "}";
     }
 } 
\ No newline at end of file
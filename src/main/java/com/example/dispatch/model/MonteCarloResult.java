@@ -0,0 +1,62 @@
+package com.example.dispatch.model;
+
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 蒙特卡洛模拟结果
+ */
+@Data
+public class MonteCarloResult {
+
+    /**
+     * 场景名称
+     */
+    private String scenarioName;
+
+    /**
+     * 是否运行成功
+     */
+    private boolean success;
+
+    /**
+     * 失败原因
+     */
+    private String message;
+
+    /**
+     * 成功完成的重复运行次数
+     */
+    private int replications;
+
+    /**
+     * 随机数种子
+     */
+    private long seed;
+
+    /**
+     * 全部车辆完成运输所需时间（分钟，相对模拟初始时间）
+     */
+    private PercentileSummary completionMinutes;
+
+    /**
+     * 每次换电的排队等待时间（分钟）
+     */
+    private PercentileSummary queueWaitMinutes;
+
+    /**
+     * 每辆车的换电次数
+     */
+    private Map<String, PercentileSummary> exchangesPerTruck;
+
+    /**
+     * 模拟耗时（毫秒）
+     */
+    private long elapsedMillis;
+
+    public MonteCarloResult() {
+        this.exchangesPerTruck = new LinkedHashMap<>();
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.dispatch.model;
+
+import com.example.dispatch.constant.LocationConstants;
+import lombok.Data;
+
+/**
+ * 蒙特卡洛模拟参数
+ * 车速、装卸货时间和单公里能耗按截断正态分布抽样，种子相同则结果相同
+ */
+@Data
+public class MonteCarloSettings {
+
+    /**
+     * 默认重复运行次数
+     */
+    public static final int DEFAULT_REPLICATIONS = 1000;
+
+    /**
+     * 模拟场景，为空时使用默认场景
+     */
+    private SimulationScenario scenario;
+
+    /**
+     * 重复运行次数
+     */
+    private int replications;
+
+    /**
+     * 随机数种子
+     */
+    private long seed;
+
+    /**
+     * 平均车速（km/h）
+     */
+    private double speedMeanKmh;
+
+    /**
+     * 车速标准差（km/h）
+     */
+    private double speedStdDevKmh;
+
+    /**
+     * 最低车速（km/h），抽样结果低于该值时取该值
+     */
+    private double minSpeedKmh;
+
+    /**
+     * 平均装卸货时间（分钟）
+     */
+    private double dwellMeanMinutes;
+
+    /**
+     * 装卸货时间标准差（分钟）
+     */
+    private double dwellStdDevMinutes;
+
+    /**
+     * 能耗系数标准差（相对能耗模型的比例）
+     */
+    private double consumptionStdDevRatio;
+
+    /**
+     * 最低能耗系数
+     */
+    private double minConsumptionFactor;
+
+    public MonteCarloSettings() {
+        this.replications = DEFAULT_REPLICATIONS;
+        this.seed = 20250610L;
+        this.speedMeanKmh = LocationConstants.AVERAGE_SPEED;
+        this.speedStdDevKmh = 5.0;
+        this.minSpeedKmh = 10.0;
+        this.dwellMeanMinutes = 10.0;
+        this.dwellStdDevMinutes = 3.0;
+        this.consumptionStdDevRatio = 0.08;
+        this.minConsumptionFactor = 0.5;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.dispatch.model;
+
+import lombok.Data;
+
+import java.util.Arrays;
+
+/**
+ * 分位数统计
+ */
+@Data
+public class PercentileSummary {
+
+    private double p50;
+    private double p90;
+    private double p99;
+    private double mean;
+    private int sampleCount;
+
+    /**
+     * 按最近秩法计算分位数
+     * @param values 样本（会被排序）
+     * @param count 有效样本数量
+     * @return 分位数统计，没有样本时各项为0
+     */
+    public static PercentileSummary of(double[] values, int count) {
+        PercentileSummary summary = new PercentileSummary();
+        summary.setSampleCount(count);
+        if (count == 0) {
+            return summary;
+        }
+
+        Arrays.sort(values, 0, count);
+        double sum = 0.0;
+        for (int i = 0; i < count; i++) {
+            sum += values[i];
+        }
+        summary.setMean(sum / count);
+        summary.setP50(percentile(values, count, 0.50));
+        summary.setP90(percentile(values, count, 0.90));
+        summary.setP99(percentile(values, count, 0.99));
+        return summary;
+    }
+
+    private static double percentile(double[] sorted, int count, double quantile) {
+        int rank = (int) Math.ceil(quantile * count);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+}
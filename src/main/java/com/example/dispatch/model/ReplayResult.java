@@ -0,0 +1,58 @@
+package com.example.dispatch.model;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 遥测回放结果
+ */
+@Data
+public class ReplayResult {
+
+    /**
+     * 是否运行成功
+     */
+    private boolean success;
+
+    /**
+     * 失败原因
+     */
+    private String message;
+
+    /**
+     * 回放的遥测记录数量
+     */
+    private int recordCount;
+
+    /**
+     * 调度计划更新次数
+     */
+    private int planCount;
+
+    /**
+     * 回放起止时间（虚拟时间）
+     */
+    private LocalDateTime virtualStartTime;
+    private LocalDateTime virtualEndTime;
+
+    /**
+     * 实际耗时（毫秒）
+     */
+    private long elapsedMillis;
+
+    /**
+     * 实际达到的倍速（虚拟时长 / 实际耗时）
+     */
+    private double achievedSpeedup;
+
+    /**
+     * 吞吐量（每秒处理的遥测记录数）
+     */
+    private double recordsPerSecond;
+
+    /**
+     * 调度决策延迟（毫秒）：每次调度计划更新的耗时
+     */
+    private PercentileSummary decisionLatencyMillis;
+}
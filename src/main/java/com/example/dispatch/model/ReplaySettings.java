@@ -0,0 +1,35 @@
+package com.example.dispatch.model;
+
+import lombok.Data;
+
+/**
+ * 遥测回放参数
+ */
+@Data
+public class ReplaySettings {
+
+    /**
+     * 最大回放倍速
+     */
+    public static final double MAX_SPEEDUP = 1000.0;
+
+    /**
+     * 录制文件路径，相对回放目录（dispatch.replay.directory），不能指向回放目录之外（JSON Lines，每行一条车辆行驶记录）
+     */
+    private String file;
+
+    /**
+     * 回放倍速，1为实时，最大1000；小于等于0时不等待，尽可能快地回放
+     */
+    private double speedup;
+
+    /**
+     * 调度计划更新间隔（虚拟时间，秒）
+     */
+    private long planIntervalSeconds;
+
+    public ReplaySettings() {
+        this.speedup = MAX_SPEEDUP;
+        this.planIntervalSeconds = 120;
+    }
+}
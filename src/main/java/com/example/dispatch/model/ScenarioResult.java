@@ -0,0 +1,59 @@
+package com.example.dispatch.model;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 调度模拟场景运行结果
+ */
+@Data
+public class ScenarioResult {
+
+    /**
+     * 场景名称
+     */
+    private String scenarioName;
+
+    /**
+     * 是否运行成功
+     */
+    private boolean success;
+
+    /**
+     * 失败原因
+     */
+    private String message;
+
+    /**
+     * 调度记录
+     */
+    private List<GeDispatchScheduleRecord> scheduleRecords;
+
+    /**
+     * 换电记录
+     */
+    private List<ExchangeRecord> exchangeRecords;
+
+    /**
+     * 全部车辆完成运输的时间
+     */
+    private LocalDateTime completionTime;
+
+    /**
+     * 按场景电价计算的充电费用（元）
+     */
+    private double chargingCost;
+
+    /**
+     * 模拟耗时（毫秒）
+     */
+    private long elapsedMillis;
+
+    public ScenarioResult() {
+        this.scheduleRecords = new ArrayList<>();
+        this.exchangeRecords = new ArrayList<>();
+    }
+}
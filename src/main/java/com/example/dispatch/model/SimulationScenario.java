@@ -0,0 +1,166 @@
+package com.example.dispatch.model;
+
+import com.example.dispatch.constant.LocationConstants;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 调度模拟场景定义
+ * 描述一次模拟运行的可变参数，用于多场景对比（what-if）分析
+ */
+@Data
+public class SimulationScenario {
+
+    /**
+     * 默认电池数量
+     */
+    public static final int DEFAULT_BATTERY_NUM = 5;
+
+    /**
+     * 默认换电通道数量（线上换电站有两台换电机器人）
+     */
+    public static final int DEFAULT_LANE_NUM = 2;
+
+    /**
+     * 默认换电排队等待成本（元/分钟），只在开启换电时机优化时使用
+     */
+    public static final double DEFAULT_WAIT_COST_PER_MINUTE = 1.0;
+
+    /**
+     * 场景名称
+     */
+    private String name;
+
+    /**
+     * 模拟日期，为空时为当天
+     */
+    private LocalDate simulationDate;
+
+    /**
+     * 出发点、装货点、卸货点、换电站的站点编码（见dispatch.network），为空时使用路网中对应类型的第一个站点
+     */
+    private String startSite;
+    private String loadingSite;
+    private String unloadingSite;
+    private String chargingSite;
+
+    /**
+     * 可选的换电站站点编码，每次换电选择行驶时间加预计排队时间最短的换电站；
+     * 为空时使用路网中的全部换电站。chargingSite（或路网中第一个换电站）为主换电站，总是参与选择
+     */
+    private List<String> chargingSites;
+
+    /**
+     * 车队清单（车牌号、初始SOC、电池容量）
+     */
+    private List<Truck> trucks;
+
+    /**
+     * 换电站电池数量
+     */
+    private int batteryNum;
+
+    /**
+     * 换电站换电通道数量，各通道同时换电、共用电池
+     */
+    private int laneNum;
+
+    /**
+     * 最低换电SOC（%）
+     * 车辆到达卸货点时SOC低于该值则强制返程换电；为空时仅按SOC消耗预测判断
+     */
+    private BigDecimal minExchangeSoc;
+
+    /**
+     * 换电判断的安全裕度（%）
+     */
+    private double safetyMarginPercent;
+
+    /**
+     * 电价表（元/kWh），为空的时段使用PricePeriod默认电价
+     */
+    private Map<PricePeriod.PriceType, Double> tariff;
+
+    /**
+     * 是否在车队范围内优化换电时机（排队等待与充电电费），关闭时每辆车只按SOC判断是否换电
+     * 默认关闭；线上调度计划由dispatch.exchange-timing.enabled控制
+     */
+    private boolean optimizeExchangeTiming;
+
+    /**
+     * 换电排队等待成本（元/分钟），与电费一起作为换电时机优化的目标
+     * 线上调度计划由dispatch.exchange-timing.wait-cost-per-minute配置
+     */
+    private double waitCostPerMinute;
+
+    /**
+     * 每辆车第一趟从装货点出发的推迟时间（车牌号 -> 分钟），可由出发时间优化得到
+     */
+    private Map<String, Integer> departureOffsets;
+
+    public SimulationScenario() {
+        this.trucks = new ArrayList<>();
+        this.chargingSites = new ArrayList<>();
+        this.batteryNum = DEFAULT_BATTERY_NUM;
+        this.laneNum = DEFAULT_LANE_NUM;
+        this.safetyMarginPercent = LocationConstants.SAFETY_MARGIN_PERCENT;
+        this.tariff = new EnumMap<>(PricePeriod.PriceType.class);
+        this.optimizeExchangeTiming = false;
+        this.waitCostPerMinute = DEFAULT_WAIT_COST_PER_MINUTE;
+        this.departureOffsets = new HashMap<>();
+    }
+
+    /**
+     * 创建默认场景（当前线上使用的车队和换电站配置）
+     * @return 默认场景
+     */
+    public static SimulationScenario defaultScenario() {
+        SimulationScenario scenario = new SimulationScenario();
+        scenario.setName("default");
+
+        // 车辆清单
+        String[] truckNos = {"粤G03335D"
+                // "粤G05006D", "粤G08108D", "粤G08007D",
+                // "粤G05595D", "粤G07117D", "粤G08232D",
+                // "粤G02082D", "粤G02003D"
+        };
+
+        // TODO 这里车辆信息(车辆实时状态)
+        for (String truckNo : truckNos) {
+            scenario.getTrucks().add(new Truck(truckNo, BigDecimal.valueOf(82), LocationConstants.DEFAULT_BATTERY_CAPACITY_DECIMAL_KWH));
+        }
+        return scenario;
+    }
+
+    /**
+     * 校验场景参数
+     * @throws IllegalArgumentException 电池数量或换电通道数量小于1
+     */
+    public void validate() {
+        if (batteryNum < 1) {
+            throw new IllegalArgumentException("换电站电池数量至少为1：" + batteryNum);
+        }
+        if (laneNum < 1) {
+            throw new IllegalArgumentException("换电通道数量至少为1：" + laneNum);
+        }
+    }
+
+    /**
+     * 获取指定时段的电价
+     * @param priceType 电价类型
+     * @return 电价（元/kWh）
+     */
+    public double getPrice(PricePeriod.PriceType priceType) {
+        if (tariff != null && tariff.containsKey(priceType)) {
+            return tariff.get(priceType);
+        }
+        return priceType.getPrice();
+    }
+}
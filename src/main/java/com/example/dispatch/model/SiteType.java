@@ -0,0 +1,30 @@
+package com.example.dispatch.model;
+
+/**
+ * 站点类型
+ */
+public enum SiteType {
+    START(1, "出发点"),
+    LOADING(2, "装货点"),
+    UNLOADING(3, "卸货点"),
+    CHARGING(4, "换电站");
+
+    private final int addrType;
+    private final String description;
+
+    SiteType(int addrType, String description) {
+        this.addrType = addrType;
+        this.description = description;
+    }
+
+    /**
+     * 与GpsLocation.addrType一致的地址类型编码
+     */
+    public int getAddrType() {
+        return addrType;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
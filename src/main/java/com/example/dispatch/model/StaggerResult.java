@@ -0,0 +1,72 @@
+package com.example.dispatch.model;
+
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 出发时间优化结果
+ */
+@Data
+public class StaggerResult {
+
+    /**
+     * 场景名称
+     */
+    private String scenarioName;
+
+    /**
+     * 是否运行成功
+     */
+    private boolean success;
+
+    /**
+     * 失败原因
+     */
+    private String message;
+
+    /**
+     * 每辆车第一趟的出发推迟时间（车牌号 -> 分钟），可直接作为场景的departureOffsets
+     */
+    private Map<String, Integer> departureOffsets;
+
+    /**
+     * 不推迟时的换电站累计排队时间（分钟）
+     */
+    private double baseWaitMinutes;
+
+    /**
+     * 优化后的换电站累计排队时间（分钟）
+     */
+    private double bestWaitMinutes;
+
+    /**
+     * 不推迟时全部车辆完成运输所需时间（分钟，相对模拟初始时间）
+     */
+    private double baseCompletionMinutes;
+
+    /**
+     * 优化后全部车辆完成运输所需时间（分钟，相对模拟初始时间）
+     */
+    private double bestCompletionMinutes;
+
+    /**
+     * 评估的候选方案数量
+     */
+    private long evaluations;
+
+    /**
+     * 每秒评估的候选方案数量
+     */
+    private double evaluationsPerSecond;
+
+    /**
+     * 优化耗时（毫秒）
+     */
+    private long elapsedMillis;
+
+    public StaggerResult() {
+        this.departureOffsets = new LinkedHashMap<>();
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.dispatch.model;
+
+import lombok.Data;
+
+/**
+ * 出发时间优化参数
+ * 在[0, 最大推迟时间]内按步长搜索每辆车第一趟的出发推迟时间，
+ * 目标为换电站累计排队时间，完成时间比不推迟时晚的部分按权重计入
+ */
+@Data
+public class StaggerSettings {
+
+    /**
+     * 模拟场景，为空时使用默认场景
+     */
+    private SimulationScenario scenario;
+
+    /**
+     * 最大推迟时间（分钟）
+     */
+    private int maxOffsetMinutes;
+
+    /**
+     * 推迟时间步长（分钟）
+     */
+    private int stepMinutes;
+
+    /**
+     * 搜索时间预算（毫秒）
+     */
+    private long timeBudgetMillis;
+
+    /**
+     * 并行退火链数量，不大于0时使用CPU核数
+     */
+    private int chains;
+
+    /**
+     * 随机数种子
+     */
+    private long seed;
+
+    /**
+     * 完成时间每推迟1分钟折合的排队分钟数
+     */
+    private double completionWeight;
+
+    /**
+     * 初始温度（排队分钟数）
+     */
+    private double initialTemperature;
+
+    /**
+     * 结束温度（排队分钟数）
+     */
+    private double finalTemperature;
+
+    public StaggerSettings() {
+        this.maxOffsetMinutes = 60;
+        this.stepMinutes = 5;
+        this.timeBudgetMillis = 2000;
+        this.seed = 20250610L;
+        this.completionWeight = 10.0;
+        this.initialTemperature = 30.0;
+        this.finalTemperature = 0.5;
+    }
+}
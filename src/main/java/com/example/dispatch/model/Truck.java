@@ -18,6 +18,9 @@ public class Truck {
     private int transportFrequency; // 运输次数
     private LocalDateTime startAwaitTime;     // 进站等待换电时间
 
+    public Truck() {
+    }
+
     public Truck(String truckNo, double soc, double capacity) {
         this.truckNo = truckNo;
         this.soc = BigDecimal.valueOf(soc).setScale(2, RoundingMode.HALF_UP);
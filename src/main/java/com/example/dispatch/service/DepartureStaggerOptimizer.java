@@ -0,0 +1,260 @@
+package com.example.dispatch.service;
+
+import com.example.dispatch.DispatchSimulation;
+import com.example.dispatch.model.SimulationScenario;
+import com.example.dispatch.model.StaggerResult;
+import com.example.dispatch.model.StaggerSettings;
+import com.example.dispatch.simulation.DeterministicTravelModel;
+import com.example.dispatch.simulation.RoadNetwork;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * 出发时间优化服务
+ * 搜索每辆车第一趟从装货点出发的推迟时间，错开车辆到达换电站的时间，减少换电站排队。
+ * 先运行一次确定性基准模拟，之后每个候选方案都以评估模式运行完整模拟作为目标函数：
+ * 从基准模拟的初始状态开始，不访问Redis、不输出日志、不保留记录。
+ * 多条模拟退火链并行搜索，各链种子预先生成，取全部链中的最优方案
+ */
+@Slf4j
+@Service
+public class DepartureStaggerOptimizer {
+
+    @Autowired
+    private VehicleTrackingService vehicleTrackingService;
+
+    @Autowired
+    private SOCCalculationService socCalculationService;
+
+    @Autowired
+    private TestDataService testDataService;
+
+    @Autowired
+    private RoadNetwork roadNetwork;
+
+    /**
+     * 优化出发时间
+     * @param settings 优化参数
+     * @return 优化结果
+     */
+    public StaggerResult optimize(StaggerSettings settings) {
+        SimulationScenario scenario = settings.getScenario() != null ? settings.getScenario() : SimulationScenario.defaultScenario();
+        StaggerResult result = new StaggerResult();
+        result.setScenarioName(scenario.getName());
+        long start = System.currentTimeMillis();
+
+        try {
+            // 基准模拟：不推迟出发，读取车辆路径和能耗数据并保存初始状态
+            DispatchSimulation base = new DispatchSimulation(vehicleTrackingService, socCalculationService, testDataService, scenario,
+                    DeterministicTravelModel.INSTANCE, roadNetwork);
+            base.setDepartureOffsets(Collections.emptyMap());
+            base.setCheckpointEnabled(false);
+            base.startSimulation();
+
+            List<String> truckNos = base.getTruckNos();
+            Set<String> transitTruckNos = base.getInitialTransitTruckNos();
+            int[] movable = IntStream.range(0, truckNos.size())
+                    .filter(i -> !transitTruckNos.contains(truckNos.get(i)))
+                    .toArray();
+
+            Evaluator evaluator = new Evaluator(base, scenario, truckNos);
+            double[] baseline = evaluator.evaluate(new int[truckNos.size()]);
+            result.setBaseWaitMinutes(baseline[0]);
+            result.setBaseCompletionMinutes(baseline[1]);
+
+            Chain best = null;
+            long evaluations = 1;
+            if (movable.length > 0 && settings.getStepMinutes() > 0 && settings.getMaxOffsetMinutes() >= settings.getStepMinutes()) {
+                int chainCount = settings.getChains() > 0 ? settings.getChains() : Runtime.getRuntime().availableProcessors();
+                long[] seeds = new long[chainCount];
+                SplittableRandom seedRandom = new SplittableRandom(settings.getSeed());
+                for (int c = 0; c < chainCount; c++) {
+                    seeds[c] = seedRandom.nextLong();
+                }
+
+                long deadline = System.nanoTime() + settings.getTimeBudgetMillis() * 1_000_000L;
+                Chain[] chains = new Chain[chainCount];
+                ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+                try {
+                    pool.submit(() -> IntStream.range(0, chainCount).parallel()
+                            .forEach(c -> chains[c] = anneal(evaluator, settings, movable, baseline, seeds[c], c > 0, deadline))).join();
+                } finally {
+                    pool.shutdown();
+                }
+
+                for (Chain chain : chains) {
+                    evaluations += chain.evaluations;
+                    if (best == null || chain.bestCost < best.bestCost) {
+                        best = chain;
+                    }
+                }
+            }
+
+            if (best != null && best.bestCost < baseline[0]) {
+                for (int i = 0; i < truckNos.size(); i++) {
+                    if (best.bestOffsets[i] > 0) {
+                        result.getDepartureOffsets().put(truckNos.get(i), best.bestOffsets[i]);
+                    }
+                }
+                result.setBestWaitMinutes(best.bestResult[0]);
+                result.setBestCompletionMinutes(best.bestResult[1]);
+            } else {
+                // 没有找到比不推迟更好的方案
+                result.setBestWaitMinutes(baseline[0]);
+                result.setBestCompletionMinutes(baseline[1]);
+            }
+            result.setEvaluations(evaluations);
+            result.setSuccess(true);
+        } catch (Exception e) {
+            log.error("场景 {} 出发时间优化失败", scenario.getName(), e);
+            result.setSuccess(false);
+            result.setMessage("优化失败: " + e.getMessage());
+        }
+
+        result.setElapsedMillis(System.currentTimeMillis() - start);
+        if (result.getElapsedMillis() > 0) {
+            result.setEvaluationsPerSecond(result.getEvaluations() * 1000.0 / result.getElapsedMillis());
+        }
+        log.info("场景 {} 出发时间优化完成，评估 {} 个方案，排队时间 {} -> {} 分钟，耗时 {}ms", scenario.getName(),
+                result.getEvaluations(), result.getBaseWaitMinutes(), result.getBestWaitMinutes(), result.getElapsedMillis());
+        return result;
+    }
+
+    /**
+     * 单条模拟退火链
+     * 每一步随机选一辆车，把推迟时间前后移动一个步长或随机重置，按Metropolis准则接受，
+     * 温度随已用时间从初始温度按几何级数降到结束温度
+     * @param randomStart 是否从随机方案开始（第一条链从不推迟开始）
+     */
+    private Chain anneal(Evaluator evaluator, StaggerSettings settings, int[] movable, double[] baseline,
+                         long seed, boolean randomStart, long deadline) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int step = settings.getStepMinutes();
+        int slots = settings.getMaxOffsetMinutes() / step;
+        Chain chain = new Chain(evaluator.size());
+
+        int[] current = new int[evaluator.size()];
+        if (randomStart) {
+            for (int truck : movable) {
+                current[truck] = random.nextInt(slots + 1) * step;
+            }
+        }
+        double[] currentResult = evaluator.evaluate(current);
+        double currentCost = cost(currentResult, baseline, settings);
+        chain.evaluations++;
+        chain.accept(current, currentResult, currentCost);
+
+        long begin = System.nanoTime();
+        long budget = Math.max(deadline - begin, 1);
+        double cooling = Math.log(settings.getFinalTemperature() / settings.getInitialTemperature());
+        long now;
+        while ((now = System.nanoTime()) < deadline) {
+            int truck = movable[random.nextInt(movable.length)];
+            int previous = current[truck];
+            int proposal = random.nextInt(4) == 0
+                    ? random.nextInt(slots + 1) * step
+                    : previous + (random.nextBoolean() ? step : -step);
+            proposal = Math.max(0, Math.min(proposal, slots * step));
+            if (proposal == previous) {
+                continue;
+            }
+
+            current[truck] = proposal;
+            double[] candidateResult = evaluator.evaluate(current);
+            double candidateCost = cost(candidateResult, baseline, settings);
+            chain.evaluations++;
+
+            double temperature = settings.getInitialTemperature() * Math.exp(cooling * (now - begin) / budget);
+            if (candidateCost <= currentCost || random.nextDouble() < Math.exp((currentCost - candidateCost) / temperature)) {
+                currentCost = candidateCost;
+                if (candidateCost < chain.bestCost) {
+                    chain.accept(current, candidateResult, candidateCost);
+                }
+            } else {
+                current[truck] = previous;
+            }
+        }
+        return chain;
+    }
+
+    /**
+     * 目标函数：换电站累计排队时间，加上完成时间比不推迟时晚的部分
+     * @param result {排队分钟数, 完成分钟数}
+     */
+    private static double cost(double[] result, double[] baseline, StaggerSettings settings) {
+        return result[0] + settings.getCompletionWeight() * Math.max(0.0, result[1] - baseline[1]);
+    }
+
+    /**
+     * 以评估模式运行模拟，计算候选方案的排队时间和完成时间
+     */
+    private class Evaluator {
+        private final DispatchSimulation base;
+        private final SimulationScenario scenario;
+        private final List<String> truckNos;
+
+        Evaluator(DispatchSimulation base, SimulationScenario scenario, List<String> truckNos) {
+            this.base = base;
+            this.scenario = scenario;
+            this.truckNos = truckNos;
+        }
+
+        int size() {
+            return truckNos.size();
+        }
+
+        /**
+         * @param offsets 每辆车的推迟时间（分钟，按车辆下标）
+         * @return {换电站累计排队分钟数, 完成分钟数}
+         */
+        double[] evaluate(int[] offsets) {
+            Map<String, Integer> departureOffsets = new HashMap<>();
+            for (int i = 0; i < offsets.length; i++) {
+                if (offsets[i] > 0) {
+                    departureOffsets.put(truckNos.get(i), offsets[i]);
+                }
+            }
+
+            DispatchSimulation simulation = new DispatchSimulation(vehicleTrackingService, socCalculationService, testDataService,
+                    scenario, DeterministicTravelModel.INSTANCE, roadNetwork);
+            simulation.useEvaluationMode(base);
+            simulation.setDepartureOffsets(departureOffsets);
+            simulation.startSimulation();
+            return new double[]{
+                    simulation.getTotalStationWaitSeconds() / 60.0,
+                    ChronoUnit.SECONDS.between(simulation.getInitialTime(), simulation.getCompletionTime()) / 60.0
+            };
+        }
+    }
+
+    /**
+     * 单条退火链的搜索状态和最优方案
+     */
+    private static class Chain {
+        long evaluations;                       // 评估次数
+        double bestCost = Double.MAX_VALUE;     // 最优目标值
+        final int[] bestOffsets;                // 最优方案
+        double[] bestResult;                    // 最优方案的{排队分钟数, 完成分钟数}
+
+        Chain(int size) {
+            this.bestOffsets = new int[size];
+        }
+
+        void accept(int[] offsets, double[] result, double cost) {
+            System.arraycopy(offsets, 0, bestOffsets, 0, offsets.length);
+            bestResult = result;
+            bestCost = cost;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.dispatch.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * 调度时钟
+ * 轨迹分析和能耗统计中的“当前时间”统一从这里获取：
+ * 设置了虚拟时间时使用虚拟时间，否则使用配置的固定时间，未配置时使用系统时间。
+ * 遥测回放使用自己的调度时钟实例设置虚拟时间，不影响应用的调度时钟
+ */
+@Component
+public class DispatchClock {
+
+    private final LocalDateTime fixedTime;        // 配置的固定时间（调试用）
+    private volatile LocalDateTime virtualTime;   // 回放虚拟时间
+
+    public DispatchClock(@Value("${dispatch.clock.fixed-time:}") String fixedTime) {
+        this.fixedTime = fixedTime == null || fixedTime.trim().isEmpty() ? null : LocalDateTime.parse(fixedTime.trim());
+    }
+
+    /**
+     * 获取当前时间
+     */
+    public LocalDateTime now() {
+        LocalDateTime time = virtualTime;
+        if (time != null) {
+            return time;
+        }
+        return fixedTime != null ? fixedTime : LocalDateTime.now();
+    }
+
+    /**
+     * 设置虚拟时间
+     */
+    public void setVirtualTime(LocalDateTime virtualTime) {
+        this.virtualTime = virtualTime;
+    }
+
+    /**
+     * 清除虚拟时间，恢复正常时间
+     */
+    public void clearVirtualTime() {
+        this.virtualTime = null;
+    }
+}
@@ -1,13 +1,9 @@
 package com.example.dispatch.service;
 
-import cn.hutool.json.JSONUtil;
-import com.example.dispatch.constant.DpConstants;
 import com.example.dispatch.model.GeTruckDrivingRecord;
 import com.example.dispatch.model.RouteInfo;
+import com.example.dispatch.telemetry.TelemetryStore;
 import lombok.extern.slf4j.Slf4j;
-import org.redisson.api.RBucket;
-import org.redisson.api.RList;
-import org.redisson.api.RedissonClient;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -16,7 +12,6 @@ import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
 
 /**
  * 能耗统计服务
@@ -27,7 +22,10 @@ import java.util.concurrent.TimeUnit;
 public class EnergyConsumptionService {
 
     @Autowired
-    private RedissonClient redissonClient;
+    private TelemetryStore telemetryStore;
+
+    @Autowired
+    private DispatchClock dispatchClock;
 
     /**
      * 计算并存储车辆平均单公里能耗
@@ -63,7 +61,7 @@ public class EnergyConsumptionService {
             // 4. 判断是否满载
             boolean isLoaded = isVehicleLoaded(routeInfo);
             
-            // 5. 检查是否需要更新Redis（35%进度条件）
+            // 5. 检查是否需要更新能耗数据（35%进度条件）
             if (shouldUpdateConsumption(routeInfo)) {
                 storeEnergyConsumption(vehicleNo, isLoaded, avgConsumptionPerKm);
                 log.info("车辆 {} 平均单公里能耗已更新：{}kWh/km（满载：{}）", 
@@ -85,23 +83,14 @@ public class EnergyConsumptionService {
      */
     public BigDecimal getStoredEnergyConsumption(String vehicleNo, boolean isLoaded) {
         try {
-            String redisKey = DpConstants.DP_TRUCK_DRIVING_CONSUMPTION_PER_KM_KEY + vehicleNo + ":" + isLoaded;
-            RBucket<String> bucket = redissonClient.getBucket(redisKey);
-            String jsonStr = bucket.get();
-            
-            if (jsonStr == null || jsonStr.trim().isEmpty()) {
+            BigDecimal consumption = telemetryStore.getEnergyConsumption(vehicleNo, isLoaded);
+            if (consumption == null) {
                 log.debug("车辆 {} 没有存储的能耗数据（满载：{}）", vehicleNo, isLoaded);
                 return null;
             }
             
-            Map<String, Object> consumptionData = JSONUtil.toBean(jsonStr, Map.class);
-            Object consumptionObj = consumptionData.get("avgConsumptionPerKm");
-            
-            if (consumptionObj != null) {
-                BigDecimal consumption = new BigDecimal(consumptionObj.toString());
-                log.debug("获取车辆 {} 存储的能耗数据：{}kWh/km（满载：{}）", vehicleNo, consumption, isLoaded);
-                return consumption;
-            }
+            log.debug("获取车辆 {} 存储的能耗数据：{}kWh/km（满载：{}）", vehicleNo, consumption, isLoaded);
+            return consumption;
             
         } catch (Exception e) {
             log.error("获取车辆 {} 存储的能耗数据失败（满载：{}）", vehicleNo, isLoaded, e);
@@ -117,26 +106,15 @@ public class EnergyConsumptionService {
      * @return 历史数据列表
      */
     private List<GeTruckDrivingRecord> getHistoryData(String vehicleNo, int minutes) {
-        String redisKey = DpConstants.DP_TRUCK_DRIVING_RECORD + vehicleNo;
-        RList<String> redisList = redissonClient.getList(redisKey);
-        
         List<GeTruckDrivingRecord> historyData = new ArrayList<>();
-        // TODO：这里调试使用，后续需要修改为获取前20分钟的数据
-        LocalDateTime now = LocalDateTime.of(2025,6,10,11,46,0);
+        // TODO：调试时通过dispatch.clock.fixed-time固定当前时间，后续需要修改为获取前20分钟的数据
+        LocalDateTime now = dispatchClock.now();
         LocalDateTime cutoffTime = now.minusMinutes(minutes);
 
         try {
-            List<String> range = redisList.range(-300, -1);
-            for (String jsonStr : range) {
-                if (jsonStr != null && !jsonStr.trim().isEmpty()) {
-                    GeTruckDrivingRecord record = JSONUtil.toBean(jsonStr, GeTruckDrivingRecord.class);
-                    
-                    if (record != null && record.getReportTime() != null 
-                            && record.getReportTime().isAfter(cutoffTime)
-                            && record.getTotalPowerConsumption() != null
-                            && record.getTotalDrivingKm() != null) {
-                        historyData.add(record);
-                    }
+            for (GeTruckDrivingRecord record : telemetryStore.getHistory(vehicleNo, cutoffTime)) {
+                if (record.getTotalPowerConsumption() != null && record.getTotalDrivingKm() != null) {
+                    historyData.add(record);
                 }
             }
             
@@ -157,7 +135,7 @@ public class EnergyConsumptionService {
      * @return 计算用数据列表
      */
     private List<GeTruckDrivingRecord> getCalculationData(List<GeTruckDrivingRecord> historyData, int minutes) {
-        LocalDateTime cutoffTime = LocalDateTime.now().minus(minutes, ChronoUnit.MINUTES);
+        LocalDateTime cutoffTime = dispatchClock.now().minus(minutes, ChronoUnit.MINUTES);
         
         List<GeTruckDrivingRecord> calculationData = new ArrayList<>();
         for (GeTruckDrivingRecord record : historyData) {
@@ -175,8 +153,8 @@ public class EnergyConsumptionService {
      * @return 最近20分钟的数据列表
      */
     private List<GeTruckDrivingRecord> getCalculationDataFromLast30Minutes(List<GeTruckDrivingRecord> historyData) {
-        // TODO：这里调试使用，后续需要修改为获取前20分钟的数据
-        LocalDateTime now = LocalDateTime.of(2025,6,10,11,46,0);
+        // TODO：调试时通过dispatch.clock.fixed-time固定当前时间，后续需要修改为获取前20分钟的数据
+        LocalDateTime now = dispatchClock.now();
         LocalDateTime cutoffTime = now.minusMinutes(30);
         
         List<GeTruckDrivingRecord> calculationData = new ArrayList<>();
@@ -279,7 +257,7 @@ public class EnergyConsumptionService {
         // 判断是否满载
         boolean isLoaded = isVehicleLoaded(routeInfo);
         
-        // 检查Redis中是否已有数据
+        // 检查是否已有能耗数据
         BigDecimal existingData = getStoredEnergyConsumption(routeInfo.getVehicleNo(), isLoaded);
         
         // 如果没有现有数据，允许新增
@@ -303,30 +281,15 @@ public class EnergyConsumptionService {
     }
 
     /**
-     * 存储能耗数据到Redis
+     * 存储能耗数据
      * @param vehicleNo 车辆编号
      * @param isLoaded 是否满载
      * @param avgConsumptionPerKm 平均单公里能耗
      */
     private void storeEnergyConsumption(String vehicleNo, boolean isLoaded, BigDecimal avgConsumptionPerKm) {
         try {
-            String redisKey = DpConstants.DP_TRUCK_DRIVING_CONSUMPTION_PER_KM_KEY + vehicleNo + ":" + isLoaded;
-            
-            Map<String, Object> consumptionData = new HashMap<>();
-            consumptionData.put("vehicleNo", vehicleNo);
-            consumptionData.put("isLoaded", isLoaded);
-            consumptionData.put("avgConsumptionPerKm", avgConsumptionPerKm);
-            consumptionData.put("updateTime", LocalDateTime.now());
-            
-            String jsonStr = JSONUtil.toJsonStr(consumptionData);
-            
-            RBucket<String> bucket = redissonClient.getBucket(redisKey);
-            bucket.set(jsonStr);
-            
-            // 设置过期时间为24小时
-            bucket.expire(24, TimeUnit.HOURS);
-            
-            log.info("车辆 {} 能耗数据已存储到Redis：{}", vehicleNo, jsonStr);
+            telemetryStore.putEnergyConsumption(vehicleNo, isLoaded, avgConsumptionPerKm, dispatchClock.now());
+            log.info("车辆 {} 能耗数据已存储：{}kWh/km（满载：{}）", vehicleNo, avgConsumptionPerKm, isLoaded);
             
         } catch (Exception e) {
             log.error("存储车辆 {} 能耗数据失败（满载：{}）", vehicleNo, isLoaded, e);
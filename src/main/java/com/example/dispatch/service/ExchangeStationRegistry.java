@@ -0,0 +1,243 @@
+package com.example.dispatch.service;
+
+import com.example.dispatch.model.ExchangeRecord;
+import com.example.dispatch.simulation.RecordSink;
+import com.example.dispatch.simulation.SimClock;
+import com.example.dispatch.simulation.SimulationMetrics;
+import com.example.dispatch.simulation.StationCheckpoint;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 换电站注册表
+ * 一次模拟中的全部换电站，按下标访问；下标0为主换电站（场景指定或路网中第一个换电站），
+ * 货物分配和换电时机优化按主换电站的路段估算。
+ * 换电记录、检查点和运行指标在这里汇总，各换电站的换电记录用换电站编码区分
+ */
+public class ExchangeStationRegistry {
+
+    private final ExchangeStationService[] stations;
+    private final int[] sites;  // 各换电站的路网站点编号
+
+    /**
+     * @param codes 换电站编码
+     * @param sites 换电站的路网站点编号，与编码一一对应
+     * @param batteryNum 每个换电站的电池数量
+     * @param laneNum 每个换电站的换电通道数量
+     * @param clock 模拟时钟
+     */
+    public ExchangeStationRegistry(String[] codes, int[] sites, int batteryNum, int laneNum, SimClock clock) {
+        if (codes.length == 0 || codes.length != sites.length) {
+            throw new IllegalArgumentException("换电站编码和站点数量不一致或为空");
+        }
+        this.stations = new ExchangeStationService[codes.length];
+        this.sites = sites.clone();
+        for (int i = 0; i < codes.length; i++) {
+            stations[i] = new ExchangeStationService(codes[i], batteryNum, laneNum, clock);
+        }
+    }
+
+    public int size() {
+        return stations.length;
+    }
+
+    public ExchangeStationService get(int station) {
+        return stations[station];
+    }
+
+    /**
+     * 主换电站
+     */
+    public ExchangeStationService primary() {
+        return stations[0];
+    }
+
+    /**
+     * 换电站的路网站点编号
+     */
+    public int site(int station) {
+        return sites[station];
+    }
+
+    /**
+     * 选择换电站：前往换电站的行驶时间 + 预计排队时间 + 换电后前往目的地的行驶时间最小
+     * 预计排队时间由各换电站的通道和电池得到，已选择该换电站、更早到达的车辆（预约）排在前面，
+     * 使同一时段出发的车辆不会都选择同一个换电站；选择后调用方需{@link #reserve}预约
+     * @param departureTime 出发时间(模拟时间)
+     * @param toStation 各换电站从出发地的行驶时间(秒)
+     * @param fromStation 各换电站到目的地的行驶时间(秒)
+     * @return 换电站下标，没有可以换电的换电站时为主换电站
+     */
+    public int select(long departureTime, long[] toStation, long[] fromStation) {
+        if (stations.length == 1) {
+            return 0;
+        }
+        int best = 0;
+        long bestCost = Long.MAX_VALUE;
+        for (int i = 0; i < stations.length; i++) {
+            long arrivalTime = departureTime + toStation[i];
+            long startTime = stations[i].predictExchangeStart(arrivalTime);
+            if (startTime == SimClock.NO_TIME) {
+                continue;
+            }
+            long cost = startTime - departureTime + fromStation[i];
+            if (cost < bestCost) {
+                best = i;
+                bestCost = cost;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 预约：车辆已选择换电站，预计在指定时间到达；到达后调用{@link ExchangeStationService#cancelReservation}取消
+     * @param station 换电站下标
+     * @param arrivalTime 预计到达时间(模拟时间)
+     */
+    public void reserve(int station, long arrivalTime) {
+        stations[station].reserve(arrivalTime);
+    }
+
+    /**
+     * 保存全部换电站的状态
+     * @return 按换电站下标排列的检查点
+     */
+    public List<StationCheckpoint> checkpoint() {
+        List<StationCheckpoint> checkpoints = new ArrayList<>(stations.length);
+        for (ExchangeStationService station : stations) {
+            checkpoints.add(station.checkpoint());
+        }
+        return checkpoints;
+    }
+
+    /**
+     * 恢复全部换电站到检查点状态
+     */
+    public void restore(List<StationCheckpoint> checkpoints) {
+        for (int i = 0; i < stations.length; i++) {
+            stations[i].restore(checkpoints.get(i));
+        }
+    }
+
+    /**
+     * 从快照恢复全部换电站：换电记录按换电站编码分给各换电站后恢复到检查点状态
+     * @param checkpoints 按换电站下标排列的检查点
+     * @param records 全部换电记录
+     */
+    public void restore(List<StationCheckpoint> checkpoints, List<ExchangeRecord> records) {
+        List<List<ExchangeRecord>> partitions = new ArrayList<>(stations.length);
+        for (int i = 0; i < stations.length; i++) {
+            partitions.add(new ArrayList<>());
+        }
+        for (ExchangeRecord record : records) {
+            partitions.get(indexOf(record.getStationCode())).add(record);
+        }
+        for (int i = 0; i < stations.length; i++) {
+            stations[i].restore(checkpoints.get(i), partitions.get(i));
+        }
+    }
+
+    /**
+     * 换电站编码对应的下标，没有编码或编码未知时为主换电站
+     */
+    public int indexOf(String stationCode) {
+        for (int i = 0; i < stations.length; i++) {
+            if (stations[i].getStationCode() != null && stations[i].getStationCode().equals(stationCode)) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 获取全部换电记录
+     * @return 换电记录列表，按换电站依次排列，同一换电站内按生成顺序
+     */
+    public List<ExchangeRecord> getExchangeRecords() {
+        if (stations.length == 1) {
+            return stations[0].getExchangeRecords();
+        }
+        List<ExchangeRecord> records = new ArrayList<>();
+        for (ExchangeStationService station : stations) {
+            records.addAll(station.getExchangeRecords());
+        }
+        return records;
+    }
+
+    /**
+     * 获取开始换电时间在[from, to)之间的换电记录
+     * @return 换电记录列表，按开始换电时间排序
+     */
+    public List<ExchangeRecord> getExchangeRecords(LocalDateTime from, LocalDateTime to) {
+        List<ExchangeRecord> records = new ArrayList<>();
+        for (ExchangeStationService station : stations) {
+            records.addAll(station.getExchangeRecords(from, to));
+        }
+        if (stations.length > 1) {
+            records.sort(Comparator.comparing(ExchangeRecord::getStartExchangeTime));
+        }
+        return records;
+    }
+
+    /**
+     * 获取车辆某一趟运输的换电记录
+     * @return 换电记录，该趟没有换电时返回null
+     */
+    public ExchangeRecord getExchangeRecord(String truckNo, int transportFrequency) {
+        for (ExchangeStationService station : stations) {
+            ExchangeRecord record = station.getExchangeRecord(truckNo, transportFrequency);
+            if (record != null) {
+                return record;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 获取车辆最近一次换电记录（全部换电站中开始等待时间最晚的一条）
+     * @return 换电记录，没有换过电时返回null
+     */
+    public ExchangeRecord getLatestExchangeRecord(String truckNo) {
+        ExchangeRecord latest = null;
+        for (ExchangeStationService station : stations) {
+            ExchangeRecord record = station.getLatestExchangeRecord(truckNo);
+            if (record != null && (latest == null || record.getStartAwaitTime().isAfter(latest.getStartAwaitTime()))) {
+                latest = record;
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * 获取全部换电站累计的排队等待时间
+     * @return 等待时间(秒)
+     */
+    public long getTotalWaitSeconds() {
+        long total = 0;
+        for (ExchangeStationService station : stations) {
+            total += station.getTotalWaitSeconds();
+        }
+        return total;
+    }
+
+    public void setMetrics(SimulationMetrics metrics) {
+        for (ExchangeStationService station : stations) {
+            station.setMetrics(metrics);
+        }
+    }
+
+    public void addRecordSink(RecordSink recordSink) {
+        for (ExchangeStationService station : stations) {
+            station.addRecordSink(recordSink);
+        }
+    }
+
+    public void setRetainRecords(boolean retainRecords) {
+        for (ExchangeStationService station : stations) {
+            station.setRetainRecords(retainRecords);
+        }
+    }
+}
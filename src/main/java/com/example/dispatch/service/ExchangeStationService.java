@@ -4,72 +4,667 @@ import com.example.dispatch.constant.LocationConstants;
 import com.example.dispatch.model.Battery;
 import com.example.dispatch.model.ExchangeRecord;
 import com.example.dispatch.model.Truck;
+import com.example.dispatch.simulation.BatteryPool;
+import com.example.dispatch.simulation.ExchangeLedger;
+import com.example.dispatch.simulation.ExchangePrediction;
+import com.example.dispatch.simulation.FleetState;
+import com.example.dispatch.simulation.RecordSink;
+import com.example.dispatch.simulation.SimClock;
+import com.example.dispatch.simulation.SimulationMetrics;
+import com.example.dispatch.simulation.StationCheckpoint;
+import com.example.dispatch.util.SocFixedPoint;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * 换电站服务类
+ * 换电站有若干条换电通道（换电机器人），各通道独立换电、共用电池；
+ * 排队车辆按先到先换，每辆车使用最早空闲的通道和最早充满的电池。
+ * <p>
+ * 线程安全，多个线程可以同时让车辆进站：
+ * 进站车辆先无锁放入收件箱，取得排程锁的线程把收件箱中其他线程的车辆一并按到达时间排序入队、排程，
+ * 后面的线程取得锁时发现自己的车辆已排程即直接返回；
+ * 排程锁只保护电池池、换电通道和等待队列的堆操作，换电记录输出和运行指标回调在锁外进行；
+ * 换电记录台账有独立的读写锁，查询不与排程竞争。
+ * 排程本身是串行的：先到先换时每辆车的通道和电池取决于前面所有车辆的排程，且各通道共用同一个电池池，
+ * 按通道或电池分段加锁会改变排程结果，因此整站不分段；并发进站的吞吐见ExchangeStationBenchmark.enterStationConcurrent。
+ * 不要求整站先到先换、需要进站吞吐随核数增长时使用{@link StripedExchangeStationService}，每段是一个独立排程的换电站。
+ * <p>
+ * 只读预测（{@link #predict}）使用不可变的状态快照：每次修改排程状态后在排程锁内创建新的快照并通过volatile发布，
+ * 创建快照与电池数量无关；预测只读取当前快照，不加锁、不复制换电站状态，修改后的第一次预测也不等待排程锁。
+ * 已选择该换电站、还在路上的车辆通过{@link #reserve}预约到达时间，预测时排在它们之后
  */
 public class ExchangeStationService {
-    private final Map<String, Battery> batteries;  // 电池位置映射
+    private final String stationCode;              // 换电站编码，写入换电记录
+    private final BatteryPool batteries;           // 电池池，按充满时间排序
     private final Queue<Truck> waitingQueue;       // 等待换电队列
-    private final List<ExchangeRecord> exchangeRecords; // 换电记录
-    private LocalDateTime lastExchangeEndTime;     // 上一次换电结束时间
-    private boolean isExchanging;                  // 是否有车辆正在换电
+    private final Queue<Truck> arrivals;           // 进站车辆收件箱，无锁入队，由持有排程锁的线程合并入队
+    private final ExchangeLedger exchangeRecords;  // 换电记录台账
+    private final List<RecordSink> recordSinks;    // 换电记录输出
+    private final SimClock clock;                  // 模拟时钟
+    private final PriorityQueue<Lane> lanes;       // 换电通道，按空闲时间排序
+    private final int laneNum;                     // 换电通道数量
+    private final int firstLaneNo;                 // 第一条换电通道的编号
+    private final TreeMap<Long, Integer> reservations; // 预约的到达时间(模拟时间) -> 车辆数
+    private final ReentrantLock lock;              // 排程锁，保护电池池、换电通道和等待队列
+    private volatile long lastExchangeEndTime;     // 上一次排程的换电结束时间(模拟时间)
+    private volatile long totalWaitTime;           // 累计排队等待时间(秒)，从到达换电站到开始换电，持有排程锁时写入
+    private volatile SimulationMetrics metrics = SimulationMetrics.NOOP; // 运行指标
+    private volatile StationView view;             // 只读预测使用的状态快照，排程状态变化后重新发布
     
     private static final BigDecimal ENERGY_CONSUMPTION = BigDecimal.valueOf(1.4).setScale(2, RoundingMode.HALF_UP); // 综合平均能耗(kWh/km)
     private static final BigDecimal MIN_EXCHANGE_SOC = BigDecimal.valueOf(52.70).setScale(2, RoundingMode.HALF_UP); // 最低换电SOC
     // private static final BigDecimal MIN_EXCHANGE_SOC = BigDecimal.valueOf(40.1).setScale(2, RoundingMode.HALF_UP); // 最低换电SOC
     private static final int EXCHANGE_DURATION = 5;       // 换电时长(分钟)
-    private static final BigDecimal CHARGE_RATE = BigDecimal.valueOf(4.7).setScale(2, RoundingMode.HALF_UP);        // 每分钟充电量(kWh)
+    private static final int CHARGE_RATE = 470;        // 每分钟充电量(0.01kWh)
     private static final BigDecimal HUNDRED = BigDecimal.valueOf(100.0).setScale(2, RoundingMode.HALF_UP);
     private static final BigDecimal CAPACITY = LocationConstants.DEFAULT_BATTERY_CAPACITY_DECIMAL_KWH;
+    private static final int CAPACITY_FIXED = SocFixedPoint.of(CAPACITY);  // 额定容量(0.01kWh)
+    // TODO：这里调试使用，后续需要初始设置为当前时间前一小时
+    private static final LocalDateTime INITIAL_CHARGE_COMPLETE_TIME = LocalDateTime.of(2025,6,10,10,30,0);
 
     public ExchangeStationService(int batteryNum) {
-        this.batteries = new HashMap<>();
-        this.waitingQueue = new LinkedList<>();
-        this.exchangeRecords = new ArrayList<>();
-        // TODO：这里调试使用，后续需要初始设置为当前时间前一小时
-        this.lastExchangeEndTime = LocalDateTime.of(2025,6,10,10,30,0);
-        this.isExchanging = false;
-        
+        this(batteryNum, new SimClock(INITIAL_CHARGE_COMPLETE_TIME));
+    }
+
+    public ExchangeStationService(int batteryNum, SimClock clock) {
+        this(batteryNum, 1, clock);
+    }
+
+    public ExchangeStationService(int batteryNum, int laneNum, SimClock clock) {
+        this(null, batteryNum, laneNum, clock);
+    }
+
+    /**
+     * 构造函数
+     * @param stationCode 换电站编码，可以为空
+     * @param batteryNum 电池数量
+     * @param laneNum 换电通道数量
+     * @param clock 模拟时钟，内部时间均相对该时钟起点
+     */
+    public ExchangeStationService(String stationCode, int batteryNum, int laneNum, SimClock clock) {
+        this(stationCode, 1, batteryNum, 1, laneNum, clock);
+    }
+
+    /**
+     * 构造函数：电池位置和换电通道从指定编号开始编号，用于分段换电站中的一段，各段的编号不重复
+     * @param firstBatteryNo 第一块电池的位置编号
+     * @param firstLaneNo 第一条换电通道的编号
+     */
+    ExchangeStationService(String stationCode, int firstBatteryNo, int batteryNum, int firstLaneNo, int laneNum,
+                           SimClock clock) {
+        if (laneNum < 1) {
+            throw new IllegalArgumentException("换电通道数量至少为1：" + laneNum);
+        }
+        if (batteryNum < 1) {
+            throw new IllegalArgumentException("换电站电池数量至少为1：" + batteryNum);
+        }
+        this.stationCode = stationCode;
+        this.batteries = new BatteryPool(batteryNum);
+        this.waitingQueue = new ArrayDeque<>();
+        this.arrivals = new ConcurrentLinkedQueue<>();
+        this.exchangeRecords = new ExchangeLedger();
+        this.recordSinks = new CopyOnWriteArrayList<>();
+        this.clock = clock;
+        this.lastExchangeEndTime = clock.toSimTime(INITIAL_CHARGE_COMPLETE_TIME);
+        this.lanes = new PriorityQueue<>(laneNum, LANE_ORDER);
+        this.laneNum = laneNum;
+        this.firstLaneNo = firstLaneNo;
+        this.reservations = new TreeMap<>();
+        this.lock = new ReentrantLock();
+
         // 初始化电池位置
-        for (int i = 1; i <= batteryNum; i++) {
-            batteries.put("no" + i, new Battery("no" + i));
+        for (int i = firstBatteryNo; i < firstBatteryNo + batteryNum; i++) {
+            batteries.add(new Battery("no" + i, lastExchangeEndTime));
+        }
+        // 初始化换电通道，与电池同时可用
+        for (int i = firstLaneNo; i < firstLaneNo + laneNum; i++) {
+            lanes.offer(new Lane(i, lastExchangeEndTime));
+        }
+        this.view = buildView();
+    }
+
+    /**
+     * 换电通道：编号和空闲时间(模拟时间)
+     */
+    private static final class Lane {
+        private final int laneNo;
+        private long freeTime;
+
+        Lane(int laneNo, long freeTime) {
+            this.laneNo = laneNo;
+            this.freeTime = freeTime;
+        }
+    }
+
+    /**
+     * 持有排程锁时完成的一次换电，释放锁后输出换电记录和回调运行指标
+     */
+    private static final class Scheduled {
+        private final ExchangeRecord record;
+        private final long startAwaitTime;
+        private final long startTime;
+        private final long endTime;
+        private final int available;  // 开始换电时已充满的电池数
+
+        Scheduled(ExchangeRecord record, long startAwaitTime, long startTime, long endTime, int available) {
+            this.record = record;
+            this.startAwaitTime = startAwaitTime;
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.available = available;
+        }
+    }
+
+    /**
+     * 换电站状态快照（不可变）
+     * 预约车辆按到达顺序依次占用最早空闲的通道和最早充满的电池，快照保存前i辆预约车辆排程后最早空闲的通道，
+     * 以及预约车辆和下一辆车会用到的电池（第i块）；没有预约时只有最早空闲的通道和最早充满的一块电池。
+     * 预约车辆换下的电池要充电较长时间，不再计入
+     */
+    private static final class StationView {
+        private final boolean blocked;                // 有车辆因没有电池在排队，或没有电池
+        private final long[] reservations;            // 预约的到达时间，升序
+        private final int[] laneNos;                  // 前i辆预约车辆排程后最早空闲的通道编号
+        private final long[] laneFreeTimes;           // 前i辆预约车辆排程后最早空闲的通道的空闲时间
+        private final String[] positionNos;           // 第i块最早充满的电池
+        private final long[] chargeCompleteTimes;
+
+        StationView(boolean blocked, long[] reservations, int[] laneNos, long[] laneFreeTimes,
+                    String[] positionNos, long[] chargeCompleteTimes) {
+            this.blocked = blocked;
+            this.reservations = reservations;
+            this.laneNos = laneNos;
+            this.laneFreeTimes = laneFreeTimes;
+            this.positionNos = positionNos;
+            this.chargeCompleteTimes = chargeCompleteTimes;
+        }
+
+        /**
+         * 不晚于到达时间的预约车辆排在该车之前，二分查找其数量后直接取对应的通道和电池，为O(log R)
+         * @param arrivalTime 到达时间(模拟时间)
+         * @return 排程结果，有车辆在排队或电池已被预约车辆用完时返回null
+         */
+        Slot slot(long arrivalTime) {
+            if (blocked) {
+                return null;
+            }
+            int ahead = countNotAfter(arrivalTime);
+            if (ahead >= positionNos.length) {
+                return null;
+            }
+            long startTime = Math.max(Math.max(arrivalTime, laneFreeTimes[ahead]), chargeCompleteTimes[ahead]);
+            return new Slot(laneNos[ahead], positionNos[ahead], startTime);
+        }
+
+        /**
+         * 不晚于指定时间的预约数量
+         */
+        private int countNotAfter(long time) {
+            int low = 0;
+            int high = reservations.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (reservations[mid] <= time) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
         }
     }
 
+    /**
+     * 预测的排程：通道、电池和开始换电时间
+     */
+    private static final class Slot {
+        private final int laneNo;
+        private final String batteryPositionNo;
+        private final long startTime;
+
+        Slot(int laneNo, String batteryPositionNo, long startTime) {
+            this.laneNo = laneNo;
+            this.batteryPositionNo = batteryPositionNo;
+            this.startTime = startTime;
+        }
+    }
+
+    // 空闲时间相同时编号小的通道优先，使排程结果确定
+    private static final Comparator<Lane> LANE_ORDER = (a, b) -> a.freeTime != b.freeTime
+            ? Long.compare(a.freeTime, b.freeTime) : Integer.compare(a.laneNo, b.laneNo);
+
+    public String getStationCode() {
+        return stationCode;
+    }
+
+    /**
+     * 获取换电通道数量
+     */
+    public int getLaneNum() {
+        return laneNum;
+    }
+
     public LocalDateTime getLastExchangeEndTime() {
+        return clock.toDateTime(lastExchangeEndTime);
+    }
+
+    /**
+     * 上一次排程的换电结束时间，即最近进站车辆的换电结束时间
+     * 多通道时不一定是最晚的换电结束时间
+     * @return 模拟时间
+     */
+    public long getLastExchangeEndSimTime() {
         return lastExchangeEndTime;
     }
 
+    /**
+     * 获取全部车辆累计的排队等待时间
+     * @return 等待时间(秒)，不保留换电记录时同样有效
+     */
+    public long getTotalWaitSeconds() {
+        return totalWaitTime;
+    }
+
+    /**
+     * 添加换电记录输出，换电记录生成时立即输出
+     */
+    public void addRecordSink(RecordSink recordSink) {
+        recordSinks.add(recordSink);
+    }
+
+    /**
+     * 设置是否在内存中保留全部换电记录
+     * 不保留时换电记录只输出到RecordSink，内存占用不随模拟时长增长，但不能再保存检查点
+     */
+    public void setRetainRecords(boolean retainRecords) {
+        exchangeRecords.setRetainRecords(retainRecords);
+    }
+
+    /**
+     * 设置运行指标，每次换电排程时回调排队时间和可用电池数
+     */
+    public void setMetrics(SimulationMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * 获取车辆最近一次换电记录
+     * @param truckNo 车牌号
+     * @return 换电记录，没有换过电时返回null
+     */
+    public ExchangeRecord getLatestExchangeRecord(String truckNo) {
+        return exchangeRecords.getLatest(truckNo);
+    }
+
+    /**
+     * 获取车辆某一趟运输的换电记录
+     * @param truckNo 车牌号
+     * @param transportFrequency 运输次数
+     * @return 换电记录，该趟没有换电时返回null
+     */
+    public ExchangeRecord getExchangeRecord(String truckNo, int transportFrequency) {
+        return exchangeRecords.get(truckNo, transportFrequency);
+    }
+
+    /**
+     * 保存换电站当前状态
+     * @return 换电站状态检查点
+     */
+    public StationCheckpoint checkpoint() {
+        lock.lock();
+        try {
+            return checkpointLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private StationCheckpoint checkpointLocked() {
+        List<Battery> batteryCopies = new ArrayList<>();
+        for (Battery battery : batteries.toList()) {
+            batteryCopies.add(new Battery(battery));
+        }
+
+        StationCheckpoint checkpoint = new StationCheckpoint();
+        checkpoint.setBatteries(batteryCopies);
+        List<Truck> queueCopies = new ArrayList<>();
+        for (Truck truck : waitingQueue) {
+            queueCopies.add(copyOf(truck));
+        }
+        checkpoint.setWaitingQueue(queueCopies);
+        checkpoint.setExchangeRecordCount(exchangeRecords.size());
+        checkpoint.setLastExchangeEndTime(lastExchangeEndTime);
+        long[] laneFreeTimes = new long[lanes.size()];
+        for (Lane lane : lanes) {
+            laneFreeTimes[lane.laneNo - firstLaneNo] = lane.freeTime;
+        }
+        checkpoint.setLaneFreeTimes(laneFreeTimes);
+        checkpoint.setTotalWaitTime(totalWaitTime);
+        checkpoint.setReservations(reservationTimes());
+        return checkpoint;
+    }
+
+    /**
+     * 恢复换电站到检查点状态，检查点之后产生的换电记录被丢弃
+     * @param checkpoint 换电站状态检查点
+     */
+    public void restore(StationCheckpoint checkpoint) {
+        lock.lock();
+        try {
+            restoreLocked(checkpoint);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void restoreLocked(StationCheckpoint checkpoint) {
+        batteries.clear();
+        for (Battery battery : checkpoint.getBatteries()) {
+            batteries.add(new Battery(battery));
+        }
+        waitingQueue.clear();
+        for (Truck truck : checkpoint.getWaitingQueue()) {
+            waitingQueue.add(copyOf(truck));
+        }
+        exchangeRecords.truncate(checkpoint.getExchangeRecordCount());
+        lastExchangeEndTime = checkpoint.getLastExchangeEndTime();
+        lanes.clear();
+        long[] laneFreeTimes = checkpoint.getLaneFreeTimes();
+        for (int i = 0; i < laneFreeTimes.length; i++) {
+            lanes.offer(new Lane(i + firstLaneNo, laneFreeTimes[i]));
+        }
+        totalWaitTime = checkpoint.getTotalWaitTime();
+        reservations.clear();
+        if (checkpoint.getReservations() != null) {
+            for (long reservation : checkpoint.getReservations()) {
+                reservations.merge(reservation, 1, Integer::sum);
+            }
+        }
+        publishView();
+    }
+
+    /**
+     * 预约的到达时间，升序，同一时间有多辆车时重复。需持有排程锁
+     */
+    private long[] reservationTimes() {
+        int count = 0;
+        for (int vehicles : reservations.values()) {
+            count += vehicles;
+        }
+        long[] times = new long[count];
+        int i = 0;
+        for (Map.Entry<Long, Integer> entry : reservations.entrySet()) {
+            for (int j = 0; j < entry.getValue(); j++) {
+                times[i++] = entry.getKey();
+            }
+        }
+        return times;
+    }
+
+    /**
+     * 预约：车辆已选择该换电站，预计在指定时间到达
+     * 预约的车辆在预测中占用通道和电池，使同一时段出发的车辆不会都选择同一个换电站
+     * @param arrivalTime 预计到达时间(模拟时间)
+     */
+    public void reserve(long arrivalTime) {
+        lock.lock();
+        try {
+            reservations.merge(arrivalTime, 1, Integer::sum);
+            publishView();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 取消预约：车辆已到达换电站（随后进站排程）
+     * @param arrivalTime 预约时的到达时间(模拟时间)
+     * @return 是否有该时间的预约
+     */
+    public boolean cancelReservation(long arrivalTime) {
+        lock.lock();
+        try {
+            Integer vehicles = reservations.get(arrivalTime);
+            if (vehicles == null) {
+                return false;
+            }
+            if (vehicles == 1) {
+                reservations.remove(arrivalTime);
+            } else {
+                reservations.put(arrivalTime, vehicles - 1);
+            }
+            publishView();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 复制排队车辆：排队车辆换电时会被修改，检查点中保存副本，使检查点可以重复恢复
+     */
+    private static Truck copyOf(Truck truck) {
+        Truck copy = new Truck(truck.getTruckNo(), truck.getSoc(), truck.getCapacity());
+        copy.setTransportFrequency(truck.getTransportFrequency());
+        copy.setStartAwaitTime(truck.getStartAwaitTime());
+        return copy;
+    }
+
+    /**
+     * 从快照恢复换电站：先替换全部换电记录，再恢复到检查点状态
+     * @param checkpoint 换电站状态
+     * @param records 快照中的换电记录
+     */
+    public void restore(StationCheckpoint checkpoint, List<ExchangeRecord> records) {
+        lock.lock();
+        try {
+            exchangeRecords.replaceAll(records);
+            restoreLocked(checkpoint);
+        } finally {
+            lock.unlock();
+        }
+    }
+
     /**
      * 检查是否有可用电池
      * @param currentTime 当前时间
      * @return 是否有可用电池
      */
     public boolean hasAvailableBattery(LocalDateTime currentTime) {
-        return !getAvailableBatteries(currentTime).isEmpty();
+        long simTime = clock.toSimTime(currentTime);
+        lock.lock();
+        try {
+            return isAvailable(batteries.peek(), simTime);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 预计指定时间到达的车辆开始换电的时间，不修改换电站状态
+     * 更早到达的预约车辆先占用通道和电池，之后按最早空闲的通道和最早充满的电池排程，与换电时的选择一致；
+     * 之后到达的车辆不影响该车
+     * @param arrivalTime 到达时间(模拟时间)
+     * @return 开始换电时间(模拟时间)，有车辆因没有电池在排队或电池已被预约车辆用完时返回{@link SimClock#NO_TIME}
+     */
+    public long predictExchangeStart(long arrivalTime) {
+        Slot slot = view.slot(arrivalTime);
+        return slot == null ? SimClock.NO_TIME : slot.startTime;
+    }
+
+    /**
+     * 只读预测：假设一辆车在指定时间以指定SOC到达换电站，预计何时开始换电、何时离开，不修改排队队列、电池和换电记录
+     * 使用换电站当前状态的快照，不加锁，按预约数量二分查找为O(log R)，可以对大量候选到达时间逐一预测；
+     * 更早到达的预约车辆排在该车之前，之后到达的车辆不影响该车
+     * @param arrivalTime 到达时间(模拟时间)
+     * @param soc 到达时的SOC(0.01%)，决定换下的电池何时充满
+     * @return 预测结果，有车辆因没有电池在排队或电池已被预约车辆用完时返回null
+     */
+    public ExchangePrediction predict(long arrivalTime, int soc) {
+        Slot slot = view.slot(arrivalTime);
+        if (slot == null) {
+            return null;
+        }
+        long endTime = slot.startTime + SimClock.minutes(EXCHANGE_DURATION);
+        return new ExchangePrediction(stationCode, slot.laneNo, slot.batteryPositionNo, arrivalTime,
+                slot.startTime, endTime, endTime + SimClock.minutes(calculateChargeDuration(soc)));
+    }
+
+    /**
+     * 只读预测（日期时间版本）
+     * @param arrivalTime 到达时间
+     * @param soc 到达时的SOC(%)
+     * @return 预测结果，有车辆因没有电池在排队时返回null
+     */
+    public ExchangePrediction predict(LocalDateTime arrivalTime, BigDecimal soc) {
+        return predict(clock.toSimTime(arrivalTime), SocFixedPoint.of(soc));
+    }
+
+    /**
+     * 排程状态修改后创建并发布新的状态快照，之后的预测读到修改后的完整状态。需持有排程锁
+     */
+    private void publishView() {
+        view = buildView();
+    }
+
+    /**
+     * 创建状态快照。需持有排程锁
+     * 从电池堆顶取出预约车辆和下一辆车会用到的电池，按到达顺序把预约车辆排到通道堆的副本上，
+     * 为O(L + R log R)，与电池数量无关；没有预约时只查看两个堆的堆顶
+     */
+    private StationView buildView() {
+        long[] reserved = reservationTimes();
+        List<Battery> batteryList = batteries.smallest(reserved.length + 1);
+        int count = batteryList.size();
+        String[] positionNos = new String[count];
+        long[] chargeCompleteTimes = new long[count];
+        for (int i = 0; i < count; i++) {
+            positionNos[i] = batteryList.get(i).getPositionNo();
+            chargeCompleteTimes[i] = batteryList.get(i).getChargeCompleteTime();
+        }
+
+        int[] laneNos = new int[count];
+        long[] laneFreeTimes = new long[count];
+        if (count == 1) {
+            laneNos[0] = lanes.peek().laneNo;
+            laneFreeTimes[0] = lanes.peek().freeTime;
+        } else if (count > 1) {
+            PriorityQueue<Lane> projected = new PriorityQueue<>(laneNum, LANE_ORDER);
+            for (Lane lane : lanes) {
+                projected.offer(new Lane(lane.laneNo, lane.freeTime));
+            }
+            for (int i = 0; i < count; i++) {
+                Lane lane = projected.peek();
+                laneNos[i] = lane.laneNo;
+                laneFreeTimes[i] = lane.freeTime;
+                if (i + 1 < count) {
+                    // 第i辆预约车辆占用最早空闲的通道和第i块电池
+                    projected.poll();
+                    lane.freeTime = Math.max(Math.max(reserved[i], lane.freeTime), chargeCompleteTimes[i])
+                            + SimClock.minutes(EXCHANGE_DURATION);
+                    projected.offer(lane);
+                }
+            }
+        }
+        return new StationView(!waitingQueue.isEmpty() || batteries.isEmpty(), reserved, laneNos, laneFreeTimes,
+                positionNos, chargeCompleteTimes);
     }
 
     /**
      * 车辆进入换电站等待换电
+     * 返回时车辆已排程（换电或因没有电池继续排队），排程可能由同时进站的其他线程完成
      * @param truck 需要换电的车辆
      * @param currentTime 当前时间
+     * @return 该车的换电结束时间，车辆仍在排队时返回null
      */
-    public void enterStation(Truck truck, LocalDateTime currentTime) {
-        // 将车辆加入等待队列
+    public LocalDateTime enterStation(Truck truck, LocalDateTime currentTime) {
+        // 将车辆放入收件箱，按先到先换为队列中的车辆排程
         truck.setStartAwaitTime(currentTime);
-        waitingQueue.offer(truck);
-        
-        // 如果当前没有车辆在换电，则尝试处理换电
-        if (!isExchanging) {
-            processExchange(currentTime);
+        arrivals.offer(truck);
+        drainArrivals();
+        long exchangeEndTime = exchangeEndTime(truck);
+        return exchangeEndTime == SimClock.NO_TIME ? null : clock.toDateTime(exchangeEndTime);
+    }
+
+    /**
+     * 车辆本次进站的换电结束时间
+     * 按（车牌号, 运输次数）查找换电记录台账，开始等待时间与本次进站时间相同的记录才是本次换电，
+     * 不读取可能已被其他线程覆盖的上一次换电结束时间
+     * @return 换电结束时间(模拟时间)，车辆仍在排队时返回{@link SimClock#NO_TIME}
+     */
+    private long exchangeEndTime(Truck truck) {
+        ExchangeRecord record = exchangeRecords.get(truck.getTruckNo(), truck.getTransportFrequency());
+        if (record == null || clock.toSimTime(record.getStartAwaitTime()) != clock.toSimTime(truck.getStartAwaitTime())) {
+            return SimClock.NO_TIME;
         }
+        return clock.toSimTime(record.getStartExchangeTime()) + SimClock.minutes(EXCHANGE_DURATION);
+    }
+
+    /**
+     * 一批车辆进入换电站等待换电
+     * 车辆按到达时间（开始等待时间）排序一次后依次入队，全部入队后一次处理整个队列，到达时间相同的车辆保持传入顺序
+     * @param trucks 需要换电的车辆，开始等待时间为到达换电站的时间
+     * @throws IllegalArgumentException 有车辆没有设置开始等待时间，此时所有车辆都不进站
+     */
+    public void enterStation(List<Truck> trucks) {
+        if (trucks.isEmpty()) {
+            return;
+        }
+        for (Truck truck : trucks) {
+            if (truck.getStartAwaitTime() == null) {
+                throw new IllegalArgumentException("车辆 " + truck.getTruckNo() + " 没有设置开始等待时间（到达换电站的时间）");
+            }
+        }
+        arrivals.addAll(trucks);
+        drainArrivals();
+    }
+
+    /**
+     * 车辆进入换电站等待换电（车队状态版本）
+     * 没有车辆排队时直接换电，不创建Truck对象；有车辆排队时按原队列顺序处理
+     * @param fleet 车队状态
+     * @param truckIndex 车辆下标
+     * @param currentTime 当前时间(模拟时间)
+     * @return 该车的换电结束时间(模拟时间)，车辆因没有电池仍在排队时返回{@link SimClock#NO_TIME}
+     */
+    public long enterStation(FleetState fleet, int truckIndex, long currentTime) {
+        List<Scheduled> scheduled = new ArrayList<>(1);
+        long exchangeEndTime;
+        lock.lock();
+        try {
+            // 先处理其他线程已放入收件箱的车辆
+            if (!arrivals.isEmpty()) {
+                processExchange(admitArrivals(), scheduled);
+            }
+            Scheduled direct = waitingQueue.isEmpty() ? exchange(fleet.getTruckNo(truckIndex), fleet.getSoc(truckIndex),
+                    BigDecimal.valueOf(fleet.getCapacity(truckIndex)), currentTime, fleet.getTripCount(truckIndex), currentTime) : null;
+            if (direct != null) {
+                scheduled.add(direct);
+                fleet.setSoc(truckIndex, SocFixedPoint.FULL);
+                exchangeEndTime = direct.endTime;
+            } else {
+                Truck truck = new Truck(fleet.getTruckNo(truckIndex), SocFixedPoint.toDecimal(fleet.getSoc(truckIndex)),
+                        BigDecimal.valueOf(fleet.getCapacity(truckIndex)));
+                fleet.copyTo(truckIndex, truck);
+                truck.setStartAwaitTime(clock.toDateTime(currentTime));
+                waitingQueue.offer(truck);
+                processExchange(currentTime, scheduled);
+                fleet.copyFrom(truckIndex, truck);
+                exchangeEndTime = exchangeEndTime(truck);
+            }
+            publishView();
+        } finally {
+            lock.unlock();
+        }
+        publish(scheduled);
+        return exchangeEndTime;
     }
 
     /**
@@ -77,149 +672,168 @@ public class ExchangeStationService {
      * @param currentTime 当前时间
      */
     public void processExchange(LocalDateTime currentTime) {
-        // 如果没有等待换电的车辆，直接返回
-        if (waitingQueue.isEmpty()) {
-            isExchanging = false;
-            return;
-        }
-        
-        // 如果当前有车辆在换电，直接返回
-        if (isExchanging) {
-            return;
+        List<Scheduled> scheduled = new ArrayList<>();
+        lock.lock();
+        try {
+            processExchange(clock.toSimTime(currentTime), scheduled);
+            if (!scheduled.isEmpty()) {
+                publishView();
+            }
+        } finally {
+            lock.unlock();
         }
-        
-        // 获取可用的电池
-        List<Battery> availableBatteries = getAvailableBatteries(currentTime);
-        
-        // 如果没有立即可用的电池，检查最早可用的电池
-        if (availableBatteries.isEmpty()) {
-            // 获取所有电池（包括正在充电的）并按充满时间排序
-            List<Battery> allBatteries = new ArrayList<>(batteries.values());
-            allBatteries.sort(Comparator.comparing(Battery::getChargeCompleteTime));
-            
-            if (!allBatteries.isEmpty()) {
-                // 获取最早充满的电池
-                Battery earliestBattery = allBatteries.get(0);
-                // 更新当前时间为最早充满时间
-                currentTime = earliestBattery.getChargeCompleteTime().isAfter(currentTime) ? 
-                    earliestBattery.getChargeCompleteTime() : currentTime;
-                // 重新检查是否有可用电池
-                availableBatteries = getAvailableBatteries(currentTime);
+        publish(scheduled);
+    }
+
+    /**
+     * 合并处理收件箱中的车辆：取得排程锁后把收件箱中的全部车辆入队并排程，释放锁后输出换电记录
+     * 收件箱为空时说明本线程的车辆已由其他线程排程
+     */
+    private void drainArrivals() {
+        List<Scheduled> scheduled = new ArrayList<>();
+        lock.lock();
+        try {
+            if (arrivals.isEmpty()) {
+                return;
             }
+            processExchange(admitArrivals(), scheduled);
+            publishView();
+        } finally {
+            lock.unlock();
         }
-        
-        // 如果仍然没有可用电池，直接返回
-        if (availableBatteries.isEmpty()) {
-            return;
+        publish(scheduled);
+    }
+
+    /**
+     * 收件箱中的车辆按到达时间排序后加入等待队列，到达时间相同的车辆保持放入收件箱的顺序。需持有排程锁
+     * @return 最早的到达时间(模拟时间)
+     */
+    private long admitArrivals() {
+        List<Truck> admitted = new ArrayList<>();
+        for (Truck truck = arrivals.poll(); truck != null; truck = arrivals.poll()) {
+            admitted.add(truck);
         }
-        
-        // 获取队列中的第一辆车进行换电
-        Truck truck = waitingQueue.poll();
-        if (truck != null) {
-            // 标记开始换电
-            isExchanging = true;
-
-            // 选择最早可用的电池
-            Battery availableBattery = availableBatteries.get(0);
-            
-            // 计算换电时间
-            LocalDateTime exchangeStartTime = currentTime.isAfter(lastExchangeEndTime) ? currentTime : lastExchangeEndTime;
-            // 如果电池还在充电，等待电池充满
-            exchangeStartTime = availableBattery.getChargeCompleteTime().isAfter(exchangeStartTime) ?
-                availableBattery.getChargeCompleteTime() : exchangeStartTime;
-            
-            LocalDateTime exchangeEndTime = exchangeStartTime.plusMinutes(EXCHANGE_DURATION);
-            
-            // 计算充电时长
-            int chargeDuration = calculateChargeDuration(truck.getSoc());
-            
-            // 创建换电记录
-            ExchangeRecord record = new ExchangeRecord(
-                truck.getTruckNo(),
-                truck.getSoc(),
-                truck.getCapacity(),
-                truck.getStartAwaitTime(),
-                exchangeStartTime,
-                availableBattery.getChargeCompleteTime(),
-                chargeDuration,
-                exchangeEndTime.plusMinutes(chargeDuration),
-                availableBattery.getPositionNo(),
-                truck.getTransportFrequency()
-            );
-            
-            // 添加到换电记录列表
-            exchangeRecords.add(record);
-            
-            // 更新电池状态
-            availableBattery.startCharging(truck.getSoc(), exchangeEndTime);
-            
+        admitted.sort(Comparator.comparing(Truck::getStartAwaitTime));
+        waitingQueue.addAll(admitted);
+        return clock.toSimTime(admitted.get(0).getStartAwaitTime());
+    }
+
+    /**
+     * 处理换电逻辑：按先到先换依次为队列中的车辆排程，直到队列为空或没有可用电池。需持有排程锁
+     * 每辆车不早于当前时间和自身到达时间开始换电，各通道的空闲时间由通道堆决定
+     * @param currentTime 当前时间(模拟时间)
+     * @param scheduled 完成排程的换电，释放锁后输出
+     */
+    private void processExchange(long currentTime, List<Scheduled> scheduled) {
+        while (!waitingQueue.isEmpty()) {
+            // 队列中的第一辆车进行换电
+            Truck truck = waitingQueue.peek();
+            long arrivalTime = clock.toSimTime(truck.getStartAwaitTime());
+            Scheduled exchange = exchange(truck.getTruckNo(), SocFixedPoint.of(truck.getSoc()), truck.getCapacity(),
+                    arrivalTime, truck.getTransportFrequency(), Math.max(currentTime, arrivalTime));
+
+            // 没有可用电池，车辆继续等待
+            if (exchange == null) {
+                return;
+            }
+
+            waitingQueue.poll();
+            scheduled.add(exchange);
+
             // 更新车辆SOC
             truck.setSoc(HUNDRED);
-            
-            // 更新上一次换电结束时间
-            lastExchangeEndTime = exchangeEndTime;
-            
-            // 标记换电结束
-            isExchanging = false;
-            
-            // 继续处理下一辆车
-            processExchange(exchangeEndTime);
         }
     }
 
     /**
-     * 获取所有满电的可用电池
-     * @param currentTime 当前时间
-     * @return 可用的电池列表，按充满时间排序
+     * 输出换电记录并回调运行指标，在排程锁外调用
      */
-    private List<Battery> getAvailableBatteries(LocalDateTime currentTime) {
-        List<Battery> availableBatteries = new ArrayList<>();
-        
-        // 查找所有已满电的电池或正在充电的电池，或已经充满的电池且当前时间大于等于充满时间
-        for (Battery battery : batteries.values()) {
-            if (battery.isFullyCharged(currentTime) || !battery.getChargeCompleteTime().isAfter(currentTime)) {
-                availableBatteries.add(battery);
+    private void publish(List<Scheduled> scheduled) {
+        for (Scheduled exchange : scheduled) {
+            for (RecordSink recordSink : recordSinks) {
+                recordSink.onExchangeRecord(exchange.record);
             }
+            metrics.onExchange(exchange.startAwaitTime, exchange.startTime, exchange.available);
         }
-        
-        // 按照电池充满时间排序
-        availableBatteries.sort(Comparator.comparing(Battery::getChargeCompleteTime));
-        
-        return availableBatteries;
     }
-    
+
     /**
-     * 获取最早充满的电池
-     * @return 最早充满的电池
+     * 为一辆车换电：选择最早空闲的通道和最早可用的电池，生成换电记录并开始给换下的电池充电。需持有排程锁
+     * @param soc 换电前SOC(0.01%)
+     * @param startAwaitTime 开始等待时间(模拟时间)
+     * @param currentTime 当前时间(模拟时间)
+     * @return 完成排程的换电，没有可用电池时返回null
      */
-    private Battery getEarliestChargingBattery() {
-        List<Battery> chargingBatteries = new ArrayList<>();
-        
-        // 收集所有正在充电的电池
-        for (Battery battery : batteries.values()) {
-            if (battery.isCharging()) {
-                chargingBatteries.add(battery);
-            }
+    private Scheduled exchange(String truckNo, int soc, BigDecimal capacity, long startAwaitTime,
+                          int transportFrequency, long currentTime) {
+        // 没有电池，直接返回
+        if (batteries.isEmpty()) {
+            return null;
         }
-        
-        // 按照电池充满时间排序
-        chargingBatteries.sort(Comparator.comparing(Battery::getChargeCompleteTime));
-        
-        // 返回最早充满的电池，如果没有正在充电的电池则返回null
-        return chargingBatteries.isEmpty() ? null : chargingBatteries.get(0);
+
+        // 取出最早充满的电池（没有立即可用的电池时等待其充满）和最早空闲的通道
+        Battery availableBattery = batteries.poll();
+        Lane lane = lanes.poll();
+
+        // 计算换电时间
+        long exchangeStartTime = Math.max(currentTime, lane.freeTime);
+        // 如果电池还在充电，等待电池充满
+        exchangeStartTime = Math.max(availableBattery.getChargeCompleteTime(), exchangeStartTime);
+
+        long exchangeEndTime = exchangeStartTime + SimClock.minutes(EXCHANGE_DURATION);
+
+        // 计算充电时长
+        int chargeDuration = calculateChargeDuration(soc);
+
+        // 创建换电记录
+        ExchangeRecord record = new ExchangeRecord(
+            truckNo,
+            SocFixedPoint.toDecimal(soc),
+            capacity,
+            clock.toDateTime(startAwaitTime),
+            clock.toDateTime(exchangeStartTime),
+            clock.toDateTime(availableBattery.getChargeCompleteTime()),
+            chargeDuration,
+            clock.toDateTime(exchangeEndTime + SimClock.minutes(chargeDuration)),
+            availableBattery.getPositionNo(),
+            transportFrequency
+        );
+
+        record.setLaneNo(lane.laneNo);
+        record.setStationCode(stationCode);
+
+        // 写入换电记录台账（写入时修正时间关系），释放排程锁后再输出
+        exchangeRecords.add(record);
+
+        // 换下的电池开始充电，按新的充满时间放回电池池
+        availableBattery.startCharging(soc, exchangeEndTime);
+        batteries.add(availableBattery);
+
+        // 通道换电结束后空闲，更新上一次换电结束时间和累计排队时间
+        lane.freeTime = exchangeEndTime;
+        lanes.offer(lane);
+        lastExchangeEndTime = exchangeEndTime;
+        totalWaitTime += exchangeStartTime - startAwaitTime;
+
+        return new Scheduled(record, startAwaitTime, exchangeStartTime, exchangeEndTime, batteries.countReady(exchangeStartTime));
+    }
+
+    /**
+     * 电池是否可用：已满电且不在充电中，或已到充满时间
+     * 电池池按充满时间排序，未换过的满电电池充满时间为初始时间，排在最前，只需检查最早充满的电池
+     */
+    private static boolean isAvailable(Battery battery, long currentTime) {
+        return battery != null && (battery.isFullyCharged(currentTime) || battery.getChargeCompleteTime() <= currentTime);
     }
 
     /**
      * 计算电池充电时长
-     * @param soc 电池剩余电量百分比
+     * @param soc 电池剩余电量(0.01%)
      * @return 充电时长(分钟)
      */
-    private int calculateChargeDuration(BigDecimal soc) {
+    private int calculateChargeDuration(int soc) {
         // 计算充电时长: (100 - 剩余soc) * (额定容量 / 100) / 4.7
-        BigDecimal socDiff = HUNDRED.subtract(soc);
-        BigDecimal capacityPer = CAPACITY.divide(HUNDRED, 2, RoundingMode.HALF_UP);
-        BigDecimal chargeDuration = socDiff.multiply(capacityPer).divide(CHARGE_RATE, 2, RoundingMode.HALF_UP);
-        return chargeDuration.setScale(0, RoundingMode.CEILING).intValue();
+        return SocFixedPoint.chargeMinutes(soc, CAPACITY_FIXED, CHARGE_RATE);
     }
 
     /**
@@ -228,12 +842,26 @@ public class ExchangeStationService {
      * @return true: 所有电池都已充满; false: 至少有一块电池在充电中
      */
     public boolean allBatteriesFullyCharged(LocalDateTime currentTime) {
-        for (Battery battery : batteries.values()) {
-            if (battery.isCharging() && battery.getChargeCompleteTime().isAfter(currentTime)) {
-                return false;
+        long simTime = clock.toSimTime(currentTime);
+        lock.lock();
+        try {
+            for (Battery battery : batteries.toList()) {
+                if (battery.isCharging() && battery.getChargeCompleteTime() > simTime) {
+                    return false;
+                }
             }
+            return true;
+        } finally {
+            lock.unlock();
         }
-        return true;
+    }
+
+    /**
+     * 获取换电时长
+     * @return 换电时长(分钟)
+     */
+    public static int getExchangeDuration() {
+        return EXCHANGE_DURATION;
     }
 
     /**
@@ -301,37 +929,18 @@ public class ExchangeStationService {
 
     /**
      * 获取换电记录
-     * @return 换电记录列表
+     * @return 换电记录列表（只读副本），按生成顺序
      */
     public List<ExchangeRecord> getExchangeRecords() {
-        // 验证和修正记录中的时间关系
-        validateAndCorrectRecords();
-        return exchangeRecords;
+        return exchangeRecords.getRecords();
     }
 
     /**
-     * 验证并修正换电记录中的时间关系
-     * 确保时间关系满足: 开始等待时间 <= 开始换电时间 <= 使用电池时间 <= 电池充满时间
+     * 获取开始换电时间在[from, to)之间的换电记录
+     * @return 换电记录列表，按开始换电时间排序
      */
-    private void validateAndCorrectRecords() {
-        for (ExchangeRecord record : exchangeRecords) {
-            // 确保开始换电时间不早于开始等待时间
-            if (record.getStartExchangeTime().isBefore(record.getStartAwaitTime())) {
-                record.setStartExchangeTime(record.getStartAwaitTime());
-            }
-            
-            // 确保使用电池时间不早于开始换电时间
-            if (record.getUseBatteryTime().isBefore(record.getStartExchangeTime())) {
-                record.setUseBatteryTime(record.getStartExchangeTime());
-            }
-            
-            // 确保电池充满时间不早于使用电池时间
-            if (record.getBatteryChargeCompleteTime().isBefore(record.getUseBatteryTime())) {
-                record.setBatteryChargeCompleteTime(
-                    record.getUseBatteryTime().plusMinutes(record.getDuration())
-                );
-            }
-        }
+    public List<ExchangeRecord> getExchangeRecords(LocalDateTime from, LocalDateTime to) {
+        return exchangeRecords.getStartedBetween(from, to);
     }
 
     /**
@@ -341,12 +950,18 @@ public class ExchangeStationService {
      * @return 是否建议提前换电
      */
     public boolean canExchangeEarly(LocalDateTime currentTime) {
-        // 检查是否有可用电池
-        boolean hasAvailable = hasAvailableBattery(currentTime);
-        
-        // 检查等待队列长度（不超过1辆车等待）
-        boolean shortQueue = waitingQueue.size() <= 1;
-        
-        return hasAvailable && shortQueue;
+        long simTime = clock.toSimTime(currentTime);
+        lock.lock();
+        try {
+            // 检查是否有可用电池
+            boolean hasAvailable = isAvailable(batteries.peek(), simTime);
+
+            // 检查等待队列长度（不超过1辆车等待）
+            boolean shortQueue = waitingQueue.size() <= 1;
+
+            return hasAvailable && shortQueue;
+        } finally {
+            lock.unlock();
+        }
     }
 } 
\ No newline at end of file
@@ -0,0 +1,220 @@
+package com.example.dispatch.service;
+
+import com.example.dispatch.DispatchSimulation;
+import com.example.dispatch.metrics.DispatchMetrics;
+import com.example.dispatch.model.SimulationScenario;
+import com.example.dispatch.simulation.DecisionTrace;
+import com.example.dispatch.simulation.DeterministicTravelModel;
+import com.example.dispatch.simulation.RecordSink;
+import com.example.dispatch.simulation.RoadNetwork;
+import com.example.dispatch.simulation.SimulationSnapshot;
+import com.example.dispatch.simulation.SnapshotCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * 增量调度规划服务
+ * 保留上一次的调度计划，每次只检查车辆是否有新的遥测数据：
+ * 没有变化时直接沿用，有变化时从最早受影响的检查点开始重新模拟。
+ * 每次计划更新后写入快照文件，应用重启时从快照恢复，不必从Redis完整重建；
+ * 快照路径为空时不读写快照（遥测回放使用的独立规划实例）
+ */
+@Slf4j
+@Service
+public class IncrementalDispatchPlanner {
+
+    @Autowired
+    private VehicleTrackingService vehicleTrackingService;
+
+    @Autowired
+    private SOCCalculationService socCalculationService;
+
+    @Autowired
+    private TestDataService testDataService;
+
+    @Autowired
+    private RoadNetwork roadNetwork;
+
+    @Autowired
+    private DispatchClock dispatchClock;
+
+    @Autowired
+    private DispatchMetrics dispatchMetrics;
+
+    @Autowired(required = false)
+    private List<RecordSink> recordSinks = new ArrayList<>();
+
+    @Value("${dispatch.snapshot.path:data/dispatch-snapshot.bin}")
+    private String snapshotPath;
+
+    @Value("${dispatch.trace.capacity:0}")
+    private int traceCapacity;
+
+    @Value("${dispatch.exchange-timing.enabled:false}")
+    private boolean optimizeExchangeTiming;
+
+    @Value("${dispatch.exchange-timing.wait-cost-per-minute:" + SimulationScenario.DEFAULT_WAIT_COST_PER_MINUTE + "}")
+    private double waitCostPerMinute;
+
+    private DispatchSimulation currentPlan;                               // 当前调度计划
+    private final Map<String, LocalDateTime> lastReportTimes = new HashMap<>(); // 上次规划时各车辆的最新上报时间
+
+    /**
+     * 启动时从快照恢复当天的调度计划
+     */
+    @PostConstruct
+    public synchronized void restoreSnapshot() {
+        if (!isSnapshotEnabled()) {
+            return;
+        }
+        Path path = Paths.get(snapshotPath);
+        if (!Files.exists(path)) {
+            return;
+        }
+
+        long startMillis = System.currentTimeMillis();
+        try {
+            SimulationSnapshot snapshot = SnapshotCodec.read(path);
+            if (snapshot == null) {
+                log.warn("调度快照格式不符，忽略：{}", path);
+                return;
+            }
+            DispatchSimulation simulation = newSimulation();
+            if (!simulation.restore(snapshot)) {
+                log.info("调度快照不是当天的计划或车队已变化，忽略：{}", path);
+                return;
+            }
+            recordSinks.forEach(simulation::addRecordSink);
+            dispatchMetrics.load(simulation);
+            currentPlan = simulation;
+            lastReportTimes.clear();
+            lastReportTimes.putAll(snapshot.getReportTimes());
+            log.info("从快照恢复调度计划，耗时{}ms", System.currentTimeMillis() - startMillis);
+        } catch (IOException | RuntimeException e) {
+            log.warn("读取调度快照失败，将完整重建：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 获取最新调度计划
+     * @return 调度模拟结果
+     */
+    public synchronized DispatchSimulation plan() {
+        // 首次规划或跨天时完整重建
+        if (currentPlan == null || !currentPlan.getInitialTime().toLocalDate().equals(dispatchClock.now().toLocalDate())) {
+            return rebuild();
+        }
+
+        // 找出有新遥测数据的车辆及最早的上报时间
+        Set<String> changedTruckNos = new HashSet<>();
+        LocalDateTime affectedTime = null;
+        for (String truckNo : currentPlan.getTruckNos()) {
+            LocalDateTime reportTime = vehicleTrackingService.getLatestReportTime(truckNo);
+            if (Objects.equals(reportTime, lastReportTimes.get(truckNo))) {
+                continue;
+            }
+            changedTruckNos.add(truckNo);
+            if (reportTime == null) {
+                // 车辆数据丢失，无法确定受影响时间
+                return rebuild();
+            }
+            if (affectedTime == null || reportTime.isBefore(affectedTime)) {
+                affectedTime = reportTime;
+            }
+        }
+
+        if (changedTruckNos.isEmpty()) {
+            log.info("车辆无新遥测数据，沿用上一次调度计划");
+            return currentPlan;
+        }
+
+        long startMillis = System.currentTimeMillis();
+        if (!currentPlan.replan(changedTruckNos, affectedTime)) {
+            return rebuild();
+        }
+        changedTruckNos.forEach(truckNo -> lastReportTimes.put(truckNo, vehicleTrackingService.getLatestReportTime(truckNo)));
+        saveSnapshot();
+        log.info("增量重新规划完成，变化车辆：{}，受影响时间：{}，耗时{}ms",
+                changedTruckNos, affectedTime, System.currentTimeMillis() - startMillis);
+        return currentPlan;
+    }
+
+    /**
+     * 完整重建调度计划
+     */
+    private DispatchSimulation rebuild() {
+        long startMillis = System.currentTimeMillis();
+        DispatchSimulation simulation = newSimulation();
+        for (RecordSink recordSink : recordSinks) {
+            // 完整重建后全部记录重新输出
+            recordSink.onRewind(simulation.getInitialTime());
+            simulation.addRecordSink(recordSink);
+        }
+        dispatchMetrics.reset();
+        simulation.startSimulation();
+
+        lastReportTimes.clear();
+        for (String truckNo : simulation.getTruckNos()) {
+            lastReportTimes.put(truckNo, vehicleTrackingService.getLatestReportTime(truckNo));
+        }
+        currentPlan = simulation;
+        saveSnapshot();
+        log.info("完整重建调度计划，耗时{}ms", System.currentTimeMillis() - startMillis);
+        return simulation;
+    }
+
+    /**
+     * 按调度时钟的当天创建调度模拟（回放时为回放日期）
+     */
+    private DispatchSimulation newSimulation() {
+        SimulationScenario scenario = SimulationScenario.defaultScenario();
+        scenario.setSimulationDate(dispatchClock.now().toLocalDate());
+        scenario.setOptimizeExchangeTiming(optimizeExchangeTiming);
+        scenario.setWaitCostPerMinute(waitCostPerMinute);
+        DispatchSimulation simulation = new DispatchSimulation(vehicleTrackingService, socCalculationService, testDataService,
+                scenario, DeterministicTravelModel.INSTANCE, roadNetwork);
+        if (traceCapacity > 0) {
+            simulation.setDecisionTrace(new DecisionTrace(traceCapacity));
+        }
+        simulation.setMetrics(dispatchMetrics);
+        return simulation;
+    }
+
+    /**
+     * 输出当前调度计划最近的决策记录
+     * @return 每条记录一行，按时间顺序；没有计划或未开启决策记录时为空
+     */
+    public synchronized List<String> dumpDecisionTrace() {
+        return currentPlan == null ? Collections.emptyList() : currentPlan.dumpDecisionTrace();
+    }
+
+    /**
+     * 把当前调度计划写入快照文件，写入失败不影响调度
+     */
+    private void saveSnapshot() {
+        if (!isSnapshotEnabled()) {
+            return;
+        }
+        try {
+            SimulationSnapshot snapshot = currentPlan.snapshot();
+            snapshot.getReportTimes().putAll(lastReportTimes);
+            SnapshotCodec.write(Paths.get(snapshotPath), snapshot);
+        } catch (IOException | RuntimeException e) {
+            log.warn("写入调度快照失败：{}", e.getMessage());
+        }
+    }
+
+    private boolean isSnapshotEnabled() {
+        return snapshotPath != null && !snapshotPath.trim().isEmpty();
+    }
+}
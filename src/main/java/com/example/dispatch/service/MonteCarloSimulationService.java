@@ -0,0 +1,195 @@
+package com.example.dispatch.service;
+
+import com.example.dispatch.DispatchSimulation;
+import com.example.dispatch.model.ExchangeRecord;
+import com.example.dispatch.model.GeDispatchScheduleRecord;
+import com.example.dispatch.model.MonteCarloResult;
+import com.example.dispatch.model.MonteCarloSettings;
+import com.example.dispatch.model.PercentileSummary;
+import com.example.dispatch.model.SimulationScenario;
+import com.example.dispatch.simulation.DeterministicTravelModel;
+import com.example.dispatch.simulation.RecordSink;
+import com.example.dispatch.simulation.RoadNetwork;
+import com.example.dispatch.simulation.StochasticTravelModel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * 蒙特卡洛模拟服务
+ * 按随机行程模型重复运行调度模拟，统计完成时间、换电排队时间和每车换电次数的分位数。
+ * 先运行一次确定性基准模拟，各次重复运行以评估模式从基准模拟的初始状态开始，
+ * 沿用其路径数据、路段SOC消耗、货物分配和换电方案，只重新抽样行驶时间、装卸货时间和能耗，
+ * 不访问Redis，也不重新运行带时间预算的货物分配，同一种子的结果可以复现；
+ * 重复运行不保留记录、不保存检查点，换电记录直接在输出时汇总，单次运行的内存占用与模拟时长无关
+ */
+@Slf4j
+@Service
+public class MonteCarloSimulationService {
+
+    @Autowired
+    private VehicleTrackingService vehicleTrackingService;
+
+    @Autowired
+    private SOCCalculationService socCalculationService;
+
+    @Autowired
+    private TestDataService testDataService;
+
+    @Autowired
+    private RoadNetwork roadNetwork;
+
+    /**
+     * 运行蒙特卡洛模拟
+     * @param settings 模拟参数
+     * @return 统计结果
+     */
+    public MonteCarloResult run(MonteCarloSettings settings) {
+        SimulationScenario scenario = settings.getScenario() != null ? settings.getScenario() : SimulationScenario.defaultScenario();
+        MonteCarloResult result = new MonteCarloResult();
+        result.setScenarioName(scenario.getName());
+        result.setSeed(settings.getSeed());
+        long start = System.currentTimeMillis();
+
+        try {
+            // 基准模拟：每辆车的路径状态和路段能耗只读取一次，货物分配和换电方案只计算一次
+            DispatchSimulation base = new DispatchSimulation(vehicleTrackingService, socCalculationService, testDataService, scenario,
+                    DeterministicTravelModel.INSTANCE, roadNetwork);
+            base.setCheckpointEnabled(false);
+            base.startSimulation();
+
+            // 预先生成每次运行的种子，结果与线程调度顺序无关
+            int replications = Math.max(settings.getReplications(), 0);
+            long[] seeds = new long[replications];
+            SplittableRandom seedRandom = new SplittableRandom(settings.getSeed());
+            for (int i = 0; i < replications; i++) {
+                seeds[i] = seedRandom.nextLong();
+            }
+
+            Replication[] outcomes = new Replication[replications];
+            ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+            try {
+                pool.submit(() -> IntStream.range(0, replications).parallel()
+                        .forEach(i -> outcomes[i] = runReplication(base, scenario, settings, seeds[i]))).join();
+            } finally {
+                pool.shutdown();
+            }
+
+            summarize(result, base.getTruckNos(), outcomes);
+            result.setSuccess(true);
+        } catch (Exception e) {
+            log.error("场景 {} 蒙特卡洛模拟失败", scenario.getName(), e);
+            result.setSuccess(false);
+            result.setMessage("模拟失败: " + e.getMessage());
+        }
+
+        result.setElapsedMillis(System.currentTimeMillis() - start);
+        log.info("场景 {} 蒙特卡洛模拟完成，{} 次运行，耗时 {}ms", scenario.getName(), result.getReplications(), result.getElapsedMillis());
+        return result;
+    }
+
+    /**
+     * 单次随机运行，从基准模拟的初始状态开始
+     * @return 运行结果，失败时返回null
+     */
+    private Replication runReplication(DispatchSimulation base, SimulationScenario scenario, MonteCarloSettings settings, long seed) {
+        try {
+            DispatchSimulation simulation = new DispatchSimulation(vehicleTrackingService, socCalculationService, testDataService,
+                    scenario, new StochasticTravelModel(settings, seed), roadNetwork);
+            simulation.useEvaluationMode(base);
+
+            Replication replication = new Replication(simulation.getTruckNos());
+            simulation.addRecordSink(replication);
+            simulation.startSimulation();
+
+            replication.completionMinutes = ChronoUnit.SECONDS.between(simulation.getInitialTime(), simulation.getCompletionTime()) / 60.0;
+            replication.queueWaitMinutes = Arrays.copyOf(replication.queueWaitMinutes, replication.exchangeCount);
+            return replication;
+        } catch (Exception e) {
+            log.warn("蒙特卡洛单次运行失败（种子{}）：{}", seed, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 汇总各次运行结果
+     */
+    private void summarize(MonteCarloResult result, List<String> truckNos, Replication[] outcomes) {
+        int count = 0;
+        int waitCount = 0;
+        for (Replication outcome : outcomes) {
+            if (outcome != null) {
+                count++;
+                waitCount += outcome.queueWaitMinutes.length;
+            }
+        }
+
+        double[] completion = new double[count];
+        double[] waits = new double[waitCount];
+        double[][] exchanges = new double[truckNos.size()][count];
+        int n = 0;
+        int w = 0;
+        for (Replication outcome : outcomes) {
+            if (outcome == null) {
+                continue;
+            }
+            completion[n] = outcome.completionMinutes;
+            System.arraycopy(outcome.queueWaitMinutes, 0, waits, w, outcome.queueWaitMinutes.length);
+            w += outcome.queueWaitMinutes.length;
+            for (int t = 0; t < truckNos.size(); t++) {
+                exchanges[t][n] = outcome.exchangeCounts[t];
+            }
+            n++;
+        }
+
+        result.setReplications(count);
+        result.setCompletionMinutes(PercentileSummary.of(completion, count));
+        result.setQueueWaitMinutes(PercentileSummary.of(waits, waitCount));
+        for (int t = 0; t < truckNos.size(); t++) {
+            result.getExchangesPerTruck().put(truckNos.get(t), PercentileSummary.of(exchanges[t], count));
+        }
+    }
+
+    /**
+     * 单次运行的统计数据，作为记录输出在换电记录生成时汇总
+     */
+    private static class Replication implements RecordSink {
+        private final Map<String, Integer> truckIndexes = new HashMap<>();
+        double completionMinutes;                  // 完成时间（分钟）
+        double[] queueWaitMinutes = new double[16]; // 每次换电的排队时间（分钟）
+        int exchangeCount;                         // 换电次数
+        final int[] exchangeCounts;                // 每辆车的换电次数（按车辆下标）
+
+        Replication(List<String> truckNos) {
+            for (int i = 0; i < truckNos.size(); i++) {
+                truckIndexes.put(truckNos.get(i), i);
+            }
+            this.exchangeCounts = new int[truckNos.size()];
+        }
+
+        @Override
+        public void onScheduleRecord(GeDispatchScheduleRecord record) {
+        }
+
+        @Override
+        public void onExchangeRecord(ExchangeRecord record) {
+            if (exchangeCount == queueWaitMinutes.length) {
+                queueWaitMinutes = Arrays.copyOf(queueWaitMinutes, exchangeCount * 2);
+            }
+            queueWaitMinutes[exchangeCount++] = ChronoUnit.SECONDS.between(record.getStartAwaitTime(), record.getStartExchangeTime()) / 60.0;
+            Integer index = truckIndexes.get(record.getTruckNo());
+            if (index != null) {
+                exchangeCounts[index]++;
+            }
+        }
+    }
+}
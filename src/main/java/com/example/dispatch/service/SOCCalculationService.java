@@ -2,6 +2,7 @@ package com.example.dispatch.service;
 
 import com.example.dispatch.constant.LocationConstants;
 import com.example.dispatch.model.RouteInfo;
+import com.example.dispatch.util.ExchangeRule;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -46,7 +47,9 @@ public class SOCCalculationService {
      * @return 总SOC消耗百分比
      */
     public double calculateCompleteTransportSOC(double capacityKwh, String vehicleNo) {
-        log.info("开始计算完整运输路径的SOC消耗，电池容量：{}kWh，车辆：{}", capacityKwh, vehicleNo);
+        if (log.isDebugEnabled()) {
+            log.debug("开始计算完整运输路径的SOC消耗，电池容量：{}kWh，车辆：{}", capacityKwh, vehicleNo);
+        }
         
         try {
             
@@ -58,8 +61,10 @@ public class SOCCalculationService {
             
             double totalSOC = loadingToUnloadingSOC + unloadingToChargingSOC;
             
-            log.info("完整运输SOC消耗：装货到卸货={}%, 卸货到换电={}%, 总计={}%", 
-                    loadingToUnloadingSOC, unloadingToChargingSOC, totalSOC);
+            if (log.isDebugEnabled()) {
+                log.debug("完整运输SOC消耗：装货到卸货={}%, 卸货到换电={}%, 总计={}%",
+                        loadingToUnloadingSOC, unloadingToChargingSOC, totalSOC);
+            }
             
             return totalSOC;
             
@@ -95,7 +100,7 @@ public class SOCCalculationService {
      * @return SOC消耗百分比
      */
     public double calculateRemainingTripSOC(RouteInfo routeInfo) {
-        log.info("开始计算车辆 {} 本趟剩余行驶的SOC消耗", routeInfo.getVehicleNo());
+        log.debug("开始计算车辆 {} 本趟剩余行驶的SOC消耗", routeInfo.getVehicleNo());
         
         try {
             double remainingSOC = 0.0;
@@ -122,7 +127,9 @@ public class SOCCalculationService {
                 remainingSOC = calculateOtherRouteRemainingSOC(routeInfo);
             }
             
-            log.info("车辆 {} 本趟剩余SOC消耗：{}%", routeInfo.getVehicleNo(), remainingSOC);
+            if (log.isDebugEnabled()) {
+                log.debug("车辆 {} 本趟剩余SOC消耗：{}%", routeInfo.getVehicleNo(), remainingSOC);
+            }
             return remainingSOC;
             
         } catch (Exception e) {
@@ -139,19 +146,44 @@ public class SOCCalculationService {
      * @return 是否需要换电
      */
     public boolean shouldGoToChargingStation(BigDecimal currentSOC, double completeTransportSOC, double remainingTripSOC) {
+        return shouldGoToChargingStation(currentSOC, completeTransportSOC, remainingTripSOC, LocationConstants.SAFETY_MARGIN_PERCENT);
+    }
+
+    /**
+     * 判断车辆是否需要前往换电站换电（指定安全裕度）
+     * @param currentSOC 当前SOC
+     * @param completeTransportSOC 一趟完整运输的SOC消耗
+     * @param remainingTripSOC 剩余行驶公里数对应的SOC消耗
+     * @param safetyMarginPercent 安全裕度（%）
+     * @return 是否需要换电
+     */
+    public boolean shouldGoToChargingStation(BigDecimal currentSOC, double completeTransportSOC, double remainingTripSOC, double safetyMarginPercent) {
         if (currentSOC == null) {
             log.warn("当前SOC为空，建议换电");
             return true;
         }
+        return shouldGoToChargingStation(currentSOC.doubleValue(), completeTransportSOC, remainingTripSOC, safetyMarginPercent);
+    }
+
+    /**
+     * 判断车辆是否需要前往换电站换电（基本类型SOC）
+     * @param currentSOCValue 当前SOC
+     * @param completeTransportSOC 一趟完整运输的SOC消耗
+     * @param remainingTripSOC 剩余行驶公里数对应的SOC消耗
+     * @param safetyMarginPercent 安全裕度（%）
+     * @return 是否需要换电
+     */
+    public boolean shouldGoToChargingStation(double currentSOCValue, double completeTransportSOC, double remainingTripSOC, double safetyMarginPercent) {
+        double requiredSOC = ExchangeRule.requiredSoc(completeTransportSOC, remainingTripSOC, safetyMarginPercent);
         
-        double currentSOCValue = currentSOC.doubleValue();
-        double requiredSOC = completeTransportSOC + remainingTripSOC + LocationConstants.SAFETY_MARGIN_PERCENT;
-        
-        boolean needCharging = currentSOCValue <= requiredSOC;
+        boolean needCharging = ExchangeRule.needsExchange(currentSOCValue, requiredSOC);
         
-        log.info("换电判断：当前SOC={}%, 完整运输SOC={}%, 剩余行驶SOC={}%, 安全裕度={}%, 总需求={}%, 需要换电={}",
-                currentSOCValue, completeTransportSOC, remainingTripSOC, 
-                LocationConstants.SAFETY_MARGIN_PERCENT, requiredSOC, needCharging);
+        // 每次判断都会调用，结构化的判断过程由调度模拟的决策记录保存
+        if (log.isDebugEnabled()) {
+            log.debug("换电判断：当前SOC={}%, 完整运输SOC={}%, 剩余行驶SOC={}%, 安全裕度={}%, 总需求={}%, 需要换电={}",
+                    currentSOCValue, completeTransportSOC, remainingTripSOC,
+                    safetyMarginPercent, requiredSOC, needCharging);
+        }
         
         return needCharging;
     }
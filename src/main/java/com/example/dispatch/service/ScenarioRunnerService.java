@@ -0,0 +1,114 @@
+package com.example.dispatch.service;
+
+import com.example.dispatch.DispatchSimulation;
+import com.example.dispatch.model.ExchangeRecord;
+import com.example.dispatch.model.PricePeriod;
+import com.example.dispatch.model.ScenarioResult;
+import com.example.dispatch.model.SimulationScenario;
+import com.example.dispatch.simulation.DeterministicTravelModel;
+import com.example.dispatch.simulation.RoadNetwork;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * 多场景模拟服务
+ * 每个场景使用独立的DispatchSimulation实例，在ForkJoinPool中并行运行
+ */
+@Slf4j
+@Service
+public class ScenarioRunnerService {
+
+    @Autowired
+    private VehicleTrackingService vehicleTrackingService;
+
+    @Autowired
+    private SOCCalculationService socCalculationService;
+
+    @Autowired
+    private TestDataService testDataService;
+
+    @Autowired
+    private RoadNetwork roadNetwork;
+
+    /**
+     * 并行运行多个模拟场景
+     * @param scenarios 场景列表
+     * @return 各场景运行结果，顺序与输入一致
+     */
+    public List<ScenarioResult> runScenarios(List<SimulationScenario> scenarios) {
+        List<ScenarioResult> results = new ArrayList<>();
+        if (scenarios == null || scenarios.isEmpty()) {
+            return results;
+        }
+
+        int parallelism = Math.min(scenarios.size(), Runtime.getRuntime().availableProcessors());
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<ForkJoinTask<ScenarioResult>> tasks = new ArrayList<>();
+            for (SimulationScenario scenario : scenarios) {
+                tasks.add(pool.submit(() -> runScenario(scenario)));
+            }
+            for (ForkJoinTask<ScenarioResult> task : tasks) {
+                results.add(task.join());
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        log.info("多场景模拟完成，共 {} 个场景", results.size());
+        return results;
+    }
+
+    /**
+     * 运行单个模拟场景
+     * @param scenario 场景定义
+     * @return 运行结果
+     */
+    public ScenarioResult runScenario(SimulationScenario scenario) {
+        ScenarioResult result = new ScenarioResult();
+        result.setScenarioName(scenario.getName());
+        long start = System.currentTimeMillis();
+
+        try {
+            DispatchSimulation simulation = new DispatchSimulation(vehicleTrackingService, socCalculationService, testDataService, scenario,
+                    DeterministicTravelModel.INSTANCE, roadNetwork);
+            simulation.startSimulation();
+
+            List<ExchangeRecord> exchangeRecords = simulation.getExchangeRecords();
+            result.setScheduleRecords(simulation.getScheduleRecords());
+            result.setExchangeRecords(new ArrayList<>(exchangeRecords));
+            result.setCompletionTime(simulation.getCompletionTime());
+            result.setChargingCost(calculateChargingCost(scenario, exchangeRecords));
+            result.setSuccess(true);
+        } catch (Exception e) {
+            log.error("场景 {} 模拟失败", scenario.getName(), e);
+            result.setSuccess(false);
+            result.setMessage("模拟失败: " + e.getMessage());
+        }
+
+        result.setElapsedMillis(System.currentTimeMillis() - start);
+        return result;
+    }
+
+    /**
+     * 按场景电价计算换下电池的充电费用
+     * 充电电量 = (100 - 换电时SOC) * 电池额定容量 / 100，电价取开始换电时所在时段
+     */
+    private double calculateChargingCost(SimulationScenario scenario, List<ExchangeRecord> exchangeRecords) {
+        double totalCost = 0.0;
+        for (ExchangeRecord record : exchangeRecords) {
+            double socDiff = 100.0 - record.getSoc().doubleValue();
+            double chargeKwh = Math.max(0.0, socDiff) * new BigDecimal(record.getCapacity()).doubleValue() / 100.0;
+            PricePeriod.PriceType priceType = PricePeriod.getPriceType(record.getStartExchangeTime());
+            totalCost += chargeKwh * scenario.getPrice(priceType);
+        }
+        return totalCost;
+    }
+}
@@ -1,9 +1,9 @@
 package com.example.dispatch.service;
 
 import com.example.dispatch.DispatchSimulation;
+import com.example.dispatch.metrics.DispatchMetrics;
 import com.example.dispatch.model.RouteInfo;
 import lombok.extern.slf4j.Slf4j;
-import org.redisson.api.RedissonClient;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
@@ -20,9 +20,6 @@ import java.util.Map;
 @Service
 public class ScheduledTaskService {
     
-    @Autowired
-    private RedissonClient redissonClient;
-    
     @Autowired
     private VehicleTrackingService vehicleTrackingService;
     
@@ -32,35 +29,41 @@ public class ScheduledTaskService {
     @Autowired
     private TestDataService testDataService;
 
+    @Autowired
+    private IncrementalDispatchPlanner incrementalDispatchPlanner;
+
+    @Autowired
+    private DispatchClock dispatchClock;
+
+    @Autowired
+    private DispatchMetrics dispatchMetrics;
+
     private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     
     /**
      * 定时执行调度模拟任务
-     * 每10分钟执行一次
+     * 执行间隔由dispatch.schedule.interval-ms配置，默认2分钟；
+     * 计划增量更新，没有新遥测数据时几乎没有开销，可以缩短到秒级
      */
-    @Scheduled(fixedRate = 2 * 60 * 1000) // 5分钟执行一次
+    @Scheduled(fixedDelayString = "${dispatch.schedule.interval-ms:120000}")
     public void executeDispatchSimulation() {
         String currentTime = LocalDateTime.now().format(formatter);
         log.info("=== 开始执行调度模拟任务，执行时间：{} ===", currentTime);
         
         try {
-            // 创建调度模拟实例
-            DispatchSimulation simulation = new DispatchSimulation(vehicleTrackingService, socCalculationService, testDataService);
-            
-            // 开始模拟
-            simulation.startSimulation();
-            
-            // 输出换电记录
-            String jsonResult = simulation.getExchangeRecordsAsJson();
-            log.info("换电记录JSON：\n{}", jsonResult);
+            // 增量更新调度计划
+            long startMillis = System.currentTimeMillis();
+            DispatchSimulation simulation = incrementalDispatchPlanner.plan();
+            dispatchMetrics.onPlanCompleted(simulation, dispatchClock.now(), System.currentTimeMillis() - startMillis);
             
-            // 输出调度记录
-            String scheduleRecordsJson = simulation.getScheduleRecordsAsJson();
-            log.info("调度记录JSON：\n{}", scheduleRecordsJson);
+            // 记录已在生成时输出到RecordSink，这里只输出汇总
+            log.info("调度记录{}条，换电记录{}条，预计完成时间：{}",
+                    simulation.getScheduleRecordCount(), simulation.getExchangeRecords().size(), simulation.getCompletionTime());
             
             log.info("=== 调度模拟任务执行完成，执行时间：{} ===", currentTime);
             
         } catch (Exception e) {
+            dispatchMetrics.onPlanFailed();
             log.error("调度模拟任务执行异常，执行时间：{}", currentTime, e);
         }
     }
@@ -0,0 +1,186 @@
+package com.example.dispatch.service;
+
+import com.example.dispatch.model.ExchangeRecord;
+import com.example.dispatch.model.Truck;
+import com.example.dispatch.simulation.ExchangePrediction;
+import com.example.dispatch.simulation.RecordSink;
+import com.example.dispatch.simulation.SimClock;
+import com.example.dispatch.simulation.SimulationMetrics;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 分段加锁的换电站
+ * 换电通道和电池按编号分成若干段，每段是一个独立排程的{@link ExchangeStationService}，有自己的排程锁、电池池和通道；
+ * 进站车辆按各段不加锁的状态快照选择预计最早开始换电的段，只取得该段的排程锁，不同段的进站互不阻塞，
+ * 并发进站的吞吐随段数增长（见ExchangeStationBenchmark.enterStationConcurrentStriped）。
+ * <p>
+ * 与整站排程的区别：各段不共用电池，车辆只在所选段内先到先换，排程结果与通道和电池数量相同的ExchangeStationService不同，
+ * 同时进站的车辆进入哪一段也取决于线程的先后；模拟、检查点和快照需要确定的排程结果，仍使用ExchangeStationService。
+ * 只有一段时排程结果与ExchangeStationService相同
+ */
+public class StripedExchangeStationService {
+
+    private final String stationCode;
+    private final ExchangeStationService[] stripes;
+    private final int laneNum;
+    private final SimClock clock;
+
+    /**
+     * @param stationCode 换电站编码，可以为空
+     * @param batteryNum 电池数量
+     * @param laneNum 换电通道数量
+     * @param stripeNum 分段数量，每段至少有一条换电通道和一块电池
+     * @param clock 模拟时钟
+     */
+    public StripedExchangeStationService(String stationCode, int batteryNum, int laneNum, int stripeNum, SimClock clock) {
+        if (stripeNum < 1 || stripeNum > laneNum || stripeNum > batteryNum) {
+            throw new IllegalArgumentException("分段数量需在1到换电通道数量和电池数量之间：stripeNum=" + stripeNum
+                    + ", laneNum=" + laneNum + ", batteryNum=" + batteryNum);
+        }
+        this.stationCode = stationCode;
+        this.stripes = new ExchangeStationService[stripeNum];
+        this.laneNum = laneNum;
+        this.clock = clock;
+        int firstBatteryNo = 1;
+        int firstLaneNo = 1;
+        for (int i = 0; i < stripeNum; i++) {
+            int batteries = share(batteryNum, stripeNum, i);
+            int lanes = share(laneNum, stripeNum, i);
+            stripes[i] = new ExchangeStationService(stationCode, firstBatteryNo, batteries, firstLaneNo, lanes, clock);
+            firstBatteryNo += batteries;
+            firstLaneNo += lanes;
+        }
+    }
+
+    /**
+     * 第stripe段分到的数量，各段相差不超过1，靠前的段多分
+     */
+    private static int share(int total, int stripeNum, int stripe) {
+        return total / stripeNum + (stripe < total % stripeNum ? 1 : 0);
+    }
+
+    public String getStationCode() {
+        return stationCode;
+    }
+
+    public int getLaneNum() {
+        return laneNum;
+    }
+
+    public int getStripeNum() {
+        return stripes.length;
+    }
+
+    /**
+     * 车辆进入换电站等待换电：选择预计最早开始换电的段，在该段内排程
+     * @param truck 需要换电的车辆
+     * @param currentTime 当前时间
+     * @return 该车的换电结束时间，车辆仍在排队时返回null
+     */
+    public LocalDateTime enterStation(Truck truck, LocalDateTime currentTime) {
+        return stripes[select(clock.toSimTime(currentTime))].enterStation(truck, currentTime);
+    }
+
+    /**
+     * 只读预测：各段中最早开始换电的预测
+     * @param arrivalTime 到达时间(模拟时间)
+     * @param soc 到达时的SOC(0.01%)
+     * @return 预测结果，各段都有车辆因没有电池在排队时返回null
+     */
+    public ExchangePrediction predict(long arrivalTime, int soc) {
+        ExchangePrediction best = null;
+        for (ExchangeStationService stripe : stripes) {
+            ExchangePrediction prediction = stripe.predict(arrivalTime, soc);
+            if (prediction != null && (best == null || prediction.getStartTime() < best.getStartTime())) {
+                best = prediction;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 选择预计最早开始换电的段，只读取各段的状态快照，不加锁
+     * 从随机的一段开始比较，预计开始时间相同时同时进站的车辆分散到各段，选择时不写共享状态
+     * @param arrivalTime 到达时间(模拟时间)
+     * @return 段下标
+     */
+    private int select(long arrivalTime) {
+        int first = stripes.length == 1 ? 0 : ThreadLocalRandom.current().nextInt(stripes.length);
+        int best = first;
+        long bestStart = Long.MAX_VALUE;
+        for (int i = 0; i < stripes.length; i++) {
+            int stripe = (first + i) % stripes.length;
+            long startTime = stripes[stripe].predictExchangeStart(arrivalTime);
+            if (startTime != SimClock.NO_TIME && startTime < bestStart) {
+                best = stripe;
+                bestStart = startTime;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 获取车辆某一趟运输的换电记录（各段中开始等待时间最晚的一条）
+     * @return 换电记录，该趟没有换电时返回null
+     */
+    public ExchangeRecord getExchangeRecord(String truckNo, int transportFrequency) {
+        ExchangeRecord latest = null;
+        for (ExchangeStationService stripe : stripes) {
+            ExchangeRecord record = stripe.getExchangeRecord(truckNo, transportFrequency);
+            if (record != null && (latest == null || record.getStartAwaitTime().isAfter(latest.getStartAwaitTime()))) {
+                latest = record;
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * 获取全部换电记录
+     * @return 换电记录列表，按开始换电时间排序
+     */
+    public List<ExchangeRecord> getExchangeRecords() {
+        List<ExchangeRecord> records = new ArrayList<>();
+        for (ExchangeStationService stripe : stripes) {
+            records.addAll(stripe.getExchangeRecords());
+        }
+        if (stripes.length > 1) {
+            records.sort(Comparator.comparing(ExchangeRecord::getStartExchangeTime));
+        }
+        return records;
+    }
+
+    /**
+     * 获取全部车辆累计的排队等待时间
+     * @return 等待时间(秒)
+     */
+    public long getTotalWaitSeconds() {
+        long total = 0;
+        for (ExchangeStationService stripe : stripes) {
+            total += stripe.getTotalWaitSeconds();
+        }
+        return total;
+    }
+
+    public void setMetrics(SimulationMetrics metrics) {
+        for (ExchangeStationService stripe : stripes) {
+            stripe.setMetrics(metrics);
+        }
+    }
+
+    public void addRecordSink(RecordSink recordSink) {
+        for (ExchangeStationService stripe : stripes) {
+            stripe.addRecordSink(recordSink);
+        }
+    }
+
+    public void setRetainRecords(boolean retainRecords) {
+        for (ExchangeStationService stripe : stripes) {
+            stripe.setRetainRecords(retainRecords);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.dispatch.service;
+
+import cn.hutool.json.JSONUtil;
+import com.example.dispatch.metrics.DispatchMetrics;
+import com.example.dispatch.model.GeTruckDrivingRecord;
+import com.example.dispatch.model.PercentileSummary;
+import com.example.dispatch.model.ReplayResult;
+import com.example.dispatch.model.ReplaySettings;
+import com.example.dispatch.simulation.RoadNetwork;
+import com.example.dispatch.telemetry.InMemoryTelemetryStore;
+import com.example.dispatch.telemetry.TelemetryStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.PropertiesPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 遥测回放服务
+ * 从本地文件读取录制的车辆行驶记录，按上报时间在虚拟时钟上回放：
+ * 每条记录按线上格式写入轨迹列表和当前状态，虚拟时间每经过一个调度间隔更新一次调度计划，
+ * 统计端到端吞吐量和调度决策延迟。
+ * <p>
+ * 每次回放创建独立的规划上下文：进程内遥测存储、调度时钟、遥测和SOC服务、运行指标和增量调度规划实例，
+ * 不读写线上的遥测存储、调度时钟、调度计划、记录输出和快照，回放期间定时调度照常按系统时间运行。
+ * 录制文件只能位于回放目录（dispatch.replay.directory）内
+ */
+@Slf4j
+@Service
+public class TelemetryReplayService {
+
+    @Autowired
+    private RoadNetwork roadNetwork;
+
+    @Autowired
+    private ConfigurableEnvironment environment;
+
+    @Value("${dispatch.replay.enabled:false}")
+    private boolean replayEnabled;
+
+    @Value("${dispatch.replay.directory:data/replay}")
+    private String replayDirectory;
+
+    /**
+     * 回放录制的遥测数据
+     * @param settings 回放参数
+     * @return 回放统计
+     */
+    public synchronized ReplayResult replay(ReplaySettings settings) {
+        ReplayResult result = new ReplayResult();
+        if (!replayEnabled) {
+            result.setSuccess(false);
+            result.setMessage("遥测回放未开启（dispatch.replay.enabled）");
+            return result;
+        }
+
+        List<GeTruckDrivingRecord> records;
+        try {
+            records = load(resolve(settings.getFile()));
+        } catch (IOException | RuntimeException e) {
+            log.error("读取录制文件 {} 失败", settings.getFile(), e);
+            result.setSuccess(false);
+            result.setMessage("读取录制文件失败: " + e.getMessage());
+            return result;
+        }
+        if (records.isEmpty()) {
+            result.setSuccess(false);
+            result.setMessage("录制文件中没有有效记录");
+            return result;
+        }
+
+        double speedup = Math.min(settings.getSpeedup(), ReplaySettings.MAX_SPEEDUP);
+        LocalDateTime virtualStart = records.get(0).getReportTime();
+        LocalDateTime nextPlanTime = virtualStart.plusSeconds(settings.getPlanIntervalSeconds());
+        double[] latencies = new double[16];
+        int planCount = 0;
+        long wallStart = System.nanoTime();
+
+        TelemetryStore telemetryStore = new InMemoryTelemetryStore();
+        DispatchClock dispatchClock = new DispatchClock("");
+        try (AnnotationConfigApplicationContext context = newReplayContext(telemetryStore, dispatchClock)) {
+            IncrementalDispatchPlanner incrementalDispatchPlanner = context.getBean(IncrementalDispatchPlanner.class);
+            for (GeTruckDrivingRecord record : records) {
+                LocalDateTime reportTime = record.getReportTime();
+                if (speedup > 0) {
+                    pace(wallStart, ChronoUnit.MILLIS.between(virtualStart, reportTime), speedup);
+                }
+                dispatchClock.setVirtualTime(reportTime);
+                telemetryStore.appendHistory(record);
+                telemetryStore.putCurrentStatus(record);
+
+                if (!reportTime.isBefore(nextPlanTime)) {
+                    long planStart = System.nanoTime();
+                    incrementalDispatchPlanner.plan();
+                    if (planCount == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, planCount * 2);
+                    }
+                    latencies[planCount++] = (System.nanoTime() - planStart) / 1_000_000.0;
+                    nextPlanTime = reportTime.plusSeconds(settings.getPlanIntervalSeconds());
+                }
+            }
+            result.setSuccess(true);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.setSuccess(false);
+            result.setMessage("回放被中断");
+        } catch (Exception e) {
+            log.error("遥测回放失败", e);
+            result.setSuccess(false);
+            result.setMessage("回放失败: " + e.getMessage());
+        }
+
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - wallStart));
+        LocalDateTime virtualEnd = records.get(records.size() - 1).getReportTime();
+        result.setRecordCount(records.size());
+        result.setPlanCount(planCount);
+        result.setVirtualStartTime(virtualStart);
+        result.setVirtualEndTime(virtualEnd);
+        result.setElapsedMillis(elapsedMillis);
+        result.setAchievedSpeedup(ChronoUnit.MILLIS.between(virtualStart, virtualEnd) / (double) elapsedMillis);
+        result.setRecordsPerSecond(records.size() * 1000.0 / elapsedMillis);
+        result.setDecisionLatencyMillis(PercentileSummary.of(latencies, planCount));
+        log.info("遥测回放完成：{} 条记录，{} 次调度更新，耗时 {}ms，倍速 {}",
+                records.size(), planCount, elapsedMillis, result.getAchievedSpeedup());
+        return result;
+    }
+
+    /**
+     * 创建回放使用的独立规划上下文
+     * 遥测存储、调度时钟和指标注册表为回放专用实例，只共享路网和配置；快照路径置空，不读写快照
+     */
+    private AnnotationConfigApplicationContext newReplayContext(TelemetryStore telemetryStore, DispatchClock dispatchClock) {
+        StandardEnvironment replayEnvironment = new StandardEnvironment();
+        replayEnvironment.merge(environment);
+        Properties overrides = new Properties();
+        overrides.setProperty("dispatch.snapshot.path", "");
+        replayEnvironment.getPropertySources().addFirst(new PropertiesPropertySource("replay", overrides));
+
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.setEnvironment(replayEnvironment);
+        ConfigurableListableBeanFactory beanFactory = context.getBeanFactory();
+        beanFactory.registerSingleton("telemetryStore", telemetryStore);
+        beanFactory.registerSingleton("dispatchClock", dispatchClock);
+        beanFactory.registerSingleton("roadNetwork", roadNetwork);
+        beanFactory.registerSingleton("meterRegistry", new SimpleMeterRegistry());
+        context.register(EnergyConsumptionService.class, VehicleTrackingService.class, SOCCalculationService.class,
+                TestDataService.class, DispatchMetrics.class, IncrementalDispatchPlanner.class);
+        context.refresh();
+        return context;
+    }
+
+    /**
+     * 解析录制文件路径，只允许回放目录内的文件
+     * @param file 相对回放目录的文件路径
+     * @return 文件的实际路径
+     */
+    private Path resolve(String file) throws IOException {
+        if (file == null || file.trim().isEmpty()) {
+            throw new IllegalArgumentException("未指定录制文件");
+        }
+        Path directory = Paths.get(replayDirectory).toAbsolutePath().normalize();
+        Path path = directory.resolve(file.trim()).normalize();
+        // 先按路径文本判断，再按解析符号链接后的实际路径判断
+        if (!path.startsWith(directory) || !path.toRealPath().startsWith(directory.toRealPath())) {
+            throw new IllegalArgumentException("录制文件不在回放目录内：" + file);
+        }
+        return path;
+    }
+
+    /**
+     * 读取录制文件，按上报时间排序
+     */
+    private List<GeTruckDrivingRecord> load(Path file) throws IOException {
+        List<GeTruckDrivingRecord> records = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                GeTruckDrivingRecord record = JSONUtil.toBean(line, GeTruckDrivingRecord.class);
+                if (record.getTruckNo() != null && record.getReportTime() != null) {
+                    records.add(record);
+                }
+            }
+        }
+        records.sort(Comparator.comparing(GeTruckDrivingRecord::getReportTime));
+        return records;
+    }
+
+    /**
+     * 按倍速等待到记录的回放时间
+     * @param virtualElapsedMillis 记录相对回放开始的虚拟时长
+     */
+    private void pace(long wallStart, long virtualElapsedMillis, double speedup) throws InterruptedException {
+        long targetNanos = (long) (virtualElapsedMillis / speedup * 1_000_000L);
+        long aheadNanos = targetNanos - (System.nanoTime() - wallStart);
+        if (aheadNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(aheadNanos);
+        }
+    }
+}
@@ -1,22 +1,20 @@
 package com.example.dispatch.service;
 
-import cn.hutool.json.JSONUtil;
-import com.example.dispatch.constant.DpConstants;
+import cn.hutool.core.bean.BeanUtil;
 import com.example.dispatch.constant.LocationConstants;
 import com.example.dispatch.model.GeTruckDrivingRecord;
 import com.example.dispatch.model.Truck;
+import com.example.dispatch.telemetry.TelemetryStore;
 import lombok.extern.slf4j.Slf4j;
-import org.redisson.api.RBucket;
-import org.redisson.api.RList;
-import org.redisson.api.RedissonClient;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
 
 /**
  * 测试数据服务
@@ -27,10 +25,10 @@ import java.util.concurrent.TimeUnit;
 public class TestDataService {
     
     @Autowired
-    private RedissonClient redissonClient;
+    private TelemetryStore telemetryStore;
     
     /**
-     * 生成测试车辆状态数据并存储到Redis
+     * 生成测试车辆状态数据并写入遥测数据存储
      */
     public void generateTestVehicleData() {
         log.info("开始生成测试车辆状态数据");
@@ -61,7 +59,7 @@ public class TestDataService {
         // 生成对应的Truck对象
         Truck truck2 = new Truck("粤G03335D", 68.3, 300); // SOC=68.3%, 容量=300kWh
         
-        // 存储到Redis
+        // 写入遥测数据存储
         storeVehicleStatus(vehicle1);
         storeTruckInfo(truck1);
         storeVehicleStatus(vehicle2);
@@ -79,11 +77,7 @@ public class TestDataService {
      */
     private void generateHistoryTrackData(String vehicleNo) {
         try {
-            String redisKey = DpConstants.DP_TRUCK_DRIVING_RECORD + vehicleNo;
-            RList<String> redisList = redissonClient.getList(redisKey);
-            
-            // 清除旧数据
-            redisList.clear();
+            List<GeTruckDrivingRecord> trackPoints = new ArrayList<>();
             
             // 生成30分钟内的轨迹数据（每30秒一个点）
             LocalDateTime startTime = LocalDateTime.now().minusMinutes(30);
@@ -118,14 +112,13 @@ public class TestDataService {
                 trackPoint.setTotalPowerConsumption(new BigDecimal(String.valueOf(currentPowerConsumption)));
                 trackPoint.setAveragePowerConsumption(new BigDecimal("140.0")); // 平均百公里电耗
                 
-                String jsonStr = JSONUtil.toJsonStr(trackPoint);
-                redisList.add(jsonStr);
+                trackPoints.add(trackPoint);
             }
             
-            // 设置过期时间为1小时
-            redisList.expire(1, TimeUnit.HOURS);
+            // 替换旧数据
+            telemetryStore.replaceHistory(vehicleNo, trackPoints);
             
-            log.info("车辆 {} 历史轨迹数据已生成，共 {} 个点", vehicleNo, redisList.size());
+            log.info("车辆 {} 历史轨迹数据已生成，共 {} 个点", vehicleNo, telemetryStore.getHistorySize(vehicleNo));
             
         } catch (Exception e) {
             log.error("生成车辆 {} 历史轨迹数据失败", vehicleNo, e);
@@ -159,20 +152,12 @@ public class TestDataService {
     }
     
     /**
-     * 存储车辆状态到Redis
+     * 存储车辆状态
      */
     private void storeVehicleStatus(GeTruckDrivingRecord record) {
         try {
-            String redisKey = DpConstants.DP_TRUCK_DRIVING_STATUS_KEY + record.getTruckNo();
-            String jsonStr = JSONUtil.toJsonStr(record);
-            
-            RBucket<String> bucket = redissonClient.getBucket(redisKey);
-            bucket.set(jsonStr);
-            
-            // 设置过期时间为1小时
-            bucket.expire(1, TimeUnit.HOURS);
-            
-            log.info("车辆 {} 状态数据已存储到Redis：{}", record.getTruckNo(), jsonStr);
+            telemetryStore.putCurrentStatus(record);
+            log.info("车辆 {} 状态数据已存储：位置({}, {})，SOC={}%", record.getTruckNo(), record.getLat(), record.getLon(), record.getSoc());
             
         } catch (Exception e) {
             log.error("存储车辆 {} 状态数据失败", record.getTruckNo(), e);
@@ -180,20 +165,12 @@ public class TestDataService {
     }
     
     /**
-     * 存储Truck信息到Redis
+     * 存储Truck信息
      */
     private void storeTruckInfo(Truck truck) {
         try {
-            String redisKey = DpConstants.DP_TRUCK_INFO_KEY + truck.getTruckNo();
-            String jsonStr = JSONUtil.toJsonStr(truck);
-            
-            RBucket<String> bucket = redissonClient.getBucket(redisKey);
-            bucket.set(jsonStr);
-            
-            // 设置过期时间为1小时
-            bucket.expire(1, TimeUnit.HOURS);
-            
-            log.info("车辆 {} 信息已存储到Redis：{}", truck.getTruckNo(), jsonStr);
+            telemetryStore.putTruckInfo(truck);
+            log.info("车辆 {} 信息已存储：{}", truck.getTruckNo(), truck);
             
         } catch (Exception e) {
             log.error("存储车辆 {} 信息失败", truck.getTruckNo(), e);
@@ -205,18 +182,17 @@ public class TestDataService {
      */
     public void updateVehicleLocation(String truckNo, BigDecimal lat, BigDecimal lon, BigDecimal soc) {
         try {
-            String redisKey = DpConstants.DP_TRUCK_DRIVING_STATUS_KEY + truckNo;
-            RBucket<String> bucket = redissonClient.getBucket(redisKey);
-            String jsonStr = bucket.get();
+            GeTruckDrivingRecord current = telemetryStore.getCurrentStatus(truckNo);
             
-            if (jsonStr != null) {
-                GeTruckDrivingRecord record = JSONUtil.toBean(jsonStr, GeTruckDrivingRecord.class);
+            if (current != null) {
+                // 存储返回的记录不能修改，复制后写回
+                GeTruckDrivingRecord record = BeanUtil.copyProperties(current, GeTruckDrivingRecord.class);
                 record.setLat(lat);
                 record.setLon(lon);
                 record.setSoc(soc);
                 record.setReportTime(LocalDateTime.now());
                 
-                bucket.set(JSONUtil.toJsonStr(record));
+                telemetryStore.putCurrentStatus(record);
                 log.info("车辆 {} 位置已更新：({}, {})，SOC={}%", truckNo, lat, lon, soc);
             }
             
@@ -226,7 +202,7 @@ public class TestDataService {
     }
     
     /**
-     * 获取Redis中的测试数据概览
+     * 获取遥测数据存储中的测试数据概览
      */
     public Map<String, Object> getTestDataOverview() {
         Map<String, Object> overview = new HashMap<>();
@@ -235,12 +211,9 @@ public class TestDataService {
         
         for (String vehicleNo : testVehicles) {
             try {
-                String redisKey = DpConstants.DP_TRUCK_DRIVING_STATUS_KEY + vehicleNo;
-                RBucket<String> bucket = redissonClient.getBucket(redisKey);
-                String jsonStr = bucket.get();
+                GeTruckDrivingRecord record = telemetryStore.getCurrentStatus(vehicleNo);
                 
-                if (jsonStr != null) {
-                    GeTruckDrivingRecord record = JSONUtil.toBean(jsonStr, GeTruckDrivingRecord.class);
+                if (record != null) {
                     Map<String, Object> vehicleData = new HashMap<>();
                     vehicleData.put("truckNo", record.getTruckNo());
                     vehicleData.put("location", String.format("%.4f, %.4f", 
@@ -250,9 +223,7 @@ public class TestDataService {
                     vehicleData.put("reportTime", record.getReportTime());
                     
                     // 获取历史轨迹数量
-                    String historyKey = DpConstants.DP_TRUCK_DRIVING_RECORD + vehicleNo;
-                    RList<String> historyList = redissonClient.getList(historyKey);
-                    vehicleData.put("historyTrackCount", historyList.size());
+                    vehicleData.put("historyTrackCount", telemetryStore.getHistorySize(vehicleNo));
                     
                     overview.put(vehicleNo, vehicleData);
                 } else {
@@ -3,12 +3,12 @@ package com.example.dispatch.service;
 import com.example.dispatch.model.ExchangeRecord;
 import com.example.dispatch.model.PricePeriod;
 import com.example.dispatch.model.Truck;
+import com.example.dispatch.util.SocFixedPoint;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
-import java.util.List;
 
 /**
  * 运输服务类
@@ -27,15 +27,14 @@ public class TransportService {
     private static final BigDecimal AVERAGE_SPEED = BigDecimal.valueOf(80.0).setScale(2, RoundingMode.HALF_UP);  // 平均行驶速度(km/h)
     
     // 能耗常量
-    private static final BigDecimal ENERGY_CONSUMPTION = BigDecimal.valueOf(1.4).setScale(2, RoundingMode.HALF_UP);  // 综合平均能耗(kWh/km)
+    private static final int ENERGY_CONSUMPTION = 140;  // 综合平均能耗(0.01kWh/km)
     
     // 运输任务常量
     private static final int TOTAL_CARGO = 2000;  // 总货物量(吨)
     private static final int CARGO_PER_TRIP = 50;  // 每次运输量(吨)
-    private static final BigDecimal EXCHANGE_SOC_LIMIT = BigDecimal.valueOf(35).setScale(2, RoundingMode.HALF_UP);  // 换电SOC阈值
+    private static final int EXCHANGE_SOC_LIMIT = 35 * SocFixedPoint.ONE_PERCENT;  // 换电SOC阈值(0.01%)
     
     // 其他常量
-    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100.0).setScale(2, RoundingMode.HALF_UP);
     private static final BigDecimal SIXTY = BigDecimal.valueOf(60.0).setScale(2, RoundingMode.HALF_UP);
 
     private final ExchangeStationService exchangeStationService;  // 换电站服务
@@ -59,8 +58,8 @@ public class TransportService {
         LocalDateTime arrivalTime = loadingEndTime.plusMinutes(driveTimeMinutes);
         
         // 计算SOC消耗
-        BigDecimal socConsumption = calculateSocConsumption(BigDecimal.valueOf(A_TO_B_DISTANCE), truck.getCapacity());
-        truck.setSoc(truck.getSoc().subtract(socConsumption).setScale(2, RoundingMode.HALF_UP));
+        int socConsumption = calculateSocConsumption(A_TO_B_DISTANCE, truck.getCapacity());
+        truck.setSoc(SocFixedPoint.toDecimal(SocFixedPoint.of(truck.getSoc()) - socConsumption));
         
         // 增加运输次数
         truck.incrementTransportFrequency();
@@ -92,25 +91,23 @@ public class TransportService {
         long driveTimeToStation = calculateDriveTime(B_TO_STATION_DISTANCE);
         LocalDateTime timeAfterDrive = currentTime.plusMinutes(driveTimeToStation);
 
+        int soc = SocFixedPoint.of(truck.getSoc());
+
         // 如果SOC低于最低换电阈值，必须换电
         // 使用到换电站的距离进行动态计算
-        if (truck.getSoc().compareTo(ExchangeStationService.getMinExchangeSoc(B_TO_STATION_DISTANCE)) < 0) {
+        if (soc < SocFixedPoint.of(ExchangeStationService.getMinExchangeSoc(B_TO_STATION_DISTANCE))) {
             return true;
         }
         
         // 如果SOC低于换电阈值，需要考虑电价因素
-        if (truck.getSoc().compareTo(EXCHANGE_SOC_LIMIT) < 0) {
+        if (soc < EXCHANGE_SOC_LIMIT) {
             // 如果当前是高电价时段，且下一次运输后会进入低电价时段，可以延后换电
             if (PricePeriod.shouldDelayExchange(timeAfterDrive, nextTripEndTime)) {
                 // 计算下一次运输需要的电量
-                BigDecimal nextTripConsumption = calculateSocConsumption(
-                    BigDecimal.valueOf(A_TO_B_DISTANCE + B_TO_A_DISTANCE),
-                    truck.getCapacity()
-                );
+                int nextTripConsumption = calculateSocConsumption(A_TO_B_DISTANCE + B_TO_A_DISTANCE, truck.getCapacity());
                 // 如果剩余电量足够下一次运输，则延后换电
                 // 使用下次运输的距离进行动态计算
-                BigDecimal nextTripDistance = BigDecimal.valueOf(A_TO_B_DISTANCE + B_TO_A_DISTANCE);
-                return truck.getSoc().subtract(nextTripConsumption).compareTo(ExchangeStationService.getMinExchangeSoc(nextTripDistance)) < 0;
+                return soc - nextTripConsumption < SocFixedPoint.of(ExchangeStationService.getMinExchangeSoc(A_TO_B_DISTANCE + B_TO_A_DISTANCE));
             }
             return true;
         }
@@ -139,8 +136,8 @@ public class TransportService {
             LocalDateTime arrivalTime = currentTime.plusMinutes(driveTimeMinutes);
             
             // 计算SOC消耗
-            BigDecimal socConsumption = calculateSocConsumption(BigDecimal.valueOf(B_TO_A_DISTANCE), truck.getCapacity());
-            truck.setSoc(truck.getSoc().subtract(socConsumption).setScale(2, RoundingMode.HALF_UP));
+            int socConsumption = calculateSocConsumption(B_TO_A_DISTANCE, truck.getCapacity());
+            truck.setSoc(SocFixedPoint.toDecimal(SocFixedPoint.of(truck.getSoc()) - socConsumption));
             
             return arrivalTime;
         }
@@ -158,8 +155,8 @@ public class TransportService {
         LocalDateTime arrivalTimeAtStation = currentTime.plusMinutes(driveTimeToStationMinutes);
         
         // 2. 计算B点到换电站的SOC消耗
-        BigDecimal socConsumptionToStation = calculateSocConsumption(BigDecimal.valueOf(B_TO_STATION_DISTANCE), truck.getCapacity());
-        BigDecimal socBeforeExchange = truck.getSoc().subtract(socConsumptionToStation).setScale(2, RoundingMode.HALF_UP);
+        int socConsumptionToStation = calculateSocConsumption(B_TO_STATION_DISTANCE, truck.getCapacity());
+        BigDecimal socBeforeExchange = SocFixedPoint.toDecimal(SocFixedPoint.of(truck.getSoc()) - socConsumptionToStation);
         truck.setSoc(socBeforeExchange);
         
         // 3. 记录当前运输次数（用于后续找到对应的换电记录）
@@ -176,8 +173,8 @@ public class TransportService {
         LocalDateTime arrivalTimeAtA = exchangeEndTime.plusMinutes(driveTimeToAMinutes);
         
         // 7. 计算换电站到A点的SOC消耗（换电完成后SOC为100%）
-        BigDecimal socConsumptionToA = calculateSocConsumption(BigDecimal.valueOf(STATION_TO_A_DISTANCE), truck.getCapacity());
-        truck.setSoc(HUNDRED.subtract(socConsumptionToA).setScale(2, RoundingMode.HALF_UP));
+        int socConsumptionToA = calculateSocConsumption(STATION_TO_A_DISTANCE, truck.getCapacity());
+        truck.setSoc(SocFixedPoint.toDecimal(SocFixedPoint.FULL - socConsumptionToA));
         
         return arrivalTimeAtA;
     }
@@ -191,17 +188,12 @@ public class TransportService {
      * @return 换电完成时间
      */
     private LocalDateTime findExchangeEndTime(String truckNo, LocalDateTime enterTime, BigDecimal socBeforeExchange, int transportFrequency) {
-        // 获取所有换电记录
-        List<ExchangeRecord> records = exchangeStationService.getExchangeRecords();
-        
-        // 查找对应车辆的换电记录
-        for (ExchangeRecord record : records) {
-            if (record.getTruckNo().equals(truckNo) && 
-                record.getSoc().subtract(socBeforeExchange).abs().compareTo(BigDecimal.valueOf(0.01)) < 0 && 
-                record.getTransporFrequency() == transportFrequency) {
-                // 换电完成时间 = 开始换电时间 + 换电时长(5分钟)
-                return record.getStartExchangeTime().plusMinutes(5);
-            }
+        // 按车牌号和运输次数查找本趟的换电记录
+        ExchangeRecord record = exchangeStationService.getExchangeRecord(truckNo, transportFrequency);
+        if (record != null &&
+            record.getSoc().subtract(socBeforeExchange).abs().compareTo(BigDecimal.valueOf(0.01)) < 0) {
+            // 换电完成时间 = 开始换电时间 + 换电时长(5分钟)
+            return record.getStartExchangeTime().plusMinutes(5);
         }
         
         // 默认情况，返回进站时间+10分钟(考虑最坏情况)
@@ -223,13 +215,10 @@ public class TransportService {
      * 计算SOC消耗
      * @param distance 距离(km)
      * @param capacity 电池容量(kWh)
-     * @return SOC消耗百分比
+     * @return SOC消耗(0.01%)
      */
-    private BigDecimal calculateSocConsumption(BigDecimal distance, BigDecimal capacity) {
-        return distance.multiply(ENERGY_CONSUMPTION)
-            .divide(capacity, 2, RoundingMode.HALF_UP)
-            .multiply(HUNDRED)
-            .setScale(2, RoundingMode.HALF_UP);
+    private int calculateSocConsumption(int distance, BigDecimal capacity) {
+        return SocFixedPoint.consumption(distance, ENERGY_CONSUMPTION, SocFixedPoint.of(capacity));
     }
     
     /**
@@ -255,12 +244,12 @@ public class TransportService {
      */
     public boolean needsExchangeFromStart(Truck truck) {
         // 检查SOC是否低于安全阈值
-        BigDecimal socNeededToA = calculateSocConsumption(BigDecimal.valueOf(START_TO_A_DISTANCE), truck.getCapacity());
-        BigDecimal socNeededToB = calculateSocConsumption(BigDecimal.valueOf(A_TO_B_DISTANCE), truck.getCapacity());
-        BigDecimal socNeededTotal = socNeededToA.add(socNeededToB);
+        int socNeededToA = calculateSocConsumption(START_TO_A_DISTANCE, truck.getCapacity());
+        int socNeededToB = calculateSocConsumption(A_TO_B_DISTANCE, truck.getCapacity());
+        int socNeededTotal = socNeededToA + socNeededToB;
         
         // 如果剩余SOC低于去A点加去B点再加10%裕度的SOC，则需要先换电
-        return truck.getSoc().compareTo(socNeededTotal.add(BigDecimal.TEN)) < 0;
+        return SocFixedPoint.of(truck.getSoc()) < socNeededTotal + 10 * SocFixedPoint.ONE_PERCENT;
     }
     
     /**
@@ -275,8 +264,8 @@ public class TransportService {
         LocalDateTime arrivalTime = currentTime.plusMinutes(driveTimeMinutes);
         
         // 计算SOC消耗
-        BigDecimal socConsumption = calculateSocConsumption(BigDecimal.valueOf(START_TO_A_DISTANCE), truck.getCapacity());
-        truck.setSoc(truck.getSoc().subtract(socConsumption).setScale(2, RoundingMode.HALF_UP));
+        int socConsumption = calculateSocConsumption(START_TO_A_DISTANCE, truck.getCapacity());
+        truck.setSoc(SocFixedPoint.toDecimal(SocFixedPoint.of(truck.getSoc()) - socConsumption));
         
         return arrivalTime;
     }
@@ -293,8 +282,8 @@ public class TransportService {
         LocalDateTime arrivalTimeAtStation = currentTime.plusMinutes(driveTimeToStationMinutes);
         
         // 2. 计算出发点到换电站的SOC消耗
-        BigDecimal socConsumptionToStation = calculateSocConsumption(BigDecimal.valueOf(START_TO_STATION_DISTANCE), truck.getCapacity());
-        BigDecimal socBeforeExchange = truck.getSoc().subtract(socConsumptionToStation).setScale(2, RoundingMode.HALF_UP);
+        int socConsumptionToStation = calculateSocConsumption(START_TO_STATION_DISTANCE, truck.getCapacity());
+        BigDecimal socBeforeExchange = SocFixedPoint.toDecimal(SocFixedPoint.of(truck.getSoc()) - socConsumptionToStation);
         truck.setSoc(socBeforeExchange);
         
         // 3. 记录当前运输次数（用于后续找到对应的换电记录）
@@ -311,8 +300,8 @@ public class TransportService {
         LocalDateTime arrivalTimeAtA = exchangeEndTime.plusMinutes(driveTimeToAMinutes);
         
         // 7. 计算换电站到A点的SOC消耗（换电完成后SOC为100%）
-        BigDecimal socConsumptionToA = calculateSocConsumption(BigDecimal.valueOf(STATION_TO_A_DISTANCE), truck.getCapacity());
-        truck.setSoc(HUNDRED.subtract(socConsumptionToA).setScale(2, RoundingMode.HALF_UP));
+        int socConsumptionToA = calculateSocConsumption(STATION_TO_A_DISTANCE, truck.getCapacity());
+        truck.setSoc(SocFixedPoint.toDecimal(SocFixedPoint.FULL - socConsumptionToA));
         
         return arrivalTimeAtA;
     }
@@ -326,17 +315,12 @@ public class TransportService {
      * @return 换电完成时间
      */
     private LocalDateTime findExchangeEndTimeFromStart(String truckNo, LocalDateTime enterTime, BigDecimal socBeforeExchange, int transportFrequency) {
-        // 获取所有换电记录
-        List<ExchangeRecord> records = exchangeStationService.getExchangeRecords();
-        
-        // 查找对应车辆的换电记录
-        for (ExchangeRecord record : records) {
-            if (record.getTruckNo().equals(truckNo) && 
-                record.getSoc().subtract(socBeforeExchange).abs().compareTo(BigDecimal.valueOf(0.01)) < 0 && 
-                record.getTransporFrequency() == transportFrequency) {
-                // 换电完成时间 = 开始换电时间 + 换电时长(5分钟)
-                return record.getStartExchangeTime().plusMinutes(5);
-            }
+        // 按车牌号和运输次数查找本趟的换电记录
+        ExchangeRecord record = exchangeStationService.getExchangeRecord(truckNo, transportFrequency);
+        if (record != null &&
+            record.getSoc().subtract(socBeforeExchange).abs().compareTo(BigDecimal.valueOf(0.01)) < 0) {
+            // 换电完成时间 = 开始换电时间 + 换电时长(5分钟)
+            return record.getStartExchangeTime().plusMinutes(5);
         }
         
         // 默认情况，返回进站时间+10分钟(考虑最坏情况)
@@ -1,15 +1,11 @@
 package com.example.dispatch.service;
 
-import cn.hutool.json.JSONUtil;
-import com.example.dispatch.constant.DpConstants;
 import com.example.dispatch.constant.LocationConstants;
 import com.example.dispatch.model.GeTruckDrivingRecord;
 import com.example.dispatch.model.RouteInfo;
 import com.example.dispatch.model.Truck;
+import com.example.dispatch.telemetry.TelemetryStore;
 import lombok.extern.slf4j.Slf4j;
-import org.redisson.api.RBucket;
-import org.redisson.api.RList;
-import org.redisson.api.RedissonClient;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -28,10 +24,13 @@ import java.util.*;
 public class VehicleTrackingService {
     
     @Autowired
-    private RedissonClient redissonClient;
+    private TelemetryStore telemetryStore;
     
     @Autowired
     private EnergyConsumptionService energyConsumptionService;
+
+    @Autowired
+    private DispatchClock dispatchClock;
     
     /**
      * 分析车辆当前路径状态
@@ -46,7 +45,7 @@ public class VehicleTrackingService {
             return routeInfo;
         }
 
-        log.info("开始分析车辆 {} 的路径状态", vehicleNo);
+        log.debug("开始分析车辆 {} 的路径状态", vehicleNo);
         
         try {
             // 1. 获取车辆当前状态
@@ -74,7 +73,7 @@ public class VehicleTrackingService {
             // 7. 计算并存储车辆平均单公里能耗
             energyConsumptionService.calculateAndStoreEnergyConsumption(vehicleNo, routeInfo);
             
-            log.info("车辆 {} 路径分析完成：{}", vehicleNo, routeInfo);
+            log.debug("车辆 {} 路径分析完成：{}", vehicleNo, routeInfo);
             return routeInfo;
             
         } catch (Exception e) {
@@ -83,6 +82,17 @@ public class VehicleTrackingService {
         }
     }
     
+    /**
+     * 获取车辆最新上报时间
+     * 只读取当前状态，用于判断车辆自上次调度以来是否有新的遥测数据
+     * @param vehicleNo 车辆编号
+     * @return 最新上报时间，无数据时返回null
+     */
+    public LocalDateTime getLatestReportTime(String vehicleNo) {
+        GeTruckDrivingRecord currentStatus = getVehicleCurrentStatus(vehicleNo);
+        return currentStatus == null ? null : currentStatus.getReportTime();
+    }
+
     /**
      * 获取车辆当前状态
      * @param vehicleNo 车辆编号
@@ -90,17 +100,12 @@ public class VehicleTrackingService {
      */
     private GeTruckDrivingRecord getVehicleCurrentStatus(String vehicleNo) {
         try {
-            String redisKey = DpConstants.DP_TRUCK_DRIVING_STATUS_KEY + vehicleNo;
-            RBucket<String> bucket = redissonClient.getBucket(redisKey);
-            String jsonStr = bucket.get();
-            
-            if (jsonStr == null || jsonStr.trim().isEmpty()) {
-                log.warn("车辆 {} 在Redis中没有当前状态数据", vehicleNo);
+            GeTruckDrivingRecord record = telemetryStore.getCurrentStatus(vehicleNo);
+            if (record == null) {
+                log.warn("车辆 {} 没有当前状态数据", vehicleNo);
                 return null;
             }
             
-            // 解析JSON字符串为GeTruckDrivingRecord对象
-            GeTruckDrivingRecord record = JSONUtil.toBean(jsonStr, GeTruckDrivingRecord.class);
             log.debug("获取车辆 {} 当前状态：位置({}, {}), SOC={}%", 
                     vehicleNo, record.getLat(), record.getLon(), record.getSoc());
             
@@ -113,35 +118,22 @@ public class VehicleTrackingService {
     }
     
     /**
-     * 从Redis获取车辆历史轨迹（前20分钟）
+     * 获取车辆历史轨迹（前20分钟）
      */
     private List<GeTruckDrivingRecord> getVehicleHistoryTrack(String vehicleNo) {
-        String redisKey = DpConstants.DP_TRUCK_DRIVING_RECORD + vehicleNo;
-        RList<String> redisList = redissonClient.getList(redisKey);
-        
         List<GeTruckDrivingRecord> historyTrack = new ArrayList<>();
 
-        // TODO：这里调试使用，后续需要修改为获取前30分钟的数据
-        LocalDateTime now = LocalDateTime.of(2025,6,10,11,46,0);
+        // TODO：调试时通过dispatch.clock.fixed-time固定当前时间，后续需要修改为获取前30分钟的数据
+        LocalDateTime now = dispatchClock.now();
         LocalDateTime cutoffTime = now.minusMinutes(LocationConstants.HISTORY_TRACK_WINDOW_MINUTES);
 
 
         try {
-            List<String> range = redisList.range(-300, -1);
-            for (String jsonStr : range) {
-                if (jsonStr != null && !jsonStr.trim().isEmpty()) {
-                    GeTruckDrivingRecord record = JSONUtil.toBean(jsonStr, GeTruckDrivingRecord.class);
-                    
-                    // 只保留前20分钟的数据
-                    if (record != null && record.getReportTime() != null && record.getReportTime().isAfter(cutoffTime)) {
-                        historyTrack.add(record);
-                    }
-                }
-            }
+            historyTrack.addAll(telemetryStore.getHistory(vehicleNo, cutoffTime));
             
             // 按时间排序
             historyTrack.sort(Comparator.comparing(GeTruckDrivingRecord::getReportTime));
-            log.info("获取到车辆 {} 的历史轨迹点数量：{}", vehicleNo, historyTrack.size());
+            log.debug("获取到车辆 {} 的历史轨迹点数量：{}", vehicleNo, historyTrack.size());
             
         } catch (Exception e) {
             log.error("获取车辆 {} 历史轨迹失败", vehicleNo, e);
@@ -165,7 +157,7 @@ public class VehicleTrackingService {
 
         if (historyTrack.isEmpty()) {
             // 没有历史数据，默认从出发点到装货点
-            log.info("车辆 {} 无历史轨迹数据，默认从出发点到装货点", vehicleNo);
+            log.debug("车辆 {} 无历史轨迹数据，默认从出发点到装货点", vehicleNo);
             routeInfo.setCurrentRoute(RouteInfo.RouteType.START_TO_LOADING);
             routeInfo.setStartLocation("START");
             routeInfo.setTargetLocation("LOADING");
@@ -178,7 +170,7 @@ public class VehicleTrackingService {
 
         long millis = Duration.between(first.getReportTime(), last.getReportTime()).toMillis();
         if (millis <= LocationConstants.START_TO_LOADING_DISTANCE_DURATION) {
-            log.info("车辆{}行驶记录时长小于20分钟，默认从出发点到装货点", vehicleNo);
+            log.debug("车辆{}行驶记录时长小于20分钟，默认从出发点到装货点", vehicleNo);
             routeInfo.setCurrentRoute(RouteInfo.RouteType.START_TO_LOADING);
             routeInfo.setStartLocation("START");
             routeInfo.setTargetLocation("LOADING");
@@ -215,7 +207,7 @@ public class VehicleTrackingService {
             routeType = validateRouteWithDirectionVector(routeType, currentStatus, historyTrack);
         }
         
-        log.info("轨迹分析结果 - 位置序列：{}，推断路径：{}", locationSequence, routeType);
+        log.debug("轨迹分析结果 - 位置序列：{}，推断路径：{}", locationSequence, routeType);
         return routeType;
     }
     
@@ -546,7 +538,7 @@ public class VehicleTrackingService {
     
     /**
      * TODO: 这里不应该是从redis获取，而是初始化时生成
-     * 从Redis获取Truck信息
+     * 从遥测数据存储获取Truck信息
      * @param vehicleNo 车辆编号
      * @return Truck对象
      */
@@ -554,16 +546,12 @@ public class VehicleTrackingService {
         Truck truck = new Truck(vehicleNo, BigDecimal.valueOf(82), LocationConstants.DEFAULT_BATTERY_CAPACITY_DECIMAL_KWH);
         return truck;
         // try {
-        //     String redisKey = DpConstants.DP_TRUCK_INFO_KEY + vehicleNo;
-        //     RBucket<String> bucket = redissonClient.getBucket(redisKey);
-        //     String jsonStr = bucket.get();
-        //
-        //     if (jsonStr == null || jsonStr.trim().isEmpty()) {
-        //         log.warn("车辆 {} 在Redis中没有Truck信息，创建默认Truck对象", vehicleNo);
+        //     Truck truck = telemetryStore.getTruckInfo(vehicleNo);
+        //     if (truck == null) {
+        //         log.warn("车辆 {} 没有Truck信息，创建默认Truck对象", vehicleNo);
         //         return new Truck(vehicleNo, 80.0, 100.0); // 默认SOC和容量
         //     }
         //
-        //     Truck truck = JSONUtil.toBean(jsonStr, Truck.class);
         //     log.debug("获取车辆 {} Truck信息：{}", vehicleNo, truck);
         //
         //     return truck;
@@ -0,0 +1,159 @@
+package com.example.dispatch.simulation;
+
+import com.example.dispatch.model.Battery;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 换电站电池池
+ * 按充满时间排序的小顶堆（充满时间相同时按位置编号），查看最早充满的电池为O(1)，取出和放回为O(log n)。
+ * 堆中电池的充满时间不能在池外修改：换电时先取出，开始充电后再放回
+ */
+public final class BatteryPool {
+
+    private Battery[] heap;
+    private int size;
+
+    public BatteryPool(int capacity) {
+        this.heap = new Battery[Math.max(capacity, 1)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 查看最早充满的电池但不取出
+     * @return 最早充满的电池，电池池为空时返回null
+     */
+    public Battery peek() {
+        return size == 0 ? null : heap[0];
+    }
+
+    /**
+     * 取出最早充满的电池
+     * @return 最早充满的电池，电池池为空时返回null
+     */
+    public Battery poll() {
+        if (size == 0) {
+            return null;
+        }
+        Battery result = heap[0];
+        Battery last = heap[--size];
+        heap[size] = null;
+        if (size > 0) {
+            siftDown(0, last);
+        }
+        return result;
+    }
+
+    /**
+     * 放入电池
+     */
+    public void add(Battery battery) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        siftUp(size++, battery);
+    }
+
+    public void clear() {
+        Arrays.fill(heap, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * 统计指定时间已充满的电池数量，只访问充满时间不晚于该时间的节点
+     * @param time 模拟时间
+     * @return 电池数量
+     */
+    public int countReady(long time) {
+        return countReady(0, time);
+    }
+
+    private int countReady(int pos, long time) {
+        if (pos >= size || heap[pos].getChargeCompleteTime() > time) {
+            return 0;
+        }
+        return 1 + countReady(2 * pos + 1, time) + countReady(2 * pos + 2, time);
+    }
+
+    /**
+     * 最早充满的k块电池，按充满时间（相同时按位置编号）排序，不修改电池池
+     * 从堆顶按优先级逐层展开，只访问结果及其子节点，为O(k log k)
+     * @param k 电池数量，超过电池池大小时返回全部电池
+     * @return 电池列表
+     */
+    public List<Battery> smallest(int k) {
+        int count = Math.min(k, size);
+        List<Battery> result = new ArrayList<>(count);
+        if (count == 0) {
+            return result;
+        }
+        if (count == 1) {
+            result.add(heap[0]);
+            return result;
+        }
+        PriorityQueue<Integer> frontier = new PriorityQueue<>((a, b) -> compare(heap[a], heap[b]));
+        frontier.offer(0);
+        while (result.size() < count) {
+            int pos = frontier.poll();
+            result.add(heap[pos]);
+            if (2 * pos + 1 < size) {
+                frontier.offer(2 * pos + 1);
+            }
+            if (2 * pos + 2 < size) {
+                frontier.offer(2 * pos + 2);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 电池列表（堆内顺序），用于保存检查点和遍历状态
+     * @return 电池列表
+     */
+    public List<Battery> toList() {
+        return new ArrayList<>(Arrays.asList(heap).subList(0, size));
+    }
+
+    private void siftUp(int pos, Battery battery) {
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            if (compare(heap[parent], battery) <= 0) {
+                break;
+            }
+            heap[pos] = heap[parent];
+            pos = parent;
+        }
+        heap[pos] = battery;
+    }
+
+    private void siftDown(int pos, Battery battery) {
+        int half = size >>> 1;
+        while (pos < half) {
+            int child = 2 * pos + 1;
+            if (child + 1 < size && compare(heap[child + 1], heap[child]) < 0) {
+                child++;
+            }
+            if (compare(battery, heap[child]) <= 0) {
+                break;
+            }
+            heap[pos] = heap[child];
+            pos = child;
+        }
+        heap[pos] = battery;
+    }
+
+    private static int compare(Battery a, Battery b) {
+        int result = Long.compare(a.getChargeCompleteTime(), b.getChargeCompleteTime());
+        return result != 0 ? result : a.getPositionNo().compareTo(b.getPositionNo());
+    }
+}
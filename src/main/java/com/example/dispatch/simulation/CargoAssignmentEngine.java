@@ -0,0 +1,321 @@
+package com.example.dispatch.simulation;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+
+/**
+ * 货物分配引擎
+ * 按趟次给车辆分配运输任务，使全部货物运完的时间（最后一辆车回到装货点的时间）最早。
+ * <p>
+ * 时间模型与模拟一致：车辆从到达装货点的时间开始循环"装货-满载行驶-卸货-返程"，
+ * SOC不足的趟次改为经换电站返程，换电站多通道先到先换，每辆车使用最早空闲的通道。
+ * <ol>
+ *     <li>贪心：每一趟分配给完成这一趟后最早空闲的车辆（不考虑换电排队时为最优解）</li>
+ *     <li>局部搜索：按含换电排队的时间模型评估，把最晚完成车辆的一趟移给其他车辆，
+ *     直到最晚完成时间和总完成时间都不再下降或达到移动次数上限</li>
+ * </ol>
+ * 结果只取决于输入：局部搜索按移动次数停止，时间预算只作为安全上限（达到时输出告警），
+ * 因此同一场景、检查点回滚后重新规划都得到相同的分配。
+ * 所有时间均为模拟时间(秒)
+ */
+@Slf4j
+public final class CargoAssignmentEngine {
+
+    private static final int CANDIDATES = 8;                              // 每轮局部搜索尝试的接收车辆数
+    private static final int MOVES_PER_TRIP = 2;                          // 局部搜索移动次数上限 = 总趟数 × 该值
+    private static final long SEARCH_SAFETY_NANOS = 2_000_000_000L;       // 局部搜索安全时间上限(2s)，正常不会达到
+
+    private final int size;
+    private final long loadedLeg;     // 装货 + 满载行驶到卸货点
+    private final long returnLeg;     // 卸货 + 空载返回装货点
+    private final long toStation;     // 卸货点到换电站
+    private final long swapLeg;       // 卸货点经换电站返回装货点（不含排队）
+    private final long serviceTime;   // 换电时长
+    private final int lanes;          // 换电通道数量
+    private final long[] readyTimes;  // 到达装货点、可以开始第一趟的时间
+    private final int[] firstSwapTrips; // 第几趟卸货后需要第一次换电
+    private final int[] tripsPerSwap;   // 换电后可以运输的趟数
+
+    // 评估用的工作数组
+    private final long[] delays;
+    private final int[] nextSwaps;
+    private final long[] finishTimes;
+    private final MinHeap heap;
+    private final MinHeap laneHeap;   // 换电通道，按空闲时间排序
+
+    /**
+     * @param loadedLeg      装货 + 满载行驶时间
+     * @param returnLeg      卸货 + 返程时间
+     * @param toStation      卸货点到换电站的行驶时间
+     * @param fromStation    换电站到装货点的行驶时间
+     * @param serviceTime    换电时长
+     * @param lanes          换电通道数量
+     * @param readyTimes     每辆车到达装货点的时间
+     * @param firstSwapTrips 每辆车第几趟卸货后需要第一次换电（至少为1）
+     * @param tripsPerSwap   每辆车换电后可以运输的趟数（至少为1）
+     */
+    public CargoAssignmentEngine(long loadedLeg, long returnLeg, long toStation, long fromStation, long serviceTime,
+                                 int lanes, long[] readyTimes, int[] firstSwapTrips, int[] tripsPerSwap) {
+        this.size = readyTimes.length;
+        this.loadedLeg = loadedLeg;
+        this.returnLeg = returnLeg;
+        this.toStation = toStation;
+        this.swapLeg = toStation + serviceTime + fromStation;
+        this.serviceTime = serviceTime;
+        this.lanes = Math.max(lanes, 1);
+        this.readyTimes = readyTimes;
+        this.firstSwapTrips = firstSwapTrips;
+        this.tripsPerSwap = tripsPerSwap;
+        this.delays = new long[size];
+        this.nextSwaps = new int[size];
+        this.finishTimes = new long[size];
+        this.heap = new MinHeap(size);
+        this.laneHeap = new MinHeap(this.lanes);
+    }
+
+    /**
+     * 分配运输趟次
+     * @param totalTrips 总趟数
+     * @return 每辆车的趟数
+     */
+    public int[] assign(int totalTrips) {
+        int[] trips = new int[size];
+        if (size == 0 || totalTrips <= 0) {
+            return trips;
+        }
+        greedy(trips, totalTrips);
+        localSearch(trips, totalTrips * MOVES_PER_TRIP);
+        return trips;
+    }
+
+    /**
+     * 贪心分配：每一趟给完成后最早空闲的车辆
+     */
+    private void greedy(int[] trips, int totalTrips) {
+        heap.clear();
+        for (int i = 0; i < size; i++) {
+            heap.push(completionTime(i, 1), i);
+        }
+        for (int t = 0; t < totalTrips; t++) {
+            int truck = heap.popValue();
+            trips[truck]++;
+            heap.push(completionTime(truck, trips[truck] + 1), truck);
+        }
+    }
+
+    /**
+     * 局部搜索：把最晚完成车辆的一趟移给其他车辆
+     * @param maxMoves 移动次数上限
+     */
+    private void localSearch(int[] trips, int maxMoves) {
+        long[] current = evaluate(trips);
+        int[] candidates = new int[CANDIDATES];
+        long[] candidateKeys = new long[CANDIDATES];
+        long deadline = System.nanoTime() + SEARCH_SAFETY_NANOS;
+
+        for (int move = 0; move < maxMoves; move++) {
+            if (System.nanoTime() >= deadline) {
+                log.warn("货物分配局部搜索达到安全时间上限，已移动{}次，结果可能与其他运行不同", move);
+                break;
+            }
+            int latest = latestTruck(trips);
+            long makespan = finishTimes[latest];
+
+            // 接收车辆：加一趟后预计完成时间最早的几辆（沿用当前的换电排队延误估算）
+            int candidateCount = 0;
+            for (int b = 0; b < size; b++) {
+                if (b == latest) {
+                    continue;
+                }
+                long key = completionTime(b, trips[b] + 1) + (trips[b] > 0 ? delays[b] : 0);
+                if (key >= makespan) {
+                    continue;
+                }
+                int pos = candidateCount < CANDIDATES ? candidateCount++ : CANDIDATES;
+                while (pos > 0 && candidateKeys[pos - 1] > key) {
+                    if (pos < CANDIDATES) {
+                        candidates[pos] = candidates[pos - 1];
+                        candidateKeys[pos] = candidateKeys[pos - 1];
+                    }
+                    pos--;
+                }
+                if (pos < CANDIDATES) {
+                    candidates[pos] = b;
+                    candidateKeys[pos] = key;
+                }
+            }
+
+            int bestTarget = -1;
+            long[] best = current;
+            trips[latest]--;
+            for (int c = 0; c < candidateCount; c++) {
+                int target = candidates[c];
+                trips[target]++;
+                long[] result = evaluate(trips);
+                if (isBetter(result, best)) {
+                    best = result;
+                    bestTarget = target;
+                }
+                trips[target]--;
+            }
+            if (bestTarget < 0) {
+                trips[latest]++;
+                break;
+            }
+            trips[bestTarget]++;
+            current = evaluate(trips); // 刷新延误和完成时间
+        }
+    }
+
+    private static boolean isBetter(long[] result, long[] best) {
+        return result[0] < best[0] || (result[0] == best[0] && result[1] < best[1]);
+    }
+
+    private int latestTruck(int[] trips) {
+        int latest = -1;
+        for (int i = 0; i < size; i++) {
+            if (trips[i] > 0 && (latest < 0 || finishTimes[i] > finishTimes[latest])) {
+                latest = i;
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * 不考虑换电排队时，车辆完成指定趟数后回到装货点的时间
+     */
+    public long completionTime(int truck, int trips) {
+        int swaps = swapCount(truck, trips);
+        return readyTimes[truck] + trips * loadedLeg + swaps * swapLeg + (long) (trips - swaps) * returnLeg;
+    }
+
+    private int swapCount(int truck, int trips) {
+        return trips < firstSwapTrips[truck] ? 0 : 1 + (trips - firstSwapTrips[truck]) / tripsPerSwap[truck];
+    }
+
+    /**
+     * 按含换电排队的时间模型评估分配方案
+     * 按到达换电站的先后顺序依次在最早空闲的通道换电，排队等待使该车之后的行程整体推迟
+     * @return {最晚完成时间, 总完成时间}
+     */
+    public long[] evaluate(int[] trips) {
+        heap.clear();
+        for (int i = 0; i < size; i++) {
+            delays[i] = 0;
+            nextSwaps[i] = 0;
+            if (trips[i] >= firstSwapTrips[i]) {
+                heap.push(stationArrival(i, 0), i);
+            }
+        }
+
+        laneHeap.clear();
+        for (int lane = 0; lane < lanes; lane++) {
+            laneHeap.push(Long.MIN_VALUE, lane);
+        }
+        while (!heap.isEmpty()) {
+            long arrival = heap.peekKey();
+            int truck = heap.popValue();
+            long laneFree = laneHeap.peekKey();
+            int lane = laneHeap.popValue();
+            long start = Math.max(arrival, laneFree);
+            delays[truck] += start - arrival;
+            laneHeap.push(start + serviceTime, lane);
+
+            int next = ++nextSwaps[truck];
+            if (firstSwapTrips[truck] + next * tripsPerSwap[truck] <= trips[truck]) {
+                heap.push(stationArrival(truck, next), truck);
+            }
+        }
+
+        long makespan = Long.MIN_VALUE;
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            if (trips[i] == 0) {
+                finishTimes[i] = readyTimes[i];
+                continue;
+            }
+            finishTimes[i] = completionTime(i, trips[i]) + delays[i];
+            makespan = Math.max(makespan, finishTimes[i]);
+            total += finishTimes[i];
+        }
+        return new long[]{makespan, total};
+    }
+
+    /**
+     * 车辆第swap次（从0开始）到达换电站的时间，含之前的排队延误
+     */
+    private long stationArrival(int truck, int swap) {
+        int trip = firstSwapTrips[truck] + swap * tripsPerSwap[truck]; // 需要换电的趟次（从1开始）
+        long tripStart = readyTimes[truck] + (trip - 1) * (loadedLeg + returnLeg) + swap * (swapLeg - returnLeg);
+        return tripStart + loadedLeg + toStation + delays[truck];
+    }
+
+    /**
+     * 以long为键、车辆（或通道）下标为值的小顶堆
+     */
+    private static final class MinHeap {
+        private long[] keys;
+        private int[] values;
+        private int count;
+
+        MinHeap(int capacity) {
+            this.keys = new long[Math.max(capacity, 1)];
+            this.values = new int[Math.max(capacity, 1)];
+        }
+
+        void clear() {
+            count = 0;
+        }
+
+        boolean isEmpty() {
+            return count == 0;
+        }
+
+        long peekKey() {
+            return keys[0];
+        }
+
+        void push(long key, int value) {
+            if (count == keys.length) {
+                keys = Arrays.copyOf(keys, count * 2);
+                values = Arrays.copyOf(values, count * 2);
+            }
+            int pos = count++;
+            while (pos > 0) {
+                int parent = (pos - 1) >>> 1;
+                if (keys[parent] <= key) {
+                    break;
+                }
+                keys[pos] = keys[parent];
+                values[pos] = values[parent];
+                pos = parent;
+            }
+            keys[pos] = key;
+            values[pos] = value;
+        }
+
+        int popValue() {
+            int result = values[0];
+            long key = keys[--count];
+            int value = values[count];
+            int pos = 0;
+            int half = count >>> 1;
+            while (pos < half) {
+                int child = 2 * pos + 1;
+                if (child + 1 < count && keys[child + 1] < keys[child]) {
+                    child++;
+                }
+                if (key <= keys[child]) {
+                    break;
+                }
+                keys[pos] = keys[child];
+                values[pos] = values[child];
+                pos = child;
+            }
+            keys[pos] = key;
+            values[pos] = value;
+            return result;
+        }
+    }
+}
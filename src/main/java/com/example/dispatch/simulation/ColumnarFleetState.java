@@ -0,0 +1,148 @@
+package com.example.dispatch.simulation;
+
+import com.example.dispatch.model.Truck;
+import com.example.dispatch.util.SocFixedPoint;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 列式车队状态
+ * 每个属性一个基本类型数组，按车辆下标存取；
+ * 大规模车队模拟时内存连续、无需为每辆车创建对象，状态更新不产生额外分配
+ */
+public class ColumnarFleetState implements FleetState {
+    private final String[] truckNos;                  // 车牌号
+    private final Map<String, Integer> truckIndexes;  // 车牌号 -> 下标
+    private final int[] soc;                          // 剩余电量(0.01%)
+    private final double[] capacity;                  // 电池额定容量(kWh)
+    private final int[] tripCount;                    // 运输次数
+    private final int[] remainingCargo;               // 剩余货物(吨)
+    private final long[] nextFreeTime;                // 下一次空闲的模拟时间(秒)
+    private final int[] exchangeStation;              // 本次换电选择的换电站
+
+    public ColumnarFleetState(List<Truck> trucks) {
+        int size = trucks.size();
+        this.truckNos = new String[size];
+        this.truckIndexes = new HashMap<>();
+        this.soc = new int[size];
+        this.capacity = new double[size];
+        this.tripCount = new int[size];
+        this.remainingCargo = new int[size];
+        this.nextFreeTime = new long[size];
+        this.exchangeStation = new int[size];
+
+        for (int i = 0; i < size; i++) {
+            Truck truck = trucks.get(i);
+            truckNos[i] = truck.getTruckNo();
+            truckIndexes.put(truck.getTruckNo(), i);
+            soc[i] = SocFixedPoint.of(truck.getSoc());
+            capacity[i] = truck.getCapacity().doubleValue();
+            tripCount[i] = truck.getTransportFrequency();
+        }
+        Arrays.fill(nextFreeTime, NO_TIME);
+    }
+
+    /**
+     * 复制构造：车牌号和下标映射不可变，直接共享
+     */
+    private ColumnarFleetState(ColumnarFleetState other) {
+        this.truckNos = other.truckNos;
+        this.truckIndexes = other.truckIndexes;
+        this.soc = other.soc.clone();
+        this.capacity = other.capacity.clone();
+        this.tripCount = other.tripCount.clone();
+        this.remainingCargo = other.remainingCargo.clone();
+        this.nextFreeTime = other.nextFreeTime.clone();
+        this.exchangeStation = other.exchangeStation.clone();
+    }
+
+    @Override
+    public int size() {
+        return truckNos.length;
+    }
+
+    @Override
+    public int indexOf(String truckNo) {
+        Integer index = truckIndexes.get(truckNo);
+        return index == null ? -1 : index;
+    }
+
+    @Override
+    public String getTruckNo(int index) {
+        return truckNos[index];
+    }
+
+    @Override
+    public int getSoc(int index) {
+        return soc[index];
+    }
+
+    @Override
+    public void setSoc(int index, int soc) {
+        this.soc[index] = soc;
+    }
+
+    @Override
+    public double getCapacity(int index) {
+        return capacity[index];
+    }
+
+    @Override
+    public int getTripCount(int index) {
+        return tripCount[index];
+    }
+
+    @Override
+    public void setTripCount(int index, int tripCount) {
+        this.tripCount[index] = tripCount;
+    }
+
+    @Override
+    public int getRemainingCargo(int index) {
+        return remainingCargo[index];
+    }
+
+    @Override
+    public void setRemainingCargo(int index, int remainingCargo) {
+        this.remainingCargo[index] = remainingCargo;
+    }
+
+    @Override
+    public long getNextFreeTime(int index) {
+        return nextFreeTime[index];
+    }
+
+    @Override
+    public void setNextFreeTime(int index, long nextFreeTime) {
+        this.nextFreeTime[index] = nextFreeTime;
+    }
+
+    @Override
+    public int getExchangeStation(int index) {
+        return exchangeStation[index];
+    }
+
+    @Override
+    public void setExchangeStation(int index, int station) {
+        this.exchangeStation[index] = station;
+    }
+
+    @Override
+    public FleetState copy() {
+        return new ColumnarFleetState(this);
+    }
+
+    @Override
+    public void restore(FleetState snapshot) {
+        ColumnarFleetState other = (ColumnarFleetState) snapshot;
+        System.arraycopy(other.soc, 0, soc, 0, soc.length);
+        System.arraycopy(other.capacity, 0, capacity, 0, capacity.length);
+        System.arraycopy(other.tripCount, 0, tripCount, 0, tripCount.length);
+        System.arraycopy(other.remainingCargo, 0, remainingCargo, 0, remainingCargo.length);
+        System.arraycopy(other.nextFreeTime, 0, nextFreeTime, 0, nextFreeTime.length);
+        System.arraycopy(other.exchangeStation, 0, exchangeStation, 0, exchangeStation.length);
+    }
+}
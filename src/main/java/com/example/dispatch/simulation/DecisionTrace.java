@@ -0,0 +1,133 @@
+package com.example.dispatch.simulation;
+
+import com.example.dispatch.util.SocFixedPoint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * 调度决策记录
+ * 每次模拟一个预先分配的环形缓冲区，按列保存基本类型字段（时间、车辆下标、决策类型、SOC、阈值、附加值、结果），
+ * 记录时不创建对象、不格式化字符串，缓冲区写满后覆盖最早的记录。
+ * 只在需要时（查询或模拟出错）格式化输出；容量为0时不记录，每次调用只有一次判断的开销。
+ * 不是线程安全的，同一缓冲区只能由一次模拟写入
+ */
+public final class DecisionTrace {
+
+    /**
+     * 不记录的决策记录
+     */
+    public static final DecisionTrace DISABLED = new DecisionTrace(0);
+
+    /**
+     * 决策类型枚举
+     * 换电判断类决策的SOC为判断时的SOC，阈值为需要换电的SOC上限；
+     * 换电排队的附加值为等待时间(秒)
+     */
+    public enum Type {
+        INITIAL_ROUTE("首次出发换电判断"),
+        FIRST_TRIP("运输途中换电判断"),
+        EXCHANGE_CHECK("返程换电判断"),
+        SWAP("换电排队"),
+        FALLBACK("计算失败回退");
+
+        private static final Type[] VALUES = values();
+
+        private final String description;
+
+        Type(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    private final int capacity;
+    private final long[] times;       // 决策时间(模拟时间)
+    private final int[] trucks;       // 车辆下标
+    private final byte[] types;       // 决策类型序号
+    private final int[] socs;         // SOC(0.01%)
+    private final int[] thresholds;   // 阈值(0.01%)
+    private final int[] details;      // 附加值，含义见决策类型
+    private final boolean[] outcomes; // 决策结果
+    private long count;               // 累计记录数
+
+    /**
+     * @param capacity 缓冲区容量（条），为0时不记录
+     */
+    public DecisionTrace(int capacity) {
+        this.capacity = Math.max(capacity, 0);
+        this.times = new long[this.capacity];
+        this.trucks = new int[this.capacity];
+        this.types = new byte[this.capacity];
+        this.socs = new int[this.capacity];
+        this.thresholds = new int[this.capacity];
+        this.details = new int[this.capacity];
+        this.outcomes = new boolean[this.capacity];
+    }
+
+    public boolean isEnabled() {
+        return capacity > 0;
+    }
+
+    /**
+     * 记录一次决策
+     * @param time 决策时间(模拟时间)
+     * @param truck 车辆下标
+     * @param type 决策类型
+     * @param soc SOC(0.01%)
+     * @param threshold 阈值(0.01%)
+     * @param detail 附加值
+     * @param outcome 决策结果
+     */
+    public void record(long time, int truck, Type type, int soc, int threshold, int detail, boolean outcome) {
+        if (capacity == 0) {
+            return;
+        }
+        int slot = (int) (count++ % capacity);
+        times[slot] = time;
+        trucks[slot] = truck;
+        types[slot] = (byte) type.ordinal();
+        socs[slot] = soc;
+        thresholds[slot] = threshold;
+        details[slot] = detail;
+        outcomes[slot] = outcome;
+    }
+
+    /**
+     * 累计记录数（含已被覆盖的记录）
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * 缓冲区中保留的记录数
+     */
+    public int size() {
+        return (int) Math.min(count, capacity);
+    }
+
+    /**
+     * 按时间顺序格式化缓冲区中的记录
+     * @param truckNos 车辆下标到车牌号的转换
+     * @param clock 模拟时钟
+     * @return 每条记录一行，从最早的记录开始
+     */
+    public List<String> dump(IntFunction<String> truckNos, SimClock clock) {
+        int size = size();
+        List<String> lines = new ArrayList<>(size);
+        for (long i = count - size; i < count; i++) {
+            int slot = (int) (i % capacity);
+            Type type = Type.VALUES[types[slot]];
+            lines.add(String.format("%s %s %s SOC=%.2f%% 阈值=%.2f%% 附加=%d 结果=%s",
+                    clock.toDateTime(times[slot]), truckNos.apply(trucks[slot]), type.getDescription(),
+                    SocFixedPoint.toPercent(socs[slot]), SocFixedPoint.toPercent(thresholds[slot]),
+                    details[slot], outcomes[slot] ? "是" : "否"));
+        }
+        return lines;
+    }
+}
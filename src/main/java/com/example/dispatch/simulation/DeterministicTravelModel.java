@@ -0,0 +1,38 @@
+package com.example.dispatch.simulation;
+
+import com.example.dispatch.constant.LocationConstants;
+
+/**
+ * 确定性行程模型
+ * 固定平均车速、固定10分钟装卸货、能耗与能耗模型一致
+ */
+public final class DeterministicTravelModel implements TravelModel {
+
+    public static final DeterministicTravelModel INSTANCE = new DeterministicTravelModel();
+
+    private static final long DWELL_MINUTES = 10; // 装卸货时间(分钟)
+
+    private DeterministicTravelModel() {
+    }
+
+    @Override
+    public long driveMinutes(double distanceKm) {
+        // 时间（分钟）= 距离（公里）/ 速度（公里/小时）× 60
+        return (long) (distanceKm / LocationConstants.AVERAGE_SPEED * 60.0);
+    }
+
+    @Override
+    public long legMinutes(double freeFlowMinutes) {
+        return (long) freeFlowMinutes;
+    }
+
+    @Override
+    public long dwellMinutes() {
+        return DWELL_MINUTES;
+    }
+
+    @Override
+    public double consumptionFactor() {
+        return 1.0;
+    }
+}
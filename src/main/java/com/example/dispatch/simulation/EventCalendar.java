@@ -0,0 +1,89 @@
+package com.example.dispatch.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 事件日历
+ * 按发生时间排序的待处理事件集合，入队和出队均为O(log n)
+ */
+public class EventCalendar {
+    private final PriorityQueue<SimulationEvent> events;  // 待处理事件（小顶堆）
+    private long nextSequence;                            // 下一个事件序号
+
+    public EventCalendar() {
+        this.events = new PriorityQueue<>();
+        this.nextSequence = 0;
+    }
+
+    /**
+     * 安排一个事件
+     * @param type 事件类型
+     * @param time 事件发生时间(模拟时间)
+     * @param truckIndex 关联车辆下标
+     */
+    public void schedule(SimulationEvent.Type type, long time, int truckIndex) {
+        events.offer(new SimulationEvent(type, time, truckIndex, nextSequence++));
+    }
+
+    /**
+     * 取出最早发生的事件
+     * @return 最早的事件，没有待处理事件时返回null
+     */
+    public SimulationEvent poll() {
+        return events.poll();
+    }
+
+    /**
+     * 查看最早发生的事件但不取出
+     * @return 最早的事件，没有待处理事件时返回null
+     */
+    public SimulationEvent peek() {
+        return events.peek();
+    }
+
+    /**
+     * 取消某辆车的所有待处理事件
+     * @param truckIndex 车辆下标
+     * @return 被取消的事件
+     */
+    public List<SimulationEvent> cancel(int truckIndex) {
+        List<SimulationEvent> cancelled = new ArrayList<>(1);
+        events.removeIf(event -> event.getTruckIndex() == truckIndex && cancelled.add(event));
+        return cancelled;
+    }
+
+    /**
+     * 复制当前待处理事件（事件本身不可变，可直接共享）
+     * @return 待处理事件列表
+     */
+    public List<SimulationEvent> snapshot() {
+        return new ArrayList<>(events);
+    }
+
+    /**
+     * 从检查点恢复事件日历
+     * @param pendingEvents 待处理事件
+     * @param nextSequence 下一个事件序号
+     * @return 恢复后的事件日历
+     */
+    public static EventCalendar restore(List<SimulationEvent> pendingEvents, long nextSequence) {
+        EventCalendar calendar = new EventCalendar();
+        calendar.events.addAll(pendingEvents);
+        calendar.nextSequence = nextSequence;
+        return calendar;
+    }
+
+    public long getNextSequence() {
+        return nextSequence;
+    }
+
+    public boolean isEmpty() {
+        return events.isEmpty();
+    }
+
+    public int size() {
+        return events.size();
+    }
+}
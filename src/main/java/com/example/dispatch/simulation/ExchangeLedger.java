@@ -0,0 +1,225 @@
+package com.example.dispatch.simulation;
+
+import com.example.dispatch.model.ExchangeRecord;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 换电记录台账
+ * 按生成顺序保存换电记录，同时按（车牌号，运输次数）和开始换电时间建立索引；
+ * 记录写入时修正一次时间关系，之后查询和输出不再校验。
+ * 线程安全：写入、截断和替换持有写锁（由换电站排程锁串行调用，写锁之间没有竞争），查询持有读锁，多个查询线程可以并行
+ */
+public final class ExchangeLedger {
+
+    private final List<ExchangeRecord> records;                              // 按生成顺序
+    private final Map<String, TruckRecords> byTruck;                         // 车牌号 -> 该车的换电记录
+    private final TreeMap<LocalDateTime, List<ExchangeRecord>> byStartTime;  // 开始换电时间 -> 换电记录
+    private volatile boolean retainRecords;                                  // 是否保留全部换电记录
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ExchangeLedger() {
+        this.records = new ArrayList<>();
+        this.byTruck = new HashMap<>();
+        this.byStartTime = new TreeMap<>();
+        this.retainRecords = true;
+    }
+
+    /**
+     * 一辆车的换电记录
+     */
+    private static final class TruckRecords {
+        private final List<ExchangeRecord> records = new ArrayList<>();               // 按生成顺序
+        private final Map<Integer, ExchangeRecord> byFrequency = new HashMap<>();     // 运输次数 -> 换电记录
+    }
+
+    /**
+     * 设置是否保留全部换电记录
+     * 不保留时每辆车只保留最近一次换电记录，不能按开始换电时间查询，也不能截断回滚
+     */
+    public void setRetainRecords(boolean retainRecords) {
+        this.retainRecords = retainRecords;
+    }
+
+    /**
+     * 写入换电记录，写入前修正时间关系
+     * @param record 换电记录
+     */
+    public void add(ExchangeRecord record) {
+        correct(record);
+        lock.writeLock().lock();
+        try {
+            index(record);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 替换全部换电记录
+     * 记录来自检查点或快照，生成时已修正过，不再修改（评估模式下多个模拟共享同一批记录）
+     * @param replacement 新的换电记录，按生成顺序
+     */
+    public void replaceAll(List<ExchangeRecord> replacement) {
+        lock.writeLock().lock();
+        try {
+            records.clear();
+            byTruck.clear();
+            byStartTime.clear();
+            for (ExchangeRecord record : replacement) {
+                index(record);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void index(ExchangeRecord record) {
+        TruckRecords truck = byTruck.computeIfAbsent(record.getTruckNo(), k -> new TruckRecords());
+        if (!retainRecords) {
+            truck.records.clear();
+            truck.byFrequency.clear();
+        }
+        truck.records.add(record);
+        truck.byFrequency.put(record.getTransporFrequency(), record);
+        if (retainRecords) {
+            records.add(record);
+            byStartTime.computeIfAbsent(record.getStartExchangeTime(), k -> new ArrayList<>(1)).add(record);
+        }
+    }
+
+    /**
+     * 丢弃第count条之后生成的换电记录
+     * @param count 保留的换电记录数量
+     */
+    public void truncate(int count) {
+        lock.writeLock().lock();
+        try {
+            truncateLocked(count);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void truncateLocked(int count) {
+        for (int i = records.size() - 1; i >= count; i--) {
+            ExchangeRecord record = records.remove(i);
+            TruckRecords truck = byTruck.get(record.getTruckNo());
+            truck.records.remove(truck.records.size() - 1);
+            // 同一运输次数有更早的换电记录时恢复索引
+            if (truck.byFrequency.remove(record.getTransporFrequency(), record)) {
+                for (int j = truck.records.size() - 1; j >= 0; j--) {
+                    if (truck.records.get(j).getTransporFrequency() == record.getTransporFrequency()) {
+                        truck.byFrequency.put(record.getTransporFrequency(), truck.records.get(j));
+                        break;
+                    }
+                }
+            }
+            List<ExchangeRecord> started = byStartTime.get(record.getStartExchangeTime());
+            started.remove(record);
+            if (started.isEmpty()) {
+                byStartTime.remove(record.getStartExchangeTime());
+            }
+        }
+    }
+
+    /**
+     * 获取车辆某一趟运输的换电记录
+     * @param truckNo 车牌号
+     * @param transportFrequency 运输次数
+     * @return 换电记录，没有时返回null；同一趟有多条记录时返回最近的一条
+     */
+    public ExchangeRecord get(String truckNo, int transportFrequency) {
+        lock.readLock().lock();
+        try {
+            TruckRecords truck = byTruck.get(truckNo);
+            return truck == null ? null : truck.byFrequency.get(transportFrequency);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取车辆最近一次换电记录
+     * @param truckNo 车牌号
+     * @return 换电记录，没有换过电时返回null
+     */
+    public ExchangeRecord getLatest(String truckNo) {
+        lock.readLock().lock();
+        try {
+            TruckRecords truck = byTruck.get(truckNo);
+            return truck == null || truck.records.isEmpty() ? null : truck.records.get(truck.records.size() - 1);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取开始换电时间在[from, to)之间的换电记录
+     * @return 换电记录，按开始换电时间排序
+     */
+    public List<ExchangeRecord> getStartedBetween(LocalDateTime from, LocalDateTime to) {
+        lock.readLock().lock();
+        try {
+            List<ExchangeRecord> result = new ArrayList<>();
+            for (List<ExchangeRecord> started : byStartTime.subMap(from, true, to, false).values()) {
+                result.addAll(started);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 全部换电记录（只读副本），按生成顺序
+     * 返回副本而不是视图，其他线程之后写入的记录不影响调用方遍历
+     */
+    public List<ExchangeRecord> getRecords() {
+        lock.readLock().lock();
+        try {
+            return Collections.unmodifiableList(new ArrayList<>(records));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return records.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 修正换电记录中的时间关系
+     * 确保时间关系满足: 开始等待时间 <= 开始换电时间 <= 使用电池时间 <= 电池充满时间
+     */
+    private static void correct(ExchangeRecord record) {
+        // 确保开始换电时间不早于开始等待时间
+        if (record.getStartExchangeTime().isBefore(record.getStartAwaitTime())) {
+            record.setStartExchangeTime(record.getStartAwaitTime());
+        }
+
+        // 确保使用电池时间不早于开始换电时间
+        if (record.getUseBatteryTime().isBefore(record.getStartExchangeTime())) {
+            record.setUseBatteryTime(record.getStartExchangeTime());
+        }
+
+        // 确保电池充满时间不早于使用电池时间
+        if (record.getBatteryChargeCompleteTime().isBefore(record.getUseBatteryTime())) {
+            record.setBatteryChargeCompleteTime(
+                record.getUseBatteryTime().plusMinutes(record.getDuration())
+            );
+        }
+    }
+}
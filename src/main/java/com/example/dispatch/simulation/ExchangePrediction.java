@@ -0,0 +1,50 @@
+package com.example.dispatch.simulation;
+
+import lombok.Getter;
+
+/**
+ * 换电预测结果
+ * 假设某辆车在指定时间以指定SOC到达换电站时的排程结果，由只读预测得到，不修改换电站状态
+ */
+@Getter
+public class ExchangePrediction {
+
+    private final String stationCode;             // 换电站编码
+    private final int laneNo;                     // 换电通道编号
+    private final String batteryPositionNo;       // 换上的电池位置编号
+    private final long arrivalTime;               // 到达换电站时间(模拟时间)
+    private final long startTime;                 // 开始换电时间(模拟时间)
+    private final long endTime;                   // 换电结束时间，即离开换电站的时间(模拟时间)
+    private final long batteryChargeCompleteTime; // 换下的电池充满时间(模拟时间)
+
+    public ExchangePrediction(String stationCode, int laneNo, String batteryPositionNo, long arrivalTime,
+                              long startTime, long endTime, long batteryChargeCompleteTime) {
+        this.stationCode = stationCode;
+        this.laneNo = laneNo;
+        this.batteryPositionNo = batteryPositionNo;
+        this.arrivalTime = arrivalTime;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.batteryChargeCompleteTime = batteryChargeCompleteTime;
+    }
+
+    /**
+     * 排队等待时间(秒)：从到达换电站到开始换电
+     */
+    public long getWaitSeconds() {
+        return startTime - arrivalTime;
+    }
+
+    @Override
+    public String toString() {
+        return "ExchangePrediction{" +
+                "stationCode='" + stationCode + '\'' +
+                ", laneNo=" + laneNo +
+                ", batteryPositionNo='" + batteryPositionNo + '\'' +
+                ", arrivalTime=" + arrivalTime +
+                ", startTime=" + startTime +
+                ", endTime=" + endTime +
+                ", batteryChargeCompleteTime=" + batteryChargeCompleteTime +
+                '}';
+    }
+}
@@ -0,0 +1,329 @@
+package com.example.dispatch.simulation;
+
+import com.example.dispatch.util.ExchangeRule;
+import com.example.dispatch.util.SocFixedPoint;
+
+import java.util.Arrays;
+
+/**
+ * 换电时机优化器
+ * 在车队范围内决定每辆车在第几趟卸货后换电，使换电站排队等待成本与充电电费之和最小，
+ * 同时每一趟的SOC都满足换电判断规则（SOC不高于换电阈值时必须换电）。
+ * <p>
+ * 单车问题用动态规划求解：状态为（已完成趟数，最近一次换电的趟次，换电次数），
+ * 由状态可以确定下一趟的出发时间和SOC；卸货后选择直接返程或经换电站返程。
+ * 换电成本 = 预计排队时间 × 等待成本 + 充电量 × 换电时段电价，
+ * 最后一趟结束时电池的亏电量按谷时电价计入（夜间补充）。
+ * <p>
+ * 车辆之间通过换电站拥堵曲线耦合：按5分钟分桶统计全部车辆的换电到达数，
+ * 用多通道流体排队模型估算每个时段的排队时间；每一轮依次对每辆车在其他车辆方案不变的情况下重新求解，
+ * 直到方案不再变化或达到最大轮数。排队时间只计入成本，不推迟该车之后的行程。
+ * 所有时间均为模拟时间(秒)，SOC为定点数(0.01%)
+ */
+public final class ExchangeTimingOptimizer {
+
+    private static final long BUCKET_SECONDS = 300;  // 拥堵曲线分桶(5分钟)
+    private static final int MAX_ROUNDS = 4;         // 最大迭代轮数
+    private static final int MAX_TRIPS = 64;         // 参与优化的最大趟数，动态规划表格随趟数三次方增长
+
+    private final long loadedLeg;     // 装货 + 满载行驶到卸货点
+    private final long returnLeg;     // 卸货 + 空载返回装货点
+    private final long toStation;     // 卸货点到换电站
+    private final long swapDelta;     // 经换电站返程比直接返程多用的时间（不含排队）
+    private final long serviceTime;   // 换电时长
+    private final int lanes;          // 换电通道数量
+    private final double[] hourlyPrices; // 模拟开始后每小时的电价（元/kWh）
+    private final double terminalPrice;  // 结束时亏电量的电价（元/kWh）
+    private final double waitCostPerMinute; // 排队等待成本（元/分钟）
+
+    // 每辆车的输入
+    private final int size;
+    private final long[] readyTimes;   // 开始第一趟的时间
+    private final int[] trips;         // 计划趟数
+    private final int[] initialSocs;   // 第一趟出发时的SOC
+    private final int[] loadedSocs;    // 装货点到卸货点的SOC消耗
+    private final int[] returnSocs;    // 卸货点直接返回装货点的SOC消耗
+    private final int[] toStationSocs; // 卸货点到换电站的SOC消耗
+    private final int[] fullSocs;      // 换电后回到装货点时的SOC
+    private final int[] requiredSocs;  // 换电阈值：卸货时SOC不高于该值必须换电
+    private final double[] capacities; // 电池容量(kWh)
+
+    // 优化结果：每辆车换电的拥堵分桶
+    private final int[][] swapBuckets;
+    private final boolean[][] plans;
+    private int bucketCount;
+
+    /**
+     * @param loadedLeg         装货 + 满载行驶时间
+     * @param returnLeg         卸货 + 返程时间
+     * @param toStation         卸货点到换电站的行驶时间
+     * @param fromStation       换电站到装货点的行驶时间
+     * @param serviceTime       换电时长
+     * @param lanes             换电通道数量
+     * @param hourlyPrices      模拟开始后每小时的电价（元/kWh），超出部分使用最后一个值
+     * @param terminalPrice     结束时亏电量的电价（元/kWh）
+     * @param waitCostPerMinute 排队等待成本（元/分钟）
+     * @param size              车辆数
+     */
+    public ExchangeTimingOptimizer(long loadedLeg, long returnLeg, long toStation, long fromStation, long serviceTime,
+                                   int lanes, double[] hourlyPrices, double terminalPrice, double waitCostPerMinute, int size) {
+        this.loadedLeg = loadedLeg;
+        this.returnLeg = returnLeg;
+        this.toStation = toStation;
+        this.swapDelta = toStation + serviceTime + fromStation - returnLeg;
+        this.serviceTime = serviceTime;
+        this.lanes = Math.max(lanes, 1);
+        this.hourlyPrices = hourlyPrices;
+        this.terminalPrice = terminalPrice;
+        this.waitCostPerMinute = waitCostPerMinute;
+        this.size = size;
+        this.readyTimes = new long[size];
+        this.trips = new int[size];
+        this.initialSocs = new int[size];
+        this.loadedSocs = new int[size];
+        this.returnSocs = new int[size];
+        this.toStationSocs = new int[size];
+        this.fullSocs = new int[size];
+        this.requiredSocs = new int[size];
+        this.capacities = new double[size];
+        this.swapBuckets = new int[size][];
+        this.plans = new boolean[size][];
+    }
+
+    /**
+     * 设置车辆参数，未设置、趟数为0或超过64趟的车辆不参与优化
+     * @param index       车辆下标
+     * @param readyTime   开始第一趟的时间
+     * @param tripCount   计划趟数
+     * @param initialSoc  第一趟出发时的SOC
+     * @param loadedSoc   装货点到卸货点的SOC消耗
+     * @param returnSoc   卸货点直接返回装货点的SOC消耗
+     * @param toStationSoc 卸货点到换电站的SOC消耗
+     * @param fromStationSoc 换电站到装货点的SOC消耗
+     * @param requiredSoc 换电阈值
+     * @param capacityKwh 电池容量(kWh)
+     */
+    public void setTruck(int index, long readyTime, int tripCount, int initialSoc, int loadedSoc, int returnSoc,
+                         int toStationSoc, int fromStationSoc, int requiredSoc, double capacityKwh) {
+        readyTimes[index] = readyTime;
+        trips[index] = tripCount;
+        initialSocs[index] = initialSoc;
+        loadedSocs[index] = loadedSoc;
+        returnSocs[index] = returnSoc;
+        toStationSocs[index] = toStationSoc;
+        fullSocs[index] = SocFixedPoint.FULL - fromStationSoc;
+        requiredSocs[index] = requiredSoc;
+        capacities[index] = capacityKwh;
+    }
+
+    /**
+     * 求解换电方案
+     * @return 每辆车每一趟卸货后是否换电（下标为趟次-1），未参与优化的车辆为null
+     */
+    public boolean[][] optimize() {
+        int maxTrips = 0;
+        long horizon = 0;
+        for (int i = 0; i < size; i++) {
+            if (trips[i] > MAX_TRIPS) {
+                trips[i] = 0;
+            }
+            maxTrips = Math.max(maxTrips, trips[i]);
+            horizon = Math.max(horizon, readyTimes[i] + trips[i] * (loadedLeg + returnLeg + Math.max(swapDelta, 0)));
+        }
+        if (maxTrips == 0) {
+            return plans;
+        }
+        bucketCount = (int) (Math.max(horizon, 0) / BUCKET_SECONDS) + 2;
+        int[] arrivals = new int[bucketCount];
+        double[] waits = new double[bucketCount];
+        Dp dp = new Dp(maxTrips);
+
+        for (int round = 0; round < MAX_ROUNDS; round++) {
+            boolean changed = false;
+            for (int i = 0; i < size; i++) {
+                if (trips[i] == 0) {
+                    continue;
+                }
+                // 移除本车的换电，按其他车辆的换电估算排队时间
+                if (swapBuckets[i] != null) {
+                    for (int bucket : swapBuckets[i]) {
+                        arrivals[bucket]--;
+                    }
+                }
+                waitProfile(arrivals, waits);
+
+                boolean[] plan = dp.solve(i, waits);
+                int[] buckets = dp.swapBuckets(i, plan);
+                for (int bucket : buckets) {
+                    arrivals[bucket]++;
+                }
+                if (!Arrays.equals(plan, plans[i])) {
+                    changed = true;
+                }
+                plans[i] = plan;
+                swapBuckets[i] = buckets;
+            }
+            if (!changed) {
+                break;
+            }
+        }
+        return plans;
+    }
+
+    /**
+     * 流体排队模型：每个分桶开始时积压的换电工作量，加上本桶内到达车辆的平均排队，由全部通道分担；
+     * 每个分桶各通道共可完成通道数 × 分桶时长的工作量
+     */
+    private void waitProfile(int[] arrivals, double[] waits) {
+        double backlog = 0;
+        for (int b = 0; b < arrivals.length; b++) {
+            double work = arrivals[b] * (double) serviceTime;
+            waits[b] = (backlog + work / 2) / lanes;
+            backlog = Math.max(0, backlog + work - lanes * BUCKET_SECONDS);
+        }
+    }
+
+    private double price(long time) {
+        int hour = (int) Math.max(0, time / 3600);
+        return hourlyPrices[Math.min(hour, hourlyPrices.length - 1)];
+    }
+
+    private int bucket(long time) {
+        return (int) Math.min(Math.max(time, 0) / BUCKET_SECONDS, bucketCount - 1);
+    }
+
+    /**
+     * 单车动态规划，表格按最大趟数分配一次，在车辆之间复用
+     */
+    private final class Dp {
+        private final int dim;            // 每一维的大小(最大趟数+1)
+        private final double[] costs;     // [趟数][最近换电趟次][换电次数] 的最小成本
+        private final int[] previous;     // 换电状态的前驱（上一趟的最近换电趟次）
+
+        Dp(int maxTrips) {
+            this.dim = maxTrips + 1;
+            this.costs = new double[dim * dim * dim];
+            this.previous = new int[dim * dim * dim];
+        }
+
+        private int index(int trip, int lastSwap, int swaps) {
+            return (trip * dim + lastSwap) * dim + swaps;
+        }
+
+        /**
+         * 第trip+1趟出发时的SOC
+         * @param lastSwap 最近一次换电的趟次，0表示尚未换电
+         */
+        private int departureSoc(int truck, int trip, int lastSwap) {
+            int cycleSoc = loadedSocs[truck] + returnSocs[truck];
+            return lastSwap == 0
+                    ? initialSocs[truck] - trip * cycleSoc
+                    : fullSocs[truck] - (trip - lastSwap) * cycleSoc;
+        }
+
+        private long departureTime(int truck, int trip, int swaps) {
+            return readyTimes[truck] + trip * (loadedLeg + returnLeg) + swaps * swapDelta;
+        }
+
+        boolean[] solve(int truck, double[] waits) {
+            int k = trips[truck];
+            Arrays.fill(costs, 0, index(k, k, k) + 1, Double.POSITIVE_INFINITY);
+            costs[index(0, 0, 0)] = 0;
+
+            for (int trip = 0; trip < k; trip++) {
+                for (int lastSwap = 0; lastSwap <= trip; lastSwap++) {
+                    for (int swaps = 0; swaps <= trip; swaps++) {
+                        double cost = costs[index(trip, lastSwap, swaps)];
+                        if (cost == Double.POSITIVE_INFINITY) {
+                            continue;
+                        }
+                        int unloadingSoc = departureSoc(truck, trip, lastSwap) - loadedSocs[truck];
+                        if (unloadingSoc < 0) {
+                            continue;
+                        }
+
+                        // 直接返程：SOC高于换电阈值才允许
+                        if (!ExchangeRule.needsExchange(unloadingSoc, requiredSocs[truck])) {
+                            int next = index(trip + 1, lastSwap, swaps);
+                            if (cost < costs[next]) {
+                                costs[next] = cost;
+                            }
+                        }
+
+                        // 经换电站返程
+                        int stationSoc = unloadingSoc - toStationSocs[truck];
+                        if (stationSoc < 0) {
+                            continue;
+                        }
+                        long arrival = departureTime(truck, trip, swaps) + loadedLeg + toStation;
+                        double wait = waits[bucket(arrival)];
+                        double energy = (SocFixedPoint.FULL - stationSoc) / (double) SocFixedPoint.FULL * capacities[truck];
+                        double swapCost = cost + wait / 60.0 * waitCostPerMinute + energy * price(arrival + (long) wait);
+                        int next = index(trip + 1, trip + 1, swaps + 1);
+                        if (swapCost < costs[next]) {
+                            costs[next] = swapCost;
+                            previous[next] = lastSwap;
+                        }
+                    }
+                }
+            }
+
+            // 结束时的亏电量按谷时电价补充
+            int bestLastSwap = -1;
+            int bestSwaps = -1;
+            double best = Double.POSITIVE_INFINITY;
+            for (int lastSwap = 0; lastSwap <= k; lastSwap++) {
+                for (int swaps = 0; swaps <= k; swaps++) {
+                    double cost = costs[index(k, lastSwap, swaps)];
+                    if (cost == Double.POSITIVE_INFINITY) {
+                        continue;
+                    }
+                    int endSoc = Math.max(departureSoc(truck, k, lastSwap), 0);
+                    cost += (SocFixedPoint.FULL - endSoc) / (double) SocFixedPoint.FULL * capacities[truck] * terminalPrice;
+                    if (cost < best) {
+                        best = cost;
+                        bestLastSwap = lastSwap;
+                        bestSwaps = swaps;
+                    }
+                }
+            }
+
+            boolean[] plan = new boolean[k];
+            if (bestLastSwap < 0) {
+                // 按标称能耗无可行方案（初始SOC过低），交由模拟中的换电判断规则处理
+                return plan;
+            }
+            int lastSwap = bestLastSwap;
+            int swaps = bestSwaps;
+            for (int trip = k; trip > 0; trip--) {
+                if (lastSwap == trip) {
+                    plan[trip - 1] = true;
+                    lastSwap = previous[index(trip, lastSwap, swaps)];
+                    swaps--;
+                }
+            }
+            return plan;
+        }
+
+        /**
+         * 方案中每次换电到达换电站的拥堵分桶
+         */
+        int[] swapBuckets(int truck, boolean[] plan) {
+            int count = 0;
+            for (boolean swap : plan) {
+                if (swap) {
+                    count++;
+                }
+            }
+            int[] buckets = new int[count];
+            int swaps = 0;
+            for (int trip = 0; trip < plan.length; trip++) {
+                if (plan[trip]) {
+                    long arrival = departureTime(truck, trip, swaps) + loadedLeg + toStation;
+                    buckets[swaps++] = bucket(arrival);
+                }
+            }
+            return buckets;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.dispatch.simulation;
+
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.example.dispatch.model.ExchangeRecord;
+import com.example.dispatch.model.GeDispatchScheduleRecord;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+
+/**
+ * 文件记录输出
+ * 每条记录追加一行JSON（JSON Lines），type字段区分schedule、exchange和rewind
+ */
+@Slf4j
+public class FileChannelRecordSink implements RecordSink, Closeable {
+
+    private static final byte[] NEW_LINE = "\n".getBytes(StandardCharsets.UTF_8);
+
+    private final FileChannel channel;
+
+    /**
+     * @param path 输出文件，不存在时创建，已存在时追加
+     */
+    public FileChannelRecordSink(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public void onScheduleRecord(GeDispatchScheduleRecord record) {
+        write("schedule", JSONUtil.parseObj(record));
+    }
+
+    @Override
+    public void onExchangeRecord(ExchangeRecord record) {
+        write("exchange", JSONUtil.parseObj(record));
+    }
+
+    @Override
+    public void onRewind(LocalDateTime time) {
+        write("rewind", new JSONObject().set("time", time.toString()));
+    }
+
+    private synchronized void write(String type, JSONObject record) {
+        byte[] line = new JSONObject().set("type", type).set("record", record).toString().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(line.length + NEW_LINE.length);
+        buffer.put(line).put(NEW_LINE).flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            log.warn("写入记录文件失败：{}", e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+}
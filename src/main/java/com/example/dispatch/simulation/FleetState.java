@@ -0,0 +1,99 @@
+package com.example.dispatch.simulation;
+
+import com.example.dispatch.model.Truck;
+import com.example.dispatch.util.SocFixedPoint;
+
+/**
+ * 车队状态
+ * 以整数下标访问车辆状态，模拟热路径不需要按车牌号查找Truck对象
+ */
+public interface FleetState {
+
+    /**
+     * 表示尚未设置的时间
+     */
+    long NO_TIME = SimClock.NO_TIME;
+
+    /**
+     * 车辆数量
+     */
+    int size();
+
+    /**
+     * 根据车牌号获取车辆下标
+     * @param truckNo 车牌号
+     * @return 车辆下标，不存在时返回-1
+     */
+    int indexOf(String truckNo);
+
+    String getTruckNo(int index);
+
+    /**
+     * 剩余电量(0.01%)，见{@link SocFixedPoint}
+     */
+    int getSoc(int index);
+
+    void setSoc(int index, int soc);
+
+    /**
+     * 电池额定容量(kWh)
+     */
+    double getCapacity(int index);
+
+    /**
+     * 运输次数
+     */
+    int getTripCount(int index);
+
+    void setTripCount(int index, int tripCount);
+
+    /**
+     * 剩余需要运输的货物(吨)
+     */
+    int getRemainingCargo(int index);
+
+    void setRemainingCargo(int index, int remainingCargo);
+
+    /**
+     * 车辆下一次空闲的模拟时间（相对模拟开始时间的秒数），未设置时为{@link #NO_TIME}
+     */
+    long getNextFreeTime(int index);
+
+    void setNextFreeTime(int index, long nextFreeTime);
+
+    /**
+     * 本次换电选择的换电站（换电站注册表下标）
+     */
+    int getExchangeStation(int index);
+
+    void setExchangeStation(int index, int station);
+
+    /**
+     * 复制当前车队状态
+     */
+    FleetState copy();
+
+    /**
+     * 从副本恢复车队状态
+     * @param snapshot 由{@link #copy()}得到的副本
+     */
+    void restore(FleetState snapshot);
+
+    /**
+     * 把车辆状态写入Truck对象，供仍基于Truck的运输逻辑使用
+     */
+    default void copyTo(int index, Truck truck) {
+        truck.setSoc(SocFixedPoint.toDecimal(getSoc(index)));
+        truck.setTransportFrequency(getTripCount(index));
+    }
+
+    /**
+     * 从Truck对象读回车辆状态
+     */
+    default void copyFrom(int index, Truck truck) {
+        if (truck.getSoc() != null) {
+            setSoc(index, SocFixedPoint.of(truck.getSoc()));
+        }
+        setTripCount(index, truck.getTransportFrequency());
+    }
+}
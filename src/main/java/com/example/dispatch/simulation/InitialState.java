@@ -0,0 +1,39 @@
+package com.example.dispatch.simulation;
+
+import com.example.dispatch.model.ExchangeRecord;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 模拟初始状态
+ * 保存首次出发处理、货物分配和换电时机优化的结果，以及运输途中车辆第一趟运输的结果。
+ * 评估模式的模拟直接从这里开始，不再访问Redis和SOC计算服务；
+ * 基准模拟完成后只读，可在多个线程的评估模拟之间共享
+ */
+@Data
+public class InitialState {
+    private FleetState fleet;                    // 首次出发处理后的车队状态（未加出发偏移）
+    private Set<String> truckCurRouteSet;        // 模拟开始时处于运输途中的车辆
+    private List<StationCheckpoint> stations;    // 首次出发处理后的各换电站状态
+    private List<ExchangeRecord> exchangeRecords; // 首次出发处理产生的换电记录
+    private int[] assignedCargo;                 // 每辆车分配的货物(吨)
+    private boolean[][] exchangePlan;            // 换电时机优化结果，为空时只按SOC判断
+    private int[] exchangePlanBaseTrips;         // 换电方案第1趟之前车辆已完成的运输次数
+    private FirstTrip[] firstTrips;              // 运输途中车辆第一趟运输的结果（按车辆下标）
+
+    /**
+     * 运输途中车辆第一趟运输的结果
+     */
+    @Data
+    public static class FirstTrip {
+        private int soc;                         // 到达装货点时的SOC(0.01%)
+        private int tripCount;                   // 到达装货点时的运输次数
+        private long arrivalTime = SimClock.NO_TIME; // 到达装货点时间（不换电时使用）
+        private long stationArrivalTime = SimClock.NO_TIME; // 到达换电站时间，不换电时为NO_TIME
+        private int station;                     // 换电站下标
+        private int socBeforeExchange;           // 换电前SOC(0.01%)
+        private long afterExchangeTime;          // 换电结束到达装货点的时间(秒)
+    }
+}
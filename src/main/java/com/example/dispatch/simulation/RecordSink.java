@@ -0,0 +1,31 @@
+package com.example.dispatch.simulation;
+
+import com.example.dispatch.model.ExchangeRecord;
+import com.example.dispatch.model.GeDispatchScheduleRecord;
+
+import java.time.LocalDateTime;
+
+/**
+ * 模拟记录输出
+ * 模拟按时间顺序推进，记录在生成时立即输出：换电记录在换电开始时输出，
+ * 调度记录在车辆回到装货点、本趟运输完成时输出
+ */
+public interface RecordSink {
+
+    /**
+     * 一趟运输完成
+     */
+    void onScheduleRecord(GeDispatchScheduleRecord record);
+
+    /**
+     * 一次换电完成排程
+     */
+    void onExchangeRecord(ExchangeRecord record);
+
+    /**
+     * 增量重新规划：从指定时间开始重新模拟，此后输出的记录替代之前该时间之后的记录
+     * @param time 重新模拟的起始时间
+     */
+    default void onRewind(LocalDateTime time) {
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.dispatch.simulation;
+
+import cn.hutool.json.JSONUtil;
+import com.example.dispatch.model.ExchangeRecord;
+import com.example.dispatch.model.GeDispatchScheduleRecord;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RStream;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.stream.StreamAddArgs;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Redis Stream记录输出
+ * 每条记录作为一个Stream条目（type + JSON），Stream长度按近似裁剪保持在上限附近
+ */
+@Slf4j
+public class RedisStreamRecordSink implements RecordSink {
+
+    private final RStream<String, String> stream;
+    private final int maxLength;
+
+    /**
+     * @param redissonClient Redisson客户端
+     * @param streamName Stream键名
+     * @param maxLength Stream保留的最大条目数
+     */
+    public RedisStreamRecordSink(RedissonClient redissonClient, String streamName, int maxLength) {
+        this.stream = redissonClient.getStream(streamName);
+        this.maxLength = maxLength;
+    }
+
+    @Override
+    public void onScheduleRecord(GeDispatchScheduleRecord record) {
+        add("schedule", JSONUtil.toJsonStr(record));
+    }
+
+    @Override
+    public void onExchangeRecord(ExchangeRecord record) {
+        add("exchange", JSONUtil.toJsonStr(record));
+    }
+
+    @Override
+    public void onRewind(LocalDateTime time) {
+        add("rewind", time.toString());
+    }
+
+    private void add(String type, String payload) {
+        Map<String, String> entry = new HashMap<>();
+        entry.put("type", type);
+        entry.put("payload", payload);
+        try {
+            stream.add(StreamAddArgs.entries(entry).trimNonStrict().maxLen(maxLength).noLimit());
+        } catch (Exception e) {
+            log.warn("写入记录Stream失败：{}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.dispatch.simulation;
+
+import com.example.dispatch.config.RoadNetworkProperties;
+import com.example.dispatch.constant.LocationConstants;
+import com.example.dispatch.model.SiteType;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 路网
+ * 站点按配置顺序编号，构建时用Floyd-Warshall算法一次性计算所有站点之间的最短距离和对应的行驶时间，
+ * 结果保存在按站点编号索引的一维数组中，模拟过程中每次路段查询都只是一次数组读取。
+ * 构建后不可变，可在多个模拟之间共享
+ */
+public final class RoadNetwork {
+
+    /**
+     * 默认路网（LocationConstants中的四个站点和关键路径距离）
+     */
+    public static final RoadNetwork DEFAULT = new RoadNetwork(RoadNetworkProperties.defaults());
+
+    private final int size;
+    private final String[] codes;
+    private final SiteType[] types;
+    private final Map<String, Integer> ordinals;
+    private final double[] distanceKm;    // [from * size + to] 最短路径距离(公里)
+    private final double[] driveMinutes;  // [from * size + to] 最短路径的行驶时间(分钟)
+
+    public RoadNetwork(RoadNetworkProperties properties) {
+        List<RoadNetworkProperties.Site> sites = properties.getSites();
+        if (sites.isEmpty()) {
+            throw new IllegalArgumentException("路网中没有站点");
+        }
+        this.size = sites.size();
+        this.codes = new String[size];
+        this.types = new SiteType[size];
+        this.ordinals = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            RoadNetworkProperties.Site site = sites.get(i);
+            if (site.getCode() == null || site.getType() == null) {
+                throw new IllegalArgumentException("站点缺少编码或类型：" + site);
+            }
+            if (ordinals.put(site.getCode(), i) != null) {
+                throw new IllegalArgumentException("站点编码重复：" + site.getCode());
+            }
+            codes[i] = site.getCode();
+            types[i] = site.getType();
+        }
+
+        this.distanceKm = new double[size * size];
+        this.driveMinutes = new double[size * size];
+        Arrays.fill(distanceKm, Double.POSITIVE_INFINITY);
+        for (int i = 0; i < size; i++) {
+            distanceKm[i * size + i] = 0.0;
+        }
+        for (RoadNetworkProperties.Road road : properties.getRoads()) {
+            double speed = road.getSpeedKmh() != null ? road.getSpeedKmh() : properties.getAverageSpeedKmh();
+            double minutes = road.getDistanceKm() / speed * 60.0;
+            addRoad(ordinal(road.getFrom()), ordinal(road.getTo()), road.getDistanceKm(), minutes);
+            if (!road.isOneWay()) {
+                addRoad(ordinal(road.getTo()), ordinal(road.getFrom()), road.getDistanceKm(), minutes);
+            }
+        }
+
+        shortestPaths();
+        estimateUnconnected(sites, properties.getDetourFactor(), properties.getAverageSpeedKmh());
+    }
+
+    /**
+     * 两个站点之间有多条道路时保留最短的一条
+     */
+    private void addRoad(int from, int to, double km, double minutes) {
+        int cell = from * size + to;
+        if (km < distanceKm[cell]) {
+            distanceKm[cell] = km;
+            driveMinutes[cell] = minutes;
+        }
+    }
+
+    /**
+     * Floyd-Warshall：按距离松弛，行驶时间随最短路径一起更新
+     */
+    private void shortestPaths() {
+        for (int k = 0; k < size; k++) {
+            int kRow = k * size;
+            for (int i = 0; i < size; i++) {
+                int iRow = i * size;
+                double ik = distanceKm[iRow + k];
+                if (ik == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                double ikMinutes = driveMinutes[iRow + k];
+                for (int j = 0; j < size; j++) {
+                    double candidate = ik + distanceKm[kRow + j];
+                    if (candidate < distanceKm[iRow + j]) {
+                        distanceKm[iRow + j] = candidate;
+                        driveMinutes[iRow + j] = ikMinutes + driveMinutes[kRow + j];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 道路不连通的站点按直线距离（Haversine公式）乘以绕行系数估算
+     */
+    private void estimateUnconnected(List<RoadNetworkProperties.Site> sites, double detourFactor, double averageSpeedKmh) {
+        for (int i = 0; i < size; i++) {
+            RoadNetworkProperties.Site from = sites.get(i);
+            for (int j = 0; j < size; j++) {
+                int cell = i * size + j;
+                if (distanceKm[cell] != Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                RoadNetworkProperties.Site to = sites.get(j);
+                double km = LocationConstants.calculateDistance(from.getLatitude(), from.getLongitude(),
+                        to.getLatitude(), to.getLongitude()) / 1000.0 * detourFactor;
+                distanceKm[cell] = km;
+                driveMinutes[cell] = km / averageSpeedKmh * 60.0;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 站点编号
+     * @param code 站点编码
+     * @return 站点编号
+     */
+    public int ordinal(String code) {
+        Integer ordinal = ordinals.get(code);
+        if (ordinal == null) {
+            throw new IllegalArgumentException("未知站点：" + code);
+        }
+        return ordinal;
+    }
+
+    public String code(int site) {
+        return codes[site];
+    }
+
+    public SiteType type(int site) {
+        return types[site];
+    }
+
+    /**
+     * 指定类型的第一个站点
+     * @return 站点编号，没有该类型的站点时为-1
+     */
+    public int firstSite(SiteType type) {
+        for (int i = 0; i < size; i++) {
+            if (types[i] == type) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 指定类型的全部站点
+     * @return 站点编号
+     */
+    public int[] sites(SiteType type) {
+        int[] result = new int[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (types[i] == type) {
+                result[count++] = i;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * 最短路径距离（公里）
+     */
+    public double distanceKm(int from, int to) {
+        return distanceKm[from * size + to];
+    }
+
+    /**
+     * 最短路径按道路车速行驶的时间（分钟）
+     */
+    public double driveMinutes(int from, int to) {
+        return driveMinutes[from * size + to];
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.dispatch.simulation;
+
+import java.util.Arrays;
+
+/**
+ * 车辆固定路段SOC消耗表
+ * 同一次模拟中每辆车各固定路段的SOC消耗不变，首次计算后按（车辆下标, 路段）缓存，
+ * 避免每趟运输重复读取Redis中的历史能耗；蒙特卡洛模拟的各次重复运行共享同一份基准值。
+ * 有多个换电站时，主换电站使用固定路段，其余每个换电站另有进站、出站两个路段，见{@link #toStation}、{@link #fromStation}
+ */
+public class RouteSocTable {
+
+    public static final int LOADING_TO_UNLOADING = 0;   // 装货点到卸货点（满载）
+    public static final int UNLOADING_TO_CHARGING = 1;  // 卸货点到换电站
+    public static final int CHARGING_TO_LOADING = 2;    // 换电站到装货点
+    public static final int COMPLETE_TRANSPORT = 3;     // 完整运输路径
+    public static final int UNLOADING_TO_LOADING = 4;   // 卸货点返程到装货点
+    public static final int LEG_COUNT = 5;             // 路段数量
+
+    private final double[] values;  // SOC消耗(%)，未计算时为NaN
+    private final int legCount;     // 每辆车的路段数量
+
+    public RouteSocTable(int truckCount) {
+        this(truckCount, 1);
+    }
+
+    /**
+     * @param truckCount 车辆数量
+     * @param stationCount 换电站数量（含主换电站）
+     */
+    public RouteSocTable(int truckCount, int stationCount) {
+        this.legCount = LEG_COUNT + 2 * (stationCount - 1);
+        this.values = new double[truckCount * legCount];
+        Arrays.fill(values, Double.NaN);
+    }
+
+    private RouteSocTable(double[] values, int legCount) {
+        this.values = values;
+        this.legCount = legCount;
+    }
+
+    /**
+     * 卸货点到换电站的路段
+     * @param station 换电站下标，0为主换电站
+     */
+    public static int toStation(int station) {
+        return station == 0 ? UNLOADING_TO_CHARGING : LEG_COUNT + 2 * (station - 1);
+    }
+
+    /**
+     * 换电站到装货点的路段
+     * @param station 换电站下标，0为主换电站
+     */
+    public static int fromStation(int station) {
+        return station == 0 ? CHARGING_TO_LOADING : LEG_COUNT + 2 * (station - 1) + 1;
+    }
+
+    /**
+     * 路段对应的换电站下标，固定路段返回-1
+     */
+    public static int stationOf(int leg) {
+        return leg < LEG_COUNT ? -1 : (leg - LEG_COUNT) / 2 + 1;
+    }
+
+    /**
+     * 每辆车的路段数量（含各换电站的进站、出站路段）
+     */
+    public int legCount() {
+        return legCount;
+    }
+
+    /**
+     * 获取SOC消耗
+     * @return SOC消耗(%)，未计算时返回NaN
+     */
+    public double get(int truckIndex, int leg) {
+        return values[truckIndex * legCount + leg];
+    }
+
+    public void put(int truckIndex, int leg, double soc) {
+        values[truckIndex * legCount + leg] = soc;
+    }
+
+    /**
+     * 清除某辆车的缓存（车辆路径状态变化后重新计算）
+     */
+    public void clear(int truckIndex) {
+        Arrays.fill(values, truckIndex * legCount, (truckIndex + 1) * legCount, Double.NaN);
+    }
+
+    /**
+     * 复制消耗表
+     */
+    public RouteSocTable copy() {
+        return new RouteSocTable(values.clone(), legCount);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.dispatch.simulation;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * 模拟时钟
+ * 模拟内部时间以相对起点的秒数(long)表示，事件比较和时间推进都是基本类型运算；
+ * 只有生成换电记录、调度记录等输出时才转换为LocalDateTime
+ */
+public final class SimClock {
+
+    /**
+     * 表示尚未设置的时间
+     */
+    public static final long NO_TIME = Long.MIN_VALUE;
+
+    private final LocalDateTime origin;  // 时钟起点
+
+    public SimClock(LocalDateTime origin) {
+        this.origin = origin;
+    }
+
+    public LocalDateTime getOrigin() {
+        return origin;
+    }
+
+    /**
+     * LocalDateTime转换为模拟时间
+     * @return 相对起点的秒数
+     */
+    public long toSimTime(LocalDateTime time) {
+        return ChronoUnit.SECONDS.between(origin, time);
+    }
+
+    /**
+     * 模拟时间转换为LocalDateTime
+     * @param simTime 相对起点的秒数
+     */
+    public LocalDateTime toDateTime(long simTime) {
+        return origin.plusSeconds(simTime);
+    }
+
+    /**
+     * 分钟数转换为模拟时间长度
+     */
+    public static long minutes(long minutes) {
+        return minutes * 60;
+    }
+}
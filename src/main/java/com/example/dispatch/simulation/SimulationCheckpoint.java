@@ -0,0 +1,26 @@
+package com.example.dispatch.simulation;
+
+import com.example.dispatch.model.GeDispatchScheduleRecord;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 调度模拟检查点
+ * 保存某一模拟时刻之前所有事件处理完成后的完整状态，
+ * 有车辆上报新数据时从不晚于受影响时间的检查点继续模拟，而不必从头重算
+ */
+@Data
+public class SimulationCheckpoint {
+    private long time;                                           // 检查点模拟时间
+    private FleetState fleet;                                    // 车队状态副本
+    private int remainingCargo;                                  // 剩余货物(吨)
+    private Set<String> truckCurRouteSet;                        // 仍处于初始路径中的车辆
+    private Map<String, GeDispatchScheduleRecord> currentTripRecords; // 进行中的运输记录副本
+    private int scheduleRecordCount;                             // 已完成的调度记录数量
+    private List<SimulationEvent> pendingEvents;                 // 待处理事件
+    private long nextEventSequence;                              // 下一个事件序号
+    private List<StationCheckpoint> stations;                    // 各换电站状态（按换电站注册表下标）
+}
@@ -0,0 +1,60 @@
+package com.example.dispatch.simulation;
+
+import lombok.Getter;
+
+/**
+ * 模拟事件
+ * 事件日历中的一个元素：某辆车在某个时间点发生的状态变化
+ */
+@Getter
+public class SimulationEvent implements Comparable<SimulationEvent> {
+
+    /**
+     * 事件类型枚举
+     */
+    public enum Type {
+        DEPART("装货点出发"),
+        ARRIVE_UNLOADING("到达卸货点"),
+        ENTER_STATION("进入换电站"),
+        SWAP_DONE("换电完成"),
+        ARRIVE_LOADING("到达装货点");
+
+        private final String description;
+
+        Type(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    private final Type type;            // 事件类型
+    private final long time;            // 事件发生时间(模拟时间)
+    private final int truckIndex;       // 关联车辆在车队状态中的下标
+    private final long sequence;        // 入队序号，同一时间的事件按入队顺序处理
+
+    SimulationEvent(Type type, long time, int truckIndex, long sequence) {
+        this.type = type;
+        this.time = time;
+        this.truckIndex = truckIndex;
+        this.sequence = sequence;
+    }
+
+    @Override
+    public int compareTo(SimulationEvent other) {
+        int cmp = Long.compare(time, other.time);
+        return cmp != 0 ? cmp : Long.compare(sequence, other.sequence);
+    }
+
+    @Override
+    public String toString() {
+        return "SimulationEvent{" +
+                "type=" + type +
+                ", time=" + time +
+                ", truckIndex=" + truckIndex +
+                ", sequence=" + sequence +
+                '}';
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.dispatch.simulation;
+
+/**
+ * 模拟运行指标
+ * 换电站和调度模拟在换电排程、运输完成时直接回调，参数均为基本类型，时间为模拟时间(秒)。
+ * 默认不统计，只有线上调度计划需要输出运行指标
+ */
+public interface SimulationMetrics {
+
+    /**
+     * 不统计
+     */
+    SimulationMetrics NOOP = new SimulationMetrics() {
+    };
+
+    /**
+     * 一次换电完成排程
+     * @param arrivalTime 到达换电站时间
+     * @param startTime 开始换电时间
+     * @param availableBatteries 换电后仍可用的电池数量
+     */
+    default void onExchange(long arrivalTime, long startTime, int availableBatteries) {
+    }
+
+    /**
+     * 一趟运输完成
+     * @param endTime 回到装货点时间
+     * @param truckNo 车牌号
+     * @param transportFrequency 运输次数
+     */
+    default void onTripCompleted(long endTime, String truckNo, int transportFrequency) {
+    }
+
+    /**
+     * 增量重新规划：从指定时间开始重新模拟，该时间之后的统计将重新回调
+     * @param time 重新模拟的起始时间
+     */
+    default void onRewind(long time) {
+    }
+}
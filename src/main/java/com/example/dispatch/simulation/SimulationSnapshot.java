@@ -0,0 +1,35 @@
+package com.example.dispatch.simulation;
+
+import com.example.dispatch.model.ExchangeRecord;
+import com.example.dispatch.model.GeDispatchScheduleRecord;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 调度模拟快照
+ * 调度计划的完整状态：当前状态、全部检查点和已生成的记录，
+ * 应用重启后从快照恢复即可继续增量规划，不必从Redis完整重建
+ */
+@Data
+public class SimulationSnapshot {
+    private LocalDateTime initialTime;                         // 模拟初始时间
+    private SimulationCheckpoint current;                      // 模拟结束时的状态
+    private List<SimulationCheckpoint> checkpoints;            // 检查点（按模拟时间排序）
+    private List<GeDispatchScheduleRecord> scheduleRecords;    // 调度记录
+    private List<ExchangeRecord> exchangeRecords;              // 换电记录
+    private Map<String, Long> truckReplanTimes;                // 车辆最近一次重新规划所基于的检查点时间
+    private Map<String, LocalDateTime> reportTimes;            // 规划时各车辆的最新上报时间
+
+    public SimulationSnapshot() {
+        this.checkpoints = new ArrayList<>();
+        this.scheduleRecords = new ArrayList<>();
+        this.exchangeRecords = new ArrayList<>();
+        this.truckReplanTimes = new HashMap<>();
+        this.reportTimes = new HashMap<>();
+    }
+}
@@ -0,0 +1,443 @@
+package com.example.dispatch.simulation;
+
+import com.example.dispatch.model.Battery;
+import com.example.dispatch.model.ExchangeRecord;
+import com.example.dispatch.model.GeDispatchScheduleRecord;
+import com.example.dispatch.model.Truck;
+import com.example.dispatch.util.SocFixedPoint;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 调度模拟快照的二进制编解码
+ * 快照按定长字段顺序编码，通过内存映射文件写入和读取；
+ * 先写临时文件再原子替换，进程中途退出不会留下不完整的快照
+ */
+public final class SnapshotCodec {
+
+    private static final int MAGIC = 0x44534E50;   // "DSNP"
+    private static final int VERSION = 5;
+    private static final long NULL_TIME = Long.MIN_VALUE;
+    private static final int NULL_INT = Integer.MIN_VALUE;
+
+    private SnapshotCodec() {
+    }
+
+    /**
+     * 写入快照文件
+     * @param path 快照文件路径
+     * @param snapshot 快照
+     */
+    public static void write(Path path, SimulationSnapshot snapshot) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        writeDateTime(out, snapshot.getInitialTime());
+        writeCheckpoint(out, snapshot.getCurrent());
+
+        out.writeInt(snapshot.getCheckpoints().size());
+        for (SimulationCheckpoint checkpoint : snapshot.getCheckpoints()) {
+            writeCheckpoint(out, checkpoint);
+        }
+        out.writeInt(snapshot.getScheduleRecords().size());
+        for (GeDispatchScheduleRecord record : snapshot.getScheduleRecords()) {
+            writeScheduleRecord(out, record);
+        }
+        out.writeInt(snapshot.getExchangeRecords().size());
+        for (ExchangeRecord record : snapshot.getExchangeRecords()) {
+            writeExchangeRecord(out, record);
+        }
+        out.writeInt(snapshot.getTruckReplanTimes().size());
+        for (Map.Entry<String, Long> entry : snapshot.getTruckReplanTimes().entrySet()) {
+            writeString(out, entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+        out.writeInt(snapshot.getReportTimes().size());
+        for (Map.Entry<String, LocalDateTime> entry : snapshot.getReportTimes().entrySet()) {
+            writeString(out, entry.getKey());
+            writeDateTime(out, entry.getValue());
+        }
+        out.flush();
+
+        byte[] data = bytes.toByteArray();
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, data.length);
+            buffer.put(data);
+            buffer.force();
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 读取快照文件
+     * @param path 快照文件路径
+     * @return 快照，文件格式或版本不符时返回null
+     */
+    public static SimulationSnapshot read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.remaining() < 8 || in.getInt() != MAGIC || in.getInt() != VERSION) {
+                return null;
+            }
+
+            SimulationSnapshot snapshot = new SimulationSnapshot();
+            snapshot.setInitialTime(readDateTime(in));
+            snapshot.setCurrent(readCheckpoint(in));
+
+            int checkpointCount = in.getInt();
+            for (int i = 0; i < checkpointCount; i++) {
+                snapshot.getCheckpoints().add(readCheckpoint(in));
+            }
+            int scheduleRecordCount = in.getInt();
+            for (int i = 0; i < scheduleRecordCount; i++) {
+                snapshot.getScheduleRecords().add(readScheduleRecord(in));
+            }
+            int exchangeRecordCount = in.getInt();
+            for (int i = 0; i < exchangeRecordCount; i++) {
+                snapshot.getExchangeRecords().add(readExchangeRecord(in));
+            }
+            int replanTimeCount = in.getInt();
+            for (int i = 0; i < replanTimeCount; i++) {
+                snapshot.getTruckReplanTimes().put(readString(in), in.getLong());
+            }
+            int reportTimeCount = in.getInt();
+            for (int i = 0; i < reportTimeCount; i++) {
+                snapshot.getReportTimes().put(readString(in), readDateTime(in));
+            }
+            return snapshot;
+        }
+    }
+
+    private static void writeCheckpoint(DataOutputStream out, SimulationCheckpoint checkpoint) throws IOException {
+        out.writeLong(checkpoint.getTime());
+        writeFleet(out, checkpoint.getFleet());
+        out.writeInt(checkpoint.getRemainingCargo());
+
+        out.writeInt(checkpoint.getTruckCurRouteSet().size());
+        for (String truckNo : checkpoint.getTruckCurRouteSet()) {
+            writeString(out, truckNo);
+        }
+        out.writeInt(checkpoint.getCurrentTripRecords().size());
+        for (Map.Entry<String, GeDispatchScheduleRecord> entry : checkpoint.getCurrentTripRecords().entrySet()) {
+            writeString(out, entry.getKey());
+            writeScheduleRecord(out, entry.getValue());
+        }
+        out.writeInt(checkpoint.getScheduleRecordCount());
+
+        out.writeInt(checkpoint.getPendingEvents().size());
+        for (SimulationEvent event : checkpoint.getPendingEvents()) {
+            out.writeByte(event.getType().ordinal());
+            out.writeLong(event.getTime());
+            out.writeInt(event.getTruckIndex());
+            out.writeLong(event.getSequence());
+        }
+        out.writeLong(checkpoint.getNextEventSequence());
+        out.writeInt(checkpoint.getStations().size());
+        for (StationCheckpoint station : checkpoint.getStations()) {
+            writeStation(out, station);
+        }
+    }
+
+    private static SimulationCheckpoint readCheckpoint(ByteBuffer in) {
+        SimulationCheckpoint checkpoint = new SimulationCheckpoint();
+        checkpoint.setTime(in.getLong());
+        checkpoint.setFleet(readFleet(in));
+        checkpoint.setRemainingCargo(in.getInt());
+
+        int routeCount = in.getInt();
+        Set<String> truckCurRouteSet = new HashSet<>();
+        for (int i = 0; i < routeCount; i++) {
+            truckCurRouteSet.add(readString(in));
+        }
+        checkpoint.setTruckCurRouteSet(truckCurRouteSet);
+
+        int tripCount = in.getInt();
+        Map<String, GeDispatchScheduleRecord> tripRecords = new HashMap<>();
+        for (int i = 0; i < tripCount; i++) {
+            tripRecords.put(readString(in), readScheduleRecord(in));
+        }
+        checkpoint.setCurrentTripRecords(tripRecords);
+        checkpoint.setScheduleRecordCount(in.getInt());
+
+        SimulationEvent.Type[] types = SimulationEvent.Type.values();
+        int eventCount = in.getInt();
+        List<SimulationEvent> events = new ArrayList<>(eventCount);
+        for (int i = 0; i < eventCount; i++) {
+            SimulationEvent.Type type = types[in.get()];
+            long time = in.getLong();
+            int truckIndex = in.getInt();
+            events.add(new SimulationEvent(type, time, truckIndex, in.getLong()));
+        }
+        checkpoint.setPendingEvents(events);
+        checkpoint.setNextEventSequence(in.getLong());
+        int stationCount = in.getInt();
+        List<StationCheckpoint> stations = new ArrayList<>(stationCount);
+        for (int i = 0; i < stationCount; i++) {
+            stations.add(readStation(in));
+        }
+        checkpoint.setStations(stations);
+        return checkpoint;
+    }
+
+    private static void writeFleet(DataOutputStream out, FleetState fleet) throws IOException {
+        out.writeInt(fleet.size());
+        for (int i = 0; i < fleet.size(); i++) {
+            writeString(out, fleet.getTruckNo(i));
+            out.writeDouble(fleet.getCapacity(i));
+            out.writeInt(fleet.getSoc(i));
+            out.writeInt(fleet.getTripCount(i));
+            out.writeInt(fleet.getRemainingCargo(i));
+            out.writeLong(fleet.getNextFreeTime(i));
+            out.writeInt(fleet.getExchangeStation(i));
+        }
+    }
+
+    private static FleetState readFleet(ByteBuffer in) {
+        int size = in.getInt();
+        List<Truck> trucks = new ArrayList<>(size);
+        int[] soc = new int[size];
+        int[] tripCount = new int[size];
+        int[] remainingCargo = new int[size];
+        long[] nextFreeTime = new long[size];
+        int[] exchangeStation = new int[size];
+        for (int i = 0; i < size; i++) {
+            String truckNo = readString(in);
+            double capacity = in.getDouble();
+            trucks.add(new Truck(truckNo, 0, capacity));
+            soc[i] = in.getInt();
+            tripCount[i] = in.getInt();
+            remainingCargo[i] = in.getInt();
+            nextFreeTime[i] = in.getLong();
+            exchangeStation[i] = in.getInt();
+        }
+
+        FleetState fleet = new ColumnarFleetState(trucks);
+        for (int i = 0; i < size; i++) {
+            fleet.setSoc(i, soc[i]);
+            fleet.setTripCount(i, tripCount[i]);
+            fleet.setRemainingCargo(i, remainingCargo[i]);
+            fleet.setNextFreeTime(i, nextFreeTime[i]);
+            fleet.setExchangeStation(i, exchangeStation[i]);
+        }
+        return fleet;
+    }
+
+    private static void writeStation(DataOutputStream out, StationCheckpoint station) throws IOException {
+        out.writeInt(station.getBatteries().size());
+        for (Battery battery : station.getBatteries()) {
+            writeString(out, battery.getPositionNo());
+            out.writeInt(battery.getSoc());
+            out.writeBoolean(battery.isCharging());
+            out.writeLong(battery.getChargeCompleteTime());
+        }
+        out.writeInt(station.getWaitingQueue().size());
+        for (Truck truck : station.getWaitingQueue()) {
+            writeString(out, truck.getTruckNo());
+            out.writeInt(SocFixedPoint.of(truck.getSoc()));
+            writeString(out, truck.getCapacity().toPlainString());
+            out.writeInt(truck.getTransportFrequency());
+            writeDateTime(out, truck.getStartAwaitTime());
+        }
+        out.writeInt(station.getExchangeRecordCount());
+        out.writeLong(station.getLastExchangeEndTime());
+        out.writeInt(station.getLaneFreeTimes().length);
+        for (long laneFreeTime : station.getLaneFreeTimes()) {
+            out.writeLong(laneFreeTime);
+        }
+        out.writeLong(station.getTotalWaitTime());
+        out.writeInt(station.getReservations().length);
+        for (long reservation : station.getReservations()) {
+            out.writeLong(reservation);
+        }
+    }
+
+    private static StationCheckpoint readStation(ByteBuffer in) {
+        StationCheckpoint station = new StationCheckpoint();
+        int batteryCount = in.getInt();
+        List<Battery> batteries = new ArrayList<>(batteryCount);
+        for (int i = 0; i < batteryCount; i++) {
+            String positionNo = readString(in);
+            int soc = in.getInt();
+            boolean charging = in.get() != 0;
+            Battery battery = new Battery(positionNo, in.getLong());
+            battery.setSoc(soc);
+            battery.setCharging(charging);
+            batteries.add(battery);
+        }
+        station.setBatteries(batteries);
+
+        int queueSize = in.getInt();
+        List<Truck> waitingQueue = new ArrayList<>(queueSize);
+        for (int i = 0; i < queueSize; i++) {
+            String truckNo = readString(in);
+            int soc = in.getInt();
+            Truck truck = new Truck(truckNo, SocFixedPoint.toDecimal(soc), new BigDecimal(readString(in)));
+            truck.setTransportFrequency(in.getInt());
+            truck.setStartAwaitTime(readDateTime(in));
+            waitingQueue.add(truck);
+        }
+        station.setWaitingQueue(waitingQueue);
+        station.setExchangeRecordCount(in.getInt());
+        station.setLastExchangeEndTime(in.getLong());
+        long[] laneFreeTimes = new long[in.getInt()];
+        for (int i = 0; i < laneFreeTimes.length; i++) {
+            laneFreeTimes[i] = in.getLong();
+        }
+        station.setLaneFreeTimes(laneFreeTimes);
+        station.setTotalWaitTime(in.getLong());
+        long[] reservations = new long[in.getInt()];
+        for (int i = 0; i < reservations.length; i++) {
+            reservations[i] = in.getLong();
+        }
+        station.setReservations(reservations);
+        return station;
+    }
+
+    private static void writeExchangeRecord(DataOutputStream out, ExchangeRecord record) throws IOException {
+        writeString(out, record.getTruckNo());
+        out.writeInt(SocFixedPoint.of(record.getSoc()));
+        writeString(out, record.getCapacity());
+        writeDateTime(out, record.getStartAwaitTime());
+        writeDateTime(out, record.getStartExchangeTime());
+        writeDateTime(out, record.getUseBatteryTime());
+        out.writeInt(record.getDuration());
+        writeDateTime(out, record.getBatteryChargeCompleteTime());
+        writeString(out, record.getPositionNo());
+        out.writeInt(record.getTransporFrequency());
+        out.writeInt(record.getLaneNo());
+        writeString(out, record.getStationCode());
+    }
+
+    private static ExchangeRecord readExchangeRecord(ByteBuffer in) {
+        ExchangeRecord record = new ExchangeRecord();
+        record.setTruckNo(readString(in));
+        record.setSoc(SocFixedPoint.toDecimal(in.getInt()));
+        record.setCapacity(readString(in));
+        record.setStartAwaitTime(readDateTime(in));
+        record.setStartExchangeTime(readDateTime(in));
+        record.setUseBatteryTime(readDateTime(in));
+        record.setDuration(in.getInt());
+        record.setBatteryChargeCompleteTime(readDateTime(in));
+        record.setPositionNo(readString(in));
+        record.setTransporFrequency(in.getInt());
+        record.setLaneNo(in.getInt());
+        record.setStationCode(readString(in));
+        return record;
+    }
+
+    private static void writeScheduleRecord(DataOutputStream out, GeDispatchScheduleRecord record) throws IOException {
+        out.writeLong(record.getId() == null ? NULL_TIME : record.getId());
+        writeString(out, record.getTruckNo());
+        writeString(out, record.getFromLocation());
+        writeString(out, record.getToLocation());
+        writeTime(out, record.getStartTime());
+        writeTime(out, record.getEndTime());
+        writeInteger(out, record.getNeedExchange());
+        writeString(out, record.getScheduleDate());
+        writeString(out, record.getStatusIcon());
+        writeString(out, record.getStatusText());
+        writeDateTime(out, record.getCreateTime());
+        out.writeBoolean(record.getExchangeRecord() != null);
+        if (record.getExchangeRecord() != null) {
+            writeExchangeRecord(out, record.getExchangeRecord());
+        }
+        writeInteger(out, record.getTransportFrequency());
+    }
+
+    private static GeDispatchScheduleRecord readScheduleRecord(ByteBuffer in) {
+        GeDispatchScheduleRecord record = new GeDispatchScheduleRecord();
+        long id = in.getLong();
+        record.setId(id == NULL_TIME ? null : id);
+        record.setTruckNo(readString(in));
+        record.setFromLocation(readString(in));
+        record.setToLocation(readString(in));
+        record.setStartTime(readTime(in));
+        record.setEndTime(readTime(in));
+        record.setNeedExchange(readInteger(in));
+        record.setScheduleDate(readString(in));
+        record.setStatusIcon(readString(in));
+        record.setStatusText(readString(in));
+        record.setCreateTime(readDateTime(in));
+        if (in.get() != 0) {
+            record.setExchangeRecord(readExchangeRecord(in));
+        }
+        record.setTransportFrequency(readInteger(in));
+        return record;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeDateTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeLong(value == null ? NULL_TIME : value.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(value == null ? 0 : value.getNano());
+    }
+
+    private static LocalDateTime readDateTime(ByteBuffer in) {
+        long epochSecond = in.getLong();
+        int nano = in.getInt();
+        return epochSecond == NULL_TIME ? null : LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+    }
+
+    private static void writeTime(DataOutputStream out, LocalTime value) throws IOException {
+        out.writeLong(value == null ? NULL_TIME : value.toNanoOfDay());
+    }
+
+    private static LocalTime readTime(ByteBuffer in) {
+        long nanoOfDay = in.getLong();
+        return nanoOfDay == NULL_TIME ? null : LocalTime.ofNanoOfDay(nanoOfDay);
+    }
+
+    private static void writeInteger(DataOutputStream out, Integer value) throws IOException {
+        out.writeInt(value == null ? NULL_INT : value);
+    }
+
+    private static Integer readInteger(ByteBuffer in) {
+        int value = in.getInt();
+        return value == NULL_INT ? null : value;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.dispatch.simulation;
+
+import com.example.dispatch.model.Battery;
+import com.example.dispatch.model.Truck;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 换电站状态检查点
+ * 保存某一模拟时刻换电站的电池、排队和换电记录数量，用于增量重新规划时回滚
+ */
+@Data
+public class StationCheckpoint {
+    private List<Battery> batteries;             // 电池状态副本
+    private List<Truck> waitingQueue;            // 等待换电队列
+    private int exchangeRecordCount;             // 检查点时的换电记录数量
+    private long lastExchangeEndTime;            // 上一次排程的换电结束时间(模拟时间)
+    private long[] laneFreeTimes;                // 各换电通道的空闲时间(模拟时间)，下标为通道编号-1
+    private long totalWaitTime;                  // 累计排队等待时间(秒)
+    private long[] reservations;                 // 已选择该换电站、尚未到达的车辆的到达时间(模拟时间)，升序
+}
@@ -0,0 +1,77 @@
+package com.example.dispatch.simulation;
+
+import com.example.dispatch.model.MonteCarloSettings;
+
+import java.util.SplittableRandom;
+
+/**
+ * 随机行程模型
+ * 车速、装卸货时间和能耗系数按截断正态分布抽样，使用带种子的随机数保证结果可复现。
+ * 每个实例只能在一个模拟中使用（非线程安全）
+ */
+public class StochasticTravelModel implements TravelModel {
+
+    private final MonteCarloSettings settings;
+    private final SplittableRandom random;
+    private double spareGaussian;      // Box-Muller一次生成两个正态样本，缓存第二个
+    private boolean hasSpareGaussian;
+
+    /**
+     * @param settings 分布参数
+     * @param seed 随机数种子
+     */
+    public StochasticTravelModel(MonteCarloSettings settings, long seed) {
+        this.settings = settings;
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public long driveMinutes(double distanceKm) {
+        return (long) (distanceKm / nextSpeed() * 60.0);
+    }
+
+    @Override
+    public long legMinutes(double freeFlowMinutes) {
+        // 道路车速按平均车速的比例随机波动
+        return (long) (freeFlowMinutes * settings.getSpeedMeanKmh() / nextSpeed());
+    }
+
+    @Override
+    public long dwellMinutes() {
+        double dwell = settings.getDwellMeanMinutes() + settings.getDwellStdDevMinutes() * nextGaussian();
+        return Math.max(0L, Math.round(dwell));
+    }
+
+    @Override
+    public double consumptionFactor() {
+        return Math.max(settings.getMinConsumptionFactor(),
+                1.0 + settings.getConsumptionStdDevRatio() * nextGaussian());
+    }
+
+    /**
+     * 车速样本（km/h）
+     */
+    private double nextSpeed() {
+        return Math.max(settings.getMinSpeedKmh(),
+                settings.getSpeedMeanKmh() + settings.getSpeedStdDevKmh() * nextGaussian());
+    }
+
+    /**
+     * 标准正态分布样本（Box-Muller变换）
+     */
+    private double nextGaussian() {
+        if (hasSpareGaussian) {
+            hasSpareGaussian = false;
+            return spareGaussian;
+        }
+        double u1;
+        do {
+            u1 = random.nextDouble();
+        } while (u1 == 0.0);
+        double u2 = random.nextDouble();
+        double radius = Math.sqrt(-2.0 * Math.log(u1));
+        spareGaussian = radius * Math.sin(2.0 * Math.PI * u2);
+        hasSpareGaussian = true;
+        return radius * Math.cos(2.0 * Math.PI * u2);
+    }
+}
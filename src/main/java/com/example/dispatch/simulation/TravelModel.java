@@ -0,0 +1,35 @@
+package com.example.dispatch.simulation;
+
+/**
+ * 行程模型
+ * 提供模拟中每一段行程的行驶时间、装卸货停留时间和能耗系数，
+ * 确定性模型用于日常调度，随机模型用于蒙特卡洛模拟
+ */
+public interface TravelModel {
+
+    /**
+     * 行驶时间
+     * @param distanceKm 行驶距离（公里）
+     * @return 行驶时间（分钟）
+     */
+    long driveMinutes(double distanceKm);
+
+    /**
+     * 路网路段的行驶时间
+     * @param freeFlowMinutes 按道路平均车速行驶的时间（分钟），见{@link RoadNetwork#driveMinutes(int, int)}
+     * @return 行驶时间（分钟）
+     */
+    long legMinutes(double freeFlowMinutes);
+
+    /**
+     * 装货或卸货停留时间
+     * @return 停留时间（分钟）
+     */
+    long dwellMinutes();
+
+    /**
+     * 能耗系数，与按单公里能耗计算出的SOC消耗相乘
+     * @return 能耗系数，1.0表示与能耗模型一致
+     */
+    double consumptionFactor();
+}
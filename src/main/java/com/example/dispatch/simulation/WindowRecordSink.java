@@ -0,0 +1,85 @@
+package com.example.dispatch.simulation;
+
+import com.example.dispatch.model.ExchangeRecord;
+import com.example.dispatch.model.GeDispatchScheduleRecord;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 内存窗口记录输出
+ * 只保留最近的若干条记录，超出容量时丢弃最早的记录
+ */
+public class WindowRecordSink implements RecordSink {
+
+    private final int capacity;
+    private final Deque<GeDispatchScheduleRecord> scheduleRecords;
+    private final Deque<ExchangeRecord> exchangeRecords;
+
+    /**
+     * @param capacity 每类记录保留的最大条数
+     */
+    public WindowRecordSink(int capacity) {
+        this.capacity = capacity;
+        this.scheduleRecords = new ArrayDeque<>();
+        this.exchangeRecords = new ArrayDeque<>();
+    }
+
+    @Override
+    public synchronized void onScheduleRecord(GeDispatchScheduleRecord record) {
+        if (scheduleRecords.size() >= capacity) {
+            scheduleRecords.pollFirst();
+        }
+        scheduleRecords.offerLast(record);
+    }
+
+    @Override
+    public synchronized void onExchangeRecord(ExchangeRecord record) {
+        if (exchangeRecords.size() >= capacity) {
+            exchangeRecords.pollFirst();
+        }
+        exchangeRecords.offerLast(record);
+    }
+
+    @Override
+    public synchronized void onRewind(LocalDateTime time) {
+        // 调度记录只有日内时间，按调度日期和结束时间还原
+        Iterator<GeDispatchScheduleRecord> scheduleIterator = scheduleRecords.descendingIterator();
+        while (scheduleIterator.hasNext()) {
+            GeDispatchScheduleRecord record = scheduleIterator.next();
+            if (record.getEndTime() == null || LocalDate.parse(record.getScheduleDate()).atTime(record.getEndTime()).isBefore(time)) {
+                break;
+            }
+            scheduleIterator.remove();
+        }
+
+        Iterator<ExchangeRecord> exchangeIterator = exchangeRecords.descendingIterator();
+        while (exchangeIterator.hasNext()) {
+            if (exchangeIterator.next().getStartAwaitTime().isBefore(time)) {
+                break;
+            }
+            exchangeIterator.remove();
+        }
+    }
+
+    /**
+     * 获取窗口内的调度记录
+     * @return 按完成顺序排列的记录副本
+     */
+    public synchronized List<GeDispatchScheduleRecord> getScheduleRecords() {
+        return new ArrayList<>(scheduleRecords);
+    }
+
+    /**
+     * 获取窗口内的换电记录
+     * @return 按换电顺序排列的记录副本
+     */
+    public synchronized List<ExchangeRecord> getExchangeRecords() {
+        return new ArrayList<>(exchangeRecords);
+    }
+}
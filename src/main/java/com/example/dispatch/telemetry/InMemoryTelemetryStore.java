@@ -0,0 +1,106 @@
+package com.example.dispatch.telemetry;
+
+import com.example.dispatch.model.GeTruckDrivingRecord;
+import com.example.dispatch.model.Truck;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 进程内遥测数据存储
+ * 记录以对象保存，不做JSON序列化；每辆车的历史轨迹是不可变数组，追加时复制后CAS替换，
+ * 读取不加锁且总是看到完整的轨迹。数据不过期，供模拟、测试、基准测试和没有Redis的回放使用
+ */
+public class InMemoryTelemetryStore implements TelemetryStore {
+
+    private static final GeTruckDrivingRecord[] EMPTY = new GeTruckDrivingRecord[0];
+
+    private final Map<String, GeTruckDrivingRecord> currentStatus = new ConcurrentHashMap<>();
+    private final Map<String, AtomicReference<GeTruckDrivingRecord[]>> histories = new ConcurrentHashMap<>();
+    private final Map<String, BigDecimal> energyConsumption = new ConcurrentHashMap<>();
+    private final Map<String, Truck> truckInfo = new ConcurrentHashMap<>();
+
+    @Override
+    public GeTruckDrivingRecord getCurrentStatus(String truckNo) {
+        return currentStatus.get(truckNo);
+    }
+
+    @Override
+    public void putCurrentStatus(GeTruckDrivingRecord record) {
+        currentStatus.put(record.getTruckNo(), record);
+    }
+
+    @Override
+    public List<GeTruckDrivingRecord> getHistory(String truckNo, LocalDateTime since) {
+        AtomicReference<GeTruckDrivingRecord[]> history = histories.get(truckNo);
+        List<GeTruckDrivingRecord> result = new ArrayList<>();
+        if (history == null) {
+            return result;
+        }
+        for (GeTruckDrivingRecord record : history.get()) {
+            if (record.getReportTime() != null && record.getReportTime().isAfter(since)) {
+                result.add(record);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void appendHistory(GeTruckDrivingRecord record) {
+        AtomicReference<GeTruckDrivingRecord[]> history = history(record.getTruckNo());
+        GeTruckDrivingRecord[] current;
+        GeTruckDrivingRecord[] next;
+        do {
+            current = history.get();
+            int kept = Math.min(current.length, HISTORY_SIZE - 1);
+            next = Arrays.copyOfRange(current, current.length - kept, current.length + 1);
+            next[kept] = record;
+        } while (!history.compareAndSet(current, next));
+    }
+
+    @Override
+    public void replaceHistory(String truckNo, List<GeTruckDrivingRecord> records) {
+        int from = Math.max(records.size() - HISTORY_SIZE, 0);
+        history(truckNo).set(records.subList(from, records.size()).toArray(EMPTY));
+    }
+
+    @Override
+    public int getHistorySize(String truckNo) {
+        AtomicReference<GeTruckDrivingRecord[]> history = histories.get(truckNo);
+        return history == null ? 0 : history.get().length;
+    }
+
+    @Override
+    public BigDecimal getEnergyConsumption(String truckNo, boolean loaded) {
+        return energyConsumption.get(truckNo + ":" + loaded);
+    }
+
+    @Override
+    public void putEnergyConsumption(String truckNo, boolean loaded, BigDecimal avgConsumptionPerKm, LocalDateTime updateTime) {
+        energyConsumption.put(truckNo + ":" + loaded, avgConsumptionPerKm);
+    }
+
+    @Override
+    public Truck getTruckInfo(String truckNo) {
+        return truckInfo.get(truckNo);
+    }
+
+    @Override
+    public void putTruckInfo(Truck truck) {
+        truckInfo.put(truck.getTruckNo(), truck);
+    }
+
+    /**
+     * 获取车辆的轨迹引用，不存在时创建
+     */
+    private AtomicReference<GeTruckDrivingRecord[]> history(String truckNo) {
+        AtomicReference<GeTruckDrivingRecord[]> history = histories.get(truckNo);
+        return history != null ? history : histories.computeIfAbsent(truckNo, k -> new AtomicReference<>(EMPTY));
+    }
+}
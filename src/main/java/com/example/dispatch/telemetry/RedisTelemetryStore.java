@@ -0,0 +1,133 @@
+package com.example.dispatch.telemetry;
+
+import cn.hutool.json.JSONUtil;
+import com.example.dispatch.constant.DpConstants;
+import com.example.dispatch.model.GeTruckDrivingRecord;
+import com.example.dispatch.model.Truck;
+import org.redisson.api.RBucket;
+import org.redisson.api.RList;
+import org.redisson.api.RedissonClient;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis遥测数据存储
+ * 键和JSON格式与线上遥测数据一致：当前状态和车辆信息为字符串键，历史轨迹为列表，能耗为带更新时间的JSON（保留24小时）
+ */
+public class RedisTelemetryStore implements TelemetryStore {
+
+    private final RedissonClient redissonClient;
+
+    /**
+     * @param redissonClient Redisson客户端
+     */
+    public RedisTelemetryStore(RedissonClient redissonClient) {
+        this.redissonClient = redissonClient;
+    }
+
+    @Override
+    public GeTruckDrivingRecord getCurrentStatus(String truckNo) {
+        RBucket<String> bucket = redissonClient.getBucket(DpConstants.DP_TRUCK_DRIVING_STATUS_KEY + truckNo);
+        String jsonStr = bucket.get();
+        if (jsonStr == null || jsonStr.trim().isEmpty()) {
+            return null;
+        }
+        return JSONUtil.toBean(jsonStr, GeTruckDrivingRecord.class);
+    }
+
+    @Override
+    public void putCurrentStatus(GeTruckDrivingRecord record) {
+        RBucket<String> bucket = redissonClient.getBucket(DpConstants.DP_TRUCK_DRIVING_STATUS_KEY + record.getTruckNo());
+        bucket.set(JSONUtil.toJsonStr(record));
+    }
+
+    @Override
+    public List<GeTruckDrivingRecord> getHistory(String truckNo, LocalDateTime since) {
+        RList<String> redisList = redissonClient.getList(DpConstants.DP_TRUCK_DRIVING_RECORD + truckNo);
+        List<GeTruckDrivingRecord> history = new ArrayList<>();
+        for (String jsonStr : redisList.range(-HISTORY_SIZE, -1)) {
+            if (jsonStr != null && !jsonStr.trim().isEmpty()) {
+                GeTruckDrivingRecord record = JSONUtil.toBean(jsonStr, GeTruckDrivingRecord.class);
+                if (record != null && record.getReportTime() != null && record.getReportTime().isAfter(since)) {
+                    history.add(record);
+                }
+            }
+        }
+        return history;
+    }
+
+    @Override
+    public void appendHistory(GeTruckDrivingRecord record) {
+        RList<String> redisList = redissonClient.getList(DpConstants.DP_TRUCK_DRIVING_RECORD + record.getTruckNo());
+        redisList.add(JSONUtil.toJsonStr(record));
+        redisList.trim(-HISTORY_SIZE, -1);
+    }
+
+    @Override
+    public void replaceHistory(String truckNo, List<GeTruckDrivingRecord> records) {
+        RList<String> redisList = redissonClient.getList(DpConstants.DP_TRUCK_DRIVING_RECORD + truckNo);
+        redisList.clear();
+        List<String> jsonStrs = new ArrayList<>(records.size());
+        for (GeTruckDrivingRecord record : records) {
+            jsonStrs.add(JSONUtil.toJsonStr(record));
+        }
+        redisList.addAll(jsonStrs);
+        redisList.trim(-HISTORY_SIZE, -1);
+    }
+
+    @Override
+    public int getHistorySize(String truckNo) {
+        return redissonClient.getList(DpConstants.DP_TRUCK_DRIVING_RECORD + truckNo).size();
+    }
+
+    @Override
+    public BigDecimal getEnergyConsumption(String truckNo, boolean loaded) {
+        RBucket<String> bucket = redissonClient.getBucket(energyKey(truckNo, loaded));
+        String jsonStr = bucket.get();
+        if (jsonStr == null || jsonStr.trim().isEmpty()) {
+            return null;
+        }
+        Object consumption = JSONUtil.parseObj(jsonStr).get("avgConsumptionPerKm");
+        return consumption == null ? null : new BigDecimal(consumption.toString());
+    }
+
+    @Override
+    public void putEnergyConsumption(String truckNo, boolean loaded, BigDecimal avgConsumptionPerKm, LocalDateTime updateTime) {
+        Map<String, Object> consumptionData = new HashMap<>();
+        consumptionData.put("vehicleNo", truckNo);
+        consumptionData.put("isLoaded", loaded);
+        consumptionData.put("avgConsumptionPerKm", avgConsumptionPerKm);
+        consumptionData.put("updateTime", updateTime);
+
+        RBucket<String> bucket = redissonClient.getBucket(energyKey(truckNo, loaded));
+        bucket.set(JSONUtil.toJsonStr(consumptionData));
+        // 设置过期时间为24小时
+        bucket.expire(24, TimeUnit.HOURS);
+    }
+
+    @Override
+    public Truck getTruckInfo(String truckNo) {
+        RBucket<String> bucket = redissonClient.getBucket(DpConstants.DP_TRUCK_INFO_KEY + truckNo);
+        String jsonStr = bucket.get();
+        if (jsonStr == null || jsonStr.trim().isEmpty()) {
+            return null;
+        }
+        return JSONUtil.toBean(jsonStr, Truck.class);
+    }
+
+    @Override
+    public void putTruckInfo(Truck truck) {
+        RBucket<String> bucket = redissonClient.getBucket(DpConstants.DP_TRUCK_INFO_KEY + truck.getTruckNo());
+        bucket.set(JSONUtil.toJsonStr(truck));
+    }
+
+    private static String energyKey(String truckNo, boolean loaded) {
+        return DpConstants.DP_TRUCK_DRIVING_CONSUMPTION_PER_KM_KEY + truckNo + ":" + loaded;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.dispatch.telemetry;
+
+import com.example.dispatch.model.GeTruckDrivingRecord;
+import com.example.dispatch.model.Truck;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 车辆遥测数据存储
+ * 车辆当前状态、历史轨迹、平均单公里能耗和车辆信息的读写，轨迹分析、能耗统计、测试数据和遥测回放只通过该接口访问。
+ * 由dispatch.telemetry.store选择实现：redis（默认，Redisson）或memory（进程内）。
+ * 读取返回的记录可能与存储共享，调用方不应修改
+ */
+public interface TelemetryStore {
+
+    /**
+     * 每辆车保留的轨迹点数，与轨迹分析读取的范围一致
+     */
+    int HISTORY_SIZE = 300;
+
+    /**
+     * 获取车辆当前状态
+     * @param truckNo 车牌号
+     * @return 最新一条遥测记录，无数据时返回null
+     */
+    GeTruckDrivingRecord getCurrentStatus(String truckNo);
+
+    /**
+     * 更新车辆当前状态
+     */
+    void putCurrentStatus(GeTruckDrivingRecord record);
+
+    /**
+     * 获取车辆历史轨迹
+     * @param truckNo 车牌号
+     * @param since 只返回上报时间晚于该时间的记录
+     * @return 最近{@link #HISTORY_SIZE}个轨迹点中符合条件的记录，按写入顺序
+     */
+    List<GeTruckDrivingRecord> getHistory(String truckNo, LocalDateTime since);
+
+    /**
+     * 追加一个轨迹点，只保留最近{@link #HISTORY_SIZE}个
+     */
+    void appendHistory(GeTruckDrivingRecord record);
+
+    /**
+     * 替换车辆的全部历史轨迹（生成测试数据用）
+     */
+    void replaceHistory(String truckNo, List<GeTruckDrivingRecord> records);
+
+    /**
+     * 获取车辆历史轨迹点数
+     */
+    int getHistorySize(String truckNo);
+
+    /**
+     * 获取车辆平均单公里能耗
+     * @param truckNo 车牌号
+     * @param loaded 是否满载
+     * @return 平均单公里能耗（kWh/km），无数据时返回null
+     */
+    BigDecimal getEnergyConsumption(String truckNo, boolean loaded);
+
+    /**
+     * 存储车辆平均单公里能耗
+     * @param truckNo 车牌号
+     * @param loaded 是否满载
+     * @param avgConsumptionPerKm 平均单公里能耗（kWh/km）
+     * @param updateTime 更新时间
+     */
+    void putEnergyConsumption(String truckNo, boolean loaded, BigDecimal avgConsumptionPerKm, LocalDateTime updateTime);
+
+    /**
+     * 获取车辆信息
+     * @return 车辆信息，无数据时返回null
+     */
+    Truck getTruckInfo(String truckNo);
+
+    /**
+     * 存储车辆信息
+     */
+    void putTruckInfo(Truck truck);
+}
@@ -0,0 +1,41 @@
+package com.example.dispatch.util;
+
+/**
+ * 换电判断规则
+ * 车辆到达卸货点时，SOC不高于换电阈值（一趟完整运输 + 返回装货点的SOC消耗 + 安全裕度）时必须返程换电。
+ * SOCCalculationService、调度模拟的事件循环和换电时机优化共用该规则
+ */
+public final class ExchangeRule {
+
+    private ExchangeRule() {
+    }
+
+    /**
+     * 换电阈值（%）
+     * @param completeTransportSoc 一趟完整运输的SOC消耗（%）
+     * @param remainingTripSoc 剩余行驶公里数对应的SOC消耗（%）
+     * @param safetyMarginPercent 安全裕度（%）
+     * @return 换电阈值（%）
+     */
+    public static double requiredSoc(double completeTransportSoc, double remainingTripSoc, double safetyMarginPercent) {
+        return completeTransportSoc + remainingTripSoc + safetyMarginPercent;
+    }
+
+    /**
+     * 是否需要换电
+     * @param soc 当前SOC（%）
+     * @param requiredSoc 换电阈值（%）
+     */
+    public static boolean needsExchange(double soc, double requiredSoc) {
+        return soc <= requiredSoc;
+    }
+
+    /**
+     * 是否需要换电（定点数版本）
+     * @param soc 当前SOC(0.01%)
+     * @param requiredSoc 换电阈值(0.01%)
+     */
+    public static boolean needsExchange(int soc, int requiredSoc) {
+        return soc <= requiredSoc;
+    }
+}
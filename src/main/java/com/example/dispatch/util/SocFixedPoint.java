@@ -0,0 +1,103 @@
+package com.example.dispatch.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * SOC定点数运算
+ * SOC以0.01%为单位保存在int中（100% = 10000），能量以0.01kWh为单位；
+ * 所有舍入规则与原BigDecimal实现一致：
+ * <ul>
+ *     <li>BigDecimal/double转换为定点数：四舍五入(HALF_UP)到0.01%</li>
+ *     <li>SOC消耗：距离 × 能耗 / 容量，四舍五入到0.01后 × 100%（与TransportService原算法相同）</li>
+ *     <li>充电时长：(100 - SOC) × (容量 / 100，四舍五入到0.01) / 充电速率，四舍五入到0.01后向上取整为分钟</li>
+ * </ul>
+ * 输入SOC最多两位小数时，结果与BigDecimal计算逐位相同
+ */
+public final class SocFixedPoint {
+
+    /**
+     * 1% 对应的定点数
+     */
+    public static final int ONE_PERCENT = 100;
+
+    /**
+     * 满电 100%
+     */
+    public static final int FULL = 100 * ONE_PERCENT;
+
+    private SocFixedPoint() {
+    }
+
+    /**
+     * BigDecimal转换为0.01单位的定点数（SOC百分比或kWh），四舍五入
+     */
+    public static int of(BigDecimal percent) {
+        return percent.movePointRight(2).setScale(0, RoundingMode.HALF_UP).intValueExact();
+    }
+
+    /**
+     * double百分比转换为定点数，按double的二进制值四舍五入到0.01%
+     */
+    public static int ofPercent(double percent) {
+        return (int) roundHalfUp(percent * ONE_PERCENT);
+    }
+
+    /**
+     * 定点数转换为BigDecimal百分比（两位小数），仅在输出记录等边界处使用
+     */
+    public static BigDecimal toDecimal(int soc) {
+        return BigDecimal.valueOf(soc, 2);
+    }
+
+    /**
+     * 定点数转换为double百分比
+     */
+    public static double toPercent(int soc) {
+        return soc / (double) ONE_PERCENT;
+    }
+
+    /**
+     * 行驶一段距离的SOC消耗
+     * @param distanceKm 距离(km)
+     * @param energyConsumption 能耗(0.01kWh/km)
+     * @param capacity 电池容量(0.01kWh)
+     * @return SOC消耗(0.01%)
+     */
+    public static int consumption(int distanceKm, int energyConsumption, int capacity) {
+        // distance × (energy/100) / (capacity/100) 四舍五入到0.01，即 distance × energy × 100 / capacity 四舍五入到整数
+        return (int) divideHalfUp((long) distanceKm * energyConsumption * 100, capacity) * ONE_PERCENT;
+    }
+
+    /**
+     * 电池充电时长
+     * @param soc 换下电池的SOC(0.01%)
+     * @param capacity 电池容量(0.01kWh)
+     * @param chargeRate 充电速率(0.01kWh/分钟)
+     * @return 充电时长(分钟)
+     */
+    public static int chargeMinutes(int soc, int capacity, int chargeRate) {
+        // 容量/100，四舍五入到0.01kWh
+        long capacityPer = divideHalfUp(capacity, 100);
+        // (FULL - soc)/100 × capacityPer/100 / (chargeRate/100)，四舍五入到0.01分钟
+        long duration = divideHalfUp((FULL - soc) * capacityPer, chargeRate);
+        // 向上取整为分钟
+        return (int) -Math.floorDiv(-duration, 100);
+    }
+
+    /**
+     * 整数除法，四舍五入(HALF_UP，远离零)
+     * @param dividend 被除数
+     * @param divisor 除数（正数）
+     */
+    public static long divideHalfUp(long dividend, long divisor) {
+        if (dividend >= 0) {
+            return (dividend * 2 + divisor) / (divisor * 2);
+        }
+        return -((-dividend * 2 + divisor) / (divisor * 2));
+    }
+
+    private static long roundHalfUp(double value) {
+        return value >= 0 ? (long) Math.floor(value + 0.5) : -(long) Math.floor(-value + 0.5);
+    }
+}
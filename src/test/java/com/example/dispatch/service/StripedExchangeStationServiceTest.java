@@ -0,0 +1,138 @@
+package com.example.dispatch.service;
+
+import com.example.dispatch.model.ExchangeRecord;
+import com.example.dispatch.model.Truck;
+import com.example.dispatch.simulation.SimClock;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 分段换电站测试
+ * 验证只有一段时与整站排程相同，各段的通道和电池编号不重复，以及多个线程同时进站时每辆车都排程且通道和电池不重叠使用
+ */
+public class StripedExchangeStationServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 6, 10, 10, 30);
+
+    @Test
+    public void singleStripeMatchesWholeStation() {
+        SimClock clock = new SimClock(START);
+        ExchangeStationService whole = new ExchangeStationService("S1", 5, 2, clock);
+        StripedExchangeStationService striped = new StripedExchangeStationService("S1", 5, 2, 1, clock);
+        for (int i = 0; i < 12; i++) {
+            LocalDateTime arrivalTime = START.plusMinutes(i * 2);
+            assertEquals(whole.enterStation(truck(i), arrivalTime), striped.enterStation(truck(i), arrivalTime));
+        }
+        List<ExchangeRecord> expected = whole.getExchangeRecords();
+        List<ExchangeRecord> actual = striped.getExchangeRecords();
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getLaneNo(), actual.get(i).getLaneNo());
+            assertEquals(expected.get(i).getPositionNo(), actual.get(i).getPositionNo());
+            assertEquals(expected.get(i).getStartExchangeTime(), actual.get(i).getStartExchangeTime());
+        }
+    }
+
+    @Test
+    public void stripesNumberLanesAndBatteriesWithoutOverlap() {
+        StripedExchangeStationService station = new StripedExchangeStationService("S1", 7, 3, 3, new SimClock(START));
+        for (int i = 0; i < 30; i++) {
+            station.enterStation(truck(i), START);
+        }
+        Set<Integer> lanes = new HashSet<>();
+        Set<String> positions = new HashSet<>();
+        for (ExchangeRecord record : station.getExchangeRecords()) {
+            lanes.add(record.getLaneNo());
+            positions.add(record.getPositionNo());
+        }
+        assertEquals(new HashSet<>(Arrays.asList(1, 2, 3)), lanes);
+        assertEquals(7, positions.size());
+        for (int i = 1; i <= 7; i++) {
+            assertTrue(positions.contains("no" + i));
+        }
+        assertNoOverlap(station.getExchangeRecords());
+    }
+
+    @Test
+    public void concurrentEntrySchedulesEveryTruck() throws InterruptedException {
+        StripedExchangeStationService station = new StripedExchangeStationService("S1", 8, 4, 4, new SimClock(START));
+        int threads = 4;
+        int trucksPerThread = 50;
+        CountDownLatch ready = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t * trucksPerThread;
+            Thread worker = new Thread(() -> {
+                try {
+                    ready.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < trucksPerThread; i++) {
+                    station.enterStation(truck(offset + i), START.plusMinutes(i));
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        ready.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        List<ExchangeRecord> records = station.getExchangeRecords();
+        assertEquals(threads * trucksPerThread, records.size());
+        for (int i = 0; i < threads * trucksPerThread; i++) {
+            assertNotNull(station.getExchangeRecord(truck(i).getTruckNo(), 1));
+        }
+        assertNoOverlap(records);
+    }
+
+    @Test
+    public void rejectsStripesWithoutLaneOrBattery() {
+        SimClock clock = new SimClock(START);
+        assertThrows(IllegalArgumentException.class, () -> new StripedExchangeStationService("S1", 8, 2, 3, clock));
+        assertThrows(IllegalArgumentException.class, () -> new StripedExchangeStationService("S1", 2, 4, 3, clock));
+        assertThrows(IllegalArgumentException.class, () -> new StripedExchangeStationService("S1", 8, 4, 0, clock));
+    }
+
+    /**
+     * 同一通道的换电时间不重叠，同一块电池充满后才再次换上
+     */
+    private static void assertNoOverlap(List<ExchangeRecord> records) {
+        Map<Integer, LocalDateTime> laneFree = new HashMap<>();
+        Map<String, LocalDateTime> batteryReady = new HashMap<>();
+        for (ExchangeRecord record : records) {
+            LocalDateTime start = record.getStartExchangeTime();
+            LocalDateTime free = laneFree.get(record.getLaneNo());
+            assertFalse(free != null && start.isBefore(free), "lane " + record.getLaneNo() + " overlaps at " + start);
+            LocalDateTime ready = batteryReady.get(record.getPositionNo());
+            assertFalse(ready != null && start.isBefore(ready), "battery " + record.getPositionNo() + " reused at " + start);
+            laneFree.put(record.getLaneNo(), start.plusMinutes(ExchangeStationService.getExchangeDuration()));
+            batteryReady.put(record.getPositionNo(), record.getBatteryChargeCompleteTime());
+        }
+    }
+
+    private static Truck truck(int index) {
+        Truck truck = new Truck("粤G" + index, BigDecimal.valueOf(20 + index % 30), BigDecimal.valueOf(282));
+        truck.setTransportFrequency(1);
+        return truck;
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.dispatch.simulation;
+
+import com.example.dispatch.model.Battery;
+import com.example.dispatch.model.ExchangeRecord;
+import com.example.dispatch.model.Truck;
+import com.example.dispatch.service.ExchangeStationService;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 电池池测试
+ * 验证堆按充满时间（相同时按位置编号）出池，以及从检查点恢复后堆的顺序与恢复前一致
+ */
+public class BatteryPoolTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 6, 10, 8, 0);
+
+    /**
+     * 依次取出全部电池的位置编号，电池池被清空
+     */
+    private static List<String> drain(BatteryPool pool) {
+        List<String> order = new ArrayList<>();
+        for (Battery battery = pool.poll(); battery != null; battery = pool.poll()) {
+            order.add(battery.getPositionNo());
+        }
+        return order;
+    }
+
+    /**
+     * 与ExchangeStationService恢复检查点相同：清空后逐个放回电池副本
+     */
+    private static void restore(BatteryPool pool, List<Battery> saved) {
+        pool.clear();
+        for (Battery battery : saved) {
+            pool.add(new Battery(battery));
+        }
+    }
+
+    @Test
+    public void pollsByChargeCompleteTimeThenPositionNo() {
+        // 初始容量小于电池数量，验证扩容
+        BatteryPool pool = new BatteryPool(2);
+        pool.add(new Battery("4", 300));
+        pool.add(new Battery("2", 100));
+        pool.add(new Battery("3", 100));
+        pool.add(new Battery("1", 200));
+        pool.add(new Battery("0", 100));
+
+        assertEquals(5, pool.size());
+        assertEquals("0", pool.peek().getPositionNo());
+        assertEquals(Arrays.asList("0", "2", "3", "1", "4"), drain(pool));
+        assertTrue(pool.isEmpty());
+        assertNull(pool.poll());
+        assertNull(pool.peek());
+    }
+
+    @Test
+    public void countReadyCountsOnlyChargedBatteries() {
+        BatteryPool pool = new BatteryPool(5);
+        for (int i = 0; i < 5; i++) {
+            pool.add(new Battery(String.valueOf(i), i * 100L));
+        }
+        assertEquals(0, pool.countReady(-1));
+        assertEquals(1, pool.countReady(0));
+        assertEquals(3, pool.countReady(250));
+        assertEquals(5, pool.countReady(400));
+    }
+
+    @Test
+    public void smallestMatchesPollOrderWithoutRemoving() {
+        BatteryPool pool = new BatteryPool(8);
+        long[] times = {700, 100, 500, 100, 300, 900, 200, 300};
+        for (int i = 0; i < times.length; i++) {
+            pool.add(new Battery(String.valueOf(i), times[i]));
+        }
+
+        List<String> smallest = new ArrayList<>();
+        for (Battery battery : pool.smallest(5)) {
+            smallest.add(battery.getPositionNo());
+        }
+        assertEquals(Arrays.asList("1", "3", "6", "4", "7"), smallest);
+        assertEquals(8, pool.size());
+        assertEquals(8, pool.smallest(20).size());
+        assertTrue(pool.smallest(0).isEmpty());
+        assertEquals(Arrays.asList("1", "3", "6", "4", "7", "2", "0", "5"), drain(pool));
+    }
+
+    @Test
+    public void restoreKeepsHeapOrder() {
+        BatteryPool pool = new BatteryPool(6);
+        for (int i = 0; i < 6; i++) {
+            pool.add(new Battery(String.valueOf(i), 0));
+        }
+        // 换电：取出最早充满的电池，开始充电后放回，充满时间各不相同
+        for (int i = 0; i < 4; i++) {
+            Battery battery = pool.poll();
+            battery.startCharging(1000 + i * 2000, SimClock.minutes(i * 10));
+            pool.add(battery);
+        }
+        List<Battery> saved = new ArrayList<>();
+        for (Battery battery : pool.toList()) {
+            saved.add(new Battery(battery));
+        }
+
+        // 检查点之后继续换电，然后恢复
+        BatteryPool expected = new BatteryPool(6);
+        restore(expected, saved);
+        for (int i = 0; i < 3; i++) {
+            Battery battery = pool.poll();
+            battery.startCharging(500, SimClock.minutes(100 + i));
+            pool.add(battery);
+        }
+        restore(pool, saved);
+
+        assertEquals(6, pool.size());
+        List<String> order = new ArrayList<>();
+        long previous = Long.MIN_VALUE;
+        for (Battery battery = pool.poll(); battery != null; battery = pool.poll()) {
+            assertTrue(battery.getChargeCompleteTime() >= previous);
+            previous = battery.getChargeCompleteTime();
+            order.add(battery.getPositionNo());
+        }
+        assertEquals(drain(expected), order);
+    }
+
+    @Test
+    public void stationRestoreReplaysSameBatteries() {
+        SimClock clock = new SimClock(START);
+        ExchangeStationService station = new ExchangeStationService("S1", 4, 2, clock);
+        for (int i = 0; i < 6; i++) {
+            station.enterStation(truck(i, 1), START.plusMinutes(i * 3));
+        }
+        StationCheckpoint checkpoint = station.checkpoint();
+
+        List<String> first = exchangeAfterCheckpoint(station);
+        station.restore(checkpoint);
+        List<String> second = exchangeAfterCheckpoint(station);
+
+        assertEquals(first, second);
+        assertEquals(6 + first.size(), station.getExchangeRecords().size());
+    }
+
+    private static List<String> exchangeAfterCheckpoint(ExchangeStationService station) {
+        List<String> positions = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Truck truck = truck(i, 2);
+            station.enterStation(truck, START.plusHours(1).plusMinutes(i * 2));
+            ExchangeRecord record = station.getExchangeRecord(truck.getTruckNo(), 2);
+            positions.add(record.getPositionNo() + "@" + record.getStartExchangeTime());
+        }
+        return positions;
+    }
+
+    private static Truck truck(int index, int transportFrequency) {
+        Truck truck = new Truck("粤G0" + index, BigDecimal.valueOf(20 + index * 5), BigDecimal.valueOf(282));
+        truck.setTransportFrequency(transportFrequency);
+        return truck;
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.dispatch.simulation;
+
+import com.example.dispatch.model.ExchangeRecord;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 换电记录台账测试
+ * 验证截断后（车牌号，运输次数）索引回到同一趟更早的记录，以及不保留全部记录时的查询
+ */
+public class ExchangeLedgerTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 6, 10, 8, 0);
+
+    private static ExchangeRecord record(String truckNo, int transportFrequency, int startMinutes) {
+        LocalDateTime startTime = START.plusMinutes(startMinutes);
+        return new ExchangeRecord(truckNo, BigDecimal.valueOf(30), BigDecimal.valueOf(282), startTime, startTime,
+                startTime, 60, startTime.plusMinutes(65), "1", transportFrequency);
+    }
+
+    @Test
+    public void truncateRestoresEarlierRecordOfSameTrip() {
+        ExchangeLedger ledger = new ExchangeLedger();
+        ExchangeRecord first = record("A", 1, 0);
+        ExchangeRecord repeated = record("A", 1, 10);   // 重新规划后同一趟再次换电
+        ExchangeRecord other = record("B", 1, 20);
+        ExchangeRecord next = record("A", 2, 30);
+        ledger.add(first);
+        ledger.add(repeated);
+        ledger.add(other);
+        ledger.add(next);
+
+        assertSame(repeated, ledger.get("A", 1));
+        assertSame(next, ledger.getLatest("A"));
+
+        ledger.truncate(3);
+        assertEquals(3, ledger.size());
+        assertNull(ledger.get("A", 2));
+        assertSame(repeated, ledger.get("A", 1));
+        assertSame(repeated, ledger.getLatest("A"));
+
+        ledger.truncate(1);
+        assertEquals(1, ledger.size());
+        assertSame(first, ledger.get("A", 1));
+        assertSame(first, ledger.getLatest("A"));
+        assertNull(ledger.get("B", 1));
+        assertNull(ledger.getLatest("B"));
+        assertEquals(Collections.singletonList(first), ledger.getStartedBetween(START, START.plusHours(1)));
+
+        ledger.truncate(0);
+        assertNull(ledger.get("A", 1));
+        assertNull(ledger.getLatest("A"));
+        assertTrue(ledger.getRecords().isEmpty());
+    }
+
+    @Test
+    public void truncateKeepsRecordsWithSameStartTime() {
+        ExchangeLedger ledger = new ExchangeLedger();
+        ExchangeRecord a = record("A", 1, 0);
+        ExchangeRecord b = record("B", 1, 0);
+        ledger.add(a);
+        ledger.add(b);
+
+        ledger.truncate(1);
+        assertEquals(Collections.singletonList(a), ledger.getStartedBetween(START, START.plusMinutes(1)));
+    }
+
+    @Test
+    public void withoutRetainedRecordsOnlyLatestPerTruckIsKept() {
+        ExchangeLedger ledger = new ExchangeLedger();
+        ledger.setRetainRecords(false);
+        ExchangeRecord first = record("A", 1, 0);
+        ExchangeRecord second = record("A", 2, 10);
+        ExchangeRecord other = record("B", 1, 20);
+        ledger.add(first);
+        ledger.add(second);
+        ledger.add(other);
+
+        assertNull(ledger.get("A", 1));
+        assertSame(second, ledger.get("A", 2));
+        assertSame(second, ledger.getLatest("A"));
+        assertSame(other, ledger.get("B", 1));
+
+        // 不保留全部记录时没有按生成顺序和开始换电时间的记录
+        assertEquals(0, ledger.size());
+        assertTrue(ledger.getRecords().isEmpty());
+        assertTrue(ledger.getStartedBetween(START, START.plusHours(1)).isEmpty());
+
+        // 没有可截断的记录，每辆车最近的记录不受影响
+        ledger.truncate(0);
+        assertSame(second, ledger.getLatest("A"));
+    }
+
+    @Test
+    public void addCorrectsTimeOrder() {
+        ExchangeLedger ledger = new ExchangeLedger();
+        ExchangeRecord record = record("A", 1, 10);
+        record.setStartExchangeTime(START);
+        ledger.add(record);
+
+        assertEquals(record.getStartAwaitTime(), record.getStartExchangeTime());
+        assertEquals(Collections.singletonList(record), ledger.getStartedBetween(START.plusMinutes(10), START.plusMinutes(11)));
+    }
+
+    @Test
+    public void getRecordsReturnsSnapshot() {
+        ExchangeLedger ledger = new ExchangeLedger();
+        ledger.add(record("A", 1, 0));
+        List<ExchangeRecord> snapshot = ledger.getRecords();
+        ledger.add(record("A", 2, 10));
+
+        assertEquals(1, snapshot.size());
+        assertEquals(2, ledger.getRecords().size());
+    }
+}
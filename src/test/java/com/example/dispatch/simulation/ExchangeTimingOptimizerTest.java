@@ -0,0 +1,178 @@
+package com.example.dispatch.simulation;
+
+import com.example.dispatch.util.ExchangeRule;
+import com.example.dispatch.util.SocFixedPoint;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 换电时机优化器测试
+ * 验证方案可行（每一趟卸货时SOC不高于换电阈值必须换电、全程SOC不为负）、
+ * 动态规划回溯得到的方案与穷举结果一致，以及200辆车12小时的求解时间
+ */
+public class ExchangeTimingOptimizerTest {
+
+    private static final long LOADED_LEG = SimClock.minutes(60);
+    private static final long RETURN_LEG = SimClock.minutes(45);
+    private static final long TO_STATION = SimClock.minutes(20);
+    private static final long FROM_STATION = SimClock.minutes(30);
+    private static final long SERVICE_TIME = SimClock.minutes(5);
+    private static final int LANES = 2;
+
+    private static final int LOADED_SOC = 1800;
+    private static final int RETURN_SOC = 1000;
+    private static final int TO_STATION_SOC = 400;
+    private static final int FROM_STATION_SOC = 700;
+    // 一趟完整运输 + 返回装货点 + 5%安全裕度
+    private static final int REQUIRED_SOC = SocFixedPoint.ofPercent(ExchangeRule.requiredSoc(28, 10, 5));
+    private static final double CAPACITY = 282;
+
+    // 8时开始的分时电价
+    private static final double[] PRICES = {0.6, 0.6, 0.8, 0.8, 0.6, 0.6, 1.0, 1.0, 1.0, 1.0, 1.0, 0.6};
+
+    private static ExchangeTimingOptimizer optimizer(int size, double[] prices, double terminalPrice, double waitCost) {
+        return new ExchangeTimingOptimizer(LOADED_LEG, RETURN_LEG, TO_STATION, FROM_STATION, SERVICE_TIME, LANES,
+                prices, terminalPrice, waitCost, size);
+    }
+
+    private static void setTruck(ExchangeTimingOptimizer optimizer, int index, long readyTime, int trips, int initialSoc) {
+        optimizer.setTruck(index, readyTime, trips, initialSoc, LOADED_SOC, RETURN_SOC, TO_STATION_SOC, FROM_STATION_SOC,
+                REQUIRED_SOC, CAPACITY);
+    }
+
+    /**
+     * 按方案逐趟推演SOC，不可行时返回-1，否则返回换电次数
+     */
+    private static int swapsIfFeasible(boolean[] plan, int initialSoc) {
+        int soc = initialSoc;
+        int swaps = 0;
+        for (boolean swap : plan) {
+            soc -= LOADED_SOC;
+            if (soc < 0) {
+                return -1;
+            }
+            if (swap) {
+                if (soc - TO_STATION_SOC < 0) {
+                    return -1;
+                }
+                soc = SocFixedPoint.FULL - FROM_STATION_SOC;
+                swaps++;
+            } else {
+                if (ExchangeRule.needsExchange(soc, REQUIRED_SOC)) {
+                    return -1;
+                }
+                soc -= RETURN_SOC;
+            }
+        }
+        return swaps;
+    }
+
+    /**
+     * 穷举全部方案中可行方案的最少换电次数
+     */
+    private static int minimumSwaps(int trips, int initialSoc) {
+        int best = Integer.MAX_VALUE;
+        for (int mask = 0; mask < 1 << trips; mask++) {
+            boolean[] plan = new boolean[trips];
+            for (int trip = 0; trip < trips; trip++) {
+                plan[trip] = (mask & 1 << trip) != 0;
+            }
+            int swaps = swapsIfFeasible(plan, initialSoc);
+            if (swaps >= 0) {
+                best = Math.min(best, swaps);
+            }
+        }
+        return best;
+    }
+
+    @Test
+    public void planKeepsEveryTripAboveRequiredSoc() {
+        int size = 20;
+        ExchangeTimingOptimizer optimizer = optimizer(size, PRICES, 0.3, 1.0);
+        int[] initialSocs = new int[size];
+        for (int i = 0; i < size; i++) {
+            initialSocs[i] = 5000 + i * 250;
+            setTruck(optimizer, i, SimClock.minutes(i * 3), 7, initialSocs[i]);
+        }
+        boolean[][] plans = optimizer.optimize();
+        for (int i = 0; i < size; i++) {
+            assertNotNull(plans[i]);
+            assertEquals(7, plans[i].length);
+            assertTrue(swapsIfFeasible(plans[i], initialSocs[i]) >= 0, "truck " + i + " plan is infeasible");
+        }
+    }
+
+    @Test
+    public void lowInitialSocSwapsAfterFirstTrip() {
+        ExchangeTimingOptimizer optimizer = optimizer(1, PRICES, 0.3, 1.0);
+        // 卸货时SOC为32%，不高于换电阈值
+        setTruck(optimizer, 0, 0, 5, 5000);
+        boolean[] plan = optimizer.optimize()[0];
+        assertTrue(plan[0]);
+        assertTrue(swapsIfFeasible(plan, 5000) >= 0);
+    }
+
+    @Test
+    public void backtrackingFindsMinimumSwapsWithFlatPrices() {
+        // 电价不变且没有排队成本时，每次换电多走的路程使成本增加，最优方案的换电次数最少
+        double[] flat = {0.6};
+        for (int initialSoc = 4500; initialSoc <= SocFixedPoint.FULL; initialSoc += 500) {
+            for (int trips = 1; trips <= 10; trips++) {
+                ExchangeTimingOptimizer optimizer = optimizer(1, flat, 0.6, 0);
+                setTruck(optimizer, 0, 0, trips, initialSoc);
+                boolean[] plan = optimizer.optimize()[0];
+                assertEquals(minimumSwaps(trips, initialSoc), swapsIfFeasible(plan, initialSoc),
+                        "initialSoc=" + initialSoc + ", trips=" + trips);
+            }
+        }
+    }
+
+    @Test
+    public void infeasibleTruckGetsEmptyPlan() {
+        ExchangeTimingOptimizer optimizer = optimizer(1, PRICES, 0.3, 1.0);
+        // 第一趟到不了卸货点，交由模拟中的换电判断处理
+        setTruck(optimizer, 0, 0, 4, 1000);
+        assertArrayEquals(new boolean[4], optimizer.optimize()[0]);
+    }
+
+    @Test
+    public void trucksWithoutTripsAreSkipped() {
+        ExchangeTimingOptimizer optimizer = optimizer(2, PRICES, 0.3, 1.0);
+        setTruck(optimizer, 0, 0, 3, 9000);
+        boolean[][] plans = optimizer.optimize();
+        assertNotNull(plans[0]);
+        assertNull(plans[1]);
+    }
+
+    @Test
+    public void twoHundredTrucksOverTwelveHoursSolveWithinOneSecond() {
+        int size = 200;
+        int trips = (int) (SimClock.minutes(12 * 60) / (LOADED_LEG + RETURN_LEG));
+        // 预热一次，排除类加载和解释执行的影响
+        solveFleet(size, trips);
+        boolean[][] plans = assertTimeoutPreemptively(Duration.ofSeconds(1), () -> solveFleet(size, trips));
+        for (int i = 0; i < size; i++) {
+            assertTrue(swapsIfFeasible(plans[i], initialSoc(i)) >= 0, "truck " + i + " plan is infeasible");
+        }
+    }
+
+    private static int initialSoc(int index) {
+        return 5000 + index * 37 % 5000;
+    }
+
+    private static boolean[][] solveFleet(int size, int trips) {
+        ExchangeTimingOptimizer optimizer = optimizer(size, PRICES, 0.3, 1.0);
+        for (int i = 0; i < size; i++) {
+            setTruck(optimizer, i, SimClock.minutes(i % 60), trips, initialSoc(i));
+        }
+        return optimizer.optimize();
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.dispatch.util;
+
+import com.example.dispatch.constant.LocationConstants;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * SocFixedPoint与原BigDecimal算法逐位对比
+ * 参考实现即改为定点数之前TransportService的SOC消耗和Battery/ExchangeStationService的充电时长计算
+ */
+public class SocFixedPointTest {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100.0).setScale(2, RoundingMode.HALF_UP);
+    private static final BigDecimal ENERGY_CONSUMPTION = BigDecimal.valueOf(1.4).setScale(2, RoundingMode.HALF_UP);
+    private static final BigDecimal CHARGE_RATE = BigDecimal.valueOf(4.7).setScale(2, RoundingMode.HALF_UP);
+
+    // 线上电池容量，以及capacity/100恰好落在0.005上的容量
+    private static final BigDecimal[] CAPACITIES = {
+            LocationConstants.DEFAULT_BATTERY_CAPACITY_DECIMAL_KWH, new BigDecimal("280.00"), new BigDecimal("100.50"), new BigDecimal("350.25")
+    };
+
+    /**
+     * 原TransportService的SOC消耗：距离 × 能耗 / 容量，四舍五入到0.01后 × 100%
+     */
+    private static BigDecimal referenceConsumption(int distanceKm, BigDecimal energyConsumption, BigDecimal capacity) {
+        return BigDecimal.valueOf(distanceKm).multiply(energyConsumption)
+                .divide(capacity, 2, RoundingMode.HALF_UP)
+                .multiply(HUNDRED)
+                .setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * 原Battery的充电时长：(100 - SOC) × (容量/100) / 充电速率，四舍五入到0.01后向上取整
+     */
+    private static int referenceChargeMinutes(BigDecimal soc, BigDecimal capacity, BigDecimal chargeRate) {
+        BigDecimal socDiff = HUNDRED.subtract(soc);
+        BigDecimal capacityPer = capacity.divide(HUNDRED, 2, RoundingMode.HALF_UP);
+        BigDecimal chargeDuration = socDiff.multiply(capacityPer).divide(chargeRate, 2, RoundingMode.HALF_UP);
+        return chargeDuration.setScale(0, RoundingMode.CEILING).intValue();
+    }
+
+    @Test
+    public void consumptionMatchesBigDecimal() {
+        int energy = SocFixedPoint.of(ENERGY_CONSUMPTION);
+        for (BigDecimal capacity : CAPACITIES) {
+            for (int distance = 0; distance < 500; distance++) {
+                assertEquals(SocFixedPoint.of(referenceConsumption(distance, ENERGY_CONSUMPTION, capacity)),
+                        SocFixedPoint.consumption(distance, energy, SocFixedPoint.of(capacity)),
+                        "distance=" + distance + ", capacity=" + capacity);
+            }
+        }
+    }
+
+    @Test
+    public void consumptionRoundsHalfUp() {
+        // 280kWh、1.4kWh/km：每公里0.005，1km恰好在舍入边界上
+        assertEquals(100, SocFixedPoint.consumption(1, 140, 28000));
+        assertEquals(200, SocFixedPoint.consumption(3, 140, 28000));
+        assertEquals(100, SocFixedPoint.consumption(2, 140, 28000));
+        assertEquals(0, SocFixedPoint.consumption(0, 140, 28000));
+    }
+
+    @Test
+    public void chargeMinutesMatchesBigDecimal() {
+        int chargeRate = SocFixedPoint.of(CHARGE_RATE);
+        for (BigDecimal capacity : CAPACITIES) {
+            for (int soc = -500; soc <= SocFixedPoint.FULL; soc++) {
+                assertEquals(referenceChargeMinutes(BigDecimal.valueOf(soc, 2), capacity, CHARGE_RATE),
+                        SocFixedPoint.chargeMinutes(soc, SocFixedPoint.of(capacity), chargeRate),
+                        "soc=" + soc + ", capacity=" + capacity);
+            }
+        }
+    }
+
+    @Test
+    public void chargeMinutesRoundsHalfUpThenCeiling() {
+        // 容量100kWh、4kWh/分钟：差0.02%时为0.005分钟，四舍五入为0.01后向上取整为1分钟
+        assertEquals(1, SocFixedPoint.chargeMinutes(9998, 10000, 400));
+        assertEquals(referenceChargeMinutes(new BigDecimal("99.98"), HUNDRED, new BigDecimal("4.00")),
+                SocFixedPoint.chargeMinutes(9998, 10000, 400));
+        // 差0.01%时为0.0025分钟，舍去为0
+        assertEquals(0, SocFixedPoint.chargeMinutes(9999, 10000, 400));
+        // 整分钟不向上取整
+        assertEquals(25, SocFixedPoint.chargeMinutes(0, 10000, 400));
+        // 容量100.50kWh时capacity/100 = 1.005，四舍五入为1.01
+        assertEquals(referenceChargeMinutes(BigDecimal.ZERO, new BigDecimal("100.50"), new BigDecimal("4.00")),
+                SocFixedPoint.chargeMinutes(0, 10050, 400));
+    }
+
+    @Test
+    public void conversionsRoundHalfUp() {
+        assertEquals(1235, SocFixedPoint.of(new BigDecimal("12.345")));
+        assertEquals(1234, SocFixedPoint.of(new BigDecimal("12.3449")));
+        assertEquals(-1, SocFixedPoint.of(new BigDecimal("-0.005")));
+        assertEquals(8200, SocFixedPoint.ofPercent(82.0));
+        assertEquals(new BigDecimal("82.00"), SocFixedPoint.toDecimal(8200));
+    }
+
+    @Test
+    public void divideHalfUpRoundsAwayFromZero() {
+        assertEquals(1, SocFixedPoint.divideHalfUp(5, 10));
+        assertEquals(0, SocFixedPoint.divideHalfUp(4, 10));
+        assertEquals(-1, SocFixedPoint.divideHalfUp(-5, 10));
+        assertEquals(0, SocFixedPoint.divideHalfUp(-4, 10));
+    }
+}